@@ -0,0 +1,136 @@
+package hex.gram;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import water.H2O;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static water.TestUtil.stall_till_cloudsize;
+
+/**
+ * Cholesky micro-benchmark on a dense n x n Gram.  Compares the factorization
+ * of Gram.cholesky's dense block by InPlaceCholesky.decompose_2 on jagged rows
+ * with the packed, blocked BlockedCholesky.factor, and the row by row solve
+ * of Cholesky.solve with the blocked parallel BlockedCholesky.solve.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CholeskyBench {
+
+  @Param({"1000", "5000", "10000"})
+  private int n;
+
+  private int _threads;
+  private double[][] _xx;     // Lower triangle of the Gram
+  private double[][] _work;   // Copy factored in place
+  private double[][] _l;      // Its factor
+  private double[] _y;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(CholeskyBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    stall_till_cloudsize(1);
+    _threads = Runtime.getRuntime().availableProcessors();
+    Random rnd = new Random(0xBEEF);
+    _xx = new double[n][];
+    for (int i = 0; i < n; i++) {
+      _xx[i] = new double[i + 1];
+      for (int j = 0; j < i; j++)
+        _xx[i][j] = rnd.nextDouble() - 0.5;
+      _xx[i][i] = n;          // Diagonally dominant, hence positive definite
+    }
+    _l = copy(_xx);
+    final double[] packed = BlockedCholesky.pack(_l, 0);
+    inFJ(new Runnable() {
+      @Override public void run() { BlockedCholesky.factor(packed, n, _threads); }
+    });
+    BlockedCholesky.unpack(packed, _l, 0);
+    _y = new double[n];
+    for (int i = 0; i < n; i++)
+      _y[i] = rnd.nextGaussian();
+  }
+
+  @Setup(Level.Invocation)
+  public void copyGram() {
+    _work = copy(_xx);
+  }
+
+  private static double[][] copy(double[][] xx) {
+    double[][] res = new double[xx.length][];
+    for (int i = 0; i < xx.length; i++) res[i] = xx[i].clone();
+    return res;
+  }
+
+  // The fork-join code expects to run in the pool
+  private static void inFJ(final Runnable r) {
+    H2O.submitTask(new H2O.H2OCountedCompleter() {
+      @Override public void compute2() {
+        r.run();
+        tryComplete();
+      }
+    }).join();
+  }
+
+  @Benchmark
+  public double[][] factorDecompose2() {
+    inFJ(new Runnable() {
+      @Override public void run() { Gram.InPlaceCholesky.decompose_2(_work, 10, _threads); }
+    });
+    return _work;
+  }
+
+  @Benchmark
+  public double[][] factorBlocked() {
+    inFJ(new Runnable() {
+      @Override public void run() {
+        double[] packed = BlockedCholesky.pack(_work, 0);
+        BlockedCholesky.factor(packed, n, _threads);
+        BlockedCholesky.unpack(packed, _work, 0);
+      }
+    });
+    return _work;
+  }
+
+  @Benchmark
+  public double[] solveRowByRow() {
+    double[] y = _y.clone();
+    // Cholesky.solve below BlockedCholesky.PARALLEL_SOLVE_N
+    for (int k = 0; k < n; ++k) {
+      double d = 0;
+      for (int i = 0; i < k; i++)
+        d += y[i] * _l[k][i];
+      y[k] = (y[k] - d) / _l[k][k];
+    }
+    for (int k = n - 1; k >= 0; --k) {
+      y[k] /= _l[k][k];
+      for (int i = 0; i < k; ++i)
+        y[i] -= y[k] * _l[k][i];
+    }
+    return y;
+  }
+
+  @Benchmark
+  public double[] solveBlocked() {
+    final double[] y = _y.clone();
+    inFJ(new Runnable() {
+      @Override public void run() { BlockedCholesky.solve(_l, new double[0], y, _threads); }
+    });
+    return y;
+  }
+}
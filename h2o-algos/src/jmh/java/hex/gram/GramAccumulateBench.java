@@ -0,0 +1,140 @@
+package hex.gram;
+
+import hex.DataInfo;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+import static water.TestUtil.stall_till_cloudsize;
+
+/**
+ * Gram accumulation micro-benchmark: the Gram of rows x (cols numeric + two
+ * 50-level categorical) predictors with an intercept, built chunk by chunk
+ * and reduced over a binary tree of chunks the way GLMIterationTask does it.
+ * Compares Gram.addRow row by row, merged with Gram.add, with tiles of rows
+ * added by BlockedGram, merged packed and folded into the Gram at the end.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GramAccumulateBench {
+
+  private static final int CHUNK_SIZE = 1000;
+  private static final int CAT_LEVELS = 50;
+
+  @Param({"1", "8"})
+  private int threads;
+
+  @Param({"20000"})
+  private int rows;
+
+  @Param({"100", "1000", "3000"})
+  private int cols;
+
+  private ForkJoinPool _pool;
+  private Frame _fr;
+  private DataInfo _dinfo;
+  private DataInfo.Row[] _rows;
+  private double[] _ws;
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(GramAccumulateBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    stall_till_cloudsize(1);
+    _pool = new ForkJoinPool(threads);
+    // Rows only need a DataInfo to belong to; the Gram layout is set up by hand
+    _fr = new Frame(Vec.makeZero(1));
+    _dinfo = new DataInfo(_fr, null, 0, true, DataInfo.TransformType.NONE, DataInfo.TransformType.NONE, false, false, false, false, false, false);
+    Random rnd = new Random(0xBEEF);
+    _rows = new DataInfo.Row[rows];
+    _ws = new double[rows];
+    for (int r = 0; r < rows; r++) {
+      double[] nums = new double[cols];
+      for (int c = 0; c < cols; c++)
+        nums[c] = rnd.nextGaussian();
+      DataInfo.Row row = _dinfo.newDenseRow(nums, r);
+      row.binIds = new int[]{rnd.nextInt(CAT_LEVELS), CAT_LEVELS + rnd.nextInt(CAT_LEVELS)};
+      row.nBins = 2;
+      _rows[r] = row;
+      _ws[r] = rnd.nextDouble();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    _pool.shutdown();
+    _dinfo.remove();
+    _fr.delete();
+  }
+
+  private Gram newGram() {
+    return new Gram(2 * CAT_LEVELS + cols, CAT_LEVELS, cols, 2, true);
+  }
+
+  @Benchmark
+  public Gram accumulateRowByRow() {
+    return _pool.invoke(new Chunks<Gram>(0, (rows + CHUNK_SIZE - 1) / CHUNK_SIZE) {
+      @Override Gram chunk(int lo, int hi) {
+        Gram g = newGram();
+        for (int r = lo; r < hi; r++) g.addRow(_rows[r], _ws[r]);
+        return g;
+      }
+      @Override Gram reduce(Gram a, Gram b) { a.add(b); return a; }
+    });
+  }
+
+  @Benchmark
+  public Gram accumulateBlocked() {
+    return _pool.invoke(new Chunks<BlockedGram>(0, (rows + CHUNK_SIZE - 1) / CHUNK_SIZE) {
+      @Override BlockedGram chunk(int lo, int hi) {
+        BlockedGram bg = new BlockedGram(newGram());
+        for (int r = lo; r < hi; r++) bg.addRow(_rows[r], _ws[r]);
+        return bg;
+      }
+      @Override BlockedGram reduce(BlockedGram a, BlockedGram b) { a.add(b); return a; }
+    }).fold();
+  }
+
+  // Binary split over chunks, partial results reduced on the way back up
+  private abstract class Chunks<T> extends RecursiveTask<T> {
+    final int _lo, _hi;
+    Chunks(int lo, int hi) { _lo = lo; _hi = hi; }
+    abstract T chunk(int lo, int hi);
+    abstract T reduce(T a, T b);
+    @Override protected T compute() {
+      if (_hi - _lo == 1) return chunk(_lo * CHUNK_SIZE, Math.min(rows, (_lo + 1) * CHUNK_SIZE));
+      final Chunks<T> self = this;
+      int mid = (_lo + _hi) >>> 1;
+      Chunks<T> left = new Chunks<T>(_lo, mid) {
+        @Override T chunk(int lo, int hi) { return self.chunk(lo, hi); }
+        @Override T reduce(T a, T b) { return self.reduce(a, b); }
+      };
+      Chunks<T> rite = new Chunks<T>(mid, _hi) {
+        @Override T chunk(int lo, int hi) { return self.chunk(lo, hi); }
+        @Override T reduce(T a, T b) { return self.reduce(a, b); }
+      };
+      rite.fork();
+      T l = left.compute();
+      return reduce(l, rite.join());
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package hex.kmeans;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import water.DKV;
+import water.Key;
+import water.MRTask;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.Vec;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static water.TestUtil.stall_till_cloudsize;
+
+/**
+ * KMeans training benchmark: k clusters over rows x cols gaussian blobs,
+ * trained from the same Furthest initialization by each of the algorithms.
+ * Lloyds computes every row's distance to every center, Hamerly skips the
+ * rows its bounds rule out, and MiniBatch samples a tenth of the chunks per
+ * iteration.  Next to the time, the iterations and the within-cluster sum
+ * of squares reached are reported as secondary results, for comparing
+ * convergence.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class KMeansBench {
+
+  private static final int BLOBS = 50;
+
+  @Param({"Lloyds", "Hamerly", "MiniBatch"})
+  private KMeans.Algorithm algorithm;
+
+  @Param({"1000000"})
+  private int rows;
+
+  @Param({"10"})
+  private int cols;
+
+  @Param({"10", "100"})
+  private int k;
+
+  private Frame _fr;
+  private KMeansModel _last;
+
+  // Every training reaches the same model, so each iteration reports the values of its last one
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  @State(Scope.Thread)
+  public static class Convergence {
+    public long iterations;
+    public double withinss;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(KMeansBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    stall_till_cloudsize(1);
+    Random rnd = new Random(0xBEEF);
+    final double[][] blobs = new double[BLOBS][cols];
+    for (double[] blob : blobs)
+      for (int c = 0; c < cols; c++)
+        blob[c] = rnd.nextDouble() * 100;
+    Vec layout = Vec.makeZero(rows);
+    Vec[] vecs = layout.makeZeros(cols);
+    layout.remove();
+    String[] names = new String[cols];
+    for (int c = 0; c < cols; c++) names[c] = "x" + c;
+    new MRTask() {
+      @Override public void map(Chunk[] cs) {
+        Random rnd = new Random(0xBEEF + cs[0].start());
+        for (int r = 0; r < cs[0]._len; r++) {
+          double[] blob = blobs[rnd.nextInt(BLOBS)];
+          for (int c = 0; c < cs.length; c++)
+            cs[c].set(r, blob[c] + 5 * rnd.nextGaussian());
+        }
+      }
+    }.doAll(vecs);
+    _fr = new Frame(Key.<Frame>make(), names, vecs);
+    DKV.put(_fr);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (_last != null) _last.delete();
+    _fr.delete();
+  }
+
+  @Benchmark
+  public KMeansModel train(Convergence convergence) {
+    KMeansModel.KMeansParameters parms = new KMeansModel.KMeansParameters();
+    parms._train = _fr._key;
+    parms._k = k;
+    parms._max_iterations = 100;
+    parms._standardize = false;
+    parms._init = KMeans.Initialization.Furthest;
+    parms._seed = 1234;
+    parms._algorithm = algorithm;
+    parms._batch_fraction = 0.1;
+    if (_last != null) _last.delete();
+    _last = new KMeans(parms).trainModel().get();
+    convergence.iterations = _last._output._iterations;
+    convergence.withinss = _last._output._tot_withinss;
+    return _last;
+  }
+}
@@ -0,0 +1,234 @@
+package hex.tree;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import water.util.ArrayUtils;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static water.TestUtil.stall_till_cloudsize;
+
+/**
+ * Histogram accumulation micro-benchmark: one tree level of histograms over
+ * rows x cols data, built the way ScoreBuildHistogram2 does it.  Compares
+ * the previous per-worker DHistogram clones (AoS updateHisto + DHistogram.add
+ * merge) with shared histograms and private struct-of-arrays accumulators
+ * (updateHistoSoA + element-wise merge).
+ *
+ * To keep the memory footprint sane, the columns cycle over a small set of
+ * distinct data arrays; every column still gets its own histograms.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HistogramBuildBench {
+
+  private static final int NBINS = 20;
+  private static final int CHUNK_SIZE = 8192;
+  private static final int DISTINCT_COLS = 8;
+
+  @Param({"8", "32", "64"})
+  private int threads;
+
+  @Param({"1000000"})
+  private int rows;
+
+  @Param({"500"})
+  private int cols;
+
+  @Param({"1", "16"})
+  private int leaves;
+
+  private ForkJoinPool _pool;
+  private double[][] _data;   // DISTINCT_COLS x rows
+  private double[] _ys;
+  private double[] _ws;
+  private int[][] _rows;      // per chunk: row indices sorted by leaf
+  private int[][] _nh;        // per chunk: leaf boundaries in _rows
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+            .include(HistogramBuildBench.class.getSimpleName())
+            .build();
+
+    new Runner(opt).run();
+  }
+
+  @Setup(Level.Trial)
+  public void setup() {
+    stall_till_cloudsize(1);
+    _pool = new ForkJoinPool(threads);
+    Random rnd = new Random(0xBEEF);
+    _data = new double[DISTINCT_COLS][rows];
+    for (double[] col : _data)
+      for (int r = 0; r < rows; r++)
+        col[r] = rnd.nextDouble() * 100;
+    _ys = new double[rows];
+    _ws = new double[rows];
+    for (int r = 0; r < rows; r++) {
+      _ys[r] = rnd.nextGaussian();
+      _ws[r] = 1;
+    }
+    int nchunks = (rows + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    _rows = new int[nchunks][];
+    _nh = new int[nchunks][];
+    for (int c = 0; c < nchunks; c++) {
+      int lo = c * CHUNK_SIZE, len = Math.min(CHUNK_SIZE, rows - lo);
+      int[] leaf = new int[len];
+      int[] nh = new int[leaves + 1];
+      for (int i = 0; i < len; i++) nh[(leaf[i] = rnd.nextInt(leaves)) + 1]++;
+      for (int l = 0; l < leaves; l++) nh[l + 1] += nh[l];
+      int[] rs = new int[len];
+      for (int i = 0; i < len; i++) rs[nh[leaf[i]]++] = lo + i;
+      _rows[c] = rs;
+      _nh[c] = nh;
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    _pool.shutdown();
+  }
+
+  private DHistogram[][] makeHistos() {
+    DHistogram[][] hcs = new DHistogram[cols][leaves];
+    for (int c = 0; c < cols; c++)
+      for (int l = 0; l < leaves; l++)
+        hcs[c][l] = new DHistogram("C" + c, NBINS, NBINS, (byte) 0, 0, 100, 0,
+                SharedTreeModel.SharedTreeParameters.HistogramType.UniformAdaptive, 42, null);
+    return hcs;
+  }
+
+  // Same worker split as ScoreBuildHistogram2: columns first, then rows within a column
+  private int workersPerCol() {
+    return leaves * cols < 16 * 1024 ? threads : Math.min(threads, Math.max(4 * threads / cols, 1));
+  }
+
+  @Benchmark
+  public DHistogram[][] buildClonedAoS() {
+    final DHistogram[][] hcs = makeHistos();
+    final int nwrks = workersPerCol();
+    _pool.invoke(new Cols(0, cols) {
+      @Override Object column(final int c) {
+        // Every worker but the first gets its own copy, all made before any
+        // of them starts filling in, as LocalMR does with makeCopy
+        final DHistogram[][] lhs = new DHistogram[nwrks][];
+        lhs[0] = hcs[c];
+        for (int w = 1; w < nwrks; w++) lhs[w] = ArrayUtils.deepClone(hcs[c]);
+        DHistogram[] res = new ColWorker<DHistogram[]>(nwrks, new AtomicInteger()) {
+          @Override DHistogram[] work(AtomicInteger cidx, int w) {
+            DHistogram[] lh = lhs[w];
+            double[] cs = _data[c % DISTINCT_COLS];
+            for (int i = cidx.getAndIncrement(); i < _rows.length; i = cidx.getAndIncrement())
+              for (int l = 0; l < leaves; l++) {
+                int lo = l == 0 ? 0 : _nh[i][l - 1], hi = _nh[i][l];
+                if (hi == lo) continue;
+                if (lh[l]._vals == null) lh[l].init();
+                lh[l].updateHisto(_ws, cs, _ys, _rows[i], hi, lo);
+              }
+            return lh;
+          }
+          @Override DHistogram[] merge(DHistogram[] a, DHistogram[] b) {
+            for (int l = 0; l < a.length; l++) a[l].add(b[l]);
+            return a;
+          }
+        }.invoke();
+        return res;
+      }
+    });
+    return hcs;
+  }
+
+  @Benchmark
+  public DHistogram[][] buildSharedSoA() {
+    final DHistogram[][] hcs = makeHistos();
+    for (DHistogram[] hs : hcs)
+      for (DHistogram h : hs) h.init();
+    final int nwrks = workersPerCol();
+    _pool.invoke(new Cols(0, cols) {
+      @Override Object column(final int c) {
+        final DHistogram[] lh = hcs[c];
+        double[][] acc = new ColWorker<double[][]>(nwrks, new AtomicInteger()) {
+          @Override double[][] work(AtomicInteger cidx, int w) {
+            double[][] acc = new double[leaves][];
+            double[] minmax = new double[]{Double.MAX_VALUE, -Double.MAX_VALUE};
+            int[] bins = new int[CHUNK_SIZE];
+            double[] cs = _data[c % DISTINCT_COLS];
+            for (int i = cidx.getAndIncrement(); i < _rows.length; i = cidx.getAndIncrement())
+              for (int l = 0; l < leaves; l++) {
+                int lo = l == 0 ? 0 : _nh[i][l - 1], hi = _nh[i][l];
+                if (hi == lo) continue;
+                if (acc[l] == null) acc[l] = lh[l].makeSoA();
+                lh[l].updateHistoSoA(acc[l], minmax, bins, _ws, cs, _ys, _rows[i], hi, lo);
+              }
+            return acc;
+          }
+          @Override double[][] merge(double[][] a, double[][] b) {
+            for (int l = 0; l < a.length; l++)
+              if (a[l] == null) a[l] = b[l];
+              else if (b[l] != null) ArrayUtils.add(a[l], b[l]);
+            return a;
+          }
+        }.invoke();
+        for (int l = 0; l < leaves; l++)
+          if (acc[l] != null) lh[l].addSoA(acc[l], 0, 100);
+        return acc;
+      }
+    });
+    return hcs;
+  }
+
+  // Binary split over columns
+  private static abstract class Cols extends RecursiveTask<Object> {
+    final int _lo, _hi;
+    Cols(int lo, int hi) { _lo = lo; _hi = hi; }
+    abstract Object column(int c);
+    @Override protected Object compute() {
+      if (_hi - _lo == 1) return column(_lo);
+      final Cols self = this;
+      int mid = (_lo + _hi) >>> 1;
+      Cols left = new Cols(_lo, mid) { @Override Object column(int c) { return self.column(c); } };
+      Cols rite = new Cols(mid, _hi) { @Override Object column(int c) { return self.column(c); } };
+      rite.fork();
+      left.compute();
+      rite.join();
+      return null;
+    }
+  }
+
+  // Binary split over the workers of one column, with a tree reduction of their results
+  private static abstract class ColWorker<T> extends RecursiveTask<T> {
+    final int _n;
+    final AtomicInteger _cidx;
+    final int _w;             // Index of the first worker in this split
+    ColWorker(int n, AtomicInteger cidx) { this(n, cidx, 0); }
+    private ColWorker(int n, AtomicInteger cidx, int w) { _n = n; _cidx = cidx; _w = w; }
+    abstract T work(AtomicInteger cidx, int w);
+    abstract T merge(T a, T b);
+    @Override protected T compute() {
+      if (_n == 1) return work(_cidx, _w);
+      final ColWorker<T> self = this;
+      ColWorker<T> left = new ColWorker<T>(_n / 2, _cidx, _w) {
+        @Override T work(AtomicInteger cidx, int w) { return self.work(cidx, w); }
+        @Override T merge(T a, T b) { return self.merge(a, b); }
+      };
+      ColWorker<T> rite = new ColWorker<T>(_n - _n / 2, _cidx, _w + _n / 2) {
+        @Override T work(AtomicInteger cidx, int w) { return self.work(cidx, w); }
+        @Override T merge(T a, T b) { return self.merge(a, b); }
+      };
+      rite.fork();
+      T l = left.compute();
+      return merge(l, rite.join());
+    }
+  }
+}
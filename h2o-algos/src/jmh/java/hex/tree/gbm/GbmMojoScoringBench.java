@@ -25,8 +25,12 @@ public class GbmMojoScoringBench {
   @Param({"1000", "100000"})
   private int rows;
 
+  @Param({"1024"})
+  private int batch;
+
   private SharedTreeMojoModel _mojo;
   private double[][] _data;
+  private double[][] _columns; // One block of batch rows, column-wise
 
   public static void main(String[] args) throws RunnerException {
     Options opt = new OptionsBuilder()
@@ -40,6 +44,10 @@ public class GbmMojoScoringBench {
   public void setup() throws IOException {
     _mojo = (SharedTreeMojoModel) ClasspathReaderBackend.loadMojo("prostate");
     _data = ProstateData.ROWS;
+    _columns = new double[_data[0].length][batch];
+    for (int i = 0; i < batch; i++)
+      for (int c = 0; c < _columns.length; c++)
+        _columns[c][i] = _data[i % _data.length][c];
   }
 
   @Benchmark
@@ -54,10 +62,24 @@ public class GbmMojoScoringBench {
     return sum;
   }
 
+  @Benchmark
+  public double measureGbmScoreBatch() throws Exception {
+    double sum = 0;
+    double[][] preds = new double[batch][3];
+    for (int i = 0; i < rows; i += batch) {
+      int n = Math.min(batch, rows - i);
+      _mojo.scoreBatch(_columns, null, n, preds);
+      for (int r = 0; r < n; r++)
+        sum += preds[r][1];
+    }
+    return sum;
+  }
+
   @TearDown(Level.Invocation)
   public void tearDown() {
     _mojo = null;
     _data = null;
+    _columns = null;
   }
 
 
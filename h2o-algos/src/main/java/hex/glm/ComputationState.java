@@ -405,7 +405,7 @@ public final class ComputationState {
     int [] activeCols = _activeData.activeCols();
     if(beta != _beta || _ginfo == null) {
       _gslvr = new GLMGradientSolver(_job, _parms, _dinfo, (1 - _alpha) * _lambda, _bc);
-      _ginfo = _gslvr.getGradient(beta);
+      _ginfo = Arrays.equals(beta, _gramGradBeta) ? gramGinfo(beta) : _gslvr.getGradient(beta);
     }
     double[] grad = _ginfo._gradient.clone();
     double err = 1e-4;
@@ -627,10 +627,56 @@ public final class ComputationState {
     }
   }
 
+  // Gradient of the full data, with no penalty, computed along with the last Gram at _gramGradBeta
+  private double [] _gramGradBeta;
+  private double [] _gramGrad;
+  private double _gramGradLikelihood;
+
+  /**
+   * Whether the Gram pass also computes the gradient of the full data.  The
+   * KKT check after each lambda of the search needs it at the final beta,
+   * which is the beta of the last Gram when IRLSM converges; fused, it costs
+   * a pass over the columns of every chunk instead of a scan of its own.
+   * Only the Gram expected to be the last one is fused: IRLSM converges once
+   * its beta moves by less than beta_epsilon (see converged).  A Gram at the
+   * very beta of the state is the first one of a lambda, always followed by
+   * another.  When IRLSM stops otherwise, checkKKTs makes a gradient pass.
+   */
+  private boolean fuseGradient(double [] beta) {
+    if(!_parms._lambda_search || beta == null || _beta == null || _activeClass != -1
+        || _parms._family == Family.multinomial || _parms._family == Family.ordinal
+        || (_parms._family == Family.gaussian && _parms._link == GLMParameters.Link.identity) // LSM solves once, the KKTs come after
+        || (_bc != null && _bc._betaGiven != null) || beta.length != _beta.length)
+      return false;
+    double betaDiff = ArrayUtils.linfnorm(ArrayUtils.subtract(_beta, beta), false);
+    return 0 < betaDiff && betaDiff < _parms._beta_epsilon;
+  }
+
+  // Gradient info at beta, made of the one computed with the last Gram the way GLMGradientSolver would make it
+  private GLMGradientInfo gramGinfo(double [] beta) {
+    double l2pen = l2pen();
+    double [] grad = _gramGrad.clone();
+    for(int j = 0; j < grad.length - 1; ++j)
+      grad[j] += l2pen * beta[j];
+    if(!_parms._intercept)
+      grad[grad.length - 1] = 0;
+    double obj = _gramGradLikelihood * _parms._obj_reg + .5 * l2pen * ArrayUtils.l2norm2(beta, true);
+    return new GLMGradientInfo(_gramGradLikelihood, obj, grad);
+  }
+
   protected GramXY computeNewGram(DataInfo activeData, double [] beta, GLMParameters.Solver s){
     double obj_reg = _parms._obj_reg;
     if(_glmw == null) _glmw = new GLMModel.GLMWeightsFun(_parms);
-    GLMTask.GLMIterationTask gt = new GLMTask.GLMIterationTask(_job._key, activeData, _glmw, beta,_activeClass).doAll(activeData._adaptedFrame);
+    GLMTask.GLMIterationTask gt = new GLMTask.GLMIterationTask(_job._key, activeData, _glmw, beta,_activeClass);
+    double [] fullBeta = null;
+    if(fuseGradient(beta)) {
+      fullBeta = activeData._activeCols == null ? beta.clone() : ArrayUtils.expandAndScatter(beta, _dinfo.fullN() + 1, activeData._activeCols);
+      gt.withFullGradient(_dinfo, _parms, fullBeta).doAll(_dinfo._adaptedFrame);
+      _gramGradBeta = fullBeta;
+      _gramGrad = ArrayUtils.mult(gt._fullGradient, obj_reg);
+      _gramGradLikelihood = gt._fullLikelihood;
+    } else
+      gt.doAll(activeData._adaptedFrame);
     gt._gram.mul(obj_reg);
     ArrayUtils.mult(gt._xy,obj_reg);
     int [] activeCols = activeData.activeCols();
@@ -655,12 +701,17 @@ public final class ComputationState {
     boolean weighted = _parms._family != Family.gaussian || _parms._link != GLMParameters.Link.identity;
     if(_parms._family == Family.multinomial) // no caching
       return computeNewGram(activeDataMultinomial(_activeClass),beta,s);
-    if(s != GLMParameters.Solver.COORDINATE_DESCENT)
-      // only cache for solver==COD
-      //    caching only makes difference when running with lambda search
-      //    and COD and IRLSM need matrix in different shape
-      //    and COD is better for lambda search
-      return computeNewGram(activeData(),beta,s);
+    if(s != GLMParameters.Solver.COORDINATE_DESCENT) {
+      // only COD takes the cached matrix grown by new columns, IRLSM needs it in different shape;
+      //    with lambda search IRLSM still reuses the last one as it is, when neither the active
+      //    columns nor (unless unweighted) beta changed, as at the start of a lambda adding no column
+      if(!_parms._lambda_search)
+        return computeNewGram(activeData(),beta,s);
+      DataInfo activeData = activeData();
+      if(_currGram == null || !Arrays.equals(_currGram.activeCols, activeData.activeCols()) || (weighted && !Arrays.equals(_currGram.beta, beta)))
+        _currGram = computeNewGram(activeData, beta, s);
+      return _currGram;
+    }
     if(_currGram == null) // no cached value, compute new one and store
       return _currGram = computeNewGram(activeData(),beta,s);
     DataInfo activeData = activeData();
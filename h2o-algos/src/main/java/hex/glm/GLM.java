@@ -13,6 +13,7 @@ import hex.glm.GLMModel.GLMParameters.Solver;
 import hex.glm.GLMModel.GLMWeightsFun;
 import hex.glm.GLMModel.Submodel;
 import hex.glm.GLMTask.*;
+import hex.gram.BlockedCholesky;
 import hex.gram.Gram;
 import hex.gram.Gram.Cholesky;
 import hex.gram.Gram.NonSPDMatrixException;
@@ -629,11 +630,14 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
       } else {
         gram = gram.deep_clone();
         xy = xy.clone();
-        GramSolver slvr = new GramSolver(gram.clone(), xy.clone(), _parms._intercept, _state.l2pen(),_state.l1pen(), _state.activeBC()._betaGiven, _state.activeBC()._rho, _state.activeBC()._betaLB, _state.activeBC()._betaUB);
-        _chol = slvr._chol;
-        if(_state.l1pen() == 0 && !_state.activeBC().hasBounds()) {
+        boolean oneSolve = _state.l1pen() == 0 && !_state.activeBC().hasBounds();
+        // a single solve can start from the factorization of the previous lambda
+        GramSolver slvr = new GramSolver(gram.clone(), xy.clone(), _parms._intercept, _state.l2pen(),_state.l1pen(), _state.activeBC()._betaGiven, _state.activeBC()._rho, _state.activeBC()._betaLB, _state.activeBC()._betaUB, oneSolve ? _chol : null);
+        if(oneSolve) {
           slvr.solve(xy);
+          _chol = slvr._chol;
         } else {
+          _chol = slvr._chol;
           xy = MemoryManager.malloc8d(xy.length);
           if(_state._u == null && (_parms._family != Family.multinomial)) _state._u = MemoryManager.malloc8d(_state.activeData().fullN()+1);
             (_lslvr = new ADMM.L1Solver(1e-4, 10000, _state._u)).solve(slvr, xy, _state.l1pen(), _parms._intercept, _state.activeBC()._betaLB, _state.activeBC()._betaUB);
@@ -1531,7 +1535,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
    */
   public static final class GramSolver implements ProximalSolver {
     private final Gram _gram;
-    private Cholesky _chol;
+    Cholesky _chol;
 
     private final double[] _xy;
     final double _lambda;
@@ -1559,7 +1563,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
     // solve non-penalized problem
     public void solve(double[] result) {
       System.arraycopy(_xy, 0, result, 0, _xy.length);
-      _chol.solve(result);
+      cholSolve(result);
       double gerr = Double.POSITIVE_INFINITY;
       if (_addedL2) { // had to add l2-pen to turn the gram to be SPD
         double[] oldRes = MemoryManager.arrayCopyOf(result, result.length);
@@ -1575,6 +1579,15 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
     }
 
     public GramSolver(Gram gram, double[] xy, boolean intercept, double l2pen, double l1pen, double[] beta_given, double[] proxPen, double[] lb, double[] ub) {
+      this(gram, xy, intercept, l2pen, l1pen, beta_given, proxPen, lb, ub, null);
+    }
+
+    /**
+     * @param prior factorization of an earlier Gram of the same size, e.g. of the previous lambda, where only the
+     *              penalties on the diagonal changed.  Solves use it to precondition conjugate gradients instead of
+     *              factoring the Gram anew, and only factor it if these do not converge.
+     */
+    public GramSolver(Gram gram, double[] xy, boolean intercept, double l2pen, double l1pen, double[] beta_given, double[] proxPen, double[] lb, double[] ub, Cholesky prior) {
       if (ub != null && lb != null)
         for (int i = 0; i < ub.length; ++i) {
           assert ub[i] >= lb[i] : i + ": ub < lb, ub = " + Arrays.toString(ub) + ", lb = " + Arrays.toString(lb);
@@ -1621,7 +1634,80 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
       }
       _xy = xy;
       _rho = rhos;
-      computeCholesky(gram, rhos, 1e-5,intercept);
+      if (prior != null && intercept && prior.isSPD() && gram.fullN() - gram._diagN >= BlockedCholesky.MIN_N
+          && prior._xx.length == gram._xx.length && prior._xx[prior._xx.length - 1].length == gram.fullN())
+        _chol = _prior = prior;
+      else
+        computeCholesky(gram, rhos, 1e-5,intercept);
+    }
+
+    // Most conjugate gradient steps taken with a prior factorization, and their relative tolerance
+    private static final int PCG_MAX_ITER = 10;
+    private static final double PCG_TOL = 1e-10;
+    private Cholesky _prior;
+
+    private void cholSolve(double[] y) {
+      if (_prior != null) {
+        if (pcgSolve(y)) return;
+        Log.info("Factorization of the previous Gram does not converge, re-computing it");
+        _prior = null;
+        computeCholesky(_gram, _rho.clone(), 1e-5, true);
+      }
+      _chol.solve(y);
+    }
+
+    // Solves (gram + diag(rho))*x = y by conjugate gradients, preconditioned with the prior factorization
+    private boolean pcgSolve(double[] y) {
+      final int n = y.length;
+      final double bnorm = ArrayUtils.l2norm(y);
+      double[] x = y.clone();
+      _prior.solve(x);
+      double[] q = MemoryManager.malloc8d(n);
+      mulPenalized(x, q);
+      double[] r = MemoryManager.malloc8d(n);
+      for (int i = 0; i < n; ++i) r[i] = y[i] - q[i];
+      double[] z = r.clone();
+      _prior.solve(z);
+      double[] d = z.clone();
+      double rz = ArrayUtils.innerProduct(r, z);
+      for (int iter = 0; ArrayUtils.l2norm(r) > PCG_TOL * bnorm; ++iter) {
+        if (iter == PCG_MAX_ITER) return false;
+        mulPenalized(d, q);
+        final double alpha = rz / ArrayUtils.innerProduct(d, q);
+        for (int i = 0; i < n; ++i) {
+          x[i] += alpha * d[i];
+          r[i] -= alpha * q[i];
+        }
+        System.arraycopy(r, 0, z, 0, n);
+        _prior.solve(z);
+        final double rzNew = ArrayUtils.innerProduct(r, z);
+        final double beta = rzNew / rz;
+        for (int i = 0; i < n; ++i) d[i] = z[i] + beta * d[i];
+        rz = rzNew;
+      }
+      System.arraycopy(x, 0, y, 0, n);
+      return true;
+    }
+
+    // res = (gram + diag(rho))*x, in one pass over the rows of the lower triangle
+    private void mulPenalized(double[] x, double[] res) {
+      final int sN = _gram._diagN;
+      Arrays.fill(res, 0);
+      for (int k = 0; k < sN; ++k)
+        res[k] = _gram._diag[k] * x[k];
+      for (int r = 0; r < _gram._xx.length; ++r) {
+        final double[] row = _gram._xx[r];
+        final int i = r + sN;
+        final double xi = x[i];
+        double s = row[i] * xi;
+        for (int j = 0; j < i; ++j) {
+          s += row[j] * x[j];
+          res[j] += row[j] * xi;
+        }
+        res[i] += s;
+      }
+      for (int i = 0; i < res.length; ++i)
+        res[i] += _rho[i] * x[i];
     }
 
     private void computeCholesky(Gram gram, double[] rhos, double rhoAdd, boolean intercept) {
@@ -1664,7 +1750,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
           result[i] = _xy[i] + _rho[i] * beta_given[i];
       else
         System.arraycopy(_xy, 0, result, 0, _xy.length);
-      _chol.solve(result);
+      cholSolve(result);
       return true;
     }
 
@@ -1877,17 +1963,7 @@ public class GLM extends ModelBuilder<GLMModel,GLMParameters,GLMOutput> {
       } else {
         assert beta.length == _dinfo.fullN() + 1;
         assert _parms._intercept || (beta[beta.length-1] == 0);
-        GLMGradientTask gt;
-        if(_parms._family == Family.binomial && _parms._link == Link.logit)
-          gt = new GLMBinomialGradientTask(_job == null?null:_job._key,_dinfo,_parms,_l2pen, beta).doAll(_dinfo._adaptedFrame);
-        else if(_parms._family == Family.gaussian && _parms._link == Link.identity)
-          gt = new GLMGaussianGradientTask(_job == null?null:_job._key,_dinfo,_parms,_l2pen, beta).doAll(_dinfo._adaptedFrame);
-        else if(_parms._family == Family.poisson && _parms._link == Link.log)
-          gt = new GLMPoissonGradientTask(_job == null?null:_job._key,_dinfo,_parms,_l2pen, beta).doAll(_dinfo._adaptedFrame);
-        else if(_parms._family == Family.quasibinomial)
-          gt = new GLMQuasiBinomialGradientTask(_job == null?null:_job._key,_dinfo,_parms,_l2pen, beta).doAll(_dinfo._adaptedFrame);
-        else
-          gt = new GLMGenericGradientTask(_job == null?null:_job._key, _dinfo, _parms, _l2pen, beta).doAll(_dinfo._adaptedFrame);
+        GLMGradientTask gt = GLMGradientTask.make(_job == null?null:_job._key,_dinfo,_parms,_l2pen,beta).doAll(_dinfo._adaptedFrame);
         double [] gradient = gt._gradient;
         double  likelihood = gt._likelihood;
         if (!_parms._intercept) // no intercept, null the ginfo
@@ -8,17 +8,20 @@ import hex.glm.GLMModel.GLMParameters.Family;
 import hex.glm.GLMModel.GLMParameters.Link;
 import hex.glm.GLMModel.GLMWeights;
 import hex.glm.GLMModel.GLMWeightsFun;
+import hex.gram.BlockedGram;
 import hex.gram.Gram;
 import water.*;
 import water.H2O.H2OCountedCompleter;
 import water.fvec.C0DChunk;
 import water.fvec.Chunk;
+import water.fvec.Frame;
 import water.util.ArrayUtils;
 import water.util.FrameUtils;
 import water.util.MathUtils;
 import water.util.MathUtils.BasicStats;
 
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * All GLM related distributed tasks:
@@ -519,6 +522,8 @@ public abstract class GLMTask  {
     final transient  double _currentLambda;
     final transient double _reg;
     protected final DataInfo _dinfo;
+    // Per-thread partial gradients of this node, summed into _gradient by closeLocal
+    private transient ConcurrentLinkedQueue<GradientBuffer> _buffers;
 
 
     protected GLMGradientTask(Key jobKey, DataInfo dinfo, double reg, double lambda, double[] beta){
@@ -528,7 +533,61 @@ public abstract class GLMTask  {
       _currentLambda = lambda;
 
     }
-    protected abstract void computeGradientMultipliers(double [] es, double [] ys, double [] ws);
+    /**
+     * Replaces the etas by the derivatives of the loss by eta.
+     * @return likelihood of the rows
+     */
+    protected abstract double computeGradientMultipliers(double [] es, double [] ys, double [] ws);
+
+    /** Gradient task of the family and link of the parameters, the general one if there is no specialized one. */
+    static GLMGradientTask make(Key jobKey, DataInfo dinfo, GLMParameters parms, double lambda, double [] beta) {
+      if(parms._family == Family.binomial && parms._link == Link.logit)
+        return new GLMBinomialGradientTask(jobKey,dinfo,parms,lambda,beta);
+      if(parms._family == Family.gaussian && parms._link == Link.identity)
+        return new GLMGaussianGradientTask(jobKey,dinfo,parms,lambda,beta);
+      if(parms._family == Family.poisson && parms._link == Link.log)
+        return new GLMPoissonGradientTask(jobKey,dinfo,parms,lambda,beta);
+      if(parms._family == Family.quasibinomial)
+        return new GLMQuasiBinomialGradientTask(jobKey,dinfo,parms,lambda,beta);
+      return new GLMGenericGradientTask(jobKey,dinfo,parms,lambda,beta);
+    }
+
+    /**
+     * Partial gradient of one thread, reused over all the chunks it maps, so a
+     * chunk costs no p-long gradient to allocate and reduce.  Also holds the
+     * non-zeros of the chunk's sparse numeric columns, column by column.
+     */
+    private static final class GradientBuffer {
+      final double [] _grad;
+      final int [] _colStart;
+      int [] _rows = new int[0];
+      double [] _vals = new double[0];
+
+      GradientBuffer(double [] grad, int nums) {
+        _grad = grad;
+        _colStart = MemoryManager.malloc4(nums + 1);
+      }
+
+      void ensureCapacity(int n) {
+        if(n > _rows.length) {
+          n = Math.max(n, _rows.length << 1);
+          _rows = Arrays.copyOf(_rows, n);
+          _vals = Arrays.copyOf(_vals, n);
+        }
+      }
+    }
+
+    // All the node's chunks add into one gradient; its threads' partial sums are added at closeLocal
+    @Override public void setupLocal() {
+      _gradient = MemoryManager.malloc8d(_beta.length);
+      _buffers = new ConcurrentLinkedQueue<>();
+    }
+
+    @Override public void closeLocal() {
+      for(GradientBuffer buf : _buffers)
+        ArrayUtils.add(_gradient, buf._grad);
+      _buffers = null;
+    }
 
     private final void computeCategoricalEtas(Chunk [] chks, double [] etas, double [] vals, int [] ids) {
       // categoricals
@@ -550,7 +609,7 @@ public abstract class GLMTask  {
       }
     }
 
-    private final void computeCategoricalGrads(Chunk [] chks, double [] etas, double [] vals, int [] ids) {
+    private final void computeCategoricalGrads(Chunk [] chks, double [] etas, double [] vals, int [] ids, double [] grad) {
       // categoricals
       for(int cid = 0; cid < _dinfo._cats; ++cid){
         Chunk c = chks[cid];
@@ -558,34 +617,66 @@ public abstract class GLMTask  {
           int nvals = c.getSparseDoubles(vals,ids,-1);
           for(int i = 0; i < nvals; ++i){
             int id = _dinfo.getCategoricalId(cid,(int)vals[i]);
-            if(id >=0) _gradient[id] += etas[ids[i]];
+            if(id >=0) grad[id] += etas[ids[i]];
           }
         } else {
           c.getIntegers(ids, 0, c._len,-1);
           for(int i = 0; i < ids.length; ++i){
             int id = _dinfo.getCategoricalId(cid,ids[i]);
-            if(id >=0) _gradient[id] += etas[i];
+            if(id >=0) grad[id] += etas[i];
           }
         }
       }
     }
 
-    private final void computeNumericEtas(Chunk [] chks, double [] etas, double [] vals, int [] ids) {
+    private static boolean isSparse(Chunk c) {
+      return c.isSparseZero() || c.isSparseNA();
+    }
+
+    // Walks the stored values of the sparse numeric chunks once, with nextNZ, into the buffer
+    private final void collectSparseNums(Chunk [] chks, GradientBuffer buf) {
+      int [] colStart = buf._colStart;
+      int k = 0;
+      for(int cid = 0; cid < _dinfo._nums; ++cid){
+        colStart[cid] = k;
+        Chunk c = chks[cid+_dinfo._cats];
+        if(!isSparse(c)) continue;
+        // sparseLen is only a hint: an all-NA chunk reports no stored values yet nextNZ visits every row
+        buf.ensureCapacity(k + (c.isSparseZero()?c.sparseLenZero():c.sparseLenNA()));
+        int [] rows = buf._rows;
+        double [] vals = buf._vals;
+        double NA = _dinfo._numMeans[cid];
+        for(int i = c.nextNZ(-1); i < c._len; i = c.nextNZ(i)) {
+          if(k == rows.length) {
+            buf.ensureCapacity(k + 1);
+            rows = buf._rows;
+            vals = buf._vals;
+          }
+          double d = c.atd(i);
+          rows[k] = i;
+          vals[k++] = Double.isNaN(d)?NA:d;
+        }
+      }
+      colStart[_dinfo._nums] = k;
+    }
+
+    private final void computeNumericEtas(Chunk [] chks, double [] etas, double [] vals, GradientBuffer buf) {
       int numOff = _dinfo.numStart();
+      int [] colStart = buf._colStart, rows = buf._rows;
+      double [] nzs = buf._vals;
       for(int cid = 0; cid < _dinfo._nums; ++cid){
         double scale = _dinfo._normMul != null?_dinfo._normMul[cid]:1;
         double off = _dinfo._normSub != null?_dinfo._normSub[cid]:0;
         double NA = _dinfo._numMeans[cid];
         Chunk c = chks[cid+_dinfo._cats];
         double b = scale*_beta[numOff+cid];
+        if(b == 0) continue;
         if(c.isSparseZero()){
-          int nvals = c.getSparseDoubles(vals,ids,NA);
-          for(int i = 0; i < nvals; ++i)
-            etas[ids[i]] += vals[i] * b;
+          for(int k = colStart[cid]; k < colStart[cid+1]; ++k)
+            etas[rows[k]] += nzs[k] * b;
         } else if(c.isSparseNA()){
-          int nvals = c.getSparseDoubles(vals,ids,NA);
-          for(int i = 0; i < nvals; ++i)
-            etas[ids[i]] += (vals[i] - off) * b;
+          for(int k = colStart[cid]; k < colStart[cid+1]; ++k)
+            etas[rows[k]] += (nzs[k] - off) * b;
         } else {
           c.getDoubles(vals,0,vals.length,NA);
           for(int i = 0; i < vals.length; ++i)
@@ -594,45 +685,62 @@ public abstract class GLMTask  {
       }
     }
 
-    private final void computeNumericGrads(Chunk [] chks, double [] etas, double [] vals, int [] ids) {
+    private final void computeNumericGrads(Chunk [] chks, double [] etas, double [] vals, GradientBuffer buf) {
       int numOff = _dinfo.numStart();
+      int [] colStart = buf._colStart, rows = buf._rows;
+      double [] nzs = buf._vals, grad = buf._grad;
       for(int cid = 0; cid < _dinfo._nums; ++cid){
         double NA = _dinfo._numMeans[cid];
         Chunk c = chks[cid+_dinfo._cats];
         double scale = _dinfo._normMul == null?1:_dinfo._normMul[cid];
         if(c.isSparseZero()){
           double g = 0;
-          int nVals = c.getSparseDoubles(vals,ids,NA);
-          for(int i = 0; i < nVals; ++i)
-            g += vals[i]*scale*etas[ids[i]];
-          _gradient[numOff+cid] = g;
+          for(int k = colStart[cid]; k < colStart[cid+1]; ++k)
+            g += nzs[k]*etas[rows[k]];
+          grad[numOff+cid] += g*scale;
         } else if(c.isSparseNA()){
           double off = _dinfo._normSub == null?0:_dinfo._normSub[cid];
           double g = 0;
-          int nVals = c.getSparseDoubles(vals,ids,NA);
-          for(int i = 0; i < nVals; ++i)
-            g += (vals[i]-off)*scale*etas[ids[i]];
-          _gradient[numOff+cid] = g;
+          for(int k = colStart[cid]; k < colStart[cid+1]; ++k)
+            g += (nzs[k]-off)*etas[rows[k]];
+          grad[numOff+cid] += g*scale;
         } else {
           double off = _dinfo._normSub == null?0:_dinfo._normSub[cid];
           c.getDoubles(vals,0,vals.length,NA);
           double g = 0;
           for(int i = 0; i < vals.length; ++i)
             g += (vals[i]-off)*scale*etas[i];
-          _gradient[numOff+cid] = g;
+          grad[numOff+cid] += g;
         }
       }
     }
 
-    public void map(Chunk [] chks) {
-      _gradient = MemoryManager.malloc8d(_beta.length);
+    private double [] weights(Chunk [] chks) {
+      int len = chks[0]._len;
+      Chunk weights = _dinfo._weights?chks[_dinfo.weightChunkId()]:new C0DChunk(1,len);
+      return weights.getDoubles(MemoryManager.malloc8d(len),0,len);
+    }
+
+    private static double [] responses(Chunk [] chks) {
       Chunk response = chks[chks.length-1];
-      Chunk weights = _dinfo._weights?chks[_dinfo.weightChunkId()]:new C0DChunk(1,response._len);
-      double [] ws = weights.getDoubles(MemoryManager.malloc8d(weights._len),0,weights._len);
-      double [] ys = response.getDoubles(MemoryManager.malloc8d(weights._len),0,response._len);
-      double [] etas = MemoryManager.malloc8d(response._len);
+      return response.getDoubles(MemoryManager.malloc8d(response._len),0,response._len);
+    }
+
+    // Partial gradient of the calling thread, to be handed back to _buffers once the chunk is added
+    private GradientBuffer buffer() {
+      GradientBuffer buf = _buffers.poll();
+      return buf == null ? new GradientBuffer(MemoryManager.malloc8d(_beta.length), _dinfo._nums) : buf;
+    }
+
+    public void map(Chunk [] chks) {
+      GradientBuffer buf = buffer();
+      double [] ws = weights(chks);
+      double [] ys = responses(chks);
+      double [] etas = MemoryManager.malloc8d(ws.length);
       if(_dinfo._offset)
         chks[_dinfo.offsetChunkId()].getDoubles(etas,0,etas.length);
+      // Centering of sparse columns is not applied per value, the zeros are kept;
+      // their mean times beta comes off every eta here, and off the gradient below
       double sparseOffset = 0;
       int numStart = _dinfo.numStart();
       if(_dinfo._normSub != null)
@@ -640,30 +748,57 @@ public abstract class GLMTask  {
           if(chks[_dinfo._cats + i].isSparseZero())
             sparseOffset -= _beta[numStart + i]*_dinfo._normSub[i]*_dinfo._normMul[i];
       ArrayUtils.add(etas,sparseOffset + _beta[_beta.length-1]);
-      double [] vals = MemoryManager.malloc8d(response._len);
-      int [] ids = MemoryManager.malloc4(response._len);
+      double [] vals = MemoryManager.malloc8d(ws.length);
+      int [] ids = MemoryManager.malloc4(ws.length);
+      collectSparseNums(chks,buf);
       computeCategoricalEtas(chks,etas,vals,ids);
-      computeNumericEtas(chks,etas,vals,ids);
-      computeGradientMultipliers(etas,ys,ws);
+      computeNumericEtas(chks,etas,vals,buf);
+      _likelihood += addGradient(chks,etas,ys,ws,vals,ids,buf);
+      _buffers.add(buf);
+    }
+
+    /**
+     * Adds the gradient of a chunk at the given etas (offset included) to the
+     * node's gradient.  Lets a task that computes the etas of the rows anyway,
+     * over the same chunks, get the gradient without a pass of its own; that
+     * task runs setupLocal and closeLocal of this one along with its own.
+     * @return likelihood of the chunk
+     */
+    final double chunkGradient(Chunk [] chks, double [] etas) {
+      GradientBuffer buf = buffer();
+      double [] ws = weights(chks);
+      collectSparseNums(chks,buf);
+      double l = addGradient(chks,etas,responses(chks),ws,MemoryManager.malloc8d(ws.length),MemoryManager.malloc4(ws.length),buf);
+      _buffers.add(buf);
+      return l;
+    }
+
+    // Turns the etas into loss derivatives and adds the chunk's gradient to the buffer
+    private double addGradient(Chunk [] chks, double [] etas, double [] ys, double [] ws, double [] vals, int [] ids, GradientBuffer buf) {
+      double [] grad = buf._grad;
+      double l = computeGradientMultipliers(etas,ys,ws);
       // walk the chunks again, add to the gradient
-      computeCategoricalGrads(chks,etas,vals,ids);
-      computeNumericGrads(chks,etas,vals,ids);
+      computeCategoricalGrads(chks,etas,vals,ids,grad);
+      computeNumericGrads(chks,etas,vals,buf);
       // add intercept
-      _gradient[_gradient.length-1] = ArrayUtils.sum(etas);
+      double icpt = ArrayUtils.sum(etas);
+      grad[grad.length-1] += icpt;
       if(_dinfo._normSub != null) {
-        double icpt = _gradient[_gradient.length-1];
+        int numStart = _dinfo.numStart();
         for(int i = 0; i < _dinfo._nums; ++i) {
           if(chks[_dinfo._cats+i].isSparseZero()) {
             double d = _dinfo._normSub[i] * _dinfo._normMul[i];
-            _gradient[numStart + i] -= d * icpt;
+            grad[numStart + i] -= d * icpt;
           }
         }
       }
+      return l;
     }
 
     @Override
     public final void reduce(GLMGradientTask gmgt){
-      ArrayUtils.add(_gradient,gmgt._gradient);
+      if(_gradient != gmgt._gradient) // only results from other nodes have a gradient of their own
+        ArrayUtils.add(_gradient,gmgt._gradient);
       _likelihood += gmgt._likelihood;
     }
     @Override public final void postGlobal(){
@@ -680,7 +815,7 @@ public abstract class GLMTask  {
       _glmf = new GLMWeightsFun(parms);
     }
 
-    @Override protected void computeGradientMultipliers(double [] es, double [] ys, double [] ws){
+    @Override protected double computeGradientMultipliers(double [] es, double [] ys, double [] ws){
       double l = 0;
       for(int i = 0; i < es.length; ++i) {
         if (Double.isNaN(ys[i]) || ws[i] == 0) {
@@ -693,7 +828,7 @@ public abstract class GLMTask  {
           es[i] = ws[i] * (mu - ys[i]) / (var * _glmf.linkDeriv(mu));
         }
       }
-      _likelihood = l;
+      return l;
     }
   }
 
@@ -703,7 +838,7 @@ public abstract class GLMTask  {
       super(jobKey, dinfo, parms._obj_reg, lambda, beta);
       _glmf = new GLMWeightsFun(parms);
     }
-    @Override protected void computeGradientMultipliers(double [] es, double [] ys, double [] ws){
+    @Override protected double computeGradientMultipliers(double [] es, double [] ys, double [] ws){
       double l = 0;
       for(int i = 0; i < es.length; ++i) {
         if (Double.isNaN(ys[i]) || ws[i] == 0) {
@@ -717,7 +852,7 @@ public abstract class GLMTask  {
           es[i] = ws[i]*diff;
         }
       }
-      _likelihood = 2*l;
+      return 2*l;
     }
   }
 
@@ -727,7 +862,7 @@ public abstract class GLMTask  {
       super(jobKey, dinfo, parms._obj_reg, lambda, beta);
       _glmf = new GLMWeightsFun(parms);
     }
-    @Override protected void computeGradientMultipliers(double [] es, double [] ys, double [] ws){
+    @Override protected double computeGradientMultipliers(double [] es, double [] ys, double [] ws){
       double l = 0;
       for(int i = 0; i < es.length; ++i){
         double p = _glmf.linkInv(es[i]);
@@ -736,7 +871,7 @@ public abstract class GLMTask  {
         es[i] = -ws[i]*(ys[i]-p);
         l += ys[i]*Math.log(p) + (1-ys[i])*Math.log(1-p);
       }
-      _likelihood = -l;
+      return -l;
     }
   }
 
@@ -748,15 +883,17 @@ public abstract class GLMTask  {
     }
 
     @Override
-    protected void computeGradientMultipliers(double[] es, double[] ys, double[] ws) {
+    protected double computeGradientMultipliers(double[] es, double[] ys, double[] ws) {
+      double l = 0;
       for(int i = 0; i < es.length; ++i) {
         if(Double.isNaN(ys[i]) || ws[i] == 0){es[i] = 0; continue;}
         double e = es[i], w = ws[i];
         double yr = ys[i];
         double ym = 1.0 / (Math.exp(-e) + 1.0);
-        if(ym != yr) _likelihood += w*((MathUtils.y_log_y(yr, ym)) + MathUtils.y_log_y(1 - yr, 1 - ym));
+        if(ym != yr) l += w*((MathUtils.y_log_y(yr, ym)) + MathUtils.y_log_y(1 - yr, 1 - ym));
         es[i] = ws[i] * (ym - yr);
       }
+      return l;
     }
   }
 
@@ -767,7 +904,8 @@ public abstract class GLMTask  {
     }
 
     @Override
-    protected void computeGradientMultipliers(double[] es, double[] ys, double[] ws) {
+    protected double computeGradientMultipliers(double[] es, double[] ys, double[] ws) {
+      double l = 0;
       for(int i = 0; i < es.length; ++i) {
         double w = ws[i];
         if(w == 0 || Double.isNaN(ys[i])){
@@ -777,9 +915,10 @@ public abstract class GLMTask  {
         double e = es[i], y = ys[i];
         double d = (e-y);
         double wd = w*d;
-        _likelihood += wd*d;
+        l += wd*d;
         es[i] = wd;
       }
+      return l;
     }
   }
 
@@ -1497,6 +1636,17 @@ public abstract class GLMTask  {
     double wsum, wsumu;
     double _sumsqe;
     int _c = -1;
+    boolean _blockedGram = BlockedGram.ENABLED;
+    private transient BlockedGram _tiles; // accumulates the dense rows of a chunk, if wide enough
+    // Gradient over all the columns of the full data, at the same beta, see withFullGradient
+    private DataInfo _fullDinfo;
+    private GLMParameters _parms;
+    private double [] _fullBeta;
+    private int [] _activeVecs;             // column of the full frame read for every column of _dinfo
+    private transient GLMGradientTask _gradTask; // set up on every node, its gradient is the node's _fullGradient
+    private transient double [] _etas;      // etas of the chunk's rows, offset included
+    public double [] _fullGradient;         // unscaled, with no penalty
+    public double _fullLikelihood;          // as computed by the gradient task
 
     public  GLMIterationTask(Key jobKey, DataInfo dinfo, GLMWeightsFun glmw,double [] beta) {
       super(null,dinfo,jobKey);
@@ -1515,11 +1665,73 @@ public abstract class GLMTask  {
 
     @Override public boolean handlesSparseData(){return true;}
 
+    public GLMIterationTask setBlockedGram(boolean b) { _blockedGram = b; return this; }
+
+    /**
+     * Also computes the gradient of the full data, with all its columns, at
+     * the same beta, from the etas of the rows.  Saves the gradient pass of
+     * the KKT check of lambda search, which is made at the beta of the last
+     * Gram.  The task then has to run over the full data's frame; _dinfo,
+     * filtered to the active columns, reads its columns out of it.
+     *
+     * @param fullBeta beta of the full data, zero out of the active columns
+     */
+    public GLMIterationTask withFullGradient(DataInfo full, GLMParameters parms, double [] fullBeta) {
+      assert _beta != null && _glmf._family != Family.multinomial && _glmf._family != Family.ordinal;
+      Frame fr = full._adaptedFrame;
+      Frame activeFr = _dinfo._adaptedFrame;
+      int [] activeVecs = new int[activeFr.numCols()];
+      for(int i = 0; i < activeVecs.length; ++i)
+        if((activeVecs[i] = fr.find(activeFr.vec(i))) < 0)
+          throw new IllegalArgumentException("active data is not a subset of the full data");
+      _fullDinfo = full;
+      _parms = parms;
+      _fullBeta = fullBeta;
+      _activeVecs = activeVecs;
+      return this;
+    }
+
+    @Override
+    public void setupLocal() {
+      super.setupLocal();
+      if(_fullDinfo != null) {
+        _gradTask = GLMGradientTask.make(null, _fullDinfo, _parms, 0, _fullBeta);
+        _gradTask.setupLocal();
+        _fullGradient = _gradTask._gradient;
+      }
+    }
+
+    @Override
+    public void closeLocal() {
+      if(_gradTask != null) {
+        _gradTask.closeLocal();
+        _gradTask = null;
+      }
+      super.closeLocal();
+    }
+
+    @Override
+    public void map(Chunk [] chks) {
+      if(_fullDinfo == null) {
+        super.map(chks);
+        return;
+      }
+      Chunk [] active = new Chunk[_activeVecs.length];
+      for(int i = 0; i < active.length; ++i)
+        active[i] = chks[_activeVecs[i]];
+      _etas = MemoryManager.malloc8d(chks[0]._len);
+      if(_fullDinfo._offset)
+        chks[_fullDinfo.offsetChunkId()].getDoubles(_etas,0,_etas.length);
+      super.map(active);
+      _fullLikelihood += _gradTask.chunkGradient(chks, _etas);
+    }
+
     transient private double _sparseOffset;
     @Override
     public void chunkInit() {
       // initialize
       _gram = new Gram(_dinfo.fullN(), _dinfo.largestCat(), _dinfo.numNums(), _dinfo._cats,true);
+      _tiles = _blockedGram && !_sparse && _dinfo.numNums() >= BlockedGram.MIN_COLS ? new BlockedGram(_gram) : null;
       _xy = MemoryManager.malloc8d(_dinfo.fullN()+1); // + 1 is for intercept
       if(_sparse)
          _sparseOffset = GLM.sparseOffset(_beta,_dinfo);
@@ -1543,7 +1755,9 @@ public abstract class GLMTask  {
         wz = r.weight * (eta * d + (y-mu));
         w  = r.weight * d;
       } else if(_beta != null) {
-        _glmf.computeWeights(y, r.innerProduct(_beta) + _sparseOffset, r.offset, r.weight, _w);
+        double eta = r.innerProduct(_beta) + _sparseOffset;
+        if(_etas != null) _etas[r.cid] += eta;
+        _glmf.computeWeights(y, eta, r.offset, r.weight, _w);
         w = _w.w;
         wz = w*_w.z;
         _likelihood += _w.l;
@@ -1562,11 +1776,15 @@ public abstract class GLMTask  {
       }
       if(_dinfo._intercept)
         _xy[_xy.length-1] += wz;
-      _gram.addRow(r,w);
+      if(_tiles != null) _tiles.addRow(r,w);
+      else _gram.addRow(r,w);
     }
 
     @Override
-    public void chunkDone(){adjustForSparseStandardizedZeros();}
+    public void chunkDone(){
+      if(_tiles != null) _tiles.fold();
+      adjustForSparseStandardizedZeros();
+    }
 
     @Override
     public void reduce(GLMIterationTask git){
@@ -1578,6 +1796,11 @@ public abstract class GLMTask  {
       _likelihood += git._likelihood;
       _sumsqe += git._sumsqe;
       _yy += git._yy;
+      if(_fullDinfo != null) {
+        if(_fullGradient != git._fullGradient) // only results from other nodes have a gradient of their own
+          ArrayUtils.add(_fullGradient, git._fullGradient);
+        _fullLikelihood += git._fullLikelihood;
+      }
       super.reduce(git);
     }
 
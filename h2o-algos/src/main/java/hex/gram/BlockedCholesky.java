@@ -0,0 +1,242 @@
+package hex.gram;
+
+import jsr166y.ForkJoinTask;
+import jsr166y.RecursiveAction;
+import water.H2O;
+import water.MemoryManager;
+
+/**
+ * Cholesky factorization and triangular solves for large dense blocks.
+ *
+ * The factorization works on a lower triangle packed row by row into one
+ * array, row i starting at i*(i+1)/2.  It is right-looking and blocked:
+ * factor a block of {@link #NB} columns on the diagonal, solve the panel of
+ * rows below it, then subtract the panel's outer product from the trailing
+ * triangle.  Panel and trailing update are split by rows over the fork-join
+ * pool, and the update goes by blocks of rows so the panel rows it reads
+ * stay in cache.
+ *
+ * The solves work on the jagged rows of a {@link Gram.Cholesky}: each block
+ * of unknowns is solved in turn, and its contribution to the other unknowns
+ * is then applied in parallel.
+ */
+public final class BlockedCholesky {
+  /** Least dense size factored and solved by blocks; smaller ones stay with the row by row code. */
+  public static final int MIN_N = Integer.getInteger(H2O.OptArgs.SYSTEM_PROP_PREFIX + "gram.blockedCholeskyMinN", 256);
+  /** Least number of unknowns solved in parallel. */
+  static final int PARALLEL_SOLVE_N = 2048;
+  /** Columns per block of the factorization and of the solves. */
+  static final int NB = 128;
+  /** Rows per block of the trailing update. */
+  static final int JB = 64;
+  // Least number of multiply-adds worth a task
+  private static final long MIN_TASK_WORK = 1 << 16;
+
+  private BlockedCholesky() {}
+
+  // Start of row i in the packed triangle
+  private static int row(int i) { return i * (i + 1) / 2; }
+
+  /** Packs columns [off, off+xx.length) of the jagged lower triangle xx. */
+  public static double[] pack(double[][] xx, int off) {
+    final int n = xx.length;
+    assert n < 46341 : "packed triangle of " + n + " rows does not fit an array";
+    double[] a = MemoryManager.malloc8d(row(n));
+    for (int i = 0; i < n; ++i)
+      System.arraycopy(xx[i], off, a, row(i), i + 1);
+    return a;
+  }
+
+  /** Unpacks the triangle back into columns [off, off+xx.length) of xx. */
+  public static void unpack(double[] a, double[][] xx, int off) {
+    for (int i = 0; i < xx.length; ++i)
+      System.arraycopy(a, row(i), xx[i], off, i + 1);
+  }
+
+  /**
+   * Overwrites the packed symmetric matrix with its lower Cholesky factor,
+   * using up to nthreads threads.
+   * @return false if the matrix is not positive definite
+   */
+  public static boolean factor(final double[] a, final int n, int nthreads) {
+    boolean spd = true;
+    for (int k0 = 0; k0 < n; k0 += NB) {
+      final int k1 = Math.min(n, k0 + NB);
+      // Diagonal block; the columns left of it were applied by earlier updates
+      for (int i = k0; i < k1; ++i) {
+        final int ri = row(i);
+        for (int j = k0; j < i; ++j) {
+          final int rj = row(j);
+          double s = a[ri + j];
+          for (int m = k0; m < j; ++m) s -= a[ri + m] * a[rj + m];
+          a[ri + j] = s / a[rj + j];
+        }
+        double d = a[ri + i];
+        for (int m = k0; m < i; ++m) d -= a[ri + m] * a[ri + m];
+        spd = spd && d > 0;
+        a[ri + i] = Math.sqrt(Math.max(0, d));
+      }
+      if (k1 == n) break;
+      final int fk0 = k0;
+      // Panel below the diagonal block: L21 = A21 * L11^-T, rows split evenly
+      final int rows = n - k1;
+      int p = tasks(nthreads, (long) rows * (k1 - k0) * (k1 - k0) / 2, rows);
+      RecursiveAction[] ras = new RecursiveAction[p];
+      for (int t = 0; t < p; ++t) {
+        final int lo = k1 + (int) ((long) rows * t / p), hi = k1 + (int) ((long) rows * (t + 1) / p);
+        ras[t] = new RecursiveAction() {
+          @Override protected void compute() { panel(a, fk0, k1, lo, hi); }
+        };
+      }
+      invoke(ras);
+      // Trailing update: A22 -= L21 * L21', rows split into equal areas
+      p = tasks(nthreads, (long) rows * rows / 2 * (k1 - k0), rows);
+      ras = new RecursiveAction[p];
+      for (int t = 0; t < p; ++t) {
+        final int lo = k1 + (int) (rows * Math.sqrt((double) t / p)), hi = t == p - 1 ? n : k1 + (int) (rows * Math.sqrt((double) (t + 1) / p));
+        ras[t] = new RecursiveAction() {
+          @Override protected void compute() { update(a, fk0, k1, lo, hi); }
+        };
+      }
+      invoke(ras);
+    }
+    return spd;
+  }
+
+  private static int tasks(int nthreads, long work, int rows) {
+    return (int) Math.max(1, Math.min(Math.min(nthreads, rows), work / MIN_TASK_WORK));
+  }
+
+  private static void invoke(RecursiveAction[] ras) {
+    if (ras.length == 1) ras[0].invoke();
+    else ForkJoinTask.invokeAll(ras);
+  }
+
+  // Solves rows [lo,hi) of the panel against the factored diagonal block [k0,k1)
+  private static void panel(double[] a, int k0, int k1, int lo, int hi) {
+    for (int i = lo; i < hi; ++i) {
+      final int ri = row(i);
+      for (int j = k0; j < k1; ++j) {
+        final int rj = row(j);
+        double s = a[ri + j];
+        for (int m = k0; m < j; ++m) s -= a[ri + m] * a[rj + m];
+        a[ri + j] = s / a[rj + j];
+      }
+    }
+  }
+
+  // Subtracts the panel's outer product from rows [lo,hi) of the trailing triangle
+  private static void update(double[] a, int k0, int k1, int lo, int hi) {
+    for (int jb = k1; jb < hi; jb += JB) {
+      final int je = Math.min(jb + JB, hi);
+      int i = Math.max(lo, jb);
+      for (; i + 1 < hi; i += 2) { // two rows by four columns at a time
+        final int ri = row(i), rn = row(i + 1);
+        final int jEnd = Math.min(je, i + 1);
+        int j = jb;
+        for (; j + 3 < jEnd; j += 4) {
+          final int r0 = row(j), r1 = row(j + 1), r2 = row(j + 2), r3 = row(j + 3);
+          double s0 = 0, s1 = 0, s2 = 0, s3 = 0, t0 = 0, t1 = 0, t2 = 0, t3 = 0;
+          for (int m = k0; m < k1; ++m) {
+            final double l = a[ri + m], n = a[rn + m];
+            final double c0 = a[r0 + m], c1 = a[r1 + m], c2 = a[r2 + m], c3 = a[r3 + m];
+            s0 += l * c0; s1 += l * c1; s2 += l * c2; s3 += l * c3;
+            t0 += n * c0; t1 += n * c1; t2 += n * c2; t3 += n * c3;
+          }
+          a[ri + j] -= s0; a[ri + j + 1] -= s1; a[ri + j + 2] -= s2; a[ri + j + 3] -= s3;
+          a[rn + j] -= t0; a[rn + j + 1] -= t1; a[rn + j + 2] -= t2; a[rn + j + 3] -= t3;
+        }
+        for (; j < jEnd; ++j) {
+          dot(a, ri, row(j), j, k0, k1);
+          dot(a, rn, row(j), j, k0, k1);
+        }
+        if (j < je) dot(a, rn, row(j), j, k0, k1); // j == i+1, on the diagonal of the second row
+      }
+      for (; i < hi; ++i)
+        for (int j = jb, jEnd = Math.min(je, i + 1); j < jEnd; ++j)
+          dot(a, row(i), row(j), j, k0, k1);
+    }
+  }
+
+  // a[ri+j] -= L[i, k0:k1] . L[j, k0:k1]
+  private static void dot(double[] a, int ri, int rj, int j, int k0, int k1) {
+    double s = 0;
+    for (int m = k0; m < k1; ++m) s += a[ri + m] * a[rj + m];
+    a[ri + j] -= s;
+  }
+
+  /**
+   * Solves L*L'*x = y in place, L given by its leading diagonal and the
+   * jagged rows below it, as in {@link Gram.Cholesky}.
+   */
+  public static void solve(final double[][] xx, final double[] diag, final double[] y, int nthreads) {
+    final int sN = diag.length;
+    final int n = xx.length == 0 ? sN : xx[xx.length - 1].length;
+    // Solve L*Y = B
+    for (int k = 0; k < sN; ++k)
+      y[k] /= diag[k];
+    if (sN > 0) subtractBelow(xx, sN, y, 0, sN, sN, n, nthreads);
+    for (int k0 = sN; k0 < n; k0 += NB) {
+      final int k1 = Math.min(n, k0 + NB);
+      for (int k = k0; k < k1; ++k) {
+        final double[] rowk = xx[k - sN];
+        double d = 0;
+        for (int i = k0; i < k; ++i) d += y[i] * rowk[i];
+        y[k] = (y[k] - d) / rowk[k];
+      }
+      if (k1 < n) subtractBelow(xx, sN, y, k0, k1, k1, n, nthreads);
+    }
+    // Solve L'*X = Y
+    for (int k1 = n; k1 > sN; k1 = Math.max(sN, k1 - NB)) {
+      final int k0 = Math.max(sN, k1 - NB);
+      for (int k = k1 - 1; k >= k0; --k) {
+        final double[] rowk = xx[k - sN];
+        y[k] /= rowk[k];
+        for (int i = k0; i < k; ++i) y[i] -= y[k] * rowk[i];
+      }
+      if (k0 > 0) subtractAbove(xx, sN, y, k0, k1, nthreads);
+    }
+    for (int k = sN - 1; k >= 0; --k)
+      y[k] /= diag[k];
+  }
+
+  // y[i] -= L[i, c0:c1] . y[c0:c1] for rows i in [r0,r1)
+  private static void subtractBelow(final double[][] xx, final int sN, final double[] y, final int c0, final int c1, int r0, int r1, int nthreads) {
+    final int rows = r1 - r0;
+    final int p = tasks(nthreads, (long) rows * (c1 - c0), rows);
+    RecursiveAction[] ras = new RecursiveAction[p];
+    for (int t = 0; t < p; ++t) {
+      final int lo = r0 + (int) ((long) rows * t / p), hi = r0 + (int) ((long) rows * (t + 1) / p);
+      ras[t] = new RecursiveAction() {
+        @Override protected void compute() {
+          for (int i = lo; i < hi; ++i) {
+            final double[] rowi = xx[i - sN];
+            double d = 0;
+            for (int m = c0; m < c1; ++m) d += rowi[m] * y[m];
+            y[i] -= d;
+          }
+        }
+      };
+    }
+    invoke(ras);
+  }
+
+  // y[j] -= sum over k in [k0,k1) of L[k,j] * y[k], for j < k0
+  private static void subtractAbove(final double[][] xx, final int sN, final double[] y, final int k0, final int k1, int nthreads) {
+    final int p = tasks(nthreads, (long) k0 * (k1 - k0), k0);
+    RecursiveAction[] ras = new RecursiveAction[p];
+    for (int t = 0; t < p; ++t) {
+      final int lo = (int) ((long) k0 * t / p), hi = (int) ((long) k0 * (t + 1) / p);
+      ras[t] = new RecursiveAction() {
+        @Override protected void compute() {
+          for (int k = k0; k < k1; ++k) {
+            final double[] rowk = xx[k - sN];
+            final double yk = y[k];
+            for (int j = lo; j < hi; ++j) y[j] -= yk * rowk[j];
+          }
+        }
+      };
+    }
+    invoke(ras);
+  }
+}
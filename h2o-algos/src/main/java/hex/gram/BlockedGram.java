@@ -0,0 +1,159 @@
+package hex.gram;
+
+import hex.DataInfo;
+import water.H2O;
+import water.Iced;
+import water.MemoryManager;
+import water.util.ArrayUtils;
+
+/**
+ * Accumulates dense rows into a {@link Gram} a tile at a time.
+ *
+ * Gram.addRowDense adds the outer product of every row to the whole lower
+ * triangle of the numeric block, so with a few thousand numeric columns each
+ * row streams megabytes of Gram through the cache.  Here the numeric values
+ * (and the intercept) of up to {@link #TILE_ROWS} rows are buffered column
+ * by column, and the tile is then added as one rank-k update X'WX into a
+ * packed lower triangle, block of columns by block of columns, so the
+ * triangle is touched once per tile instead of once per row.
+ *
+ * Categorical terms only touch a row's bins and are still added row by row
+ * to the underlying Gram, as are sparse rows.  {@link #fold()} adds the
+ * packed triangle into the Gram.
+ */
+public final class BlockedGram extends Iced<BlockedGram> {
+  /** Whether GLM accumulates its Gram by tiles; on unless the property is set. */
+  public static final boolean ENABLED = !Boolean.getBoolean(H2O.OptArgs.SYSTEM_PROP_PREFIX + "glm.noBlockedGram");
+  /** Least number of numeric columns worth tiling; narrower triangles stay in cache anyway. */
+  public static final int MIN_COLS = Integer.getInteger(H2O.OptArgs.SYSTEM_PROP_PREFIX + "glm.blockedGramMinCols", 32);
+  /** Rows per tile. */
+  static final int TILE_ROWS = 32;
+  /** Columns per block of the rank-k update. */
+  static final int BLOCK_COLS = 64;
+
+  public final Gram _gram;
+  private final int _n;                 // Dense columns, plus the intercept
+  private final double[] _packed;       // Lower triangle of the dense block, row by row
+  private transient double[] _x;        // Tile, column by column; the intercept column is all ones
+  private transient double[] _wx;       // Tile times the row weights
+  private transient double[] _w;        // Row weights
+  private transient int _rows;          // Rows in the tile
+
+  public BlockedGram(Gram gram) {
+    _gram = gram;
+    _n = gram._denseN + (gram._hasIntercept ? 1 : 0);
+    _packed = MemoryManager.malloc8d(_n * (_n + 1) / 2);
+  }
+
+  private int denseRowStart() { return _gram._fullN - _gram._denseN - _gram._diagN - (_gram._hasIntercept ? 1 : 0); }
+
+  public void addRow(DataInfo.Row row, double w) {
+    if (row.numIds != null) {   // Sparse rows are cheap enough as they are
+      _gram.addRowSparse(row, w);
+      return;
+    }
+    if (_x == null) {
+      _x = MemoryManager.malloc8d(_n * TILE_ROWS);
+      _wx = MemoryManager.malloc8d(_n * TILE_ROWS);
+      _w = MemoryManager.malloc8d(TILE_ROWS);
+      if (_gram._hasIntercept)
+        for (int k = 0; k < TILE_ROWS; ++k)
+          _x[_gram._denseN * TILE_ROWS + k] = 1;
+    }
+    final int denseN = _gram._denseN;
+    for (int i = 0; i < denseN; ++i)
+      _x[i * TILE_ROWS + _rows] = row.numVals[i];
+    _w[_rows] = w;
+    // nums * cats
+    if (row.nBins > 0) {
+      final int denseRowStart = denseRowStart();
+      for (int i = 0; i < denseN; ++i) if (row.numVals[i] != 0) {
+        final double[] mrow = _gram._xx[i + denseRowStart];
+        final double d = w * row.numVals[i];
+        for (int j = 0; j < row.nBins; ++j)
+          mrow[row.binIds[j]] += d;
+      }
+    }
+    _gram.addRowCats(row, w);
+    if (++_rows == TILE_ROWS) flushTile();
+  }
+
+  // Adds the tile as a rank-k update of the packed triangle
+  private void flushTile() {
+    final int rows = _rows;
+    if (rows == 0) return;
+    final double[] x = _x, wx = _wx, w = _w, packed = _packed;
+    for (int i = 0; i < _n; ++i)
+      for (int k = 0, off = i * TILE_ROWS; k < rows; ++k)
+        wx[off + k] = w[k] * x[off + k];
+    for (int i0 = 0; i0 < _n; i0 += BLOCK_COLS) {
+      final int i1 = Math.min(_n, i0 + BLOCK_COLS);
+      for (int j0 = 0; j0 <= i0; j0 += BLOCK_COLS) {
+        final int j1 = Math.min(i1, j0 + BLOCK_COLS);
+        for (int i = i0; i < i1; ++i) {
+          final int ai = i * TILE_ROWS;
+          final int prow = i * (i + 1) / 2;
+          final int jEnd = Math.min(j1, i + 1);
+          int j = j0;
+          for (; j + 3 < jEnd; j += 4) { // four dot products share the loads of column i
+            final int b0 = j * TILE_ROWS, b1 = b0 + TILE_ROWS, b2 = b1 + TILE_ROWS, b3 = b2 + TILE_ROWS;
+            double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+            for (int k = 0; k < rows; ++k) {
+              final double a = wx[ai + k];
+              s0 += a * x[b0 + k];
+              s1 += a * x[b1 + k];
+              s2 += a * x[b2 + k];
+              s3 += a * x[b3 + k];
+            }
+            packed[prow + j] += s0;
+            packed[prow + j + 1] += s1;
+            packed[prow + j + 2] += s2;
+            packed[prow + j + 3] += s3;
+          }
+          for (; j < jEnd; ++j) {
+            final int b = j * TILE_ROWS;
+            double s = 0;
+            for (int k = 0; k < rows; ++k)
+              s += wx[ai + k] * x[b + k];
+            packed[prow + j] += s;
+          }
+        }
+      }
+    }
+    _rows = 0;
+  }
+
+  /** Adds another accumulator's rows to this one. */
+  public void add(BlockedGram bg) {
+    flushTile();
+    bg.flushTile();
+    ArrayUtils.add(_packed, bg._packed);
+    _gram.add(bg._gram);
+  }
+
+  /**
+   * Merges per-thread accumulators pairwise, log2(n) levels deep, into the
+   * first one.  Keeps the additions balanced, like the reduce of an MRTask.
+   */
+  public static BlockedGram reduce(BlockedGram[] bgs) {
+    for (int step = 1; step < bgs.length; step <<= 1)
+      for (int i = 0; i + step < bgs.length; i += step << 1)
+        bgs[i].add(bgs[i + step]);
+    return bgs[0];
+  }
+
+  /** Adds everything accumulated so far into the Gram, and returns it. */
+  public Gram fold() {
+    flushTile();
+    final int denseRowStart = denseRowStart();
+    final int denseColStart = _gram._fullN - _n;
+    for (int i = 0, p = 0; i < _n; ++i) {
+      final double[] mrow = _gram._xx[i + denseRowStart];
+      for (int j = 0; j <= i; ++j, ++p) {
+        mrow[j + denseColStart] += _packed[p];
+        _packed[p] = 0;
+      }
+    }
+    return _gram;
+  }
+}
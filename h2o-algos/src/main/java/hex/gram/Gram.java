@@ -499,10 +499,16 @@ public final class Gram extends Iced<Gram> {
     }
     ForkJoinTask.invokeAll(fjts);
     // compute the cholesky of dense*dense-outer_product(diagonal*dense)
+    int p = Runtime.getRuntime().availableProcessors();
+    if( denseN >= BlockedCholesky.MIN_N ) { // large dense block: factor it packed, by blocks of columns
+      double[] packed = BlockedCholesky.pack(fchol._xx, sparseN);
+      fchol.setSPD(BlockedCholesky.factor(packed, denseN, parallelize ? p : 1));
+      BlockedCholesky.unpack(packed, fchol._xx, sparseN);
+      return chol;
+    }
     double[][] arr = new double[denseN][];
     for( int i = 0; i < arr.length; ++i )
       arr[i] = Arrays.copyOfRange(fchol._xx[i], sparseN, sparseN + denseN);
-    int p = Runtime.getRuntime().availableProcessors();
     InPlaceCholesky d = InPlaceCholesky.decompose_2(arr, 10, p);
     fchol.setSPD(d.isSPD());
     arr = d.getL();
@@ -668,27 +674,31 @@ public final class Gram extends Iced<Gram> {
           y[i] = y[i-1];
         y[0] = icpt;
       }
-      // diagonal
-      for( int k = 0; k < _diag.length; ++k )
-        y[k] /= _diag[k];
-      // rest
       final int n = _xx.length == 0?0:_xx[_xx.length-1].length;
-      // Solve L*Y = B;
-      for( int k = _diag.length; k < n; ++k ) {
-        double d = 0;
-        for( int i = 0; i < k; i++ )
-          d += y[i] * _xx[k - _diag.length][i];
-        y[k] = (y[k]-d)/_xx[k - _diag.length][k];
-      }
-      // Solve L'*X = Y;
-      for( int k = n - 1; k >= _diag.length; --k ) {
-        y[k] /= _xx[k - _diag.length][k];
-        for( int i = 0; i < k; ++i )
-          y[i] -= y[k] * _xx[k - _diag.length][i];
+      if( n - _diag.length >= BlockedCholesky.PARALLEL_SOLVE_N ) // large dense part: solve by blocks, in parallel
+        BlockedCholesky.solve(_xx, _diag, y, Runtime.getRuntime().availableProcessors());
+      else {
+        // diagonal
+        for( int k = 0; k < _diag.length; ++k )
+          y[k] /= _diag[k];
+        // rest
+        // Solve L*Y = B;
+        for( int k = _diag.length; k < n; ++k ) {
+          double d = 0;
+          for( int i = 0; i < k; i++ )
+            d += y[i] * _xx[k - _diag.length][i];
+          y[k] = (y[k]-d)/_xx[k - _diag.length][k];
+        }
+        // Solve L'*X = Y;
+        for( int k = n - 1; k >= _diag.length; --k ) {
+          y[k] /= _xx[k - _diag.length][k];
+          for( int i = 0; i < k; ++i )
+            y[i] -= y[k] * _xx[k - _diag.length][i];
+        }
+        // diagonal
+        for( int k = _diag.length - 1; k >= 0; --k )
+          y[k] /= _diag[k];
       }
-      // diagonal
-      for( int k = _diag.length - 1; k >= 0; --k )
-        y[k] /= _diag[k];
       if(_icptFirst) {
         double icpt = y[0];
         for(int i = 1; i < y.length; ++i)
@@ -762,9 +772,16 @@ public final class Gram extends Iced<Gram> {
       for(int j = 0; j < row.nBins; ++j)
         mrow[row.binIds[j]] += d;
     }
-    if(_hasIntercept){
-      // intercept*intercept
+    // intercept*intercept
+    if(_hasIntercept)
       interceptRow[_denseN+denseColStart] += w;
+    addRowCats(row,w);
+  }
+
+  /** Adds the intercept X cat, cat X cat and diagonal terms of a dense row. */
+  final void addRowCats(DataInfo.Row row, double w) {
+    if(_hasIntercept){
+      final double [] interceptRow = _xx[_xx.length-1];
       // intercept X cat
       for(int j = 0; j < row.nBins; ++j)
         interceptRow[row.binIds[j]] += w;
@@ -34,6 +34,10 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
   @Override public boolean haveMojo() { return true; }
 
   public enum Initialization { Random, PlusPlus, Furthest, User }
+  /** Lloyds: every row against every center on every iteration.<br>
+   *  Hamerly: Lloyds, skipping the rows whose bounds show their cluster cannot change.<br>
+   *  MiniBatch: centers moved by the rows of a sample of the chunks per iteration. */
+  public enum Algorithm { Lloyds, Hamerly, MiniBatch }
   /** Start the KMeans training Job on an F/J thread. */
   @Override protected KMeansDriver trainModelImpl() { return new KMeansDriver();  }
 
@@ -65,6 +69,8 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
     if( _parms._max_iterations <= 0 || _parms._max_iterations > 1e6)
       error("_max_iterations", " max_iterations must be between 1 and 1e6");
     if (_train == null) return;
+    if (_parms._algorithm == Algorithm.MiniBatch && !(0 < _parms._batch_fraction && _parms._batch_fraction <= 1))
+      error("_batch_fraction", "batch_fraction must be in (0,1]");
     if (_parms._init == Initialization.User && _parms._user_points == null)
       error("_user_y","Must specify initial cluster centers");
     if (_parms._user_points != null) { // Check dimensions of user-specified centers
@@ -291,14 +297,35 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
           Log.info("Cutoff for relative improvement in within_cluster_sum_of_squares: " + rel_improvement_cutoff);
         Vec[] vecs2 = Arrays.copyOf(vecs, vecs.length+1);
         vecs2[vecs2.length-1] = vecs2[0].makeCon(-1);
+        // Hamerly keeps each row's lower bound after its cluster assignment
+        Vec[] vecs3 = _parms._algorithm == Algorithm.Hamerly ? ArrayUtils.append(vecs2, vecs2[0].makeCon(0)) : null;
         for (int k = startK; k <= _parms._k; ++k) {
-          Log.info("Running Lloyds iteration for " + k + " centroids.");
+          Log.info("Running " + _parms._algorithm + " iteration for " + k + " centroids.");
           model._output._iterations = 0;  // Loop ends only when iterations > max_iterations with strict inequality
           double[][] lo=null, hi=null;
-          boolean stop = false;
-          do { //Lloyds algorithm
+          if (_parms._algorithm == Algorithm.MiniBatch) {
+            centers = miniBatch(model, centers, vecs2, means, mults, impute_cat, k, work_unit_iter);
+            // One full pass assigns every row and gathers the model's statistics
+            LloydsIterationTask task = new LloydsIterationTask(centers, means, mults, impute_cat, _isCats, k, hasWeightCol()).doAll(vecs2);
+            max_cats(task._cMeans, task._cats, _isCats);
+            for (int clu = 0; clu < k; clu++)
+              if (task._size[clu] == 0) task._cMeans[clu] = centers[clu]; // Keep the centers no row is closest to
+            centers = computeStatsFillModel(task, model, vecs, means, mults, impute_cat, k);
+            lo = task._lo;
+            hi = task._hi;
+            if (work_unit_iter) model.update(_job);
+          }
+          double[][] prevCenters = null; // Centers the Hamerly bounds were computed for
+          boolean stop = _parms._algorithm == Algorithm.MiniBatch;
+          while (!stop) { //Lloyds algorithm
             assert(centers.length == k);
-            LloydsIterationTask task = new LloydsIterationTask(centers, means, mults, impute_cat, _isCats, k, hasWeightCol()).doAll(vecs2); //1 PASS OVER THE DATA
+            LloydsIterationTask task;
+            if (vecs3 != null) {
+              task = new HamerlyIterationTask(centers, prevCenters, means, mults, impute_cat, _isCats, k, hasWeightCol()).doAll(vecs3); //1 PASS OVER THE DATA
+              Log.debug("Hamerly bounds skipped the full scan for " + ((HamerlyIterationTask)task)._skipped + " rows.");
+              prevCenters = ArrayUtils.deepClone(centers);
+            } else
+              task = new LloydsIterationTask(centers, means, mults, impute_cat, _isCats, k, hasWeightCol()).doAll(vecs2); //1 PASS OVER THE DATA
             // Pick the max categorical level for cluster center
             max_cats(task._cMeans, task._cats, _isCats);
 
@@ -326,7 +353,7 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
               else
                 Log.info("Lloyds stopped after " + model._output._iterations + " iterations.");
             }
-          } while (!stop);
+          }
 
           double sum_squares_now = model._output._tot_withinss;
           double rel_improvement;
@@ -355,6 +382,7 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
             centers = splitLargestCluster(centers, lo, hi, means, mults, impute_cat, vecs2, k);
         } //k-finder
         vecs2[vecs2.length-1].remove();
+        if (vecs3 != null) vecs3[vecs3.length-1].remove();
 
         // Create metrics by scoring on training set otherwise scores are based on last Lloyd iteration
         model.score(_train).delete();
@@ -377,6 +405,58 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
       }
     }
 
+    // Mini-batch KMeans (Sculley, "Web-Scale K-Means Clustering"): each
+    // iteration assigns the rows of a sample of the chunks to the current
+    // centers, then moves every center towards the mean of its rows in the
+    // batch, by their share of all the rows the center was given so far.
+    // Stops after max_iterations batches, or once the centers move less
+    // than TOLERANCE of the batch's within-cluster sum of squares.
+    double[][] miniBatch(KMeansModel model, double[][] centers, Vec[] vecs2, double[] means, double[] mults, int[] modes, int k, boolean work_unit_iter) {
+      centers = ArrayUtils.deepClone(centers);
+      Random rand = RandomUtils.getRNG(_parms._seed);
+      long[] counts = new long[k];
+      long[][][] cats = null;   // Histograms of cat levels over all the batches
+      while (model._output._iterations < _parms._max_iterations && !stop_requested()) {
+        LloydsIterationTask task = new MiniBatchTask(centers, means, mults, modes, _isCats, k, hasWeightCol(), sampleChunks(vecs2[0], rand)).doAll(vecs2);
+        model._output._iterations++;
+        if (work_unit_iter) _job.update(1);
+        cats = cats == null ? task._cats : ArrayUtils.add(cats, task._cats);
+        double move = 0, sqr = 0;
+        for (int clu = 0; clu < k; clu++) {
+          if (task._size[clu] == 0) continue;
+          counts[clu] += task._size[clu];
+          double rate = (double) task._size[clu] / counts[clu];
+          double[] prev = centers[clu].clone();
+          for (int col = 0; col < centers[clu].length; col++)
+            if (_isCats[col] == null)
+              centers[clu][col] += rate * (task._cMeans[clu][col] - centers[clu][col]);
+            else
+              centers[clu][col] = ArrayUtils.maxIndex(cats[clu][col]);
+          move += task._size[clu] * hex.genmodel.GenModel.KMeans_distance(prev, centers[clu], _isCats);
+          sqr += task._cSqr[clu];
+        }
+        if (move <= TOLERANCE * sqr) {
+          Log.info("Mini-batch converged after " + model._output._iterations + " iterations.");
+          break;
+        }
+      }
+      return centers;
+    }
+
+    // A fraction batch_fraction of the chunks, at least one
+    private boolean[] sampleChunks(Vec vec, Random rand) {
+      int nChunks = vec.nChunks();
+      int[] idx = ArrayUtils.seq(0, nChunks);
+      boolean[] batch = new boolean[nChunks];
+      int n = Math.max(1, (int) Math.round(_parms._batch_fraction * nChunks));
+      for (int i = 0; i < n; i++) { // Partial Fisher-Yates shuffle
+        int j = i + rand.nextInt(nChunks - i);
+        int tmp = idx[i]; idx[i] = idx[j]; idx[j] = tmp;
+        batch[idx[i]] = true;
+      }
+      return batch;
+    }
+
     double[][] splitLargestCluster(double[][] centers, double[][] lo, double[][] hi, double[] means, double[] mults, int[] impute_cat, Vec[] vecs2, int k) {
       double[][] newCenters = Arrays.copyOf(centers, centers.length + 1);
       for (int i = 0; i < centers.length; ++i)
@@ -656,8 +736,16 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
       _hasWeight = hasWeight;
     }
 
+    // Vecs after the cluster assignment
+    int sideVecs() { return 0; }
+
+    // Finds the nearest cluster center of the (already loaded) row
+    void nearest(Chunk[] cs, int row, double[] values, ClusterDist cd) {
+      closest(_centers, values, _isCats, cd);
+    }
+
     @Override public void map(Chunk[] cs) {
-      int N = cs.length - (_hasWeight ? 1:0) - 1 /*clusterassignment*/;
+      int N = cs.length - (_hasWeight ? 1:0) - 1 /*clusterassignment*/ - sideVecs();
       assert _centers[0].length==N;
       _lo = new double[_k][N];
       for( int clu=0; clu< _k; clu++ )
@@ -675,7 +763,7 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
           _cats[clu][col] = _isCats[col]==null ? null : new long[cs[col].vec().cardinality()];
       _worst_err = 0;
 
-      Chunk assignment = cs[cs.length-1];
+      Chunk assignment = cs[cs.length-1-sideVecs()];
       // Find closest cluster center for each row
       double[] values = new double[N]; // Temp data to hold row as doubles
       ClusterDist cd = new ClusterDist();
@@ -684,7 +772,7 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
         if (weight == 0) continue; //skip holdout rows
         assert(weight == 1); //K-Means only works for weight 1 (or weight 0 for holdout)
         data(values, cs, row, _means, _mults, _modes); // Load row as doubles
-        closest(_centers, values, _isCats, cd); // Find closest cluster center
+        nearest(cs, row, values, cd); // Find closest cluster center
         if (cd._cluster != assignment.at8(row)) {
           _reassigned_count+=weight;
           assignment.set(row, cd._cluster);
@@ -720,6 +808,13 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
     }
 
     @Override public void reduce(LloydsIterationTask mr) {
+      if( mr._size == null ) return; // Only chunks outside of a mini-batch
+      if( _size == null ) {
+        _lo = mr._lo; _hi = mr._hi; _reassigned_count = mr._reassigned_count;
+        _cMeans = mr._cMeans; _cats = mr._cats; _cSqr = mr._cSqr; _size = mr._size;
+        _worst_row = mr._worst_row; _worst_err = mr._worst_err;
+        return;
+      }
       _reassigned_count += mr._reassigned_count;
       for( int clu = 0; clu < _k; clu++ ) {
         long ra =    _size[clu];
@@ -743,6 +838,113 @@ public class KMeans extends ClusteringModelBuilder<KMeansModel,KMeansModel.KMean
     }
   }
 
+  // ---------------------------------------
+  // A Lloyd's pass with Hamerly's bounds:
+  //   Each row keeps a lower bound on the distance to its second closest
+  //   center, in a side Vec after the cluster assignment.  When the centers
+  //   move, the bound drops by the largest move of any other center.  While
+  //   the distance to the assigned center stays below the bound, or below
+  //   half the gap to the closest other center, the assignment cannot
+  //   change and the other k-1 distances are not computed.
+  //   Distances are the square roots of KMeans_distance, a metric as long as
+  //   the row has no missing values; rows with some always get a full scan.
+
+  private static class HamerlyIterationTask extends LloydsIterationTask {
+    // IN
+    final double[] _maxMove;    // Largest move of the other centers, by assigned center; null if there are no bounds yet
+    final double[] _halfGap;    // Half the distance to the closest other center
+
+    // OUT
+    long _skipped;              // Rows assigned from their bounds alone
+
+    HamerlyIterationTask(double[][] centers, double[][] prevCenters, double[] means, double[] mults, int[] modes, String[][] isCats, int k, boolean hasWeight) {
+      super(centers, means, mults, modes, isCats, k, hasWeight);
+      _halfGap = new double[k];
+      Arrays.fill(_halfGap, Double.POSITIVE_INFINITY);
+      for( int i = 0; i < k; i++ )
+        for( int j = 0; j < i; j++ ) {
+          double gap = 0.5 * Math.sqrt(hex.genmodel.GenModel.KMeans_distance(centers[i], centers[j], isCats));
+          _halfGap[i] = Math.min(_halfGap[i], gap);
+          _halfGap[j] = Math.min(_halfGap[j], gap);
+        }
+      _maxMove = prevCenters == null ? null : maxMoves(prevCenters, centers, isCats);
+    }
+
+    // For each center, the largest move of all the other centers
+    private static double[] maxMoves(double[][] prevCenters, double[][] centers, String[][] isCats) {
+      int k = centers.length;
+      double[] moves = new double[k];
+      int max = 0;
+      for( int clu = 0; clu < k; clu++ ) {
+        moves[clu] = Math.sqrt(hex.genmodel.GenModel.KMeans_distance(prevCenters[clu], centers[clu], isCats));
+        if( moves[clu] > moves[max] ) max = clu;
+      }
+      double next = 0;
+      for( int clu = 0; clu < k; clu++ )
+        if( clu != max ) next = Math.max(next, moves[clu]);
+      double[] res = new double[k];
+      Arrays.fill(res, moves[max]);
+      res[max] = next;
+      return res;
+    }
+
+    @Override int sideVecs() { return 1; }
+
+    @Override void nearest(Chunk[] cs, int row, double[] values, ClusterDist cd) {
+      Chunk lower = cs[cs.length-1];
+      int clu = (int)cs[cs.length-2].at8(row);
+      if( _maxMove != null && clu >= 0 && !ArrayUtils.hasNaNs(values) ) {
+        double sqr = hex.genmodel.GenModel.KMeans_distance(_centers[clu], values, _isCats);
+        double bound = lower.atd(row) - _maxMove[clu];
+        if( Math.sqrt(sqr) < Math.max(bound, _halfGap[clu]) ) {
+          lower.set(row, bound);
+          cd._cluster = clu;
+          cd._dist = sqr;
+          _skipped++;
+          return;
+        }
+      }
+      // Full scan, keeping the second closest distance as the new bound
+      int min = -1;
+      double minSqr = Double.MAX_VALUE, nextSqr = Double.MAX_VALUE;
+      for( int cluster = 0; cluster < _centers.length; cluster++ ) {
+        double sqr = hex.genmodel.GenModel.KMeans_distance(_centers[cluster], values, _isCats);
+        if( sqr < minSqr ) {
+          nextSqr = minSqr;
+          min = cluster;
+          minSqr = sqr;
+        } else if( sqr < nextSqr )
+          nextSqr = sqr;
+      }
+      lower.set(row, Math.sqrt(nextSqr));
+      cd._cluster = min;
+      cd._dist = minSqr;
+    }
+
+    @Override public void reduce(LloydsIterationTask mr) {
+      _skipped += ((HamerlyIterationTask)mr)._skipped;
+      super.reduce(mr);
+    }
+  }
+
+  // ---------------------------------------
+  // A Lloyd's pass over a mini-batch: only the rows of the sampled chunks
+  // are assigned and summed up.
+
+  private static class MiniBatchTask extends LloydsIterationTask {
+    // IN
+    final boolean[] _batch;     // Chunks in the mini-batch, by chunk index
+
+    MiniBatchTask(double[][] centers, double[] means, double[] mults, int[] modes, String[][] isCats, int k, boolean hasWeight, boolean[] batch) {
+      super(centers, means, mults, modes, isCats, k, hasWeight);
+      _batch = batch;
+    }
+
+    @Override public void map(Chunk[] cs) {
+      if( _batch[cs[0].cidx()] ) super.map(cs);
+    }
+  }
+
   // A pair result: nearest cluster center and the square distance
   private static final class ClusterDist { int _cluster; double _dist;  }
 
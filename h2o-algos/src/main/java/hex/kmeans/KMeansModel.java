@@ -39,6 +39,8 @@ public class KMeansModel extends ClusteringModel<KMeansModel,KMeansModel.KMeansP
     public boolean _pred_indicator = false;   // For internal use only: generate indicator cols during prediction
                                               // Ex: k = 4, cluster = 3 -> [0, 0, 1, 0]
     public boolean _estimate_k = false;       // If enabled, iteratively find up to _k clusters
+    public KMeans.Algorithm _algorithm = KMeans.Algorithm.Lloyds;
+    public double _batch_fraction = 0.1;      // Fraction of the chunks in each mini-batch
   }
 
   public static class KMeansOutput extends ClusteringModel.ClusteringOutput {
@@ -58,6 +58,7 @@ public class GBMV3 extends SharedTreeV3<GBM,GBMV3,GBMV3.GBMParametersV3> {
       "col_sample_rate_per_tree",
       "min_split_improvement",
       "histogram_type",
+      "prebin_columns",
       "max_abs_leafnode_pred",
       "pred_noise_bandwidth",
       "categorical_encoding",
@@ -29,6 +29,8 @@ public class KMeansV3 extends ClusteringModelBuilderSchema<KMeans,KMeansV3,KMean
         "standardize",
         "seed",
         "init",
+        "algorithm",
+        "batch_fraction",
         "max_runtime_secs",
         "categorical_encoding"
     };
@@ -51,6 +53,14 @@ public class KMeansV3 extends ClusteringModelBuilderSchema<KMeans,KMeansV3,KMean
     @API(help = "Initialization mode", values = { "Random", "PlusPlus", "Furthest", "User" }, gridable = true) // TODO: pull out of categorical class. . .
     public KMeans.Initialization init;
 
+    @API(help = "Training algorithm: Lloyds; Hamerly, Lloyds skipping the distances that bounds kept per row rule out; " +
+            "or MiniBatch, which moves the centers by a sample of the chunks per iteration",
+            values = { "Lloyds", "Hamerly", "MiniBatch" }, level = API.Level.secondary, gridable = true)
+    public KMeans.Algorithm algorithm;
+
+    @API(help = "Fraction of the chunks sampled per MiniBatch iteration", level = API.Level.expert, gridable = true)
+    public double batch_fraction;
+
     @API(help = "Whether to estimate the number of clusters (<=k) iteratively and deterministically.", level = API.Level.critical, gridable = true)
     public boolean estimate_k = false;
   }
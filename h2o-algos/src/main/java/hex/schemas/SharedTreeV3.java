@@ -93,6 +93,9 @@ public class SharedTreeV3<B extends SharedTree, S extends SharedTreeV3<B,S,P>, P
     @API(help="What type of histogram to use for finding optimal split points", values = { "AUTO", "UniformAdaptive", "Random", "QuantilesGlobal", "RoundRobin"}, level = API.Level.secondary, gridable = true)
     public SharedTreeParameters.HistogramType histogram_type;
 
+    @API(help="Bin the predictor columns once up front and build all histograms from the compact bin indices (shared by models training on the same columns at the same time)", level = API.Level.expert, gridable = true)
+    public boolean prebin_columns;
+
     @API(help="Use Platt Scaling to calculate calibrated class probabilities. Calibration can provide more accurate estimates of class probabilities.", level = API.Level.expert)
     public boolean calibrate_model;
 
@@ -0,0 +1,303 @@
+package hex.tree;
+
+import hex.quantile.Quantile;
+import hex.quantile.QuantileModel;
+import water.*;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.util.ArrayUtils;
+import water.util.Log;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Pre-binned predictor columns for tree training.
+ *
+ * <p>Every usable predictor is binned once against a fixed set of global bin
+ * edges, and the bin indices are stored as a Frame of small-integer Vecs which
+ * compress to 1 or 2 bytes per row.  Real-valued columns get up to
+ * {@link #MAX_BINS} quantile bins; integer columns with a narrow range and
+ * categorical columns get one bin per value, up to {@link #MAX_INT_BINS}.
+ * Global bin {@code g} covers {@code [edges[g-1], edges[g])}.
+ *
+ * <p>Histograms keep their adaptive per-node bins: {@link DHistogram#makeBinMap}
+ * maps the global bins onto the bins of one histogram, so a row is binned
+ * by a table lookup instead of a float compare or binary search.  Rows in a
+ * global bin which straddles a histogram bin boundary fall back to the raw
+ * value, which keeps the resulting trees identical to training on the raw data.
+ *
+ * <p>The cache is keyed by the predictor Vecs and their content versions, so
+ * models training on the same predictors at the same time (e.g. a parallel grid
+ * search or AutoML) share one copy, and predictors written to since get binned
+ * anew.  It is built by the first model asking for it, while later ones for the
+ * same key wait for that build; models asking for other keys do not.  Every
+ * user takes a reference with {@link #acquire} and drops it with
+ * {@link #release}; the last one out removes the cache.  A caller which wants to
+ * keep the cache across several sequential models simply holds a reference of
+ * its own.
+ */
+public class BinnedColumns extends Keyed<BinnedColumns> {
+  /** Real-valued columns: at most this many bins, so indices (and NA) fit into a byte */
+  static final int MAX_BINS = 255;
+  /** Integer and categorical columns: at most this many bins, one per value */
+  static final int MAX_INT_BINS = (1<<16)-1;
+
+  final double[][] _edges;      // Per predictor: interior bin edges, or null if not binned
+  final double[][] _binMin;     // Per predictor: smallest value in each bin
+  final double[][] _binMax;     // Per predictor: largest value in each bin
+  final int[] _binCols;         // Per predictor: column of _bins, or -1
+  final Frame _bins;            // Bin indices of the binned predictors
+  int _refs;                    // Users of this cache; guarded by BinnedColumns.class
+
+  // Caches being built by this node, by key; guarded by BinnedColumns.class
+  private static final HashMap<Key, CountDownLatch> BUILDING = new HashMap<>();
+
+  private BinnedColumns(Key<BinnedColumns> key, double[][] edges, double[][] binMin, double[][] binMax, int[] binCols, Frame bins) {
+    super(key);
+    _edges = edges;
+    _binMin = binMin;
+    _binMax = binMax;
+    _binCols = binCols;
+    _bins = bins;
+  }
+
+  /** @return true if predictor {@code col} is binned */
+  public boolean isBinned(int col) { return _binCols[col] >= 0; }
+
+  /** @return the Vec of bin indices of predictor {@code col}; NA for missing values */
+  public Vec vec(int col) { return _bins.vec(_binCols[col]); }
+
+  /** @return the number of global bins of predictor {@code col}, not counting the NA bin */
+  public int nbins(int col) { return _edges[col].length+1; }
+
+  static int findBin(double[] edges, double d) {
+    int idx = Arrays.binarySearch(edges, d);
+    return idx >= 0 ? idx+1 : -idx-1;
+  }
+
+  /**
+   * Get the cache for the first {@code ncols} columns of {@code fr}, building it
+   * if needed, and take a reference to it.
+   */
+  public static BinnedColumns acquire(Frame fr, int ncols) {
+    Key<BinnedColumns> key = makeKey(fr, ncols);
+    while (true) {
+      CountDownLatch building;
+      boolean builder = false;
+      synchronized (BinnedColumns.class) {
+        BinnedColumns bc = DKV.getGet(key);
+        if (bc != null) {
+          bc._refs++;
+          DKV.put(bc);
+          return bc;
+        }
+        building = BUILDING.get(key);
+        if (building == null) {
+          BUILDING.put(key, building = new CountDownLatch(1));
+          builder = true;
+        }
+      }
+      if (builder) return build(key, fr, ncols, building);
+      // Built by another model; look again once it is done, or build it if that failed
+      try {
+        building.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while waiting for the pre-binned columns " + key, e);
+      }
+    }
+  }
+
+  // Builds the cache outside the lock, holding the first reference
+  private static BinnedColumns build(Key<BinnedColumns> key, Frame fr, int ncols, CountDownLatch building) {
+    BinnedColumns bc = null;
+    try {
+      long start = System.currentTimeMillis();
+      bc = make(key, fr, ncols);
+      Log.info("Pre-binned " + bc._bins.numCols() + " of " + ncols + " predictor columns in " + (System.currentTimeMillis() - start) + "ms.");
+      return bc;
+    } finally {
+      synchronized (BinnedColumns.class) {
+        if (bc != null) {
+          bc._refs++;
+          DKV.put(bc);
+        }
+        BUILDING.remove(key);
+      }
+      building.countDown();
+    }
+  }
+
+  /** Drop a reference taken by {@link #acquire}; the last one removes the cache. */
+  public static void release(Key<BinnedColumns> key) {
+    synchronized (BinnedColumns.class) {
+      BinnedColumns bc = DKV.getGet(key);
+      if (bc == null) return;
+      if (--bc._refs > 0) DKV.put(bc);
+      else bc.remove();
+    }
+  }
+
+  // The predictor Vecs at their current content versions
+  private static Key<BinnedColumns> makeKey(Frame fr, int ncols) {
+    String[] vkeys = new String[ncols];
+    for (int i = 0; i < ncols; i++)
+      vkeys[i] = fr.vec(i)._key.toString() + "@" + fr.vec(i).contentVersion();
+    return Key.makeSystem("binned_columns_" + vkeys[0] + "_" + ncols + "_" + Integer.toHexString(Arrays.hashCode(vkeys)));
+  }
+
+  private static BinnedColumns make(Key<BinnedColumns> key, Frame fr, int ncols) {
+    double[][] edges = new double[ncols][];
+    double[][] binMin = new double[ncols][];
+    double[][] binMax = new double[ncols][];
+    int[] binCols = new int[ncols];
+    Arrays.fill(binCols, -1);
+    // Integer and categorical columns: one bin per value, so bin min == bin max
+    boolean[] needsQuantiles = new boolean[ncols];
+    int nquantiles = 0;
+    for (int i = 0; i < ncols; i++) {
+      Vec v = fr.vec(i);
+      if (!v.isNumeric() && !v.isCategorical() || v.isConst() || v.naCnt() == v.length()) continue;
+      double min = v.isCategorical() ? 0 : v.min();
+      double max = v.isCategorical() ? v.cardinality()-1 : v.max();
+      if ((v.isCategorical() || v.isInt()) && max - min < MAX_INT_BINS) {
+        int n = (int)(max - min) + 1;
+        edges[i] = new double[n-1];
+        binMin[i] = new double[n];
+        for (int b = 0; b < n; b++) {
+          binMin[i][b] = min + b;
+          if (b > 0) edges[i][b-1] = min + b;
+        }
+        binMax[i] = binMin[i];
+      } else if (v.isNumeric() && !v.isCategorical()) {
+        needsQuantiles[i] = true;
+        nquantiles++;
+      }
+    }
+    // Real-valued columns: quantile bins
+    if (nquantiles > 0) {
+      int[] qcols = new int[nquantiles];
+      for (int i = 0, j = 0; i < ncols; i++)
+        if (needsQuantiles[i]) qcols[j++] = i;
+      double[][] qs = quantiles(select(fr, qcols));
+      for (int j = 0; j < qcols.length; j++) {
+        int i = qcols[j];
+        Vec v = fr.vec(i);
+        double[] e = ArrayUtils.makeUniqueAndLimitToRange(qs[j], v.min(), v.max());
+        // The first edge is the column min; everything below it goes to bin 0 anyway
+        edges[i] = e.length > 0 && e[0] == v.min() ? Arrays.copyOfRange(e, 1, e.length) : e;
+      }
+    }
+    int nbinned = 0;
+    for (int i = 0; i < ncols; i++)
+      if (edges[i] != null) binCols[i] = nbinned++;
+    if (nbinned == 0)
+      return new BinnedColumns(key, edges, binMin, binMax, binCols, new Frame());
+    int[] cols = new int[nbinned];
+    double[][] bedges = new double[nbinned][];
+    boolean[] track = new boolean[nbinned];
+    String[] names = new String[nbinned];
+    for (int i = 0; i < ncols; i++) {
+      int c = binCols[i];
+      if (c < 0) continue;
+      cols[c] = i;
+      bedges[c] = edges[i];
+      track[c] = needsQuantiles[i];
+      names[c] = fr.name(i);
+    }
+    BinTask bt = new BinTask(bedges, track).doAll(nbinned, Vec.T_NUM, select(fr, cols));
+    Frame bins = bt.outputFrame(Key.<Frame>make(key + "_bins"), names, null);
+    for (int c = 0; c < nbinned; c++) {
+      if (!track[c]) continue;
+      binMin[cols[c]] = bt._binMin[c];
+      binMax[cols[c]] = bt._binMax[c];
+    }
+    return new BinnedColumns(key, edges, binMin, binMax, binCols, bins);
+  }
+
+  private static Frame select(Frame fr, int[] cols) {
+    Frame res = new Frame();
+    for (int c : cols) res.add(fr.name(c), fr.vec(c));
+    return res;
+  }
+
+  // Interior quantiles splitting every column into MAX_BINS bins of equal mass
+  private static double[][] quantiles(Frame fr) {
+    QuantileModel.QuantileParameters p = new QuantileModel.QuantileParameters();
+    Key<Frame> rndKey = Key.make();
+    DKV.put(rndKey, fr);
+    try {
+      p._train = rndKey;
+      p._combine_method = QuantileModel.CombineMethod.INTERPOLATE;
+      p._probs = new double[MAX_BINS-1];
+      for (int i = 0; i < p._probs.length; ++i)
+        p._probs[i] = (i+1) * 1./MAX_BINS;
+      Job<QuantileModel> job = new Quantile(p).trainModel();
+      QuantileModel qm = job.get();
+      job.remove();
+      double[][] qs = qm._output._quantiles;
+      qm.delete();
+      return qs;
+    } finally {
+      DKV.remove(rndKey);
+    }
+  }
+
+  // Bins every row; also tracks the actual value range of each quantile bin
+  private static class BinTask extends MRTask<BinTask> {
+    final double[][] _edges;
+    final boolean[] _track;
+    double[][] _binMin;
+    double[][] _binMax;
+
+    BinTask(double[][] edges, boolean[] track) { _edges = edges; _track = track; }
+
+    @Override public void map(Chunk[] cs, NewChunk[] ncs) {
+      _binMin = new double[cs.length][];
+      _binMax = new double[cs.length][];
+      for (int c = 0; c < cs.length; c++) {
+        final double[] edges = _edges[c];
+        double[] bmin = null, bmax = null;
+        if (_track[c]) {
+          bmin = _binMin[c] = new double[edges.length+1];
+          bmax = _binMax[c] = new double[edges.length+1];
+          Arrays.fill(bmin, Double.MAX_VALUE);
+          Arrays.fill(bmax, -Double.MAX_VALUE);
+        }
+        Chunk chk = cs[c];
+        NewChunk nc = ncs[c];
+        for (int r = 0; r < chk._len; r++) {
+          double d = chk.atd(r);
+          if (Double.isNaN(d)) { nc.addNA(); continue; }
+          int b = findBin(edges, d);
+          nc.addNum(b, 0);
+          if (bmin != null) {
+            if (d < bmin[b]) bmin[b] = d;
+            if (d > bmax[b]) bmax[b] = d;
+          }
+        }
+      }
+    }
+
+    @Override public void reduce(BinTask bt) {
+      if (bt._binMin == null) return;
+      if (_binMin == null) { _binMin = bt._binMin; _binMax = bt._binMax; return; }
+      for (int c = 0; c < _binMin.length; c++) {
+        if (_binMin[c] == null) continue;
+        for (int b = 0; b < _binMin[c].length; b++) {
+          _binMin[c][b] = Math.min(_binMin[c][b], bt._binMin[c][b]);
+          _binMax[c][b] = Math.max(_binMax[c][b], bt._binMax[c][b]);
+        }
+      }
+    }
+  }
+
+  @Override protected Futures remove_impl(Futures fs) {
+    if (_bins._key != null) _bins.remove(fs);
+    return super.remove_impl(fs);
+  }
+}
@@ -2,6 +2,7 @@ package hex.tree;
 
 import sun.misc.Unsafe;
 import water.*;
+import water.fvec.Chunk;
 import water.fvec.Frame;
 import water.fvec.Vec;
 import water.nbhm.UtilUnsafe;
@@ -425,6 +426,159 @@ public final class DHistogram extends Iced {
     }
   }
 
+  /**
+   * Allocate a private accumulator for {@link #updateHistoSoA}.  Unlike {@code _vals}
+   * it uses a struct-of-arrays layout, {@code [w_0..w_n | wY_0..wY_n | wYY_0..wYY_n]}
+   * with {@code n = nbins()} being the NA bucket, so merging two accumulators is a
+   * plain element-wise add over one contiguous array.  Must be called after {@link #init}.
+   */
+  public double[] makeSoA() { return MemoryManager.malloc8d(3*(_nbin+1)); }
+
+  /**
+   * Same as {@link #updateHisto}, but accumulates into a private struct-of-arrays
+   * accumulator (see {@link #makeSoA}) and leaves this histogram untouched, so
+   * the histogram itself can be shared read-only between threads.  Binning is
+   * done in a separate pass ahead of the accumulation, keeping the scatter loop
+   * short and free of the binary search.
+   * @param acc private accumulator, from {@link #makeSoA}
+   * @param minmax private {min, maxIn} of the column data seen so far; updated
+   * @param bins scratch space, at least {@code hi-lo} long
+   */
+  public void updateHistoSoA(double[] acc, double[] minmax, int[] bins, double[] ws, double[] cs, double[] ys, int [] rows, int hi, int lo){
+    // Pass 1: bin the rows and gather min/max; rows with zero weight get bin -1
+    double min = minmax[0], max = minmax[1];
+    for(int r = lo; r< hi; ++r) {
+      int k = rows[r];
+      if (ws[k] == 0) { bins[r-lo] = -1; continue; }
+      double col_data = cs[k];
+      if (col_data < min) min = col_data;
+      if (col_data > max) max = col_data;
+      bins[r-lo] = bin(col_data);
+    }
+    minmax[0] = min;
+    minmax[1] = max;
+    scatterSoA(acc, bins, ws, ys, rows, hi, lo);
+  }
+
+  // Pass 2 of the SoA updates: accumulate w, wY and wYY into their own contiguous blocks
+  private void scatterSoA(double[] acc, int[] bins, double[] ws, double[] ys, int [] rows, int hi, int lo) {
+    final int n1 = _nbin+1;
+    for(int r = lo; r< hi; ++r) {
+      int b = bins[r-lo];
+      if (b < 0) continue;
+      int k = rows[r];
+      double weight = ws[k];
+      double y = ys[k];
+      assert (!Double.isNaN(y));
+      double wy = weight * y;
+      acc[b] += weight;
+      acc[n1+b] += wy;
+      acc[2*n1+b] += wy * y;
+    }
+  }
+
+  /** Marks a global bin which straddles a bin boundary of this histogram, see {@link #makeBinMap} */
+  static final int STRADDLE = -1;
+
+  /**
+   * Map the global bins of a pre-binned column (see {@link BinnedColumns}) onto the
+   * bins of this histogram.  Global bin {@code g} covers {@code [edges[g-1], edges[g])},
+   * and the extra last entry is the NA bin.  A global bin lying within a single bin of
+   * this histogram maps to that bin; a global bin straddling a bin boundary maps to
+   * {@link #STRADDLE}, and its rows have to be binned from the raw value.  Must be
+   * called after {@link #init}.
+   * @return the map, or null if too many global bins straddle - deep in the tree,
+   * where the bins of this histogram get narrower than the global bins
+   */
+  int[] makeBinMap(double[] edges) {
+    assert _vals != null;
+    final int G = edges.length+1;
+    int[] map = new int[G+1];
+    int inRange = 0, straddles = 0;
+    for (int g = 0; g < G; g++) {
+      double lo = g == 0 ? _min : Math.max(edges[g-1], _min);
+      double hi = g == G-1 ? _maxEx : Math.min(edges[g], _maxEx);
+      if (lo >= hi) { // No finite values in range; the outermost bins may still hold infinities
+        map[g] = g == 0 ? 0 : _nbin-1;
+        continue;
+      }
+      inRange++;
+      int b = bin(lo);
+      if (b == bin(Math.nextAfter(hi, Double.NEGATIVE_INFINITY))) map[g] = b;
+      else { map[g] = STRADDLE; straddles++; }
+    }
+    map[G] = _nbin;             // NA bucket
+    return 4*straddles > inRange ? null : map;
+  }
+
+  /**
+   * Same as {@link #updateHistoSoA}, but bins the rows through the global bin indices
+   * of a pre-binned column instead of the raw column data.  The raw chunk is only read
+   * for rows in straddling global bins, and for the exact min/max when the lowest or
+   * highest global bin seen holds more than one distinct value.
+   * @param gbs global bin per chunk row, NAs as {@code map.length-1}
+   * @param map global to local bins, from {@link #makeBinMap}
+   * @param binMin smallest value of each global bin
+   * @param binMax largest value of each global bin
+   * @param raw the raw column data
+   */
+  public void updateHistoBinned(double[] acc, double[] minmax, int[] bins, double[] ws, int[] gbs, int[] map,
+                                double[] binMin, double[] binMax, Chunk raw, double[] ys, int [] rows, int hi, int lo) {
+    final int naBin = map.length-1;
+    // Pass 1: bin the rows through the map, and find the lowest/highest global bin seen
+    int gLo = naBin, gHi = -1;
+    for(int r = lo; r< hi; ++r) {
+      int k = rows[r];
+      if (ws[k] == 0) { bins[r-lo] = -1; continue; }
+      int g = gbs[k];
+      int b = map[g];
+      if (b == STRADDLE) b = bin(raw.atd(k));
+      if (g != naBin) {
+        if (g < gLo) gLo = g;
+        if (g > gHi) gHi = g;
+      }
+      bins[r-lo] = b;
+    }
+    if (gHi >= 0) {
+      boolean scanLo = binMin[gLo] != binMax[gLo];
+      boolean scanHi = binMin[gHi] != binMax[gHi];
+      double min = scanLo ? Double.MAX_VALUE : binMin[gLo];
+      double max = scanHi ? -Double.MAX_VALUE : binMax[gHi];
+      if (scanLo || scanHi) {
+        for(int r = lo; r< hi; ++r) {
+          if (bins[r-lo] < 0) continue;
+          int k = rows[r];
+          int g = gbs[k];
+          if ((scanLo && g == gLo) || (scanHi && g == gHi)) {
+            double col_data = raw.atd(k);
+            if (col_data < min) min = col_data;
+            if (col_data > max) max = col_data;
+          }
+        }
+      }
+      if (min < minmax[0]) minmax[0] = min;
+      if (max > minmax[1]) minmax[1] = max;
+    }
+    scatterSoA(acc, bins, ws, ys, rows, hi, lo);
+  }
+
+  /**
+   * Fold a private struct-of-arrays accumulator (see {@link #updateHistoSoA}) into
+   * this histogram.  Not thread safe; done once per histogram after all private
+   * accumulators have been reduced.
+   */
+  public void addSoA(double[] acc, double min, double maxIn) {
+    assert _vals != null && acc.length == 3*(_nbin+1);
+    final int n1 = _nbin+1;
+    for (int b = 0; b < n1; b++) {
+      _vals[3*b+0] += acc[b];
+      _vals[3*b+1] += acc[n1+b];
+      _vals[3*b+2] += acc[2*n1+b];
+    }
+    if (min < _min2) _min2 = min;
+    if (maxIn > _maxIn) _maxIn = maxIn;
+  }
+
   /**
    * Cast bin values *except for sums of weights and Na-bucket counters to floats to drop least significant bits.
    * Improves reproducibility (drop bits most affected by floating point error).
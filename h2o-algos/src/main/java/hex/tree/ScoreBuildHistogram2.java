@@ -56,6 +56,16 @@ import java.util.concurrent.atomic.AtomicInteger;
  *
  *    exp(nthreads-pre-column) = max(1,H2O.NUMCPUS - num_cols)
  *
+ * The per-thread copies are not DHistogram clones: the DHistograms of a column are shared read-only
+ * (for binning) and every worker accumulates into private struct-of-arrays buffers (see DHistogram.updateHistoSoA).
+ * LocalMR reduces the buffers pairwise, in a binary tree, and the final sum is folded into the DHistograms once.
+ *
+ * Pre-binned columns:
+ *
+ * With a BinnedColumns cache, a column is binned from its compact global bin indices through a per-histogram lookup
+ * table (see DHistogram.makeBinMap) instead of extracting and searching the raw doubles; the raw chunk is only touched
+ * for the few rows which need it.  Histograms whose bins are too fine for the global bins use the raw data as before.
+ *
  */
 public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
   transient int []   _cids;
@@ -67,10 +77,18 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
   Frame _fr2;
   final int _numLeafs;
   final IcedBitSet _activeCols;
+  final Key<BinnedColumns> _binnedKey;
+  transient BinnedColumns _binned;   // Looked up on each node; the cache is not shipped with the task
 
   public ScoreBuildHistogram2(H2O.H2OCountedCompleter cc, int k, int ncols, int nbins, int nbins_cats, DTree tree, int leaf, DHistogram[][] hcs, DistributionFamily family, int weightIdx, int workIdx, int nidIdxs) {
+    this(cc, k, ncols, nbins, nbins_cats, tree, leaf, hcs, family, weightIdx, workIdx, nidIdxs, null);
+  }
+
+  public ScoreBuildHistogram2(H2O.H2OCountedCompleter cc, int k, int ncols, int nbins, int nbins_cats, DTree tree, int leaf, DHistogram[][] hcs, DistributionFamily family, int weightIdx, int workIdx, int nidIdxs, BinnedColumns binned) {
     super(cc, k, ncols, nbins, nbins_cats, tree, leaf, hcs, family, weightIdx, workIdx, nidIdxs);
     _numLeafs = _hcs.length;
+    _binnedKey = binned == null ? null : binned._key;
+    _binned = binned;
 
     int hcslen = _hcs.length;
     IcedBitSet activeCols = new IcedBitSet(ncols);
@@ -151,6 +169,8 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
     addToPendingCount(1);
     // Init all the internal tree fields after shipping over the wire
     _tree.init_tree();
+    if( _binnedKey != null && _binned == null )
+      _binned = DKV.getGet(_binnedKey); // Cached on this node after the first tree level
     Vec v = _fr2.anyVec();
     assert(v!=null);
     _cids = VecUtils.getLocalChunkIds(v);
@@ -256,27 +276,26 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
           @Override
           protected void map(int c) {
             c = active_cols == null?c:active_cols[c];
-            new LocalMR(new ComputeHistoThread(_hcs.length == 0?new DHistogram[0]:_hcs[c],c,fLargestChunkSz,new AtomicInteger()),numWrks + (c < rem?1:0),ScoreBuildHistogram2.this).fork();
+            final ComputeHistoThread cht = new ComputeHistoThread(_hcs.length == 0?new DHistogram[0]:_hcs[c],c,fLargestChunkSz,new AtomicInteger());
+            new LocalMR(cht,numWrks + (c < rem?1:0),new H2O.H2OCountedCompleter(ScoreBuildHistogram2.this){
+              @Override public void onCompletion(CountedCompleter caller){ cht.flush(); }
+            }).fork();
           }
         },nactive_cols,ScoreBuildHistogram2.this).fork();
       }
     }).fork();
   }
 
-  private static void mergeHistos(DHistogram [] hcs, DHistogram [] hcs2){
-    // Distributed histograms need a little work
-    for( int i=0; i< hcs.length; i++ ) {
-      DHistogram hs1 = hcs[i], hs2 = hcs2[i];
-      if( hs1 == null ) hcs[i] = hs2;
-      else if( hs2 != null )
-        hs1.add(hs2);
-    }
-  }
+  private static final int [] NO_MAP = new int[0];
 
   private class ComputeHistoThread extends MrFun<ComputeHistoThread> {
     final int _maxChunkSz;
     final int _col;
-    final DHistogram [] _lh;
+    final DHistogram [] _lh;       // Shared, read-only once initialized
+    final double [][] _acc;        // Private struct-of-arrays accumulators, per leaf
+    final double [][] _minmax;     // Private {min,maxIn}, per leaf
+    final Vec _binVec;             // Global bin indices of this column, or null
+    final int [][] _maps;          // Shared global-to-local bin maps, per leaf; NO_MAP if not usable
 
     AtomicInteger _cidx;
     private boolean _done;
@@ -284,25 +303,55 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
     public boolean isDone(){return _done || (_done = _cidx.get() >= _cids.length);}
 
     ComputeHistoThread(DHistogram [] hcs, int col, int maxChunkSz,AtomicInteger cidx){
+      this(hcs,col,maxChunkSz,cidx,_binned != null && _binned.isBinned(col) ? _binned.vec(col) : null,new int[hcs.length][]);
+    }
+
+    private ComputeHistoThread(DHistogram [] hcs, int col, int maxChunkSz,AtomicInteger cidx, Vec binVec, int [][] maps){
       _lh = hcs; _col = col; _maxChunkSz = maxChunkSz;
       _cidx = cidx;
+      _acc = new double[hcs.length][];
+      _minmax = new double[hcs.length][];
+      _binVec = binVec;
+      _maps = maps;
     }
 
     @Override
     public ComputeHistoThread makeCopy() {
-      return new ComputeHistoThread(ArrayUtils.deepClone(_lh),_col,_maxChunkSz,_cidx);
+      return new ComputeHistoThread(_lh,_col,_maxChunkSz,_cidx,_binVec,_maps);
     }
 
     @Override
     protected void map(int id){
       double [] cs = null;
+      int [] bins = null;
+      int [] gbs = null;
       for(int i = _cidx.getAndIncrement(); i < _cids.length; i = _cidx.getAndIncrement()) {
-        if(cs == null) cs = MemoryManager.malloc8d(_maxChunkSz);
-        computeChunk(i,cs,_ws[i]);
+        if(cs == null) {
+          cs = MemoryManager.malloc8d(_maxChunkSz);
+          bins = MemoryManager.malloc4(_maxChunkSz);
+          if (_binVec != null) gbs = MemoryManager.malloc4(_maxChunkSz);
+        }
+        computeChunk(i,cs,bins,gbs,_ws[i]);
       }
     }
 
-    private void computeChunk(int id, double [] cs, double [] ws){
+    // The shared histogram is initialized by the first thread to need it (init
+    // may pick up the bins from global quantiles); the lock also publishes the
+    // initialized binning to every other thread, which takes it once too.
+    private void initAcc(int n) {
+      DHistogram h = _lh[n];
+      synchronized (h) {
+        if (h._vals == null) h.init();
+        if (_binVec != null && _maps[n] == null) {
+          int [] map = h.makeBinMap(_binned._edges[_col]);
+          _maps[n] = map == null ? NO_MAP : map;
+        }
+      }
+      _acc[n] = h.makeSoA();
+      _minmax[n] = new double[]{Double.MAX_VALUE, -Double.MAX_VALUE};
+    }
+
+    private void computeChunk(int id, double [] cs, int [] bins, int [] gbs, double [] ws){
       int [] nh = _nhs[id];
       int [] rs = _rss[id];
       Chunk resChk = _chks[id][_workIdx];
@@ -310,7 +359,7 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
       double [] ys = ScoreBuildHistogram2.this._ys[id];
       if(_weightIdx != -1) _chks[id][_weightIdx].getDoubles(ws, 0, len);
       final int hcslen = _lh.length;
-      boolean extracted = false;
+      boolean extracted = false, binsExtracted = false;
       for (int n = 0; n < hcslen; n++) {
         int sCols[] = _tree.undecided(n + _leaf)._scoreCols; // Columns to score (null, or a list of selected cols)
         if (sCols == null || ArrayUtils.find(sCols, _col) >= 0) {
@@ -318,20 +367,46 @@ public class ScoreBuildHistogram2 extends ScoreBuildHistogram {
           int hi = nh[n];
           int lo = (n == 0 ? 0 : nh[n - 1]);
           if (hi == lo || h == null) continue; // Ignore untracked columns in this split
-          if (h._vals == null) h.init();
+          if (_acc[n] == null) initAcc(n);
+          int [] map = _binVec == null ? NO_MAP : _maps[n];
+          if (map != NO_MAP) {
+            if (!binsExtracted) {
+              _binVec.chunkForChunkIdx(_cids[id]).getIntegers(gbs, 0, len, map.length-1);
+              binsExtracted = true;
+            }
+            h.updateHistoBinned(_acc[n], _minmax[n], bins, ws, gbs, map, _binned._binMin[_col], _binned._binMax[_col], _chks[id][_col], ys, rs, hi, lo);
+            continue;
+          }
           if (!extracted) {
             _chks[id][_col].getDoubles(cs,0,len);
             extracted = true;
           }
-          h.updateHisto(ws, cs, ys, rs, hi, lo);
+          h.updateHistoSoA(_acc[n], _minmax[n], bins, ws, cs, ys, rs, hi, lo);
         }
       }
     }
 
     @Override
     protected void reduce(ComputeHistoThread cc) {
-      assert _lh != cc._lh;
-      mergeHistos(_lh, cc._lh);
+      assert _acc != cc._acc;
+      for (int n = 0; n < _acc.length; n++) {
+        if (cc._acc[n] == null) continue;
+        if (_acc[n] == null) {
+          _acc[n] = cc._acc[n];
+          _minmax[n] = cc._minmax[n];
+        } else {
+          ArrayUtils.add(_acc[n], cc._acc[n]);
+          _minmax[n][0] = Math.min(_minmax[n][0], cc._minmax[n][0]);
+          _minmax[n][1] = Math.max(_minmax[n][1], cc._minmax[n][1]);
+        }
+      }
+    }
+
+    // Fold the fully reduced accumulators into the shared histograms
+    void flush() {
+      for (int n = 0; n < _acc.length; n++)
+        if (_acc[n] != null)
+          _lh[n].addSoA(_acc[n], _minmax[n][0], _minmax[n][1]);
     }
   }
 
@@ -72,6 +72,9 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
   protected transient Frame _trainPredsCache;
   protected transient Frame _validPredsCache;
 
+  // Pre-binned predictors, if asked for
+  protected transient BinnedColumns _binned;
+
   public boolean isSupervised(){return true;}
 
   @Override public boolean haveMojo() { return true; }
@@ -312,6 +315,11 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
           DKV.remove(rndKey);
         }
 
+        if (_parms._prebin_columns) {
+          _job.update(0, "Pre-binning predictor columns.");
+          _binned = BinnedColumns.acquire(_train, _ncols);
+        }
+
         // Also add to the basic working Frame these sets:
         //   nclass Vecs of current forest results (sum across all trees)
         //   nclass Vecs of working/temp data
@@ -358,6 +366,10 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
       } finally {
         if( _model!=null ) _model.unlock(_job);
         for (Key k : getGlobalQuantilesKeys()) if (k!=null) k.remove();
+        if (_binned != null) {
+          BinnedColumns.release(_binned._key);
+          _binned = null;
+        }
         if (_validWorkspace != null) {
           _validWorkspace.remove();
           _validWorkspace = null;
@@ -543,7 +555,7 @@ public abstract class SharedTree<M extends SharedTreeModel<M,P,O>, P extends Sha
       // got assigned into.  Collect counts, mean, variance, min, max per bin,
       // per column.
 //      new ScoreBuildHistogram(this,_k, _st._ncols, _nbins, _nbins_cats, _tree, _leafOffsets[_k], _hcs[_k], _family, _weightIdx, _workIdx, _nidIdx).dfork2(null,_fr2,_build_tree_one_node);
-      new ScoreBuildHistogram2(this,_k, _st._ncols, _nbins, _nbins_cats, _tree, _leafOffsets[_k], _hcs[_k], _family, _weightIdx, _workIdx, _nidIdx).dfork2(null,_fr2,_build_tree_one_node);
+      new ScoreBuildHistogram2(this,_k, _st._ncols, _nbins, _nbins_cats, _tree, _leafOffsets[_k], _hcs[_k], _family, _weightIdx, _workIdx, _nidIdx, _st._binned).dfork2(null,_fr2,_build_tree_one_node);
     }
     @Override public void onCompletion(CountedCompleter caller) {
       ScoreBuildHistogram sbh = (ScoreBuildHistogram) caller;
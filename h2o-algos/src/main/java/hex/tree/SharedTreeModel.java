@@ -61,6 +61,8 @@ public abstract class SharedTreeModel<
     public enum HistogramType { AUTO, UniformAdaptive, Random, QuantilesGlobal, RoundRobin }
     public HistogramType _histogram_type = HistogramType.AUTO; // What type of histogram to use for finding optimal split points
 
+    public boolean _prebin_columns = false; // Bin the predictors once (see BinnedColumns), then build histograms from the bin indices
+
     public double _r2_stopping = Double.MAX_VALUE; // Stop when the r^2 metric equals or exceeds this value
 
     public int _nbins_top_level = 1<<10; //hardcoded maximum top-level number of bins for real-valued columns
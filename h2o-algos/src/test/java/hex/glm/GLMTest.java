@@ -9,6 +9,7 @@ import hex.glm.GLMModel.GLMParameters.Link;
 import hex.glm.GLMModel.GLMParameters.Solver;
 import hex.glm.GLMModel.GLMWeightsFun;
 import hex.glm.GLMTask.*;
+import hex.gram.Gram;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Ignore;
@@ -1052,6 +1053,183 @@ public class GLMTest  extends TestUtil {
   }
 
 
+  /**
+   * Test the Gram accumulated by tiles of rows matches the one built row by row
+   */
+  @Test
+  public void testBlockedGramComputation() {
+    Random rnd = new Random(987654321l);
+    int nrows = 1000, nnums = hex.gram.BlockedGram.MIN_COLS + 7;
+    String[] dom = new String[]{"a", "b", "c", "d", "e", "f", "g"};
+    Vec.VectorGroup vg = Vec.VectorGroup.VG_LEN1;
+    Vec[] vecs = new Vec[nnums + 3];
+    for (int c = 0; c < 2; ++c) {
+      long[] cats = MemoryManager.malloc8(nrows);
+      for (int i = 0; i < nrows; ++i) cats[i] = rnd.nextInt(dom.length);
+      vecs[c] = Vec.makeVec(cats, dom, vg.addVec());
+    }
+    for (int c = 2; c < vecs.length; ++c) {
+      double[] nums = MemoryManager.malloc8d(nrows);
+      for (int i = 0; i < nrows; ++i) nums[i] = rnd.nextInt(10) == 0 ? 0 : rnd.nextGaussian();
+      vecs[c] = Vec.makeVec(nums, vg.addVec());
+    }
+    Frame f = new Frame(Key.<Frame>make("BlockedGramData"), null, vecs);
+    DKV.put(f);
+    DataInfo dinfo = new DataInfo(f, null, 1, true, DataInfo.TransformType.STANDARDIZE, DataInfo.TransformType.NONE, true, false, false, false, false, false);
+    try {
+      GLMParameters params = new GLMParameters(Family.gaussian);
+      GLMIterationTask rowByRow = new GLMIterationTask(null, dinfo, new GLMWeightsFun(params), null).setBlockedGram(false).doAll(dinfo._adaptedFrame);
+      GLMIterationTask blocked = new GLMIterationTask(null, dinfo, new GLMWeightsFun(params), null).setBlockedGram(true).doAll(dinfo._adaptedFrame);
+      for (int i = 0; i < rowByRow._xy.length; ++i)
+        for (int j = 0; j <= i; ++j)
+          assertEquals(rowByRow._gram.get(i, j), blocked._gram.get(i, j), 1e-8);
+    } finally {
+      dinfo.remove();
+      f.delete();
+    }
+  }
+
+
+  /**
+   * Test the blocked Cholesky of a large dense Gram, and solves preconditioned with the factorization of another lambda
+   */
+  @Test
+  public void testBlockedCholeskyAndPriorFactorization() {
+    final int N = hex.gram.BlockedCholesky.MIN_N + 50;
+    Random rnd = new Random(1234567l);
+    final Gram gram = new Gram(N - 1, 0, N - 1, 0, true);
+    for (int i = 0; i < N; ++i) {
+      for (int j = 0; j < i; ++j)
+        gram._xx[i][j] = rnd.nextDouble() - .5;
+      gram._xx[i][i] = N;
+    }
+    final double[] xy = MemoryManager.malloc8d(N);
+    for (int i = 0; i < N; ++i) xy[i] = rnd.nextGaussian();
+    final double[][] rowByRow = new double[N][];
+    for (int i = 0; i < N; ++i) rowByRow[i] = gram._xx[i].clone();
+    final Gram.Cholesky[] chol = new Gram.Cholesky[1];
+    final double[] fresh = MemoryManager.malloc8d(N), reused = MemoryManager.malloc8d(N);
+    H2O.submitTask(new H2OCountedCompleter() {
+      @Override
+      public void compute2() {
+        chol[0] = gram.cholesky(null);
+        Gram.InPlaceCholesky.decompose_2(rowByRow, 10, 1);
+        GLM.GramSolver prev = new GLM.GramSolver(gram.deep_clone(), xy.clone(), true, 1e-1, 0, null, null, null, null);
+        new GLM.GramSolver(gram.deep_clone(), xy.clone(), true, 2e-1, 0, null, null, null, null).solve(fresh);
+        new GLM.GramSolver(gram.deep_clone(), xy.clone(), true, 2e-1, 0, null, null, null, null, prev._chol).solve(reused);
+        tryComplete();
+      }
+    }).join();
+    assertTrue(chol[0].isSPD());
+    for (int i = 0; i < N; ++i)
+      for (int j = 0; j <= i; ++j)
+        assertEquals(rowByRow[i][j], chol[0]._xx[i][j], 1e-10);
+    for (int i = 0; i < N; ++i)
+      assertEquals(fresh[i], reused[i], 1e-10);
+  }
+
+
+  /**
+   * Test the gradient over sparse chunks, walked by their non-zeros with the centering applied
+   * analytically, against the gradient of the standardized rows computed one by one
+   */
+  @Test
+  public void testSparseGradient() {
+    Random rnd = new Random(135792468l);
+    final int nrows = 1000, nnums = 4;
+    double[][] cols = new double[nnums + 1][nrows];
+    for (int i = 0; i < nrows; ++i) {
+      for (int c = 0; c < nnums; ++c) // the last column is dense, the others mostly zeros
+        cols[c][i] = c == nnums - 1 || rnd.nextInt(20) == 0 ? rnd.nextGaussian() : 0;
+      if (rnd.nextInt(100) == 0) cols[0][i] = Double.NaN;
+      cols[nnums][i] = rnd.nextGaussian();
+    }
+    for (int i = 300; i < 600; ++i) // the second chunk of x1 is all NAs
+      cols[1][i] = Double.NaN;
+    TestFrameBuilder fb = new TestFrameBuilder()
+            .withName("SparseGradientData")
+            .withColNames("x0", "x1", "x2", "x3", "y")
+            .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_NUM, Vec.T_NUM)
+            .withChunkLayout(300, 300, 400);
+    for (int c = 0; c <= nnums; ++c)
+      fb.withDataForCol(c, cols[c]);
+    Frame f = fb.build();
+    DataInfo dinfo = new DataInfo(f, null, 1, true, DataInfo.TransformType.STANDARDIZE, DataInfo.TransformType.NONE, true, false, false, false, false, false);
+    try {
+      assertTrue(f.vec(0).chunkForChunkIdx(0).isSparseZero());
+      assertTrue(f.vec(1).chunkForChunkIdx(1).isSparseNA());
+      GLMParameters params = new GLMParameters(Family.gaussian);
+      params._obj_reg = 1.0 / nrows;
+      double lambda = 1e-2;
+      double[] beta = new double[nnums + 1];
+      for (int i = 0; i < beta.length; ++i) beta[i] = 1 - 2 * rnd.nextDouble();
+      GLMGradientTask gt = new GLMGaussianGradientTask(null, dinfo, params, lambda, beta).doAll(dinfo._adaptedFrame);
+      double[] expected = new double[beta.length];
+      double[] x = new double[nnums];
+      for (int i = 0; i < nrows; ++i) {
+        double eta = beta[nnums];
+        for (int c = 0; c < nnums; ++c) {
+          double v = Double.isNaN(cols[c][i]) ? dinfo._numMeans[c] : cols[c][i];
+          x[c] = (v - dinfo._normSub[c]) * dinfo._normMul[c];
+          eta += x[c] * beta[c];
+        }
+        double r = eta - cols[nnums][i];
+        for (int c = 0; c < nnums; ++c) expected[c] += r * x[c];
+        expected[nnums] += r;
+      }
+      for (int c = 0; c < beta.length; ++c) {
+        expected[c] *= params._obj_reg;
+        if (c < nnums) expected[c] += lambda * beta[c];
+        assertEquals(expected[c], gt._gradient[c], 1e-10);
+      }
+    } finally {
+      dinfo.remove();
+      f.delete();
+    }
+  }
+
+  /**
+   * Test the gradient of the full data computed along with the Gram of its active columns
+   * against the one of the gradient task, and the Gram against the one computed alone
+   */
+  @Test
+  public void testGramWithFullGradient() {
+    Key parsed = Key.make("mixcat_parsed");
+    Frame fr = null;
+    DataInfo dinfo = null;
+    try {
+      fr = parse_test_file(parsed, "smalldata/junit/mixcat_train.csv");
+      fr.add("Useless", fr.remove("Useless"));
+      GLMParameters params = new GLMParameters(Family.binomial);
+      params._obj_reg = 1.0 / fr.numRows();
+      dinfo = new DataInfo(fr, null, 1, true, DataInfo.TransformType.STANDARDIZE, DataInfo.TransformType.NONE, true, false, false, false, false, false);
+      DKV.put(dinfo._key, dinfo);
+      int P = dinfo.fullN();
+      int[] cols = new int[]{0, 2, P - 2, P}; // the intercept always goes along
+      DataInfo activeData = dinfo.filterExpandedColumns(cols);
+      Random rnd = new Random(24681357);
+      double[] beta = MemoryManager.malloc8d(cols.length);
+      for (int i = 0; i < beta.length; ++i)
+        beta[i] = 1 - 2 * rnd.nextDouble();
+      double[] fullBeta = ArrayUtils.expandAndScatter(beta, P + 1, cols);
+      GLMIterationTask alone = new GLMIterationTask(null, activeData, new GLMWeightsFun(params), beta).doAll(activeData._adaptedFrame);
+      GLMIterationTask fused = new GLMIterationTask(null, activeData, new GLMWeightsFun(params), beta).withFullGradient(dinfo, params, fullBeta).doAll(dinfo._adaptedFrame);
+      GLMGradientTask gt = new GLMBinomialGradientTask(null, dinfo, params, 0, fullBeta).doAll(dinfo._adaptedFrame);
+      assertEquals(gt._likelihood, fused._fullLikelihood, 1e-8);
+      for (int i = 0; i < fullBeta.length; ++i)
+        assertEquals(gt._gradient[i], fused._fullGradient[i] * params._obj_reg, 1e-10);
+      assertEquals(alone._likelihood, fused._likelihood, 1e-8);
+      for (int i = 0; i < beta.length; ++i) {
+        assertEquals(alone._xy[i], fused._xy[i], 1e-10);
+        for (int j = 0; j <= i; ++j)
+          assertEquals(alone._gram.get(i, j), fused._gram.get(i, j), 1e-10);
+      }
+    } finally {
+      if (fr != null) fr.delete();
+      if (dinfo != null) dinfo.remove();
+    }
+  }
+
   @Test @Ignore public void testConstantColumns(){
     GLMModel model1 = null, model2 = null, model3 = null, model4 = null;
     Frame fr = parse_test_file(Key.make("Airlines"), "smalldata/airlines/allyears2k_headers.zip");
@@ -12,6 +12,8 @@ import water.TestUtil;
 import water.exceptions.H2OModelBuilderIllegalArgumentException;
 import water.fvec.Frame;
 import water.fvec.NFSFileVec;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
 import water.parser.ParseDataset;
 import water.util.*;
 
@@ -280,6 +282,108 @@ public class KMeansTest extends TestUtil {
     }
   }
 
+  // Hamerly's bounds only skip distances that cannot change an assignment
+  @Test public void testHamerlyMatchesLloyds() {
+    Frame fr = null;
+    KMeansModel lloyds = null, hamerly = null, lloydsK = null, hamerlyK = null;
+    try {
+      fr = parse_test_file("smalldata/iris/iris_wheader.csv");
+      KMeansModel.KMeansParameters parms = new KMeansModel.KMeansParameters();
+      parms._train = fr._key;
+      parms._k = 3;
+      parms._standardize = true;
+      parms._max_iterations = 20;
+      parms._init = KMeans.Initialization.Furthest;
+      lloyds = doSeed(parms, 0);
+      parms._algorithm = KMeans.Algorithm.Hamerly;
+      hamerly = doSeed(parms, 0);
+      checkSameModel(lloyds, hamerly);
+
+      // Bounds start over whenever a center is added
+      parms._k = 10;
+      parms._estimate_k = true;
+      parms._algorithm = KMeans.Algorithm.Lloyds;
+      lloydsK = doSeed(parms, 0);
+      parms._algorithm = KMeans.Algorithm.Hamerly;
+      hamerlyK = doSeed(parms, 0);
+      checkSameModel(lloydsK, hamerlyK);
+    } finally {
+      if( fr != null ) fr.delete();
+      if( lloyds != null ) lloyds.delete();
+      if( hamerly != null ) hamerly.delete();
+      if( lloydsK != null ) lloydsK.delete();
+      if( hamerlyK != null ) hamerlyK.delete();
+    }
+  }
+
+  private static void checkSameModel(KMeansModel expected, KMeansModel actual) {
+    assertEquals(expected._output._iterations, actual._output._iterations);
+    assertArrayEquals(expected._output._size, actual._output._size);
+    assertEquals(expected._output._centers_raw.length, actual._output._centers_raw.length);
+    for( int i = 0; i < expected._output._centers_raw.length; i++ )
+      assertArrayEquals(expected._output._centers_raw[i], actual._output._centers_raw[i], 1e-8);
+    assertEquals(expected._output._tot_withinss, actual._output._tot_withinss, 1e-8);
+  }
+
+  // Mini-batches of one chunk in ten still find well separated blobs
+  @Test public void testMiniBatch() {
+    Frame fr = null;
+    KMeansModel lloyds = null, miniBatch = null;
+    try {
+      Random rng = new Random(0xDECAF);
+      double[][] blobs = {{0, 0}, {10, 0}, {0, 10}, {10, 10}};
+      double[] x = new double[4000], y = new double[4000];
+      for( int i = 0; i < x.length; i++ ) {
+        double[] blob = blobs[rng.nextInt(blobs.length)];
+        x[i] = blob[0] + rng.nextGaussian();
+        y[i] = blob[1] + rng.nextGaussian();
+      }
+      fr = new TestFrameBuilder()
+              .withName("MiniBatchBlobs")
+              .withColNames("x", "y")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, x)
+              .withDataForCol(1, y)
+              .withChunkLayout(400, 400, 400, 400, 400, 400, 400, 400, 400, 400)
+              .build();
+      KMeansModel.KMeansParameters parms = new KMeansModel.KMeansParameters();
+      parms._train = fr._key;
+      parms._k = 4;
+      parms._standardize = false;
+      parms._max_iterations = 50;
+      parms._init = KMeans.Initialization.PlusPlus;
+      lloyds = doSeed(parms, 42);
+      parms._algorithm = KMeans.Algorithm.MiniBatch;
+      parms._batch_fraction = 0.1;
+      miniBatch = doSeed(parms, 42);
+
+      assertEquals(4, miniBatch._output._centers_raw.length);
+      Assert.assertTrue(miniBatch._output._iterations <= parms._max_iterations + 1);
+      Assert.assertTrue("mini-batch withinss " + miniBatch._output._tot_withinss + " vs " + lloyds._output._tot_withinss,
+              miniBatch._output._tot_withinss <= 1.05 * lloyds._output._tot_withinss);
+      assertEquals(lloyds._output._totss, miniBatch._output._totss, 1e-6);
+    } finally {
+      if( fr != null ) fr.delete();
+      if( lloyds != null ) lloyds.delete();
+      if( miniBatch != null ) miniBatch.delete();
+    }
+  }
+
+  @Test(expected = H2OModelBuilderIllegalArgumentException.class) public void testBadBatchFraction() {
+    Frame fr = null;
+    try {
+      fr = parse_test_file("smalldata/iris/iris_wheader.csv");
+      KMeansModel.KMeansParameters parms = new KMeansModel.KMeansParameters();
+      parms._train = fr._key;
+      parms._k = 3;
+      parms._algorithm = KMeans.Algorithm.MiniBatch;
+      parms._batch_fraction = 0;
+      new KMeans(parms).trainModel().get();
+    } finally {
+      if( fr != null ) fr.delete();
+    }
+  }
+
   private double[] d(double... ds) { return ds; }
 
   boolean close(double[] a, double[] b) {
@@ -313,4 +313,40 @@ public class HistogramTest extends TestUtil {
       Log.info("N=" + N + " Sum:" + sum + " Time: " + PrettyPrint.msecs(done - start, true));
     }
   }
+
+  // Private struct-of-arrays accumulation + fold gives the same histogram as direct accumulation
+  @Test public void testSoAMatchesDirect() {
+    int N = 10000;
+    Random rnd = RandomUtils.getRNG(0xFEED);
+    double[] ws = new double[N], cs = new double[N], ys = new double[N];
+    int[] rows = new int[N];
+    for (int i = 0; i < N; ++i) {
+      ws[i] = rnd.nextInt(3);        // Some zero weights
+      cs[i] = i % 97 == 0 ? Double.NaN : rnd.nextDouble() * 50;
+      ys[i] = rnd.nextGaussian();
+      rows[i] = i;
+    }
+    DHistogram direct = new DHistogram("C", 20, 20, (byte) 0, 0, 50, 0,
+        SharedTreeModel.SharedTreeParameters.HistogramType.UniformAdaptive, 42, null);
+    DHistogram soa = new DHistogram("C", 20, 20, (byte) 0, 0, 50, 0,
+        SharedTreeModel.SharedTreeParameters.HistogramType.UniformAdaptive, 42, null);
+    direct.init();
+    soa.init();
+    direct.updateHisto(ws, cs, ys, rows, N, 0);
+    // Two "threads" covering halves of the rows, reduced element-wise
+    double[][] acc = new double[][]{soa.makeSoA(), soa.makeSoA()};
+    double[][] minmax = new double[][]{{Double.MAX_VALUE, -Double.MAX_VALUE}, {Double.MAX_VALUE, -Double.MAX_VALUE}};
+    int[] bins = new int[N];
+    soa.updateHistoSoA(acc[0], minmax[0], bins, ws, cs, ys, rows, N / 2, 0);
+    soa.updateHistoSoA(acc[1], minmax[1], bins, ws, cs, ys, rows, N, N / 2);
+    ArrayUtils.add(acc[0], acc[1]);
+    soa.addSoA(acc[0], Math.min(minmax[0][0], minmax[1][0]), Math.max(minmax[0][1], minmax[1][1]));
+    for (int b = 0; b <= direct.nbins(); ++b) {
+      Assert.assertEquals(direct.w(b), soa.w(b), 0);
+      Assert.assertEquals(direct.wY(b), soa.wY(b), 1e-10);
+      Assert.assertEquals(direct.wYY(b), soa.wYY(b), 1e-10);
+    }
+    Assert.assertEquals(direct.find_min(), soa.find_min(), 0);
+    Assert.assertEquals(direct.find_maxIn(), soa.find_maxIn(), 0);
+  }
 }
@@ -4,6 +4,7 @@ import hex.*;
 import hex.genmodel.algos.tree.SharedTreeNode;
 import hex.genmodel.algos.tree.SharedTreeSubgraph;
 import hex.genmodel.utils.DistributionFamily;
+import hex.tree.BinnedColumns;
 import hex.tree.SharedTreeModel;
 import org.junit.Assert;
 import org.junit.BeforeClass;
@@ -2035,6 +2036,76 @@ public class GBMTest extends TestUtil {
     }
   }
 
+  // Pre-binned columns only change how rows are binned, never the resulting trees
+  @Test public void prebinnedColumns() {
+    Frame tfr = null;
+    try {
+      Scope.enter();
+      tfr = parse_test_file("smalldata/covtype/covtype.20k.data");
+      int resp = 54;
+      Scope.track(tfr.replace(resp, tfr.vecs()[resp].toCategoricalVec()));
+      // covtype is all-integer; add real-valued columns so the quantile binned path gets exercised too
+      Vec noise = tfr.anyVec().makeRand(0xCAFE);
+      Vec elevation = tfr.anyVec().makeZero();
+      new MRTask() {
+        @Override public void map(Chunk[] cs) {
+          for (int r = 0; r < cs[0]._len; r++)
+            cs[2].set(r, cs[0].atd(r) / 7.0 + cs[1].atd(r));
+        }
+      }.doAll(tfr.vec(0), noise, elevation);
+      tfr.add("noise", noise);
+      tfr.add("noisy_elevation", elevation);
+      DKV.put(tfr);
+      for (SharedTreeModel.SharedTreeParameters.HistogramType histoType : new SharedTreeModel.SharedTreeParameters.HistogramType[]{
+              SharedTreeModel.SharedTreeParameters.HistogramType.UniformAdaptive,
+              SharedTreeModel.SharedTreeParameters.HistogramType.QuantilesGlobal,
+              SharedTreeModel.SharedTreeParameters.HistogramType.Random}) {
+        double[] mses = new double[2];
+        for (int i = 0; i < 2; ++i) {
+          GBMModel.GBMParameters parms = new GBMModel.GBMParameters();
+          parms._train = tfr._key;
+          parms._response_column = tfr.names()[resp];
+          parms._histogram_type = histoType;
+          parms._prebin_columns = i == 1;
+          parms._ntrees = 5;
+          parms._max_depth = 8;
+          parms._seed = 0xDECAFFEE;
+          GBMModel gbm = new GBM(parms).trainModel().get();
+          mses[i] = gbm._output._training_metrics.mse();
+          gbm.delete();
+        }
+        Log.info("histoType: " + histoType + " -> training MSE: " + mses[0] + " (raw), " + mses[1] + " (pre-binned)");
+        assertEquals(mses[0], mses[1], 0);
+      }
+    } finally {
+      if (tfr!=null) tfr.delete();
+      Scope.exit();
+    }
+  }
+
+  // Models on the same predictors share one cache; a predictor written to in place gets binned anew
+  @Test public void prebinnedColumnsFollowWrites() {
+    Frame tfr = null;
+    BinnedColumns bc1 = null, bc2 = null, bc3 = null;
+    try {
+      tfr = parse_test_file("smalldata/covtype/covtype.20k.data");
+      bc1 = BinnedColumns.acquire(tfr, 10);
+      bc2 = BinnedColumns.acquire(tfr, 10);
+      assertEquals(bc1._key, bc2._key);
+
+      Vec.Writer w = tfr.vec(3).open();
+      w.set(0, tfr.vec(3).at(0) + 1);
+      w.close();
+      bc3 = BinnedColumns.acquire(tfr, 10);
+      Assert.assertNotEquals(bc1._key, bc3._key);
+    } finally {
+      if (bc1 != null) BinnedColumns.release(bc1._key);
+      if (bc2 != null) BinnedColumns.release(bc2._key);
+      if (bc3 != null) BinnedColumns.release(bc3._key);
+      if (tfr != null) tfr.delete();
+    }
+  }
+
   @Test public void sampleRatePerClass() {
     Frame tfr = null;
     Key[] ksplits = null;
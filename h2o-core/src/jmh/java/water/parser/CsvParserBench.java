@@ -0,0 +1,85 @@
+package water.parser;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import water.H2O;
+import water.util.StringUtils;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded CSV chunk parsing speed, with and without the numeric line
+ * scanner.  The "bytes" counter is reported as parsed bytes per second.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CsvParserBench {
+
+  @Param({"true", "false"})
+  private boolean fastPath;
+
+  @Param({"numeric", "mixed"})
+  private String data;
+
+  private static final int NCOLS = 20;
+  private static final int CHUNK_SIZE = 4 << 20;
+
+  private CsvParser parser;
+  private byte[] chunk;
+
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  @State(Scope.Thread)
+  public static class Bytes {
+    public long bytes;
+  }
+
+  @Setup
+  public void setup() {
+    // Read once when the scanner class loads; every parameter set runs in a fresh fork
+    if (!fastPath)
+      System.setProperty(H2O.OptArgs.SYSTEM_PROP_PREFIX + "parser.csv.noFastPath", "true");
+    Random r = new Random(0xC5F);
+    StringBuilder sb = new StringBuilder(CHUNK_SIZE + 1024);
+    while (sb.length() < CHUNK_SIZE) {
+      for (int c = 0; c < NCOLS; c++) {
+        if (c > 0) sb.append(',');
+        if ("mixed".equals(data) && c % 4 == 3) sb.append("\"level").append(r.nextInt(50)).append('"');
+        else if (c % 2 == 0) sb.append(r.nextInt(100000));
+        else sb.append(r.nextInt(10000000) / 1000.0);
+      }
+      sb.append('\n');
+    }
+    chunk = StringUtils.bytesOf(sb);
+
+    ParseSetup ps = new ParseSetup();
+    ps._parse_type = DefaultParserProviders.CSV_INFO;
+    ps._check_header = ParseSetup.NO_HEADER;
+    ps._separator = ',';
+    ps._number_columns = NCOLS;
+    parser = new CsvParser(ps, null);
+  }
+
+  @Benchmark
+  public ParseWriter parseChunk(Bytes bytes) {
+    ParseWriter dout = parser.parseChunk(0, new Parser.ByteAryData(chunk, 0), new PreviewParseWriter(NCOLS));
+    bytes.bytes += chunk.length;
+    return dout;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(CsvParserBench.class.getSimpleName())
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -3,6 +3,8 @@ package water;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import water.fvec.Chunk;
 import water.util.Log;
 import water.util.PrettyPrint;
@@ -23,6 +25,37 @@ class Cleaner extends Thread {
   static volatile long HEAP_USED_AT_LAST_GC;
   static volatile long KV_USED_AT_LAST_GC;
   static volatile long TIME_AT_LAST_GC=System.currentTimeMillis();
+
+  // Order in which Values are freed
+  static final EvictionPolicy POLICY = EvictionPolicy.Factory.make();
+  // How often Values are aged by the policy
+  static final long AGE_MSEC = 60*1000;
+
+  // Cache effectiveness counters, published via the HeartBeat.  A hit is a
+  // Value access served from memory, a miss one that reloads from disk (or
+  // from the off-heap tier), an eviction a Value freed by the Cleaner.  Hits
+  // and misses are counted on every Value.get, so they are striped.
+  static final StripedCounter HITS = new StripedCounter();
+  static final StripedCounter MISSES = new StripedCounter();
+  static final AtomicLong EVICTIONS = new AtomicLong();
+
+  // A counter spread over cache-line padded slots picked by thread, so that
+  // threads bumping it concurrently rarely contend on the same line.
+  static final class StripedCounter {
+    private static final int STRIPES = 32;  // Power of 2
+    private static final int PAD = 8;       // Longs per 64-byte cache line
+    private final AtomicLongArray _cnts = new AtomicLongArray(STRIPES*PAD);
+    void increment() {
+      int h = System.identityHashCode(Thread.currentThread());
+      _cnts.incrementAndGet(((h ^ (h>>>16)) & (STRIPES-1))*PAD);
+    }
+    long get() {
+      long sum = 0;
+      for( int i=0; i<STRIPES; i++ ) sum += _cnts.get(i*PAD);
+      return sum;
+    }
+  }
+
   static final Cleaner THE_CLEANER = new Cleaner();
   static void kick_store_cleaner() {
     synchronized(THE_CLEANER) { THE_CLEANER.notifyAll(); }
@@ -104,7 +137,7 @@ class Cleaner extends Thread {
       // If not forced cleaning, expand the cleaning age to allows Values
       // more than 5sec old
       if( !force ) clean_to_age = Math.max(clean_to_age,now-5000);
-      if( DESIRED == -1 ) clean_to_age = now;  // Test mode: clean all
+      if( DESIRED == -1 ) clean_to_age = Long.MAX_VALUE; // Test mode: clean all
 
       // No logging if under memory pressure: can deadlock the cleaner thread
       String s = h+" DESIRED="+(DESIRED>>20)+"M dirtysince="+(now-dirty)+" force="+force+" clean2age="+(now-clean_to_age);
@@ -113,6 +146,7 @@ class Cleaner extends Thread {
       long cleaned = 0;         // Disk i/o bytes
       long freed = 0;           // memory freed bytes
       long io_ns = 0;           // i/o ns writing
+      long offheaped = 0;       // bytes parked off-heap
 
       // For faster K/V store walking get the NBHM raw backing array,
       // and walk it directly.
@@ -133,7 +167,7 @@ class Cleaner extends Thread {
         // Ignore things younger than the required age.  In particular, do
         // not spill-to-disk all dirty things we find.
         long touched = val._lastAccessedTime;
-        if( touched > clean_to_age ) { // Too recently touched?
+        if( POLICY.rank(val) > clean_to_age ) { // Too recently (or too often) touched?
           // But can toss out a byte-array if already deserialized & on disk
           // (no need for both forms).  Note no savings for Chunks, for which m==p._mem
           if( val.isPersisted() && m != null && p != null && !isChunk ) {
@@ -143,16 +177,24 @@ class Cleaner extends Thread {
           dirty_store(touched); // But may write it out later
           continue;             // Too young
         }
-        // Spiller turned off?
-        if( !H2O.ARGS.cleaner ) continue;
+        // Spiller and off-heap tier both turned off?
+        if( !H2O.ARGS.cleaner && !MemoryManager.offHeapEnabled() ) continue;
 
         // CNC - Memory cleaning turned off, except for Chunks
         // Too many POJOs are written to dynamically; cannot spill & reload
         // them without losing changes.
 
+        // Under pressure, and with the off-heap tier enabled, park the Chunk
+        // in direct memory instead of going to disk.  Done only when forced,
+        // since keeping both copies would just double the footprint.
+        if( isChunk && force && !val.isPersisted() && !val.isOffHeap() && MemoryManager.offHeapEnabled() && ((Key)ok).home() ) {
+          if( m == null ) m = val.rawMem();
+          if( val.storeOffHeap() && m != null ) offheaped += m.length;
+        }
+
         // Should I write this value out to disk?
         // Should I further force it from memory?
-        if( isChunk && !val.isPersisted() && !diskFull && ((Key)ok).home() ) { // && (force || (lazyPersist() && lazy_clean(key)))) {
+        if( isChunk && H2O.ARGS.cleaner && !val.isPersisted() && !val.isOffHeap() && !diskFull && ((Key)ok).home() ) { // && (force || (lazyPersist() && lazy_clean(key)))) {
           long now_ns = System.nanoTime();
           try { val.storePersist(); } // Write to disk
           catch( FileNotFoundException fnfe ) { continue; } // Can happen due to racing key delete/remove
@@ -168,11 +210,22 @@ class Cleaner extends Thread {
           if( m != null ) cleaned += m.length; // Accumulate i/o bytes
           io_ns += System.nanoTime() - now_ns; // Accumulate i/o time
         }
-        // And, under pressure, free all
-        if( isChunk && force && (val.isPersisted() || !((Key)ok).home()) ) {
-          val.freeMem ();  if( m != null ) freed += val._max;  m = null;
-          val.freePOJO();  if( p != null ) freed += val._max;  p = null;
-          if( isChunk ) freed -= val._max; // Double-counted freed mem for Chunks since val._pojo._mem & val._mem are the same.
+        // And, under pressure, free all.  Non-home Chunks can be fetched
+        // again from their home, but are only dropped if spilling is on.
+        boolean remote = !((Key)ok).home();
+        if( isChunk && force && (val.isPersisted() || val.isOffHeap() || (H2O.ARGS.cleaner && remote)) ) {
+          boolean dropped = true;
+          if( val.isPersisted() || remote ) {
+            val.freeMem ();
+            val.freePOJO();
+          } else                // Parked off-heap only; may race a reload
+            dropped = val.freeParkedMem();
+          if( dropped ) {
+            if( m != null ) freed += val._max;  m = null;
+            if( p != null ) freed += val._max;  p = null;
+            freed -= val._max; // Double-counted freed mem for Chunks since val._pojo._mem & val._mem are the same.
+            EVICTIONS.incrementAndGet();
+          }
         }
         // If we have both forms, toss the byte[] form - can be had by
         // serializing again.
@@ -187,7 +240,8 @@ class Cleaner extends Thread {
       }
 
       String s1 = "Cleaner pass took: "+PrettyPrint.msecs(System.currentTimeMillis()-now,true)+
-                  ", spilled "+PrettyPrint.bytes(cleaned)+" in "+PrettyPrint.usecs(io_ns>>10);
+                  ", spilled "+PrettyPrint.bytes(cleaned)+" in "+PrettyPrint.usecs(io_ns>>10)+
+                  ", off-heap "+PrettyPrint.bytes(offheaped);
       h = Histo.current(true); // Force a new histogram
       MemoryManager.set_goals("postclean",false);
       // No logging if under memory pressure: can deadlock the cleaner thread
@@ -219,27 +273,35 @@ class Cleaner extends Thread {
       if( h != null && h._clean && _dirty==Long.MAX_VALUE )
         return h; // No change to the K/V store, so no point
       // Use last oldest value for computing the next histogram in-place
-      return (H = new Histo(h==null ? 0 : h._oldest)); // Record current best histogram & return it
+      // Age the access counts of all Values every so often
+      long now = System.currentTimeMillis();
+      boolean age = now - _lastAged > AGE_MSEC;
+      if( age ) _lastAged = now;
+      return (H = new Histo(h==null ? 0 : h._oldest, age)); // Record current best histogram & return it
     }
 
     // Latest best-effort cached amount, without forcing a histogram to be
     // built nor blocking for one being in-progress.
+    static private long _lastAged = System.currentTimeMillis();
+
     static long cached() { return H._cached; }
     static long swapped(){ return H._swapped;}
+    static long offHeap(){ return H._offHeap;}
 
     final long[] _hs = new long[128];
-    long _oldest; // Time of the oldest K/V discovered this pass
+    long _oldest; // Rank of the oldest K/V discovered this pass
     long _eldest; // Time of the eldest K/V found in some prior pass
     long _hStep;  // Histogram step: (now-eldest)/histogram.length
     long _cached; // Total alive data in the histogram
     long _total;  // Total data in local K/V
     long _when;   // When was this histogram computed
     long _swapped;// On-disk stuff
+    long _offHeap;// Off-heap stuff; not part of _cached, as it is not on the Java heap
     Value _vold;  // For assertions: record the oldest Value
     boolean _clean; // Was "clean" K/V when built?
 
-    // Compute a histogram
-    Histo( long eldest ) {
+    // Compute a histogram, bucketing Values by their eviction rank
+    Histo( long eldest, boolean age ) {
       Arrays.fill(_hs, 0);
       _when = System.currentTimeMillis();
       _eldest = eldest; // Eldest seen in some prior pass
@@ -250,6 +312,7 @@ class Cleaner extends Thread {
       long cached = 0; // Total K/V cached in ram
       long total = 0;  // Total K/V in local node
       long swapped=0;  // Total K/V persisted
+      long offheap=0;  // Total K/V parked off-heap
       long oldest = Long.MAX_VALUE; // K/V with the longest time since being touched
       Value vold = null;
       // Start the walk at slot 2, because slots 0,1 hold meta-data
@@ -260,8 +323,10 @@ class Cleaner extends Thread {
         if( !(ov instanceof Value) ) continue; // Ignore tombstones and Primes and null's
         Value val = (Value)ov;
         if( val.isNull() ) { Value.STORE_get(val._key); continue; } // Another flavor of NULL
+        if( age ) POLICY.age(val);
         total += val._max;
         if( val.isPersisted() ) swapped += val._max;
+        if( val.isOffHeap() ) offheap += val._max;
         int len = 0;
         byte[] m = val.rawMem();
         Object p = val.rawPOJO();
@@ -271,12 +336,13 @@ class Cleaner extends Thread {
         if( len == 0 ) continue;
         cached += len; // Accumulate total amount of cached keys
 
-        if( val._lastAccessedTime < oldest ) { // Found an older Value?
+        long rank = POLICY.rank(val);
+        if( rank < oldest ) { // Found an older Value?
           vold = val; // Record oldest Value seen
-          oldest = val._lastAccessedTime;
+          oldest = rank;
         }
         // Compute histogram bucket
-        int idx = (int)((val._lastAccessedTime - eldest)/_hStep);
+        int idx = (int)((rank - eldest)/_hStep);
         if( idx < 0 ) idx = 0;
         else if( idx >= _hs.length ) idx = _hs.length-1;
         _hs[idx] += len;      // Bump histogram bucket
@@ -284,6 +350,7 @@ class Cleaner extends Thread {
       _cached = cached; // Total cached; NOTE: larger than sum of histogram buckets
       _total = total;   // Total used data
       _swapped = swapped;
+      _offHeap = offheap;
       _oldest = oldest; // Oldest seen in this pass
       _vold = vold;
       _clean = clean && _dirty==Long.MAX_VALUE; // Looks like a clean K/V the whole time?
@@ -307,7 +374,7 @@ class Cleaner extends Thread {
     @Override public String toString() {
       long x = _eldest;
       long now = System.currentTimeMillis();
-      return "H(cached:"+(_cached>>20)+"M, eldest:"+x+"L < +"+(_oldest-x)+"ms <...{"+_hStep+"ms}...< +"+(_hStep*_hs.length)+"ms < +"+(now-x)+")";
+      return "H(cached:"+(_cached>>20)+"M, offheap:"+(_offHeap>>20)+"M, eldest:"+x+"L < +"+(_oldest-x)+"ms <...{"+_hStep+"ms}...< +"+(_hStep*_hs.length)+"ms < +"+(now-x)+")";
     }
   }
 }
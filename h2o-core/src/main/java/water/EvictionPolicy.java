@@ -0,0 +1,73 @@
+package water;
+
+import water.util.Log;
+
+/**
+ * Decides the order in which the {@link Cleaner} frees cached Values.
+ * <p>
+ * The Cleaner builds a histogram of all cached Values by their {@link #rank},
+ * and frees the lowest-ranked Values until the cache is back at the desired
+ * level.  A rank is in msec, just like a last-access time, so plain LRU
+ * simply returns {@link Value#lastAccessedTime()}.  Ranks may lie in the
+ * future; such Values are only freed under extreme pressure.
+ * <p>
+ * The policy is chosen at startup with
+ * {@code -Dsys.ai.h2o.cleaner.eviction=lru|freq|<fully.qualified.ClassName>};
+ * the default is {@code lru}.
+ */
+public interface EvictionPolicy {
+  /** @return Eviction rank of the Value; lower ranks are freed first */
+  long rank(Value v);
+
+  /** Called on every cached Value roughly once a minute, so policies which
+   *  track access frequency can decay it. */
+  void age(Value v);
+
+  /** Least-recently-used; the classic Cleaner behavior. */
+  class LRU implements EvictionPolicy {
+    @Override public long rank(Value v) { return v.lastAccessedTime(); }
+    @Override public void age(Value v) { }
+    @Override public String toString() { return "lru"; }
+  }
+
+  /** LRU with a frequency boost: scan resistant.  Values touched at most
+   *  once since they were last aged are ranked by plain recency.  Values
+   *  touched repeatedly get their rank pushed into the future by
+   *  {@link #BOOST_MS} per doubling of their access count, so a single large
+   *  sequential scan (an export, a rollup) evicts its own one-touch Chunks
+   *  before the working set of a concurrently training model.  Access counts
+   *  are halved at every aging, so the boost fades once a Value stops being
+   *  used. */
+  class FrequencyBoost implements EvictionPolicy {
+    static final long BOOST_MS = 30*1000;
+    static final int MAX_DOUBLINGS = 4;
+    @Override public long rank(Value v) {
+      int hits = v.accessCount();
+      if( hits <= 1 ) return v.lastAccessedTime(); // Plain recency
+      int doublings = Math.min(31 - Integer.numberOfLeadingZeros(hits), MAX_DOUBLINGS);
+      return v.lastAccessedTime() + doublings*BOOST_MS;
+    }
+    @Override public void age(Value v) { v.ageAccessCount(); }
+    @Override public String toString() { return "freq"; }
+  }
+
+  /** Factory for the configured policy */
+  class Factory {
+    static final String PROP_EVICTION = H2O.OptArgs.SYSTEM_PROP_PREFIX + "cleaner.eviction";
+
+    static EvictionPolicy make() {
+      String name = System.getProperty(PROP_EVICTION, "lru");
+      switch( name ) {
+      case "lru": return new LRU();
+      case "freq": return new FrequencyBoost();
+      default:
+        try {
+          return (EvictionPolicy)Class.forName(name).newInstance();
+        } catch( Exception e ) {
+          Log.warn("Cannot instantiate eviction policy '"+name+"', using lru: "+e);
+          return new LRU();
+        }
+      }
+    }
+  }
+}
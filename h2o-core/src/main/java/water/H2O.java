@@ -99,6 +99,10 @@ final public class H2O {
             "    -ice_root <fileSystemPath>\n" +
             "          The directory where H2O spills temporary data to disk.\n" +
             "\n" +
+            "    -off_heap_mem <megabytes>\n" +
+            "          Size of an off-heap (direct memory) tier used to hold cold data\n" +
+            "          chunks before they are spilled to disk.  (The default is 0, disabled.)\n" +
+            "\n" +
             "    -log_dir <fileSystemPath>\n" +
             "          The directory where H2O writes logs to disk.\n" +
             "          (This usually has a good default that you need not change.)\n" +
@@ -115,6 +119,11 @@ final public class H2O {
             "          Maximum number of threads in the low priority batch-work queue.\n" +
             "          (The default is " + (char)Runtime.getRuntime().availableProcessors() + ".)\n" +
             "\n" +
+            "    -network_compression <bytes>\n" +
+            "          Compress bulk node-to-node transfers (LZ4) in blocks of at least\n" +
+            "          this many bytes.  Used only between nodes which both enable it.\n" +
+            "          (The default is 0, disabled.)\n" +
+            "\n" +
             "    -client\n" +
             "          Launch H2O node in client mode.\n" +
             "\n" +
@@ -299,6 +308,9 @@ final public class H2O {
     /** -cleaner; enable user-mode spilling of big data to disk in ice_root */
     public boolean cleaner = false;
 
+    /** -off_heap_mem=megabytes; size of the off-heap tier for cold Chunks, 0 (default) disables it */
+    public int off_heap_mem = 0;
+
     /** -nthreads=nthreads; Max number of F/J threads in the low-priority batch queue */
     public short nthreads= (short)Runtime.getRuntime().availableProcessors();
 
@@ -311,6 +323,9 @@ final public class H2O {
     /** -disable_web; disable Jetty and REST API interface */
     public boolean disable_web = false;
 
+    /** -network_compression=bytes; LZ4-compress node-to-node bulk (TCP) traffic in writes of at least this size, 0 (default) disables it */
+    public int network_compression = 0;
+
     /** -client, -client=true; Client-only; no work; no homing of Keys (but can cache) */
     public boolean client;
 
@@ -565,6 +580,14 @@ final public class H2O {
       else if(s.matches("cleaner")) {
         trgt.cleaner = true;
       }
+      else if (s.matches("network_compression")) {
+        i = s.incrementAndCheck(i, args);
+        trgt.network_compression = s.parseInt(args[i]);
+      }
+      else if (s.matches("off_heap_mem")) {
+        i = s.incrementAndCheck(i, args);
+        trgt.off_heap_mem = s.parseInt(args[i]);
+      }
       else if (s.matches("jks")) {
         i = s.incrementAndCheck(i, args);
         trgt.jks = args[i];
@@ -1534,6 +1557,7 @@ final public class H2O {
     // Create the starter Cloud with 1 member
     SELF._heartbeat._jar_md5 = JarHash.JARHASH;
     SELF._heartbeat._client = ARGS.client;
+    SELF._heartbeat._tcp_compress = ARGS.network_compression > 0;
     SELF._heartbeat._cloud_name_hash = ARGS.name.hashCode();
 
     if(ARGS.client){
@@ -1787,6 +1811,7 @@ final public class H2O {
     // If the K/V mapping is changing, let the store cleaner just overwrite.
     // If the K/V mapping is new, let the store cleaner just create
     if( old != null && val == null ) old.removePersist(); // Remove the old guy
+    if( old != null && val != null && old != val ) old.freeOffHeap(); // Off-heap copy is stale
     if( val != null ) {
       Cleaner.dirty_store(); // Start storing the new guy
       if( old==null ) Scope.track_internal(key); // New Key - start tracking
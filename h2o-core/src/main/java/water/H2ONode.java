@@ -2,10 +2,12 @@ package water;
 
 import water.nbhm.NonBlockingHashMap;
 import water.nbhm.NonBlockingHashMapLong;
+import water.network.CompressedByteChannel;
 import water.network.SocketChannelFactory;
 import water.util.ArrayUtils;
 import water.util.Log;
 import water.util.MathUtils;
+import water.util.MpscRing;
 import water.util.UnsafeUtils;
 
 import java.io.IOException;
@@ -13,10 +15,12 @@ import java.net.*;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.ByteChannel;
+import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.SocketChannel;
 import java.util.*;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A <code>Node</code> in an <code>H2O</code> Cloud.
@@ -41,7 +45,7 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
 
   public void stopSendThread(){
     if(_sendThread != null) {
-      _sendThread._stopRequested = true;
+      _sendThread.requestStop();
       _sendThread = null;
     }
     _removed_from_cloud = true;
@@ -289,8 +293,10 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
     sock2.socket().setSendBufferSize(AutoBuffer.BBP_BIG._size);
     boolean res = sock2.connect( _key );
     assert res && !sock2.isConnectionPending() && sock2.isBlocking() && sock2.isConnected() && sock2.isOpen();
+    // Compress only if both ends asked for it
+    boolean compress = H2O.ARGS.network_compression > 0 && _heartbeat._tcp_compress;
     ByteBuffer bb = ByteBuffer.allocate(4).order(ByteOrder.nativeOrder());
-    bb.put((byte)2);
+    bb.put(compress ? TCPReceiverThread.TCP_BIG_COMPRESSED : TCPReceiverThread.TCP_BIG);
     bb.putChar((char)H2O.H2O_PORT);
     bb.put((byte)0xef);
     bb.flip();
@@ -299,7 +305,7 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
       wrappedSocket.write(bb);
     }
     TCPS.incrementAndGet();     // Cluster-wide counting
-    return wrappedSocket;
+    return compress ? new CompressedByteChannel(wrappedSocket, H2O.ARGS.network_compression, _tcp_stats) : wrappedSocket;
   }
   synchronized void freeTCPSocket( ByteChannel sock ) {
     assert 0 <= _socksAvail && _socksAvail < _socks.length;
@@ -320,6 +326,22 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
   private transient UDP_TCP_SendThread _sendThread = null; // set notnull if properly interned, and done before first sendMessage
   public void sendMessage( ByteBuffer bb, byte msg_priority ) { _sendThread.sendMessage(bb,msg_priority); }
 
+  // Outbound small-message traffic to this Node; written by the send thread only
+  private transient volatile long _sent_msgs, _sent_bytes;
+  /** @return Number of small messages sent to this Node */
+  public long sentMessages() { return _sent_msgs; }
+  /** @return Number of bytes of small messages (including framing) sent to this Node */
+  public long sentBytes() { return _sent_bytes; }
+
+  // Outbound bulk (TCP) traffic to this Node over compressed channels
+  private final transient CompressedByteChannel.Stats _tcp_stats = new CompressedByteChannel.Stats();
+  /** @return Bytes handed to compressed bulk transfers to this Node */
+  public long tcpRawBytes() { return _tcp_stats._rawBytes.get(); }
+  /** @return Bytes those transfers took on the wire, framing included */
+  public long tcpWireBytes() { return _tcp_stats._wireBytes.get(); }
+  /** @return Nanoseconds spent compressing those transfers */
+  public long tcpCompressNanos() { return _tcp_stats._compressNs.get(); }
+
   /**
    * Returns a new connection of type {@code tcpType}, the type can be either
    *   TCPReceiverThread.TCP_SMALL, TCPReceiverThread.TCP_BIG or
@@ -358,64 +380,108 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
   // Private thread serving (actually ships the bytes over) small msg Q.
   // Buffers the small messages together and sends the bytes over via TCP channel.
   class UDP_TCP_SendThread extends Thread {
+    // Priority classes, served in this order: ACKs & heartbeats, other high
+    // priority (DKV) traffic, everything else.
+    static final int NPRIO = 3;
+    static final int RING_SIZE = 1024;  // Per priority class
+    static final int MAX_SEGS = 4;      // Output buffers per gathering write
+    static final long PARK_NS = 100L*1000*1000;
 
     volatile boolean _stopRequested;
+    private volatile boolean _parked;   // Sender is (about to be) parked waiting for messages
     private ByteChannel _chan;  // Lazily made on demand; closed & reopened on error
-    private final ByteBuffer _bb; // Reusable output large buffer
-  
+    private final ByteBuffer[] _segs;   // Reusable output large buffers, made on demand
+
+    // Lock-free outbound queues, one per priority class.  A full ring spills
+    // into an unbounded overflow queue, so senders never block.
+    private final MpscRing<ByteBuffer>[] _rings;
+    private final ConcurrentLinkedQueue<ByteBuffer>[] _overflow;
+
+    @SuppressWarnings("unchecked")
     public UDP_TCP_SendThread(){
       super("UDP-TCP-SEND-" + H2ONode.this);
-      _bb = AutoBuffer.BBP_BIG.make();
+      _segs = new ByteBuffer[MAX_SEGS];
+      _segs[0] = AutoBuffer.BBP_BIG.make();
+      _rings = new MpscRing[NPRIO];
+      _overflow = new ConcurrentLinkedQueue[NPRIO];
+      for( int i=0; i<NPRIO; i++ ) {
+        _rings[i] = new MpscRing<>(RING_SIZE);
+        _overflow[i] = new ConcurrentLinkedQueue<>();
+      }
     }
-  
-    /** Send small message to this node.  Passes the message on to a private msg
-     *  q, prioritized by the message priority.  MSG queue is served by sender
-     *  thread, message are continuously extracted, buffered together and sent
-     *  over TCP channel.
+
+    /** Send small message to this node.  Passes the message on to a private
+     *  lock-free queue of its priority class.  The queues are served by the
+     *  sender thread, message are continuously extracted, buffered together
+     *  and sent over TCP channel.
      *  @param bb Message to send
      *  @param msg_priority priority (e.g. NACK and ACKACK beat most other priorities
      */
     public void sendMessage(ByteBuffer bb, byte msg_priority) {
       assert bb.position()==0 && bb.limit() > 0;
-      // Secret back-channel priority: the position field (capped at bb.limit);
-      // this is to avoid making Yet Another Object per send.
-  
-      // Priority can exceed position.  "interesting" priorities are everything
-      // above H2O.MIN_HI_PRIORITY and things just above 0; priorities in the
-      // middl'n range from 10 to MIN_HI are really rare.  Need to compress
-      // priorities a little for this hack to work.
-      if( msg_priority >= H2O.MIN_HI_PRIORITY ) msg_priority = (byte)((msg_priority-H2O.MIN_HI_PRIORITY)+10);
-      else if( msg_priority >= 10 ) msg_priority = 10;
-      if( msg_priority > bb.limit() ) msg_priority = (byte)bb.limit();
-      bb.position(msg_priority);
-  
-      _msgQ.put(bb); 
+      int c = msg_priority >= H2O.ACK_PRIORITY ? 0 : (msg_priority >= H2O.MIN_HI_PRIORITY ? 1 : 2);
+      if( !_rings[c].offer(bb) ) _overflow[c].add(bb);
+      if( _parked ) LockSupport.unpark(this);
     }
-  
-    private final PriorityBlockingQueue<ByteBuffer> _msgQ
-      = new PriorityBlockingQueue<>(11,new Comparator<ByteBuffer>() {
-          // Secret back-channel priority: the position field (capped at bb.limit)
-          @Override public int compare( ByteBuffer bb1, ByteBuffer bb2 ) { return bb1.position() - bb2.position(); }
-        });
-  
+
+    void requestStop() {
+      _stopRequested = true;
+      LockSupport.unpark(this);
+    }
+
+    // Next message, highest priority class first; null if none
+    private ByteBuffer poll() {
+      for( int c=0; c<NPRIO; c++ ) {
+        ByteBuffer bb = _rings[c].poll();
+        if( bb == null ) bb = _overflow[c].poll();
+        if( bb != null ) return bb;
+      }
+      return null;
+    }
+
+    private boolean isEmpty() {
+      for( int c=0; c<NPRIO; c++ )
+        if( !_rings[c].isEmpty() || !_overflow[c].isEmpty() ) return false;
+      return true;
+    }
+
+    // Block until a message shows up; null if stopped
+    private ByteBuffer take() {
+      while( !_stopRequested ) {
+        ByteBuffer bb = poll();
+        if( bb != null ) return bb;
+        if( !isEmpty() ) { Thread.yield(); continue; } // Claimed, not yet published
+        _parked = true;           // Publish intent to park, then re-check
+        if( isEmpty() && !_stopRequested ) LockSupport.parkNanos(this, PARK_NS);
+        _parked = false;
+      }
+      return null;
+    }
+
     @Override public void run(){
       try {
         while (!_stopRequested) {            // Forever loop
-          try {
-            ByteBuffer bb = _msgQ.take(); // take never returns null but blocks instead
-            while( bb != null ) {         // while have an BB to process
-              assert !bb.isDirect() : "Direct BBs already got recycled";
-              assert bb.limit()+1+2 <= _bb.capacity() : "Small message larger than the output buffer";
-              if( _bb.remaining() < bb.limit()+1+2 )
-                sendBuffer();     // Send full batch; reset _bb so taken bb fits
-              _bb.putChar((char)bb.limit());
-              _bb.put(bb.array(),0,bb.limit()); // Jam this BB into the existing batch BB, all in one go (it all fits)
-              _bb.put((byte)0xef);// Sentinel byte
-              bb = _msgQ.poll();  // Go get more, same batch
+          ByteBuffer bb = take();
+          int seg = 0, nmsgs = 0;
+          ByteBuffer out = _segs[0];
+          while( bb != null ) {         // while have an BB to process
+            assert !bb.isDirect() : "Direct BBs already got recycled";
+            assert bb.limit()+1+2 <= out.capacity() : "Small message larger than the output buffer";
+            if( out.remaining() < bb.limit()+1+2 ) {
+              if( seg+1 == MAX_SEGS ) { // Send full batch; reset so taken bb fits
+                sendBuffers(seg+1, nmsgs);
+                seg = nmsgs = 0;
+              } else if( _segs[++seg] == null )
+                _segs[seg] = AutoBuffer.BBP_BIG.make();
+              out = _segs[seg];
             }
-            sendBuffer();         // Send final trailing BBs
-          } catch (IllegalMonitorStateException imse) { /* ignore */
-          } catch (InterruptedException e) { /*ignore*/ }
+            out.putChar((char)bb.limit());
+            out.put(bb.array(),0,bb.limit()); // Jam this BB into the existing batch BB, all in one go (it all fits)
+            out.put((byte)0xef);// Sentinel byte
+            nmsgs++;
+            bb = poll();  // Go get more, same batch
+          }
+          if( nmsgs > 0 ) sendBuffers(seg+1, nmsgs); // Send final trailing BBs
         }
       } catch(Throwable t) { throw Log.throwErr(t); }
       if(_chan != null) {
@@ -423,16 +489,29 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
         _chan = null;
       }
     }
-  
-    void sendBuffer(){
+
+    // Ship the first nsegs output buffers, with a single gathering write
+    // where the channel supports it (plain TCP; not SSL).
+    void sendBuffers(int nsegs, int nmsgs){
       int retries = 0;
-      _bb.flip();                 // limit set to old position; position set to 0
-      while( !_stopRequested && _bb.hasRemaining()) {
+      long bytes = 0;
+      for( int i=0; i<nsegs; i++ ) {
+        _segs[i].flip();          // limit set to old position; position set to 0
+        bytes += _segs[i].limit();
+      }
+      ByteBuffer last = _segs[nsegs-1];
+      while( !_stopRequested && last.hasRemaining()) {
         try {
           ByteChannel chan = _chan == null ? (_chan=openChan()) : _chan;
-          chan.write(_bb);
+          if( chan instanceof GatheringByteChannel ) {
+            ((GatheringByteChannel)chan).write(_segs, 0, nsegs);
+          } else {
+            for( int i=0; i<nsegs; i++ )
+              while( _segs[i].hasRemaining() ) chan.write(_segs[i]);
+          }
         } catch(IOException ioe) {
-          _bb.rewind();           // Position to zero; limit unchanged; retry the operation
+          for( int i=0; i<nsegs; i++ )
+            _segs[i].rewind();      // Position to zero; limit unchanged; retry the operation
           // Log if not shutting down, and not middle-of-cloud-formation where
           // other node is still booting up (expected common failure), or *never*
           // comes up - such as when not all nodes mentioned in a flatfile will be
@@ -450,9 +529,14 @@ public final class H2ONode extends Iced<H2ONode> implements Comparable {
           try {Thread.sleep(sleep);} catch (InterruptedException e) {/*ignored*/}
         }
       }
-      _bb.clear();            // Position set to 0; limit to capacity
+      if( !last.hasRemaining() ) {
+        _sent_msgs += nmsgs;
+        _sent_bytes += bytes;
+      }
+      for( int i=0; i<nsegs; i++ )
+        _segs[i].clear();       // Position set to 0; limit to capacity
     }
-  
+
     // Open channel on first write attempt
     private ByteChannel openChan() throws IOException {
       return H2ONode.openChan(TCPReceiverThread.TCP_SMALL, _socketFactory, _key.getAddress(), _key.getPort());
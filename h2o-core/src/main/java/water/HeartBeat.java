@@ -19,6 +19,7 @@ public class HeartBeat extends Iced<HeartBeat> {
 
   public boolean _client;       // This is a client node: no keys homed here
   public boolean _watchdog_client = false; // Special client mode - kill cluster when client disappears
+  public boolean _tcp_compress; // Accepts (and sends) compressed bulk TCP traffic
 
 
   public int _pid;              // Process ID
@@ -53,6 +54,11 @@ public class HeartBeat extends Iced<HeartBeat> {
 
   public int _keys;       // Number of LOCAL keys in this node, cached or homed
 
+  // K/V cache effectiveness, counted since JVM boot
+  public long _cache_hits;      // Value accesses served from memory
+  public long _cache_misses;    // Value accesses which reloaded from disk or off-heap
+  public long _cache_evictions; // Values freed by the Cleaner
+
   int _free_disk;        // Free disk (internally stored in megabyte precision)
   void set_free_disk(long n) { _free_disk = (int)(n>>20); }
   public long get_free_disk()  { return ((long)_free_disk)<<20 ; }
@@ -76,6 +76,9 @@ public class HeartBeatThread extends Thread {
       hb.set_free_mem(free_mem);
       hb.set_swap_mem(Cleaner.Histo.swapped());
       hb._keys = H2O.STORE.size();
+      hb._cache_hits = Cleaner.HITS.get();
+      hb._cache_misses = Cleaner.MISSES.get();
+      hb._cache_evictions = Cleaner.EVICTIONS.get();
 
       try {
         hb._system_load_average = ((Double)mbs.getAttribute(os, "SystemLoadAverage")).floatValue();
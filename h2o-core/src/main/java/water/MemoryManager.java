@@ -1,7 +1,10 @@
 package water;
 
 import java.lang.management.*;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.management.Notification;
 import javax.management.NotificationEmitter;
@@ -79,7 +82,37 @@ abstract public class MemoryManager {
     // NO LOGGING UNDER LOCK!
     Log.warn("Pausing to swap to disk; more memory may help");
   }
-  static boolean canAlloc() { return CAN_ALLOC; }
+  // False while memory is short and allocations wait for swapping
+  public static boolean canAlloc() { return CAN_ALLOC; }
+
+  /** Told when the K/V store grows past its desired size, so holders of
+   *  data that is cheaper to drop than to swap can let it go. */
+  public interface PressureListener {
+    void memoryShort();
+  }
+
+  private static final CopyOnWriteArraySet<PressureListener> PRESSURE_LISTENERS = new CopyOnWriteArraySet<>();
+  private static final AtomicBoolean NOTIFYING = new AtomicBoolean();
+
+  public static void addPressureListener( PressureListener l ) { PRESSURE_LISTENERS.add(l); }
+  public static void removePressureListener( PressureListener l ) { PRESSURE_LISTENERS.remove(l); }
+
+  // Run the listeners in the background: set_goals is called from the
+  // Cleaner, the GC notifications and failing allocations, none of which may
+  // block on DKV work.  At most one round is in flight.
+  private static void notifyPressure() {
+    if( PRESSURE_LISTENERS.isEmpty() || !NOTIFYING.compareAndSet(false, true) ) return;
+    H2O.submitTask(new H2O.H2OCountedCompleter() {
+      @Override public void compute2() {
+        try {
+          for( PressureListener l : PRESSURE_LISTENERS ) l.memoryShort();
+        } finally {
+          NOTIFYING.set(false);
+        }
+        tryComplete();
+      }
+    });
+  }
 
   static void set_goals( String msg, boolean oom){
     set_goals(msg, oom, 0);
@@ -126,6 +159,7 @@ abstract public class MemoryManager {
       m = (CAN_ALLOC?"Swapping!  ":"blocked:   ");
       if( oom ) setMemLow(); // Stop allocations; trigger emergency clean
       Cleaner.kick_store_cleaner();
+      notifyPressure();
     } else { // Else we are not *emergency* cleaning, but may be lazily cleaning.
       setMemGood();             // Cache is below desired level; unblock allocations
       if( oom ) {               // But still have an OOM?
@@ -300,6 +334,41 @@ abstract public class MemoryManager {
   public static float  [] arrayCopyOf( float [] orig, int sz) { return arrayCopyOfRange(orig,0,sz); }
   public static double [] arrayCopyOf( double[] orig, int sz) { return arrayCopyOfRange(orig,0,sz); }
 
+  // Off-heap tier for cold Chunk payloads, sized by -off_heap_mem.  Payloads
+  // parked here live in direct memory, outside of the Java heap, so they are
+  // neither counted against old-gen nor traced by FullGC.  The Cleaner parks
+  // Chunks here before it resorts to disk; see Value.storeOffHeap.
+  private static final AtomicLong _offHeapUsed = new AtomicLong();
+
+  static boolean offHeapEnabled() { return H2O.ARGS.off_heap_mem > 0; }
+  /** @return Bytes allowed in the off-heap tier; zero if disabled */
+  public static long offHeapMax() { return ((long)H2O.ARGS.off_heap_mem)<<20; }
+  /** @return Bytes currently held in the off-heap tier */
+  public static long offHeapUsed() { return _offHeapUsed.get(); }
+
+  // Copy the byte[] into a fresh direct buffer.  Returns null (and never
+  // blocks) if the tier is disabled, would grow beyond its limit, or the JVM
+  // refuses the direct allocation - callers are expected to fall back to disk.
+  static ByteBuffer mallocOffHeap(byte[] mem) {
+    if( !offHeapEnabled() ) return null;
+    final int sz = mem.length;
+    if( _offHeapUsed.addAndGet(sz) > offHeapMax() ) {
+      _offHeapUsed.addAndGet(-sz);
+      return null;
+    }
+    try {
+      ByteBuffer bb = ByteBuffer.allocateDirect(sz);
+      bb.put(mem).flip();
+      return bb;
+    } catch( OutOfMemoryError e ) { // Direct memory exhausted (-XX:MaxDirectMemorySize)
+      _offHeapUsed.addAndGet(-sz);
+      return null;
+    }
+  }
+  // Release the accounting for a direct buffer.  The backing memory itself is
+  // reclaimed once the last reference to the buffer dies.
+  static void freeOffHeap(ByteBuffer bb) { _offHeapUsed.addAndGet(-bb.capacity()); }
+
   // Memory available for tasks (we assume 3/4 of the heap is available for tasks)
   static final AtomicLong _taskMem = new AtomicLong(MEM_MAX-(MEM_MAX>>2));
 
@@ -10,6 +10,7 @@ import java.nio.channels.SocketChannel;
 import java.util.Date;
 import java.util.Random;
 
+import water.network.CompressedByteChannel;
 import water.network.SocketChannelFactory;
 import water.util.Log;
 import water.util.SB;
@@ -42,6 +43,11 @@ public class TCPReceiverThread extends Thread {
    */
   static final byte TCP_EXTERNAL = 3;
 
+  /**
+   * Byte representing TCP communication for big data, LZ4-compressed; see {@link CompressedByteChannel}
+   */
+  static final byte TCP_BIG_COMPRESSED = 4;
+
   public TCPReceiverThread(
           ServerSocketChannel sock) {
     super("TCP-Accept");
@@ -109,11 +115,15 @@ public class TCPReceiverThread extends Thread {
         case TCP_BIG:
           new TCPReaderThread(wrappedSocket, new AutoBuffer(wrappedSocket, inetAddress), inetAddress).start();
           break;
+        case TCP_BIG_COMPRESSED:
+          ByteChannel zSocket = new CompressedByteChannel(wrappedSocket, Integer.MAX_VALUE, null);
+          new TCPReaderThread(zSocket, new AutoBuffer(zSocket, inetAddress), inetAddress).start();
+          break;
         case TCP_EXTERNAL:
           new ExternalFrameHandlerThread(wrappedSocket, new AutoBuffer(wrappedSocket, null)).start();
           break;
         default:
-          throw H2O.fail("unexpected channel type " + chanType + ", only know 1 - Small, 2 - Big and 3 - ExternalFrameHandling");
+          throw H2O.fail("unexpected channel type " + chanType + ", only know 1 - Small, 2 - Big, 3 - ExternalFrameHandling and 4 - Big compressed");
         }
       } catch( java.nio.channels.AsynchronousCloseException ex ) {
         break;                  // Socket closed for shutdown
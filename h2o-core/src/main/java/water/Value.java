@@ -1,6 +1,7 @@
 package water;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import jsr166y.ForkJoinPool;
@@ -94,16 +95,27 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
   private volatile Freezable _pojo;
   Freezable rawPOJO() { return _pojo; }
 
+  // ---
+  // An off-heap copy of _mem, made by the Cleaner for cold Chunks when the
+  // off-heap tier is enabled (-off_heap_mem).  The bytes live in direct
+  // memory and are accounted by the MemoryManager, not the Java heap.  Like
+  // the disk copy, it stays valid until the Value is removed or replaced.
+  private transient volatile ByteBuffer _offHeap;
+  private static final AtomicReferenceFieldUpdater<Value,ByteBuffer> OFFHEAP_UPDATER =
+    AtomicReferenceFieldUpdater.newUpdater(Value.class,ByteBuffer.class, "_offHeap");
+  /** Check if the backing byte[] has been copied to the off-heap tier */
+  public final boolean isOffHeap() { return _offHeap != null; }
+
   /** Invalidate byte[] cache.  Only used to eagerly free memory, for data
    *  which is expected to be read-once. */
   public final void freeMem() {
-    assert isPersisted() || _pojo != null || _key.isChunkKey();
+    assert isPersisted() || isOffHeap() || _pojo != null || _key.isChunkKey();
     _mem = null;
   }
   /** Invalidate POJO cache.  Only used to eagerly free memory, for data
    *  which is expected to be read-once. */
   public final void freePOJO() {
-    assert isPersisted() || _mem != null;
+    assert isPersisted() || isOffHeap() || _mem != null;
     _pojo = null;
   }
 
@@ -114,14 +126,23 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
     byte[] mem = _mem;          // Read once!
     if( mem != null ) return mem;
     Freezable pojo = _pojo;     // Read once!
-    if( pojo != null )          // Has the POJO, make raw bytes
-      return _mem = pojo.asBytes();
+    if( pojo != null ) {        // Has the POJO, make raw bytes
+      _mem = mem = pojo.asBytes();
+      freeOffHeap();            // The POJO may have changed since it was parked
+      return mem;
+    }
     if( _max == 0 ) return (_mem = new byte[0]);
+    ByteBuffer bb = _offHeap;   // Read once!
+    if( bb != null ) {          // Parked off-heap, copy back
+      _mem = mem = loadOffHeap(bb);
+      freeOffHeap();            // Back on heap; the Cleaner parks it again once cold
+      return mem;
+    }
     return (_mem = loadPersist());
   }
   // Just an empty shell of a Value, no local data but the Value is "real".
   // Any attempt to look at the Value will require a remote fetch.
-  final boolean isEmpty() { return _max > 0 && _mem==null && _pojo == null && !isPersisted(); }
+  final boolean isEmpty() { return _max > 0 && _mem==null && _pojo == null && !isPersisted() && !isOffHeap(); }
 
   /** The FAST path get-POJO as an {@link Iced} subclass - final method for
    *  speed.  Will (re)build the POJO from the _mem array.  Never returns NULL.
@@ -157,9 +178,23 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
   // ---
   // Time of last access to this value.
   transient long _lastAccessedTime = System.currentTimeMillis();
-  private void touch() {_lastAccessedTime = System.currentTimeMillis();}
+  // Approximate number of accesses since last aged by the Cleaner; saturates.
+  // Racy on purpose: a lost update only blurs the eviction order a little.
+  private transient byte _hits;
+  private void touch() {
+    _lastAccessedTime = System.currentTimeMillis();
+    if( _hits < Byte.MAX_VALUE ) _hits++;
+    if( _pojo != null || _mem != null )  Cleaner.HITS.increment();
+    else if( isPersisted() || isOffHeap() ) Cleaner.MISSES.increment(); // Swapped out; remote fetches are not cache misses
+  }
   // Exposed and used for testing only; used to trigger premature cleaning/disk-swapping
   void touchAt(long time) {_lastAccessedTime = time;}
+  /** @return Time (in msec) this Value was last accessed */
+  public long lastAccessedTime() { return _lastAccessedTime; }
+  /** @return Approximate access count since the Cleaner last aged this Value */
+  public int accessCount() { return _hits; }
+  /** Halve the access count; used by {@link EvictionPolicy} implementations */
+  public void ageAccessCount() { _hits >>= 1; }
 
   // ---
 
@@ -216,10 +251,54 @@ public final class Value extends Iced implements ForkJoinPool.ManagedBlocker {
       H2O.getPM().delete(backend(), this); // Possibly nothing to delete (race with writer)
   }
 
+  /** Best-effort copy of the byte[] into the off-heap tier.  Called only by
+   *  the Cleaner.  Returns false if there is nothing to copy or the tier is
+   *  disabled or full, in which case the caller falls back to disk. */
+  boolean storeOffHeap() {
+    if( isOffHeap() ) return true;
+    if( isDeleted() ) return false;
+    byte[] mem = _mem;          // Read once!
+    if( mem == null ) return false;
+    ByteBuffer bb = MemoryManager.mallocOffHeap(mem);
+    if( bb == null ) return false;
+    _offHeap = bb;
+    if( isDeleted() ) // Check del bit AFTER setting the buffer; close race with deleting user thread
+      freeOffHeap();
+    return true;
+  }
+  // Copy the parked bytes back into a fresh heap array.  Works on a duplicate
+  // so racing readers do not disturb each other's buffer position.
+  private byte[] loadOffHeap( ByteBuffer bb ) {
+    byte[] mem = MemoryManager.malloc1(_max);
+    bb.duplicate().get(mem);
+    return mem;
+  }
+  /** Drop the heap copies of a Chunk parked off-heap.  Called only by the
+   *  Cleaner.  If a racing reader already brought the Chunk back on heap (and
+   *  so released the off-heap copy) the heap copies are put back and false
+   *  is returned, since they are the only copies left. */
+  boolean freeParkedMem() {
+    byte[] mem = _mem;          // Read once!
+    Freezable pojo = _pojo;     // Read once!
+    _mem = null;
+    _pojo = null;
+    if( isOffHeap() ) return true; // Check AFTER clearing; closes race with memOrLoad
+    _mem = mem;
+    _pojo = pojo;
+    return false;
+  }
+  /** Drop the off-heap copy (if any) and release its accounting */
+  void freeOffHeap() {
+    ByteBuffer bb = _offHeap;
+    if( bb != null && OFFHEAP_UPDATER.compareAndSet(this,bb,null) )
+      MemoryManager.freeOffHeap(bb);
+  }
+
   /** Remove dead Values from disk */
   public void removePersist() {
     // do not yank memory, as we could have a racing get hold on to this
     //  free_mem();
+    freeOffHeap();              // Off-heap copy is dead no matter the backend
     // 00 -> 01 try to delete (racing, probably nothing to delete)
     // 01       double delete; do nothing
     // 10 -> 11 delete
@@ -146,6 +146,13 @@ public class CloudV3 extends RequestSchemaV3<Iced, CloudV3> {
     @API(help="#local keys", direction=API.Direction.OUTPUT)
     public int num_keys;
 
+    @API(help="K/V accesses served from memory", direction=API.Direction.OUTPUT)
+    public long cache_hits;
+    @API(help="K/V accesses which reloaded swapped data", direction=API.Direction.OUTPUT)
+    public long cache_misses;
+    @API(help="K/V values evicted from memory", direction=API.Direction.OUTPUT)
+    public long cache_evictions;
+
     @API(help="Free disk", direction=API.Direction.OUTPUT)
     public long free_disk;
     @API(help="Max disk", direction=API.Direction.OUTPUT)
@@ -163,6 +170,15 @@ public class CloudV3 extends RequestSchemaV3<Iced, CloudV3> {
     @API(help="Open TCP connections", direction=API.Direction.OUTPUT)
     public int tcps_active;
 
+    @API(help="Bulk bytes sent to this node over compressed TCP, from the answering node; before compression", direction=API.Direction.OUTPUT)
+    public long tcp_raw_bytes;
+
+    @API(help="Bulk bytes sent to this node over compressed TCP, from the answering node; on the wire", direction=API.Direction.OUTPUT)
+    public long tcp_wire_bytes;
+
+    @API(help="Milliseconds the answering node spent compressing bulk TCP traffic to this node", direction=API.Direction.OUTPUT)
+    public long tcp_compress_ms;
+
     @API(help="Open File Descripters", direction=API.Direction.OUTPUT)
     public int open_fds;
 
@@ -191,6 +207,9 @@ public class CloudV3 extends RequestSchemaV3<Iced, CloudV3> {
       swap_mem = hb.get_swap_mem();
       max_mem = pojo_mem + free_mem + mem_value_size;
       num_keys = hb._keys;
+      cache_hits = hb._cache_hits;
+      cache_misses = hb._cache_misses;
+      cache_evictions = hb._cache_evictions;
 
       // Disk health
       free_disk = hb.get_free_disk();
@@ -203,6 +222,9 @@ public class CloudV3 extends RequestSchemaV3<Iced, CloudV3> {
 
       // System properties & I/O Status
       tcps_active = hb._tcps_active;
+      tcp_raw_bytes = h2o.tcpRawBytes();
+      tcp_wire_bytes = h2o.tcpWireBytes();
+      tcp_compress_ms = h2o.tcpCompressNanos() / 1000000;
       open_fds = hb._process_num_open_fds; // -1 if not available
       num_cpus = hb._num_cpus;
       cpus_allowed = hb._cpus_allowed;
@@ -2,6 +2,7 @@ package water.api.schemas3;
 
 import water.api.API;
 import water.init.NetworkBench;
+import water.util.TwoDimTable;
 
 /**
  */
@@ -9,12 +10,20 @@ public class NetworkBenchV3 extends RequestSchemaV3<NetworkBench, NetworkBenchV3
   @API(help="NetworkBenchResults", direction = API.Direction.OUTPUT)
   TwoDimTableV3[] results;
 
+  @API(help="Outbound small-message throughput (messages/s and MB/s) between every pair of nodes", direction = API.Direction.OUTPUT)
+  TwoDimTableV3[] throughput;
+
   @Override
   public NetworkBenchV3 fillFromImpl(NetworkBench impl) {
     if(impl._results != null) {
       results = new TwoDimTableV3[impl._results.length];
       for(int i = 0; i < results.length; ++i)
         results[i] = (TwoDimTableV3)new TwoDimTableV3().fillFromImpl(impl._results[i].to2dTable());
+      throughput = new TwoDimTableV3[impl._results.length];
+      for(int i = 0; i < throughput.length; ++i) {
+        TwoDimTable t = impl._results[i].toThroughputTable();
+        if (t != null) throughput[i] = (TwoDimTableV3)new TwoDimTableV3().fillFromImpl(t);
+      }
     }
     return this;
   }
@@ -15,6 +15,7 @@ import water.util.ArrayUtils;
 import water.util.Log;
 
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 
 /** A class to compute the rollup stats.  These are computed lazily, thrown
  *  away if the Vec is written into, and then recomputed lazily.  Error to ask
@@ -46,6 +47,11 @@ final class RollupStats extends Iced {
   boolean _isInt=true;
   double[] _mins, _maxs;
   long _checksum;
+  // Stamp of the content these rollups were computed over, new for every
+  // computation; as rollups are thrown away by any write, it changes with
+  // every write, unlike the checksum, which misses permuted values
+  long _stamp;
+  private static final AtomicLong STAMPS = new AtomicLong();
 
   // Expensive histogram & percentiles
   // Computed in a 2nd pass, on-demand, by calling computeHisto
@@ -66,7 +72,7 @@ final class RollupStats extends Iced {
   // Check for: Rollups available
   private boolean isReady() { return _naCnt>=0; }
 
-  private RollupStats(int mode) {
+  RollupStats(int mode) {
     _mins = new double[5];
     _maxs = new double[5];
     Arrays.fill(_mins, Double.MAX_VALUE);
@@ -78,9 +84,12 @@ final class RollupStats extends Iced {
   }
 
   private static RollupStats makeComputing() { return new RollupStats(-1); }
+
+  // Unique across the cloud: the node index goes in the top bits, never 0
+  private static long nextStamp() { return ((long)(H2O.SELF.index()+1) << 48) | STAMPS.incrementAndGet(); }
   static RollupStats makeMutating () { return new RollupStats(-2); }
 
-  private RollupStats map( Chunk c ) {
+  RollupStats map( Chunk c ) {
     _size = c.byteSize();
     boolean isUUID = c._vec.isUUID();
     boolean isString = c._vec.isString();
@@ -220,7 +229,7 @@ final class RollupStats extends Iced {
     return this;
   }
 
-  private void reduce( RollupStats rs ) {
+  void reduce( RollupStats rs ) {
     for( double d : rs._mins ) if (!Double.isNaN(d)) min(d);
     for( double d : rs._maxs ) if (!Double.isNaN(d)) max(d);
     _naCnt += rs._naCnt;
@@ -239,6 +248,63 @@ final class RollupStats extends Iced {
     _checksum ^= rs._checksum;
   }
 
+  // Turn the reduced sum of squares into sigma
+  private void finishMoments() {
+    _sigma = Math.sqrt(_sigma/(_rows-1));
+    if (_rows == 1) _sigma = 0;
+    if (_rows < 5) for (int i=0; i<5-_rows; i++) {  // Fix PUBDEV-150 for files under 5 rows
+      _maxs[4-i] = Double.NaN;
+      _mins[4-i] = Double.NaN;
+    }
+  }
+
+  private void finishVec(Vec vec) {
+    // mean & sigma not allowed on more than 2 classes; for 2 classes the assumption is that it's true/false
+    String[] ss = vec.domain();
+    if( vec.isCategorical() && ss.length > 2 )
+      _mean = _sigma = Double.NaN;
+    _size += domainSize(vec);     // Account for domain size in Vec size
+  }
+
+  // Size of a categorical Vec's domain and chunk keys; 0 for other Vecs
+  private static long domainSize(Vec vec) {
+    String[] ss = vec.domain();
+    if( ss == null ) return 0;
+    long dsz = (2/*hdr*/+1/*len*/+ss.length)*8;  // Size of base domain array
+    for( String s : ss )
+      if( s != null )
+        dsz += 2*s.length() + (2/*hdr*/+1/*value*/+1/*hash*/+2/*hdr*/+1/*len*/)*8;
+    // Account for Chunk key size
+    int keysize = (2/*hdr*/+1/*kb*/+1/*hash*/+2/*hdr*/+1/*len*/)*8+ vec._key._kb.length;
+    return dsz + vec.nChunks()*(keysize*4/*key+value ptr in DKV, plus 50% fill rate*/);
+  }
+
+  /** Rollups of vec, made by appending chunks to oldVec: the finished
+   *  rollups of oldVec merged with the unfinished rollups of just the
+   *  appended chunks, without a pass over the old chunks.  The histogram
+   *  and percentiles are left to be computed on demand. */
+  static RollupStats merge(RollupStats old, Vec oldVec, RollupStats appended, Vec vec) {
+    RollupStats rs = new RollupStats(0);
+    if( oldVec.length() > 0 ) { // An empty Vec's rollups were never finished; nothing to undo
+      RollupStats o = (RollupStats)old.clone(); // Undo the finishing of the old rollups
+      o._sigma = o._rows > 1 ? o._sigma*o._sigma*(o._rows-1) : 0;
+      o._size -= domainSize(oldVec);
+      o._checksum ^= oldVec.length();
+      rs.reduce(o);             // NaN'ed mins & maxs of small Vecs are skipped
+    }
+    rs.reduce(appended);
+    rs.finishMoments();
+    rs.finishVec(vec);
+    if( vec.isUUID() || vec.isString() ) {
+      Arrays.fill(rs._mins,Double.NaN);
+      Arrays.fill(rs._maxs,Double.NaN);
+      rs._mean = rs._sigma = Double.NaN;
+    }
+    rs._checksum ^= vec.length();
+    rs._stamp = nextStamp();
+    return rs;
+  }
+
   double min( double d ) {
     assert(!Double.isNaN(d));
     for( int i=0; i<_mins.length; i++ )
@@ -267,29 +333,9 @@ final class RollupStats extends Iced {
     @Override public void postGlobal() {
       if( _rs == null )
         _rs = new RollupStats(0);
-      else {
-        _rs._sigma = Math.sqrt(_rs._sigma/(_rs._rows-1));
-        if (_rs._rows == 1) _rs._sigma = 0;
-        if (_rs._rows < 5) for (int i=0; i<5-_rs._rows; i++) {  // Fix PUBDEV-150 for files under 5 rows
-          _rs._maxs[4-i] = Double.NaN;
-          _rs._mins[4-i] = Double.NaN;
-        }
-      }
-      // mean & sigma not allowed on more than 2 classes; for 2 classes the assumption is that it's true/false
-      Vec vec = _fr.anyVec();
-      String[] ss = vec.domain();
-      if( vec.isCategorical() && ss.length > 2 )
-        _rs._mean = _rs._sigma = Double.NaN;
-      if( ss != null ) {
-        long dsz = (2/*hdr*/+1/*len*/+ss.length)*8;  // Size of base domain array
-        for( String s : vec.domain() )
-          if( s != null )
-            dsz += 2*s.length() + (2/*hdr*/+1/*value*/+1/*hash*/+2/*hdr*/+1/*len*/)*8;
-        _rs._size += dsz;             // Account for domain size in Vec size
-        // Account for Chunk key size
-        int keysize = (2/*hdr*/+1/*kb*/+1/*hash*/+2/*hdr*/+1/*len*/)*8+ vec._key._kb.length;
-        _rs._size += vec.nChunks()*(keysize*4/*key+value ptr in DKV, plus 50% fill rate*/);
-      }
+      else
+        _rs.finishMoments();
+      _rs.finishVec(_fr.anyVec());
     }
     // Just toooo common to report always.  Drowning in multi-megabyte log file writes.
     @Override public boolean logVerbose() { return false; }
@@ -465,6 +511,7 @@ final class RollupStats extends Iced {
               Roll r = new Roll(null, _rsKey).doAll(vec);
               // computed the stats, now compute histo if needed and install the response and quit
               r._rs._checksum ^= vec.length();
+              r._rs._stamp = nextStamp();
               if (_computeHisto)
                 computeHisto(r._rs, vec, nnn);
               else
@@ -0,0 +1,175 @@
+package water.fvec;
+
+import water.DKV;
+import water.Futures;
+import water.Key;
+import water.KeySnapshot;
+import water.MRTask;
+import water.Value;
+import water.parser.Categorical;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Appends the rows of one Frame to the end of another, in place.
+ *
+ * The source chunks are copied under new chunk indices of the destination
+ * Vecs, which get a row layout extended to cover them; the existing chunks
+ * are neither read nor rewritten.  Categorical levels missing from a
+ * destination domain are added at its end, so the codes already stored stay
+ * valid.  Rollups already computed for the destination are merged with
+ * rollups of just the appended chunks, instead of being recomputed.
+ *
+ * A Vec that another Frame in the DKV (or another column of the destination)
+ * also holds is not grown in place, since that Frame would see its column
+ * change length; the destination gets a copy of it first.
+ *
+ * The caller is expected to hold the destination's write lock.
+ */
+public final class RowAppender {
+  private RowAppender() {}
+
+  /**
+   * Append all rows of src to dst.  dst keeps its Key and its Vec Keys; src
+   * is not modified.
+   * @return dst, with its Vecs reloaded
+   */
+  public static Frame append(Frame dst, Frame src) {
+    final int ncols = dst.numCols();
+    if( src.numCols() != ncols )
+      throw new IllegalArgumentException("Cannot append a frame with " + src.numCols() + " columns to a frame with " + ncols + " columns.");
+    if( src.numRows() == 0 ) return dst;
+    Vec[] ovecs = dst.vecs();
+    final Vec[] svecs = src.vecs();
+
+    // Unify domains; an all-NA source column fits any type
+    String[][] domains = new String[ncols][];
+    int[][] cmaps = new int[ncols][];
+    for( int i = 0; i < ncols; i++ ) {
+      Vec ov = ovecs[i], sv = svecs[i];
+      if( ov.getClass() != Vec.class )
+        throw new IllegalArgumentException("Cannot append rows to column '" + dst.name(i) + "' of type " + ov.getClass().getSimpleName() + ".");
+      if( sv.get_type() != ov.get_type() && sv.get_type() != Vec.T_BAD )
+        throw new IllegalArgumentException("Cannot append a " + sv.get_type_str() + " column to the " + ov.get_type_str() + " column '" + dst.name(i) + "'.");
+      domains[i] = ov.domain();
+      if( ov.isCategorical() && sv.isCategorical() ) {
+        String[] od = ov.domain(), sd = sv.domain();
+        HashMap<String, Integer> levels = new HashMap<>();
+        for( int j = 0; j < od.length; j++ ) levels.put(od[j], j);
+        String[] nd = Arrays.copyOf(od, od.length + sd.length);
+        int n = od.length;
+        int[] cmap = new int[sd.length];
+        boolean identity = true;
+        for( int j = 0; j < sd.length; j++ ) {
+          Integer k = levels.get(sd[j]);
+          if( k == null ) nd[k = n++] = sd[j];
+          cmap[j] = k;
+          identity &= k == j;
+        }
+        if( n > Categorical.MAX_CATEGORICAL_COUNT )
+          throw new IllegalArgumentException("Appending would exceed the categorical limit on column '" + dst.name(i) + "'.");
+        domains[i] = Arrays.copyOf(nd, n);
+        if( !identity ) cmaps[i] = cmap;
+      }
+    }
+
+    // Copy on write: shared Vecs are replaced by private copies before growing
+    HashSet<Key> shared = sharedVecs(dst);
+    HashSet<Key> seen = new HashSet<>();
+    for( int i = 0; i < ncols; i++ )
+      if( shared.contains(ovecs[i]._key) || !seen.add(ovecs[i]._key) )
+        dst.replace(i, ovecs[i].makeCopy());
+    ovecs = dst.vecs();
+
+    // Extend the row layout by the source chunks
+    long[] oespc = ovecs[0].espc(), sespc = svecs[0].espc();
+    final int onchunks = oespc.length - 1;
+    long[] espc = Arrays.copyOf(oespc, onchunks + sespc.length);
+    for( int j = 1; j < sespc.length; j++ )
+      espc[onchunks + j] = oespc[onchunks] + sespc[j];
+    // Row layouts are numbered per VectorGroup, and a Frame may mix groups
+    HashMap<Key, Integer> rowLayouts = new HashMap<>();
+    Vec[] nvecs = new Vec[ncols];
+    for( int i = 0; i < ncols; i++ ) {
+      Key group = ovecs[i].group()._key;
+      Integer rowLayout = rowLayouts.get(group);
+      if( rowLayout == null ) rowLayouts.put(group, rowLayout = Vec.ESPC.rowLayout(ovecs[i]._key, espc));
+      nvecs[i] = new Vec(ovecs[i]._key, rowLayout, domains[i], ovecs[i].get_type());
+    }
+
+    AppendTask t = new AppendTask(nvecs, cmaps, onchunks).doAll(src);
+
+    // Install the grown Vecs, with their rollups merged if there were any
+    Futures fs = new Futures();
+    for( int i = 0; i < ncols; i++ ) {
+      Key rskey = nvecs[i].rollupStatsKey();
+      RollupStats old = RollupStats.getOrNull(ovecs[i], rskey);
+      if( old != null && t._rs != null && t._rs[i] != null )
+        DKV.put(rskey, RollupStats.merge(old, ovecs[i], t._rs[i], nvecs[i]), fs);
+      else
+        DKV.remove(rskey, fs);
+      DKV.put(nvecs[i], fs);
+    }
+    fs.blockForPending();
+    dst.reloadVecs();
+    return dst;
+  }
+
+  // Keys of dst's Vecs that some other Frame in the DKV holds as well
+  private static HashSet<Key> sharedVecs(Frame dst) {
+    HashSet<Key> mine = new HashSet<Key>(Arrays.<Key>asList(dst.keys()));
+    HashSet<Key> shared = new HashSet<>();
+    Key[] frames = KeySnapshot.globalSnapshot().filter(new KeySnapshot.KVFilter() {
+      @Override public boolean filter(KeySnapshot.KeyInfo k) { return Value.isSubclassOf(k._type, Frame.class); }
+    }).keys();
+    for( Key k : frames ) {
+      if( k.equals(dst._key) ) continue;
+      Frame fr = DKV.getGet(k);
+      if( fr == null ) continue; // Deleted since the snapshot
+      for( Key vk : fr.keys() )
+        if( mine.contains(vk) ) shared.add(vk);
+    }
+    return shared;
+  }
+
+  // Copy (or renumber) each source chunk to its new place, rolling it up on the way
+  private static class AppendTask extends MRTask<AppendTask> {
+    final Vec[] _vecs;          // Destination Vecs, with the extended layout
+    final int[][] _cmaps;       // Per column: source code -> destination code; null to copy as-is
+    final int _chunkOff;        // Destination index of the first source chunk
+    RollupStats[] _rs;          // Out: unfinished rollups of the appended chunks
+
+    AppendTask(Vec[] vecs, int[][] cmaps, int chunkOff) { _vecs = vecs; _cmaps = cmaps; _chunkOff = chunkOff; }
+
+    @Override public void map(Chunk[] cs) {
+      final int cidx = _chunkOff + cs[0].cidx();
+      final long start = _vecs[0].espc()[cidx];
+      _rs = new RollupStats[cs.length];
+      for( int i = 0; i < cs.length; i++ ) {
+        Chunk c;
+        int[] cmap = _cmaps[i];
+        if( cmap != null ) {
+          NewChunk nc = new NewChunk(_vecs[i], cidx);
+          for( int r = 0; r < cs[i]._len; r++ ) {
+            if( cs[i].isNA(r) ) nc.addNA();
+            else nc.addNum(cmap[(int) cs[i].at8(r)], 0);
+          }
+          c = nc.compress();
+        } else
+          c = cs[i].deepCopy();
+        c._vec = _vecs[i];  c._start = start;  c._cidx = cidx;
+        _rs[i] = new RollupStats(0).map(c);
+        c._vec = null;  c._start = -1;  c._cidx = -1; // Filled in again when fetched
+        DKV.put(Vec.chunkKey(_vecs[i]._key, cidx), c, _fs, true);
+      }
+    }
+
+    @Override public void reduce(AppendTask t) {
+      if( _rs == null ) _rs = t._rs;
+      else if( t._rs != null )
+        for( int i = 0; i < _rs.length; i++ ) _rs[i].reduce(t._rs[i]);
+    }
+  }
+}
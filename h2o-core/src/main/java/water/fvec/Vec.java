@@ -8,6 +8,7 @@ import water.util.*;
 import java.util.Arrays;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /** A distributed vector/array/column of uniform data.
  *
@@ -909,6 +910,20 @@ public class Vec extends Keyed<Vec> {
    *  @return Checksum of the Vec's content  */
   @Override protected long checksum_impl() { return rollupStats()._checksum;}
 
+  /** Version of the current content: changes whenever the Vec is written to,
+   *  even by writes the content checksum misses, as swapped values.  Only
+   *  comparable to other versions of the same Vec.
+   *  @return Version of the Vec's current content, never 0 for a non-empty Vec  */
+  public long contentVersion() { return rollupStats()._stamp; }
+
+  /** Version of the current content, as {@link #contentVersion()}, if the
+   *  rollups are at hand; does not compute them.
+   *  @return Version of the Vec's current content, or 0 if not known  */
+  public long contentVersionIfKnown() {
+    RollupStats rs = RollupStats.getOrNull(this,rollupStatsKey());
+    return rs == null ? 0 : rs._stamp;
+  }
+
   public boolean isVolatile() {return _volatile;}
 
 
@@ -1326,7 +1341,20 @@ public class Vec extends Keyed<Vec> {
     return fs;
   }
 
+  /** Notified when Vecs are removed, so state derived from their content
+   *  (e.g. sort indexes) can be dropped along with them. */
+  public interface RemovalListener {
+    /** @param vecs Keys of the Vecs being removed */
+    void removed(Key[] vecs);
+  }
+
+  private static final CopyOnWriteArrayList<RemovalListener> REMOVAL_LISTENERS = new CopyOnWriteArrayList<>();
+
+  /** Registers a listener called on this node whenever Vecs are removed. */
+  public static void addRemovalListener(RemovalListener l) { REMOVAL_LISTENERS.add(l); }
+
   static void bulk_remove( final Key[] keys, final int ncs ) {
+    for (RemovalListener l : REMOVAL_LISTENERS) l.removed(keys);
     // Need to mark the Vec as mutating to make sure that no running computations of RollupStats will
     // re-insert the rollups into DKV after they are deleted in bulk_remove(Key, int).
     Futures fs = new Futures();
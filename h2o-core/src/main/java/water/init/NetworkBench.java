@@ -23,12 +23,47 @@ public class NetworkBench extends Iced {
     final int _msgCnt;
     final long [] _mrtTimes;
     final long [][] _all2AllTimes;
+    final long [][] _sentMsgs;  // Small messages sent node i -> node j during the All2All test
+    final long [][] _sentBytes;
 
     public NetworkBenchResults(int msgSz, int msgCnt, long [][] all2all, long [] mrts) {
+      this(msgSz, msgCnt, all2all, mrts, null, null);
+    }
+
+    public NetworkBenchResults(int msgSz, int msgCnt, long [][] all2all, long [] mrts, long [][] sentMsgs, long [][] sentBytes) {
       _msgSz = msgSz;
       _msgCnt = msgCnt;
       _mrtTimes = mrts;
       _all2AllTimes = all2all;
+      _sentMsgs = sentMsgs;
+      _sentBytes = sentBytes;
+    }
+
+    /** Outbound throughput of the small-message send path for every pair of nodes, in messages/s and MB/s;
+     *  null if not measured. */
+    public TwoDimTable toThroughputTable(){
+      if( _sentMsgs == null ) return null;
+      int n = H2O.CLOUD.size();
+      String title = "Network Bench outbound throughput, sz = " + _msgSz + "B, cnt = " + _msgCnt;
+      String [] rowHeaders = new String[n];
+      String [] colHeaders = new String[2*n];
+      String [] colTypes = new String[2*n];
+      String [] colFormats = new String[2*n];
+      for(int i = 0; i < n; ++i) {
+        rowHeaders[i] = H2O.CLOUD._memary[i].toString();
+        colHeaders[i] = rowHeaders[i] + " msg/s";
+        colHeaders[n+i] = rowHeaders[i] + " MB/s";
+        colTypes[i] = colTypes[n+i] = "double";
+        colFormats[i] = colFormats[n+i] = "%2f";
+      }
+      TwoDimTable td = new TwoDimTable(title, "Messages and bytes per second sent from the row node to the column node, including replies", rowHeaders, colHeaders, colTypes, colFormats, "");
+      for(int i = 0; i < n; ++i)
+        for(int j = 0; j < n; ++j) {
+          double secs = Math.max(1, _all2AllTimes[i][j]) * 0.001;
+          td.set(i, j, 0.01 * ((int) (100 * _sentMsgs[i][j] / secs)));
+          td.set(i, n+j, 0.01 * ((int) (100 * _sentBytes[i][j] / (1024.0*1024) / secs)));
+        }
+      return td;
     }
 
     public TwoDimTable to2dTable(){
@@ -66,13 +101,14 @@ public class NetworkBench extends Iced {
          long t2 = System.currentTimeMillis();
          long [] mrts = new long[H2O.CLOUD.size()];
          Log.info("Network Bench, running All2All, message size = " + MSG_SZS[i] + ", message count = " + MSG_CNT[i]);
-         long[][] all2all = new TestAll2All(MSG_SZS[i], MSG_CNT[i]).doAllNodes()._time;
+         TestAll2All t = new TestAll2All(MSG_SZS[i], MSG_CNT[i]).doAllNodes();
+         long[][] all2all = t._time;
          Log.info("All2All test done in " + ((System.currentTimeMillis()-t2)*0.001) + "s");
 //         for(int j = 0; j < H2O.CLOUD.size(); ++j) {
 //           Log.info("Network Bench, running MRTask test at node " + j + ", message size = " + MSG_SZS[i] + ", message count = " + MSG_CNT[i]);
 //           mrts[j] = RPC.call(H2O.CLOUD._memary[j], new TestMRTasks(MSG_SZS[i],MSG_CNT[i])).get()._time;
 //         }
-         _results[i] = new NetworkBenchResults(MSG_SZS[i],MSG_CNT[i],all2all,mrts);
+         _results[i] = new NetworkBenchResults(MSG_SZS[i],MSG_CNT[i],all2all,mrts,t._sentMsgs,t._sentBytes);
        }
        tryComplete();
      }
@@ -80,6 +116,7 @@ public class NetworkBench extends Iced {
     for(NetworkBenchResults r:_results) {
       System.out.println("===================================== MSG SZ = " + r._msgSz + ", CNT = " + r._msgCnt + " =========================================");
       System.out.println(r.to2dTable());
+      System.out.println(r.toThroughputTable());
       System.out.println();
     }
     Log.info("Newtork test done in " + ((System.currentTimeMillis()-t1)*0.001) + "s");
@@ -90,6 +127,8 @@ public class NetworkBench extends Iced {
     final int  _msgSz;  // in
     final int  _msgCnt; // in
     long [][] _time; // out
+    long [][] _sentMsgs;  // out
+    long [][] _sentBytes; // out
 
     public TestAll2All(int msgSz, int msgCnt) {
       _msgSz = msgSz;
@@ -109,16 +148,23 @@ public class NetworkBench extends Iced {
     @Override
     public void setupLocal(){
       _time = new long[H2O.CLOUD.size()][];
+      _sentMsgs = new long[H2O.CLOUD.size()][];
+      _sentBytes = new long[H2O.CLOUD.size()][];
       final int myId = H2O.SELF.index();
       _time[myId] = new long[H2O.CLOUD.size()];
+      _sentMsgs[myId] = new long[H2O.CLOUD.size()];
+      _sentBytes[myId] = new long[H2O.CLOUD.size()];
       addToPendingCount(H2O.CLOUD.size()-1);
       for (int i = 0; i < H2O.CLOUD.size(); ++i) {
         if (i != myId) {
           final int fi = i;
           H2O.submitTask(new H2OCountedCompleter(this) {
-            long t1;
+            long t1, msgs1, bytes1;
             @Override
             public void compute2() {
+              H2ONode target = H2O.CLOUD._memary[fi];
+              msgs1 = target.sentMessages();
+              bytes1 = target.sentBytes();
               t1 = System.currentTimeMillis();
               addToPendingCount(_msgCnt - 1);
               for (int j = 0; j < _msgCnt; ++j)
@@ -128,6 +174,9 @@ public class NetworkBench extends Iced {
             public void onCompletion(CountedCompleter cc) {
               long t2 = System.currentTimeMillis();
               _time[myId][fi] = (t2 - t1);
+              H2ONode target = H2O.CLOUD._memary[fi];
+              _sentMsgs[myId][fi] = target.sentMessages() - msgs1;
+              _sentBytes[myId][fi] = target.sentBytes() - bytes1;
             }
           });
         }
@@ -136,9 +185,11 @@ public class NetworkBench extends Iced {
 
     @Override public void reduce(TestAll2All tst) {
       for(int i = 0; i < _time.length; ++i)
-        if(_time[i] == null)
+        if(_time[i] == null) {
           _time[i] = tst._time[i];
-        else
+          _sentMsgs[i] = tst._sentMsgs[i];
+          _sentBytes[i] = tst._sentBytes[i];
+        } else
           assert tst._time[i] == null;
     }
   }
@@ -0,0 +1,138 @@
+package water.network;
+
+import water.util.LZ4Block;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A ByteChannel which LZ4-compresses everything written to it, and
+ * decompresses everything read from it.
+ *
+ * Each {@link #write} is shipped immediately as one or more self-contained
+ * frames: a 4-byte raw length, a 4-byte wire length, then the wire bytes.
+ * Frames whose raw length is below the threshold, or which do not shrink,
+ * go out stored (wire length == raw length).  Nothing is held back between
+ * writes, so after a write returns the bytes are on the underlying channel;
+ * callers may then exchange raw handshake bytes on the underlying socket.
+ * Likewise, reads never consume past the end of the current frame.
+ */
+public class CompressedByteChannel implements ByteChannel {
+  public static final int BLOCK_SIZE = 64 * 1024; // Max raw bytes per frame
+  private static final int HDR = 8;
+
+  /** Compression counters, shared by all channels to one peer. */
+  public static class Stats {
+    public final AtomicLong _rawBytes = new AtomicLong();   // Bytes handed to write()
+    public final AtomicLong _wireBytes = new AtomicLong();  // Bytes put on the wire, framing included
+    public final AtomicLong _compressNs = new AtomicLong(); // Time spent compressing
+    /** @return raw bytes over wire bytes; 1 if nothing sent */
+    public double ratio() { long w = _wireBytes.get(); return w == 0 ? 1 : (double) _rawBytes.get() / w; }
+  }
+
+  private final ByteChannel _chan;
+  private final int _threshold;
+  private final Stats _stats;
+  private LZ4Block _lz4;        // Compressor; lazily made on first write
+  private byte[] _raw, _wire;   // Scratch for the frame in flight
+  private ByteBuffer _hdr;
+  private ByteBuffer _rbb;      // Decompressed bytes not yet handed to the reader
+
+  /**
+   * @param chan underlying channel
+   * @param threshold writes shorter than this are sent stored
+   * @param stats counters to update on write, or null
+   */
+  public CompressedByteChannel(ByteChannel chan, int threshold, Stats stats) {
+    _chan = chan;
+    _threshold = threshold;
+    _stats = stats;
+  }
+
+  /** @return the wrapped channel */
+  public ByteChannel channel() { return _chan; }
+
+  @Override public int write(ByteBuffer src) throws IOException {
+    if( _lz4 == null ) {
+      _lz4 = new LZ4Block();
+      _raw = new byte[BLOCK_SIZE];
+      _wire = new byte[HDR + LZ4Block.maxCompressedLength(BLOCK_SIZE)];
+    }
+    int n = src.remaining();
+    while( src.hasRemaining() ) {
+      int len = Math.min(src.remaining(), BLOCK_SIZE);
+      src.get(_raw, 0, len);
+      int wlen = len;
+      if( len >= _threshold ) {
+        long t0 = System.nanoTime();
+        int z = _lz4.compress(_raw, 0, len, _wire, HDR);
+        if( _stats != null ) _stats._compressNs.addAndGet(System.nanoTime() - t0);
+        if( z < len ) wlen = z;
+      }
+      if( wlen == len ) System.arraycopy(_raw, 0, _wire, HDR, len);
+      ByteBuffer bb = ByteBuffer.wrap(_wire, 0, HDR + wlen);
+      bb.putInt(len).putInt(wlen).position(0);
+      while( bb.hasRemaining() ) _chan.write(bb);
+      if( _stats != null ) {
+        _stats._rawBytes.addAndGet(len);
+        _stats._wireBytes.addAndGet(HDR + wlen);
+      }
+    }
+    return n;
+  }
+
+  @Override public int read(ByteBuffer dst) throws IOException {
+    if( _rbb == null || !_rbb.hasRemaining() )
+      if( !readFrame() ) return -1;
+    int n = Math.min(dst.remaining(), _rbb.remaining());
+    int lim = _rbb.limit();
+    _rbb.limit(_rbb.position() + n);
+    dst.put(_rbb);
+    _rbb.limit(lim);
+    return n;
+  }
+
+  // Read exactly one frame, and decompress it into _rbb.  False on a clean EOF.
+  private boolean readFrame() throws IOException {
+    if( _hdr == null ) {
+      _hdr = ByteBuffer.allocate(HDR);
+      _wire = new byte[LZ4Block.maxCompressedLength(BLOCK_SIZE)];
+      _rbb = ByteBuffer.wrap(new byte[BLOCK_SIZE]);
+    }
+    _hdr.clear();
+    if( !readFully(_hdr, true) ) return false;
+    int len = _hdr.getInt(0), wlen = _hdr.getInt(4);
+    if( len < 0 || len > BLOCK_SIZE || wlen < 0 || wlen > len )
+      throw new IOException("Corrupt compressed frame header: raw=" + len + ", wire=" + wlen);
+    byte[] raw = _rbb.array();
+    if( wlen == len ) {
+      readFully(ByteBuffer.wrap(raw, 0, len), false);
+    } else {
+      readFully(ByteBuffer.wrap(_wire, 0, wlen), false);
+      try {
+        LZ4Block.decompress(_wire, 0, wlen, raw, 0, len);
+      } catch( IllegalArgumentException e ) {
+        throw new IOException(e);
+      }
+    }
+    _rbb.limit(len).position(0);
+    return true;
+  }
+
+  private boolean readFully(ByteBuffer bb, boolean eofOk) throws IOException {
+    while( bb.hasRemaining() ) {
+      if( _chan.read(bb) < 0 ) {
+        if( eofOk && bb.position() == 0 ) return false;
+        throw new EOFException("Compressed frame cut short after " + bb.position() + " of " + bb.limit() + " bytes");
+      }
+    }
+    return true;
+  }
+
+  @Override public boolean isOpen() { return _chan.isOpen(); }
+
+  @Override public void close() throws IOException { _chan.close(); }
+}
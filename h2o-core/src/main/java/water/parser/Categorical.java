@@ -1,21 +1,34 @@
 package water.parser;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import water.Iced;
-import water.util.IcedHashMap;
 import water.util.Log;
 import water.util.PrettyPrint;
 
 /** Class for tracking categorical (factor) columns.
  *
- *  Basically a wrapper around non blocking hash map.
+ *  A lock-free string dictionary, in the style of the non blocking hash map.
  *  In the first pass, we just collect set of unique strings per column
- *  (if there are less than MAX_CATEGORICAL_COUNT unique elements).
- *  
+ *  (if there are less than MAX_CATEGORICAL_COUNT unique elements), handing
+ *  out ids 0, 1, 2... in order of first appearance.
+ *
+ *  The strings' UTF-8 bytes are copied once into an arena of exponentially
+ *  growing pages, and a level costs one hash slot plus one packed location -
+ *  no per-level objects.  The hash table holds longs of (hash, id); it is
+ *  resized by sealing the old table's empty slots and copying its entries
+ *  over, while other threads keep inserting into the new table.
+ *
  *  After pass1, the keys are sorted and indexed alphabetically.
  *  In the second pass, map is used only for lookup and never updated.
- *  
+ *
  *  Categorical objects are shared among threads on the local nodes!
  *
  * @author tomasnykodym
@@ -24,40 +37,103 @@ import water.util.PrettyPrint;
 public final class Categorical extends Iced {
 
   public static final int MAX_CATEGORICAL_COUNT = 10000000;
-  transient AtomicInteger _id = new AtomicInteger();
-  int _maxId = -1;
-  volatile IcedHashMap<BufferedString, Integer> _map;
-  boolean maxDomainExceeded = false;
 
-  Categorical() { _map = new IcedHashMap<>(); }
+  // Hash slots are [hash:31][unused:1][id+1:32]; 0 is an empty slot, and
+  // SEALED an empty slot of a table being copied out
+  private static final long SEALED = 1L << 32;
+  private static final long ID_MASK = 0xFFFFFFFFL;
+  private static final int MIN_TABLE = 64;
+  // Locations and bytes live in buckets of BASE<<k entries, k = 0, 1, 2...
+  private static final int LOC_LOG = 4;
+  private static final int PAGE_LOG = 12;
+  private static final int MAX_PAGES = 31 - PAGE_LOG; // Largest page is 1GB
+  private static final int MAX_LEN = 65535;
+
+  private static final class Table {
+    final AtomicLongArray _slots;
+    final int _mask;
+    volatile Table _prev;       // Table being copied into this one; null when done
+    Table(int size, Table prev) { _slots = new AtomicLongArray(size); _mask = size - 1; _prev = prev; }
+  }
+
+  private transient final AtomicReference<Table> _tab = new AtomicReference<>(new Table(MIN_TABLE, null));
+  private transient final AtomicInteger _id = new AtomicInteger();   // Next id to hand out
+  private transient final AtomicInteger _size = new AtomicInteger(); // Distinct keys
+  private transient final AtomicReferenceArray<long[]> _locs = new AtomicReferenceArray<>(32 - LOC_LOG); // Per id: arena offset<<16 | length
+  private transient final AtomicReferenceArray<byte[]> _pages = new AtomicReferenceArray<>(MAX_PAGES);
+  private transient final AtomicLong _top = new AtomicLong(); // Arena bytes used
+  private transient volatile boolean maxDomainExceeded = false;
+  // Keys replaced by convertToUTF8: sanitized key -> id, and the ids replaced
+  private transient HashMap<BufferedString, Integer> _renamed;
+  private transient BitSet _renamedIds;
+
+  Categorical() { }
 
-  /** Add key to this map (treated as hash set in this case). */
+  /** Add key to this map (treated as hash set in this case).
+   *  @return the key's id */
   int addKey(BufferedString str) {
-    // _map is shared and be cast to null (if categorical is killed) -> grab local copy
-    IcedHashMap<BufferedString, Integer> m = _map;
-    if( m == null ) return Integer.MAX_VALUE;     // Nuked already
-    Integer res = m.get(str);
-    if( res != null ) return res; // Recorded already
-    assert str.length() < 65535; // Length limit so 65535 can be used as a sentinel
-    int newVal = _id.incrementAndGet();
-    res = m.putIfAbsent(new BufferedString(str), newVal);
-    if( res != null ) return res;
-    if( m.size() > MAX_CATEGORICAL_COUNT) maxDomainExceeded = true;
-    return newVal;
-  }
-  final boolean containsKey(BufferedString key){ return _map.containsKey(key); }
+    final byte[] b = str.getBuffer();
+    final int off = str.getOffset(), len = str.length();
+    assert len <= MAX_LEN; // Length is packed in 16 bits
+    final int h = hash(b, off, len);
+    while( true ) {
+      Table t = _tab.get();
+      int id = put(t, h, b, off, len);
+      if( id >= 0 ) return id;
+      // Table is full, or was replaced under us
+      if( _tab.get() == t ) {
+        if( t._prev == null ) resize(t);
+        else Thread.yield();    // Still copying the last resize
+      }
+    }
+  }
+
+  final boolean containsKey(BufferedString key){ return getTokenId(key) >= 0; }
+
   @Override public String toString() {
-    return "{"+_map+" }";
+    StringBuilder sb = new StringBuilder("{");
+    for( BufferedString s : getColumnDomain() ) {
+      if( sb.length() > 1 ) sb.append(", ");
+      sb.append(s).append('=').append(getTokenId(s));
+    }
+    return sb.append(" }").toString();
+  }
+
+  /** @return the key's id, or -1 if absent */
+  int getTokenId( BufferedString str ) {
+    if( _renamed != null ) {
+      Integer id = _renamed.get(str);
+      if( id != null ) return id;
+    }
+    final byte[] b = str.getBuffer();
+    final int off = str.getOffset(), len = str.length();
+    final int h = hash(b, off, len);
+    Table t = _tab.get();
+    int id = find(t, h, b, off, len);
+    Table prev;
+    if( id < 0 && (prev = t._prev) != null ) id = find(prev, h, b, off, len);
+    return id >= 0 && _renamedIds != null && _renamedIds.get(id) ? -1 : id;
   }
 
-  int getTokenId( BufferedString str ) { return _map.get(str); }
-  
-  int maxId() { return _maxId == -1 ? _id.get() : _maxId; }
-  int size() { return _map.size(); }
+  /** @return the largest id handed out, or -1 if none.  Ids of racing
+   *  inserts which lost may be skipped, so this can exceed size()-1. */
+  int maxId() { return _id.get() - 1; }
+  int size() { return _size.get(); }
   boolean isMapFull() { return maxDomainExceeded; }
 
+  /** @return the keys, unordered; views over this dictionary's storage.
+   *  Only meaningful once all inserts are done. */
   BufferedString[] getColumnDomain() {
-    return  _map.keySet().toArray(new BufferedString[_map.size()]);
+    ArrayList<BufferedString> dom = new ArrayList<>(size());
+    final AtomicLongArray slots = _tab.get()._slots;
+    for( int i = 0; i < slots.length(); i++ ) {
+      long s = slots.get(i);
+      if( s == 0 || s == SEALED ) continue;
+      int id = idOf(s);
+      if( _renamedIds == null || !_renamedIds.get(id) ) dom.add(key(id));
+    }
+    if( _renamed != null ) dom.addAll(_renamed.keySet());
+    return dom.toArray(new BufferedString[dom.size()]);
   }
 
   /**
@@ -67,7 +143,7 @@ public final class Categorical extends Iced {
    */
   void convertToUTF8(int col) {
     int hexConvLeft = 10;
-    BufferedString[] bStrs = _map.keySet().toArray(new BufferedString[_map.size()]);
+    BufferedString[] bStrs = getColumnDomain();
     StringBuilder hexSB = new StringBuilder();
     for (int i = 0; i < bStrs.length; i++) {
       String s = bStrs[i].toString(); // converts to String using UTF-8 encoding
@@ -78,39 +154,193 @@ public final class Categorical extends Iced {
         if (hexConvLeft-- > 0) hexSB.append(s).append(", ");
         if (hexConvLeft == 0) hexSB.append("...");
       }
-      int val = _map.get(bStrs[i]);
-      _map.remove(bStrs[i]);
-      bStrs[i] = new BufferedString(s);
-      _map.put(bStrs[i], val);
+      int val = getTokenId(bStrs[i]);
+      if (_renamed == null) { _renamed = new HashMap<>(); _renamedIds = new BitSet(); }
+      _renamedIds.set(val);
+      _renamed.put(new BufferedString(s), val);
     }
     if (hexSB.length() > 0) Log.info("Found categoricals with non-UTF-8 characters or NULL character in the " +
         PrettyPrint.withOrdinalIndicator(col) + " column. Converting unrecognized characters into hex:  " + hexSB.toString());
   }
 
-  // Since this is a *concurrent* hashtable, writing it whilst its being
-  // updated is tricky.  If the table is NOT being updated, then all is written
-  // as expected.  If the table IS being updated we only promise to write the
-  // Keys that existed at the time the table write began.  If elements are
-  // being deleted, they may be written anyways.  If the Values are changing, a
-  // random Value is written.
-//  public AutoBuffer write_impl( AutoBuffer ab ) {
-//    if( _map == null ) return ab.put1(1); // Killed map marker
-//    ab.put1(0);                           // Not killed
-//    ab.put4(maxId());
-//    for( BufferedString key : _map.keySet() )
-//      ab.put2((char)key.length()).putA1(key.getBuffer(),key.length()).put4(_map.get(key));
-//    return ab.put2((char)65535); // End of map marker
-//  }
-//
-//  public Categorical read_impl( AutoBuffer ab ) {
-//    assert _map == null || _map.size()==0;
-//    _map = null;
-//    if( ab.get1() == 1 ) return this; // Killed?
-//    _maxId = ab.get4();
-//    _map = new NonBlockingHashMap<>();
-//    int len;
-//    while( (len = ab.get2()) != 65535 ) // Read until end-of-map marker
-//      _map.put(new BufferedString(ab.getA1(len)),ab.get4());
-//    return this;
-//  }
+  // --------------------------------------------------------------------------
+  // Hash table
+
+  // Find or insert the key in t.  Returns the id, or -1 if t is full or
+  // sealed along the way (retry in the newest table).
+  private int put(Table t, int h, byte[] b, int off, int len) {
+    final AtomicLongArray slots = t._slots;
+    final int mask = t._mask;
+    int id = -1;
+    boolean fresh = false;      // id was handed out by this call
+    for( int i = h & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++ ) {
+      long s = slots.get(i);
+      while( s == 0 ) {
+        if( id < 0 ) {
+          // Not in this table; it may still be in the one being copied out.
+          // Sealing the end of its chain there makes any racing insert of
+          // the same key into the old table retry here instead.
+          Table prev = t._prev;
+          if( prev != null ) id = findAndSeal(prev, h, b, off, len);
+          if( id < 0 ) { id = newEntry(b, off, len); fresh = true; }
+        }
+        if( slots.compareAndSet(i, 0, slot(h, id)) ) {
+          if( fresh ) added(t);
+          return id;
+        }
+        s = slots.get(i);       // Lost the race; look at the winner
+      }
+      if( s == SEALED ) return -1;
+      if( hashOf(s) == h && matches(idOf(s), b, off, len) ) return idOf(s);
+    }
+    return -1;
+  }
+
+  // Read-only lookup; -1 if absent
+  private int find(Table t, int h, byte[] b, int off, int len) {
+    final AtomicLongArray slots = t._slots;
+    final int mask = t._mask;
+    for( int i = h & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++ ) {
+      long s = slots.get(i);
+      if( s == 0 || s == SEALED ) return -1;
+      if( hashOf(s) == h && matches(idOf(s), b, off, len) ) return idOf(s);
+    }
+    return -1;
+  }
+
+  // Lookup in a table being copied out, sealing the empty slot which ends
+  // the key's chain so it can never be inserted there
+  private int findAndSeal(Table t, int h, byte[] b, int off, int len) {
+    final AtomicLongArray slots = t._slots;
+    final int mask = t._mask;
+    for( int i = h & mask, probes = 0; probes <= mask; i = (i + 1) & mask, probes++ ) {
+      long s = slots.get(i);
+      if( s == 0 ) {
+        if( slots.compareAndSet(i, 0, SEALED) ) return -1;
+        s = slots.get(i);
+      }
+      if( s == SEALED ) return -1;
+      if( hashOf(s) == h && matches(idOf(s), b, off, len) ) return idOf(s);
+    }
+    return -1;
+  }
+
+  private void added(Table t) {
+    int n = _size.incrementAndGet();
+    if( n > MAX_CATEGORICAL_COUNT ) maxDomainExceeded = true;
+    if( n > (t._mask + 1) >> 1 && t._prev == null && _tab.get() == t ) resize(t);
+  }
+
+  // Replace t with a table twice the size.  Inserters move to the new table
+  // at once; the thread which installed it copies the old entries over.
+  private void resize(Table t) {
+    Table nt = new Table((t._mask + 1) << 1, t);
+    if( !_tab.compareAndSet(t, nt) ) return;
+    final AtomicLongArray slots = t._slots;
+    for( int i = 0; i < slots.length(); i++ ) {
+      long s;
+      while( (s = slots.get(i)) == 0 && !slots.compareAndSet(i, 0, SEALED) ) { }
+      if( s != 0 && s != SEALED ) copy(nt, hashOf(s), idOf(s));
+    }
+    nt._prev = null;
+  }
+
+  // Insert a known (hash, id) into t; ids are unique per key, so a slot
+  // with the same id means it is already there
+  private static void copy(Table t, int h, int id) {
+    final AtomicLongArray slots = t._slots;
+    final int mask = t._mask;
+    final long x = slot(h, id);
+    for( int i = h & mask; ; i = (i + 1) & mask ) {
+      long s = slots.get(i);
+      if( s == 0 ) {
+        if( slots.compareAndSet(i, 0, x) ) return;
+        s = slots.get(i);
+      }
+      if( s == x ) return;
+    }
+  }
+
+  private static long slot(int h, int id) { return ((long) h << 33) | (id + 1L); }
+  private static int hashOf(long s) { return (int) (s >>> 33); }
+  private static int idOf(long s) { return (int) (s & ID_MASK) - 1; }
+
+  private static int hash(byte[] b, int off, int len) {
+    int h = len;
+    for( int i = off; i < off + len; i++ ) h = 31 * h + b[i];
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    return h & 0x7FFFFFFF;
+  }
+
+  // --------------------------------------------------------------------------
+  // Key storage
+
+  // Copy the key into the arena and record its location under a new id.
+  // Both are written before the id is published by a slot CAS.
+  private int newEntry(byte[] b, int off, int len) {
+    int id = _id.getAndIncrement();
+    long a = alloc(len);
+    if( len > 0 ) {
+      int k = page(a);
+      System.arraycopy(b, off, pageBytes(k), (int) (a - pageStart(k)), len);
+    }
+    int k = 31 - Integer.numberOfLeadingZeros(id + (1 << LOC_LOG)) - LOC_LOG;
+    long[] locs = _locs.get(k);
+    if( locs == null && !_locs.compareAndSet(k, null, locs = new long[(1 << LOC_LOG) << k]) )
+      locs = _locs.get(k);
+    locs[id + (1 << LOC_LOG) - ((1 << LOC_LOG) << k)] = a << 16 | len;
+    return id;
+  }
+
+  private long loc(int id) {
+    int k = 31 - Integer.numberOfLeadingZeros(id + (1 << LOC_LOG)) - LOC_LOG;
+    return _locs.get(k)[id + (1 << LOC_LOG) - ((1 << LOC_LOG) << k)];
+  }
+
+  // Claim len arena bytes, never straddling two pages
+  private long alloc(int len) {
+    while( true ) {
+      long top = _top.get();
+      long a = top;
+      int k = page(a);
+      while( a + len > pageStart(k + 1) ) a = pageStart(++k);
+      if( k >= MAX_PAGES )
+        throw new ParseDataset.H2OParseException("Categorical levels of a column take more than "
+            + PrettyPrint.bytes(pageStart(MAX_PAGES)) + ".  Consider reparsing this column as a string.");
+      if( _top.compareAndSet(top, a + len) ) return a;
+    }
+  }
+
+  private byte[] pageBytes(int k) {
+    byte[] p = _pages.get(k);
+    if( p == null && !_pages.compareAndSet(k, null, p = new byte[(int) (pageStart(k + 1) - pageStart(k))]) )
+      p = _pages.get(k);
+    return p;
+  }
+
+  private static int page(long a) { return 63 - Long.numberOfLeadingZeros(a + (1L << PAGE_LOG)) - PAGE_LOG; }
+  private static long pageStart(int k) { return ((1L << PAGE_LOG) << k) - (1L << PAGE_LOG); }
+
+  private boolean matches(int id, byte[] b, int off, int len) {
+    long loc = loc(id);
+    if( (int) (loc & 0xFFFF) != len ) return false;
+    if( len == 0 ) return true;
+    long a = loc >>> 16;
+    int k = page(a);
+    byte[] p = _pages.get(k);
+    for( int i = 0, j = (int) (a - pageStart(k)); i < len; i++, j++ )
+      if( p[j] != b[off + i] ) return false;
+    return true;
+  }
+
+  private BufferedString key(int id) {
+    long loc = loc(id);
+    int len = (int) (loc & 0xFFFF);
+    if( len == 0 ) return new BufferedString(new byte[0], 0, 0);
+    long a = loc >>> 16;
+    int k = page(a);
+    return new BufferedString(_pages.get(k), (int) (a - pageStart(k)), len);
+  }
 }
@@ -0,0 +1,179 @@
+package water.parser;
+
+import water.H2O;
+import water.fvec.Vec;
+import water.util.UnsafeUtils;
+
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Fast path for {@link CsvParser}: tokenizes a whole line of plain numbers
+ * (and empty fields) at once.
+ *
+ * Digits are found and converted 8 bytes at a time using SWAR (SIMD within
+ * a register) tricks on little-endian longs, and the line is fully validated
+ * before anything is handed to the {@link ParseWriter}.  A line with anything
+ * unusual - quotes, whitespace, currency or percent signs, NA strings, too
+ * many digits, a line running off the end of the chunk - is left untouched,
+ * for the CSV state machine to parse as before.  On lines it does take, the
+ * writer sees exactly the calls the state machine would have made.
+ */
+final class CsvLineScanner {
+  /** False to always use the CSV state machine */
+  static final boolean ENABLED = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN &&
+      !Boolean.getBoolean(H2O.OptArgs.SYSTEM_PROP_PREFIX + "parser.csv.noFastPath");
+
+  private static final long ZEROS = 0x3030303030303030L; // '0' in every byte
+  private static final long HI_NIBBLES = 0xF0F0F0F0F0F0F0F0L;
+  private static final long SIXES = 0x0606060606060606L;
+  private static final long[] POW10 = {1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000};
+  private static final int MAX_DIGITS = 18;   // Mantissa digits sure to fit; the state machine starts dropping digits after these
+  private static final int MAX_EXP_DIGITS = 5;
+  private static final int MAX_MISSES = 64;   // Rejected lines in a row before giving up on the chunk
+  private static final int EMPTY = Integer.MIN_VALUE; // _exp of an empty field
+
+  private final byte _sep;
+  private final byte[] _ctypes;  // Forced column types, or null
+  // Tokens of the line being scanned
+  private long[] _num = new long[16];
+  private int[] _exp = new int[16];
+  private int _ntok;
+  private long _acc;             // Mantissa being accumulated by digitRun
+  private int _misses;
+
+  CsvLineScanner(byte sep, byte[] ctypes) { _sep = sep; _ctypes = ctypes; }
+
+  /** @return true if lines with this separator can be scanned; whitespace
+   *  separators and those which can be part of a number cannot */
+  static boolean accepts(byte sep) {
+    return sep != ' ' && sep != '\t' && sep != '.' && sep != '-' && sep != '+' && sep != 'e' && sep != 'E' &&
+        !(sep >= '0' && sep <= '9') && sep != '"' && sep != '\'' && sep != '\r' && sep != '\n';
+  }
+
+  /** @return false once so many lines in a row were rejected that the chunk is not worth trying */
+  boolean active() { return _misses < MAX_MISSES; }
+
+  /**
+   * Try to parse the line starting at bits[off]; the writer must already be
+   * on a fresh line.  On success adds all columns, ends the line with
+   * {@link ParseWriter#newLine()}, and returns the index of the line's LF.
+   * @return -1, having touched nothing, if the line is not plain numeric
+   */
+  int scanLine(byte[] bits, int off, ParseWriter dout) {
+    int lf = tokenize(bits, off);
+    if( lf < 0 || !typesOk(dout) ) { _misses++; return -1; }
+    _misses = 0;
+    for( int i = 0; i < _ntok; i++ ) {
+      if( _exp[i] == EMPTY ) dout.addInvalidCol(i);
+      else dout.addNumCol(i, _num[i], _exp[i]);
+    }
+    dout.newLine();
+    return lf;
+  }
+
+  // Columns already turned (or forced) to strings or categoricals take
+  // numbers as text; leave those lines to the state machine
+  private boolean typesOk(ParseWriter dout) {
+    for( int i = 0; i < _ntok; i++ ) {
+      if( _exp[i] == EMPTY ) continue;
+      if( dout.isString(i) ) return false;
+      if( _ctypes != null && i < _ctypes.length && (_ctypes[i] == Vec.T_CAT || _ctypes[i] == Vec.T_STR) ) return false;
+    }
+    return true;
+  }
+
+  // Split the line into _num/_exp/_ntok.  Returns the index of the LF, or -1
+  private int tokenize(byte[] bits, int p) {
+    final int n = bits.length;
+    int ntok = 0;
+    while( true ) {
+      if( ntok == _num.length ) {
+        _num = Arrays.copyOf(_num, ntok << 1);
+        _exp = Arrays.copyOf(_exp, ntok << 1);
+      }
+      if( p >= n ) return -1;
+      byte c = bits[p];
+      if( c == _sep ) { _exp[ntok++] = EMPTY; p++; continue; }
+      if( c == Parser.CHAR_LF || c == Parser.CHAR_CR ) {
+        if( ntok == 0 ) return -1; // Empty line
+        _exp[ntok++] = EMPTY;       // Empty field after the last separator
+        _ntok = ntok;
+        return eol(bits, p);
+      }
+      // [+-]digits[.digits][(e|E)[+-]digits]
+      boolean neg = c == '-';
+      if( neg || c == '+' ) p++;
+      _acc = 0;
+      int nd = digitRun(bits, p, MAX_DIGITS);
+      if( nd < 0 ) return -1;
+      p += nd;
+      int fd = 0;
+      if( p < n && bits[p] == '.' ) {
+        fd = digitRun(bits, ++p, MAX_DIGITS - nd);
+        if( fd < 0 ) return -1;
+        p += fd;
+        nd += fd;
+      }
+      if( nd == 0 ) return -1;
+      int e = 0;
+      if( p < n && (bits[p] == 'e' || bits[p] == 'E') ) {
+        int sgn = 1, ne = 0;
+        if( ++p < n && (bits[p] == '-' || bits[p] == '+') ) sgn = bits[p++] == '-' ? -1 : 1;
+        for( int d; p < n && (d = bits[p] - '0') >= 0 && d <= 9; p++ ) {
+          if( ++ne > MAX_EXP_DIGITS ) return -1;
+          e = e * 10 + d;
+        }
+        if( ne == 0 ) return -1;
+        e *= sgn;
+      }
+      _num[ntok] = neg ? -_acc : _acc;
+      _exp[ntok++] = e - fd;
+      if( p >= n ) return -1;
+      c = bits[p];
+      if( c == _sep ) { p++; continue; }
+      if( c != Parser.CHAR_LF && c != Parser.CHAR_CR ) return -1;
+      _ntok = ntok;
+      return eol(bits, p);
+    }
+  }
+
+  // LF, or CR LF; a lone CR is left to the state machine
+  private static int eol(byte[] bits, int p) {
+    if( bits[p] == Parser.CHAR_LF ) return p;
+    return p + 1 < bits.length && bits[p + 1] == Parser.CHAR_LF ? p + 1 : -1;
+  }
+
+  // Append the run of digits at bits[p] to _acc, 8 at a time.  Returns the
+  // number of digits, or -1 if more than max.
+  private int digitRun(byte[] bits, int p, int max) {
+    final int start = p;
+    long acc = _acc;
+    while( p + 8 <= bits.length ) {
+      long x = UnsafeUtils.get8(bits, p);
+      // Non-zero bytes where the high nibble is not 3, or the low nibble is above 9.
+      // Carries out of non-digit bytes only reach later bytes, which do not matter.
+      long nondigit = ((x & HI_NIBBLES) ^ ZEROS) | (((x + SIXES) & HI_NIBBLES) ^ ZEROS);
+      int k = nondigit == 0 ? 8 : Long.numberOfTrailingZeros(nondigit) >>> 3;
+      if( k == 0 ) break;
+      if( p - start + k > max ) return -1;
+      // Shift the k digits to the top; the bytes below become leading zeros
+      acc = acc * POW10[k] + eightDigits((x - ZEROS) << ((8 - k) << 3));
+      p += k;
+      if( k < 8 ) { _acc = acc; return p - start; }
+    }
+    for( int d; p < bits.length && (d = bits[p] - '0') >= 0 && d <= 9; p++ ) {
+      if( p - start >= max ) return -1;
+      acc = acc * 10 + d;
+    }
+    _acc = acc;
+    return p - start;
+  }
+
+  // 8 digit values, most significant in the low byte, to a number
+  private static long eightDigits(long v) {
+    v = (v * 10 + (v >>> 8)) & 0x00FF00FF00FF00FFL;
+    v = (v * 100 + (v >>> 16)) & 0x0000FFFF0000FFFFL;
+    return (v * 10000 + (v >>> 32)) & 0xFFFFFFFFL;
+  }
+}
@@ -83,6 +83,9 @@ class CsvParser extends Parser {
     dout.newLine();
 
     final boolean forceable = dout instanceof FVecParseWriter && ((FVecParseWriter)dout)._ctypes != null && _setup._column_types != null;
+    // Whole plain-numeric lines are taken by the fast scanner, the rest by the state machine below
+    final CsvLineScanner scanner = CsvLineScanner.ENABLED && CsvLineScanner.accepts(CHAR_SEPARATOR)
+        ? new CsvLineScanner(CHAR_SEPARATOR, forceable ? _setup._column_types : null) : null;
 MAIN_LOOP:
     while (true) {
       final boolean forcedCategorical = forceable && colIdx < _setup._column_types.length && _setup._column_types[colIdx] == Vec.T_CAT;
@@ -229,6 +232,15 @@ MAIN_LOOP:
           // fallthrough to WHITESPACE_BEFORE_TOKEN
         // ---------------------------------------------------------------------
         case WHITESPACE_BEFORE_TOKEN:
+          if (colIdx == 0 && firstChunk && scanner != null && scanner.active()) {
+            int lf = scanner.scanLine(bits, offset, dout);
+            if (lf >= 0) { // As if the state machine just consumed the LF
+              offset = lf;
+              c = CHAR_LF;
+              state = POSSIBLE_EMPTY_LINE;
+              break;
+            }
+          }
           if (c == CHAR_SPACE || (c == CHAR_TAB && CHAR_TAB!=CHAR_SEPARATOR)) {
               break;
           } else if (c == CHAR_SEPARATOR) {
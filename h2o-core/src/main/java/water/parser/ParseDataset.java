@@ -26,6 +26,11 @@ import static water.parser.DefaultParserProviders.*;
 public final class ParseDataset {
   public Job<Frame> _job;
   private MultiFileParseTask _mfpt; // Access to partially built vectors for cleanup after parser crash
+  private Key[] _inflated;          // Inflated copies of compressed inputs, removed when done
+
+  // Inflate compressed inputs into chunked ByteVecs before parsing them, so
+  // they are parsed in parallel rather than streamed through a single thread
+  static final boolean INFLATE_BEFORE_PARSE = !Boolean.getBoolean(H2O.OptArgs.SYSTEM_PROP_PREFIX + "parser.noInflateBeforeParse");
 
   // Keys are limited to ByteVec Keys and Frames-of-1-ByteVec Keys
   public static Frame parse(Key okey, Key... keys) { return parse(okey,keys,true, false, ParseSetup.GUESS_HEADER); }
@@ -46,6 +51,41 @@ public final class ParseDataset {
     return pds;
   }
 
+  /**
+   * Parse more files into an existing Frame, appending their rows in place.
+   * The files are parsed with dest's column names and types; categorical
+   * levels not seen before are added at the end of the domains.  Existing
+   * chunks are not rewritten, and computed rollups are updated incrementally.
+   *
+   * @param dest  frame to grow; write-locked while its Vecs are extended
+   * @param keys  input keys
+   * @param parseSetup  setup the files are parsed with, typically the one dest was parsed with
+   * @param deleteOnDone  delete input data when finished
+   * @return dest
+   */
+  public static Frame append(Frame dest, Key[] keys, ParseSetup parseSetup, boolean deleteOnDone) {
+    if( parseSetup._number_columns > 0 && parseSetup._number_columns != dest.numCols() )
+      throw new H2OIllegalArgumentException("Cannot append " + parseSetup._number_columns + " columns to frame "
+          + dest._key + " with " + dest.numCols() + " columns.");
+    ParseSetup setup = new ParseSetup(parseSetup);
+    setup._number_columns = dest.numCols();
+    setup._column_names = dest.names();
+    setup._column_types = dest.types();
+    Frame fr = parse(Key.make(), keys, deleteOnDone, setup);
+    try {
+      dest.write_lock();
+      try {
+        RowAppender.append(dest, fr);
+        dest.update();
+      } finally {
+        dest.unlock();
+      }
+    } finally {
+      fr.delete();
+    }
+    return dest;
+  }
+
   // Allow both ByteVec keys and Frame-of-1-ByteVec
   static ByteVec getByteVec(Key key) {
     Iced ice = DKV.getGet(key);
@@ -212,6 +252,10 @@ public final class ParseDataset {
       MultiFileParseTask mfpt = _pds._mfpt;
       _pds._mfpt = null;        // Read once, test for null once.
       if (mfpt != null) mfpt.onExceptionCleanup(fs);
+      Key[] inflated = _pds._inflated;
+      _pds._inflated = null;
+      if (inflated != null)
+        for (Key k : inflated) if (k != null) Keyed.remove(k, fs);
       // Assume the input is corrupt - or already partially deleted after
       // parsing.  Nuke it all - no partial Vecs lying around.
       for (Key k : _keys) Keyed.remove(k, fs);
@@ -236,11 +280,23 @@ public final class ParseDataset {
     if(setup._na_strings != null && setup._na_strings.length != setup._number_columns) setup._na_strings = null;
     if( fkeys.length == 0) { job.stop();  return pds;  }
 
+    final Key[] srcKeys = fkeys;
+    if( INFLATE_BEFORE_PARSE && setup._parse_type.isParallelParseSupported() && !setup.disableParallelParse
+        && setup.getDecryptionTool().isTransparent() ) {
+      fkeys = inflateCompressed(pds, fkeys, setup, deleteOnDone);
+      if( job.stop_requested() ) return pds;
+    }
+
     job.update(0, "Ingesting files.");
     VectorGroup vg = getByteVec(fkeys[0]).group();
     MultiFileParseTask mfpt = pds._mfpt = new MultiFileParseTask(vg,setup,job._key,fkeys,deleteOnDone);
     mfpt.doAll(fkeys);
     Log.trace("Done ingesting files.");
+    if( pds._inflated != null ) { // Already gone if deleteOnDone
+      Futures fs = new Futures();
+      for( Key k : pds._inflated ) if( k != null ) Keyed.remove(k, fs);
+      fs.blockForPending();
+    }
     if( job.stop_requested() ) return pds;
 
     final AppendableVec [] avs = mfpt.vecs();
@@ -294,16 +350,33 @@ public final class ParseDataset {
           // new CreateParse2GlobalCategoricalMaps(mfpt._cKey).doAll(evecs);
           // Using Dtask since it starts and returns faster than an MRTask
           CreateParse2GlobalCategoricalMaps[] fcdt = new CreateParse2GlobalCategoricalMaps[H2O.CLOUD.size()];
-          RPC[] rpcs = new RPC[H2O.CLOUD.size()];
+          RPC<CreateParse2GlobalCategoricalMaps>[] rpcs = new RPC[H2O.CLOUD.size()];
           for (int i = 0; i < fcdt.length; i++){
             H2ONode[] nodes = H2O.CLOUD.members();
             fcdt[i] = new CreateParse2GlobalCategoricalMaps(mfpt._cKey, fr._key, ecols);
             rpcs[i] = new RPC<>(nodes[i], fcdt[i]).call();
           }
-          for (RPC rpc : rpcs)
-            rpc.get();
-
-          new UpdateCategoricalChunksTask(mfpt._cKey, mfpt._chunk2ParseNodeMap).doAll(evecs);
+          // Only columns whose node-local numbering differs from the global
+          // one on some node need their chunks rewritten
+          boolean[] remap = new boolean[ecols.length];
+          for (RPC<CreateParse2GlobalCategoricalMaps> rpc : rpcs) {
+            boolean[] r = rpc.get()._remap;
+            if (r != null)
+              for (int i = 0; i < r.length; i++) remap[i] |= r[i];
+          }
+          int nremap = 0;
+          int[] rcols = new int[ecols.length];
+          for (int i = 0; i < ecols.length; i++)
+            if (remap[i]) rcols[nremap++] = i;
+          if (nremap > 0) {
+            rcols = Arrays.copyOf(rcols, nremap);
+            Vec[] rvecs = new Vec[nremap];
+            for (int i = 0; i < nremap; i++) rvecs[i] = evecs[rcols[i]];
+            new UpdateCategoricalChunksTask(mfpt._cKey, mfpt._chunk2ParseNodeMap, rcols).doAll(rvecs);
+          }
+          Log.debug("Renumbered " + nremap + " of " + ecols.length + " categorical columns.");
+          for (int i = 0; i < H2O.CLOUD.size(); i++)
+            DKV.remove(Key.make(mfpt._cKey.toString() + "parseCatMapNode" + i));
           MultiFileParseTask._categoricals.remove(mfpt._cKey);
         }
         Log.trace("Done unifying categoricals across nodes.");
@@ -336,6 +409,10 @@ public final class ParseDataset {
           errs[i]._gLineNum = espc[espcOff + errs[i]._cidx] + errs[i]._lineNum;
           errs[i]._lineNum = errs[i]._gLineNum - espc[espcOff];
         }
+        // Report against the compressed file, not its inflated copy
+        for (int j = 0; j < fkeys.length; ++j)
+          if (fkeys[j] != srcKeys[j] && FileVec.getPathForKey(fkeys[j]).equals(errs[i]._file))
+            errs[i]._file = FileVec.getPathForKey(srcKeys[j]);
       }
       SortedSet<ParseWriter.ParseErr> s = new TreeSet<>(new Comparator<ParseWriter.ParseErr>() {
         @Override
@@ -372,6 +449,7 @@ public final class ParseDataset {
     private final Key   _parseCatMapsKey;
     private final Key   _frKey;
     private final int[] _ecol;
+    boolean[] _remap;           // Out: per categorical column, whether this node's chunks need renumbering
 
     private CreateParse2GlobalCategoricalMaps(Key parseCatMapsKey, Key key, int[] ecol) {
       _parseCatMapsKey = parseCatMapsKey;
@@ -388,6 +466,7 @@ public final class ParseDataset {
       }
         final Categorical[] parseCatMaps = MultiFileParseTask._categoricals.get(_parseCatMapsKey);
         int[][] _nodeOrdMaps = new int[_ecol.length][];
+        _remap = new boolean[_ecol.length];
 
         // create old_ordinal->new_ordinal map for each cat column
         for (int eColIdx = 0; eColIdx < _ecol.length; eColIdx++) {
@@ -404,6 +483,12 @@ public final class ParseDataset {
                 _nodeOrdMaps[eColIdx][parseCatMaps[colIdx].getTokenId(unifiedDomain[i])] = i;
               }
             }
+            // Levels first seen in sorted order leave nothing to renumber
+            int[] m = _nodeOrdMaps[eColIdx];
+            boolean identity = true;
+            for (int i = 0; i < m.length && identity; i++) identity = m[i] == i;
+            if (identity) _nodeOrdMaps[eColIdx] = null;
+            else _remap[eColIdx] = true;
           } else {
             Log.debug("Column " + colIdx + " was marked as categorical but categorical map is empty!");
           }
@@ -423,10 +508,12 @@ public final class ParseDataset {
   private static class UpdateCategoricalChunksTask extends MRTask<UpdateCategoricalChunksTask> {
     private final Key _parseCatMapsKey;
     private final int  [] _chunk2ParseNodeMap;
+    private final int  [] _cols; // Index into the update maps of each Vec
 
-    private UpdateCategoricalChunksTask(Key parseCatMapsKey, int[] chunk2ParseNodeMap) {
+    private UpdateCategoricalChunksTask(Key parseCatMapsKey, int[] chunk2ParseNodeMap, int[] cols) {
       _parseCatMapsKey = parseCatMapsKey;
       _chunk2ParseNodeMap = chunk2ParseNodeMap;
+      _cols = cols;
     }
 
     @Override public void map(Chunk [] chks){
@@ -439,29 +526,26 @@ public final class ParseDataset {
       final int cidx = chks[0].cidx();
       for(int i = 0; i < chks.length; ++i) {
         Chunk chk = chks[i];
+        final int[] map = _parse2GlobalCatMaps[_cols[i]];
+        if (map == null) continue; // Already numbered globally on this node
         if (!(chk instanceof CStrChunk)) {
           for( int j = 0; j < chk._len; ++j){
             if( chk.isNA(j) )continue;
             final int old = (int) chk.at8(j);
-            if (old < 0 || (_parse2GlobalCatMaps[i] != null && old >= _parse2GlobalCatMaps[i].length))
-              chk.reportBrokenCategorical(i, j, old, _parse2GlobalCatMaps[i], _fr.vec(i).domain().length);
-            if(_parse2GlobalCatMaps[i] != null && _parse2GlobalCatMaps[i][old] < 0)
+            if (old < 0 || old >= map.length)
+              chk.reportBrokenCategorical(i, j, old, map, _fr.vec(i).domain().length);
+            if(map[old] < 0)
               throw new H2OParseException("Error in unifying categorical values. This is typically "
                   +"caused by unrecognized characters in the data.\n The problem categorical value "
-                  +"occurred in the " + PrettyPrint.withOrdinalIndicator(i+1)+ " categorical col, "
+                  +"occurred in the " + PrettyPrint.withOrdinalIndicator(_cols[i]+1)+ " categorical col, "
                   +PrettyPrint.withOrdinalIndicator(chk.start() + j) +" row.");
-            if (_parse2GlobalCatMaps[i] != null)
-              chk.set(j, _parse2GlobalCatMaps[i][old]);
+            chk.set(j, map[old]);
           }
-          Log.trace("Updated domains for "+PrettyPrint.withOrdinalIndicator(i+1)+ " categorical column.");
+          Log.trace("Updated domains for "+PrettyPrint.withOrdinalIndicator(_cols[i]+1)+ " categorical column.");
         }
         chk.close(cidx, _fs);
       }
     }
-    @Override public void postGlobal() {
-      for (int i=0; i < H2O.CLOUD.size(); i++)
-        DKV.remove(Key.make(_parseCatMapsKey.toString() + "parseCatMapNode" + i));
-    }
   }
   private static class GatherCategoricalDomainsTask extends MRTask<GatherCategoricalDomainsTask> {
     private final Key _k;
@@ -975,6 +1059,124 @@ public final class ParseDataset {
     }
   }
 
+  // ------------------------------------------------------------------------
+  // A compressed file cannot be split, so parsing it as a stream keeps one
+  // core busy while the rest of the cluster idles.  Instead, inflate each
+  // compressed input into an ordinary chunked ByteVec first (different files
+  // on their home nodes in parallel), and return the keys to parse in place
+  // of the originals.  Inflating is several times faster than parsing, and
+  // the parse proper is then distributed over the inflated chunks just like
+  // for uncompressed text.  The originals are deleted or unlocked as the
+  // streaming parse would have done; the inflated copies are temporary.
+  // Note the whole inflated text sits in the DKV until the parse is done,
+  // taking memory (or swap) at its uncompressed size.  The keys of the copies
+  // are made up front here, so they all get removed if the inflate fails,
+  // including the copies finished on other nodes.
+  private static Key[] inflateCompressed(ParseDataset pds, Key[] fkeys, ParseSetup setup, boolean deleteOnDone) {
+    int n = 0;
+    int[] idx = new int[fkeys.length];
+    for( int i = 0; i < fkeys.length; ++i )
+      if( ZipUtil.guessCompressionMethod(getByteVec(fkeys[i]).getFirstBytes()) != ZipUtil.Compression.NONE )
+        idx[n++] = i;
+    if( n == 0 ) return fkeys;
+    Key[] ckeys = new Key[n];
+    for( int i = 0; i < n; ++i ) ckeys[i] = fkeys[idx[i]];
+    pds._job.update(0, "Inflating compressed files.");
+    Key[] vkeys = new Key[n];
+    for( int i = 0; i < n; ++i ) vkeys[i] = Vec.newKey();
+    InflateTask it = new InflateTask(pds._job._key, setup._chunk_size, deleteOnDone, vkeys);
+    pds._inflated = vkeys;      // Visible to the parse cleanup if the inflate fails midway
+    boolean done = false;
+    try {
+      it.doAll(ckeys);
+      done = true;
+    } finally {
+      if( !done ) {
+        Futures fs = new Futures();
+        for( Key k : vkeys ) Keyed.remove(k, fs);
+        fs.blockForPending();
+      }
+    }
+    pds._inflated = it._inflated;
+    Key[] res = fkeys.clone();
+    for( int i = 0; i < n; ++i )
+      if( it._inflated[i] != null ) res[idx[i]] = it._inflated[i];
+    Log.trace("Done inflating compressed files.");
+    return res;
+  }
+
+  private static class InflateTask extends MRTask<InflateTask> {
+    private final Key<Job> _jobKey;
+    private final int _chunkSize;
+    private final boolean _deleteOnDone;
+    private final Key[] _vkeys; // Per input, the key for its inflated ByteVec
+    // OUTPUT: per input, the key of its inflated ByteVec; null to parse the input as is
+    Key[] _inflated;
+
+    InflateTask(Key<Job> jobKey, int chunkSize, boolean deleteOnDone, Key[] vkeys) {
+      _jobKey = jobKey;
+      _chunkSize = chunkSize;
+      _deleteOnDone = deleteOnDone;
+      _vkeys = vkeys;
+      _inflated = new Key[vkeys.length];
+    }
+
+    @Override public void map( Key key ) {
+      if( _jobKey.get().stop_requested() ) return;
+      ByteVec vec = getByteVec(key);
+      ZipUtil.Compression cpr = ZipUtil.guessCompressionMethod(vec.getFirstBytes());
+      Key<Vec> vkey = _vkeys[_lo];
+      long[] espc = new long[8];
+      int nchunks = 0;
+      boolean done = false;
+      try( InputStream is = ZipUtil.openDecompressedStream(key, vec, cpr, _jobKey) ) {
+        if( is == null ) return; // Nothing to inflate; the streaming parse reports it
+        while( true ) {
+          byte[] buf = MemoryManager.malloc1(_chunkSize);
+          int len = 0, r;
+          while( len < buf.length && (r = is.read(buf, len, buf.length - len)) >= 0 )
+            len += r;
+          if( len == 0 ) break;
+          if( _jobKey.get().stop_requested() ) throw new Job.JobCancelledException();
+          if( len < buf.length ) buf = Arrays.copyOf(buf, len);
+          Key ckey = Vec.chunkKey(vkey, nchunks);
+          DKV.put(ckey, new Value(ckey, new C1NChunk(buf)), _fs);
+          if( nchunks + 1 == espc.length ) espc = Arrays.copyOf(espc, espc.length << 1);
+          espc[nchunks + 1] = espc[nchunks] + len;
+          nchunks++;
+          if( len < _chunkSize ) break;
+        }
+        done = true;
+      } catch( IOException ioe ) {
+        throw new RuntimeException(ioe);
+      } finally {
+        if( !done ) {           // Drop the partial copy
+          Futures fs = new Futures();
+          for( int c = 0; c < nchunks; ++c ) DKV.remove(Vec.chunkKey(vkey, c), fs);
+          fs.blockForPending();
+        }
+      }
+      if( nchunks == 0 ) return; // Empty content; leave it to the streaming parse
+      espc = Arrays.copyOf(espc, nchunks + 1);
+      DKV.put(vkey, new ByteVec(vkey, Vec.ESPC.rowLayout(vkey, espc)), _fs);
+      _inflated[_lo] = vkey;
+      Log.info("Inflated " + key + " into " + nchunks + " chunks, " + PrettyPrint.bytes(espc[nchunks]) + ".");
+      // The original is not parsed any further
+      Iced ice = DKV.getGet(key);
+      if( ice instanceof Frame ) {
+        Frame fr = (Frame)ice;
+        if( _deleteOnDone ) fr.delete(_jobKey, new Futures()).blockForPending();
+        else if( fr._key != null ) fr.unlock(_jobKey);
+      } else if( _deleteOnDone ) vec.remove();
+    }
+
+    @Override public void reduce( InflateTask it ) {
+      if( _inflated != it._inflated )
+        for( int i = 0; i < _inflated.length; ++i )
+          if( _inflated[i] == null ) _inflated[i] = it._inflated[i];
+    }
+  }
+
   // ------------------------------------------------------------------------
   // Log information about the dataset we just parsed.
   public static void logParseResults(Frame fr) {
@@ -43,6 +43,12 @@ public class ParseSetup extends Iced {
   public boolean disableParallelParse;
   Key<DecryptionTool> _decrypt_tool;
 
+  // Pushed down into the readers of parsers that support it (Parquet, ORC):
+  // only these columns are read and parsed (null for all), and only rows
+  // passing all filters are kept (null for all rows)
+  public String[] _selected_columns;
+  public RowFilter[] _row_filters;
+
   public void setFileName(String name) {_fileNames[0] = name;}
 
   private ParseWriter.ParseErr[] _errs;
@@ -60,6 +66,8 @@ public class ParseSetup extends Iced {
          ps._separator, ps._single_quotes, ps._check_header, ps._number_columns,
          ps._column_names, ps._column_types, ps._domains, ps._na_strings, ps._data,
          new ParseWriter.ParseErr[0], ps._chunk_size, ps._decrypt_tool);
+    _selected_columns = ps._selected_columns;
+    _row_filters = ps._row_filters;
   }
 
 
@@ -210,6 +218,9 @@ public class ParseSetup extends Iced {
   public final ParseSetup getFinalSetup(Key[] inputKeys, ParseSetup demandedSetup) {
     ParserProvider pp = ParserService.INSTANCE.getByInfo(_parse_type);
     if (pp != null) {
+      if ((demandedSetup._selected_columns != null || demandedSetup._row_filters != null) && !pp.isPushdownSupported())
+        throw new H2OIllegalArgumentException("Column selection and row filters are not supported by the "
+            + _parse_type.name() + " parser.");
       ParseSetup ps = pp.createParserSetup(inputKeys, demandedSetup);
       if (demandedSetup._decrypt_tool != null)
         ps._decrypt_tool = demandedSetup._decrypt_tool;
@@ -219,6 +230,73 @@ public class ParseSetup extends Iced {
     throw new H2OIllegalArgumentException("Unknown parser configuration! Configuration=" + this);
   }
 
+  /**
+   * Resolves {@link #_selected_columns} against the column names.
+   * @return indices of the selected columns in file order, or null if all columns are read
+   */
+  public int[] selectedColumnIndices() {
+    if (_selected_columns == null) return null;
+    boolean[] sel = new boolean[_column_names.length];
+    for (String name : _selected_columns) {
+      int i = ArrayUtils.find(_column_names, name);
+      if (i < 0)
+        throw new H2OIllegalArgumentException("Selected column '" + name + "' is not present in the data.");
+      sel[i] = true;
+    }
+    int[] cols = new int[_selected_columns.length];
+    int n = 0;
+    for (int i = 0; i < sel.length; i++)
+      if (sel[i]) cols[n++] = i;
+    return Arrays.copyOf(cols, n);
+  }
+
+  /**
+   * Narrows the column names, types, domains, NA strings and the preview
+   * data down to the given columns.
+   */
+  public void retainColumns(int[] cols) {
+    _column_names = select(_column_names, cols);
+    _domains = select(_domains, cols);
+    _na_strings = select(_na_strings, cols);
+    if (_column_types != null) {
+      byte[] types = new byte[cols.length];
+      for (int i = 0; i < cols.length; i++) types[i] = _column_types[cols[i]];
+      _column_types = types;
+    }
+    if (_data != null)
+      for (int r = 0; r < _data.length; r++)
+        if (_data[r] != null && _data[r].length == _number_columns) _data[r] = select(_data[r], cols);
+    _number_columns = cols.length;
+  }
+
+  private static <T> T[] select(T[] ary, int[] cols) {
+    if (ary == null) return null;
+    T[] res = Arrays.copyOf(ary, cols.length);
+    for (int i = 0; i < cols.length; i++) res[i] = ary[cols[i]];
+    return res;
+  }
+
+  /**
+   * Checks the row filters refer to parsed columns of a suitable type.
+   * @return per filter, the index of the column it tests; null if there are no filters
+   */
+  public int[] rowFilterColumns() {
+    if (_row_filters == null) return null;
+    int[] cols = new int[_row_filters.length];
+    for (int i = 0; i < cols.length; i++) {
+      RowFilter f = _row_filters[i];
+      int c = ArrayUtils.find(_column_names, f._column);
+      if (c < 0)
+        throw new H2OIllegalArgumentException("Row filter column '" + f._column + "' is not among the parsed columns.");
+      byte t = _column_types[c];
+      if (f.isRange() ? (t != Vec.T_NUM && t != Vec.T_TIME) : (t != Vec.T_CAT && t != Vec.T_STR))
+        throw new H2OIllegalArgumentException("Cannot filter " + Vec.TYPE_STR[t] + " column '" + f._column + "' by "
+            + (f.isRange() ? "a range." : "levels."));
+      cols[i] = c;
+    }
+    return cols;
+  }
+
   public final DecryptionTool getDecryptionTool() {
     return DecryptionTool.get(_decrypt_tool);
   }
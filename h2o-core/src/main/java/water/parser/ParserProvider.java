@@ -101,4 +101,10 @@ public abstract class ParserProvider {
    */
 
   public ParseSetup setupLocal(Vec v, ParseSetup setup){ return setup;}
+
+  /**
+   * Whether this parser honors {@link ParseSetup#_selected_columns} and
+   * {@link ParseSetup#_row_filters}; other parsers reject setups using them.
+   */
+  public boolean isPushdownSupported() { return false; }
 }
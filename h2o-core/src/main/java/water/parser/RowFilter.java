@@ -0,0 +1,84 @@
+package water.parser;
+
+import water.Iced;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * A simple row filter that parsers of columnar formats push down into their
+ * readers.  A row passes if the value of column {@code _column} lies within
+ * {@code [_min, _max]} (numeric and time columns), or is one of
+ * {@code _levels} (categorical and string columns).  Missing values never
+ * pass.
+ *
+ * Readers use {@link #mayMatch} on the min/max statistics of a row group or
+ * stripe to skip it entirely, and {@link #matches} to drop the remaining rows.
+ */
+public class RowFilter extends Iced<RowFilter> {
+  public String _column;
+  public double _min = Double.NEGATIVE_INFINITY;
+  public double _max = Double.POSITIVE_INFINITY;
+  public String[] _levels;          // Equality filter on a categorical/string column; null for a range filter
+
+  private transient HashSet<String> _levelSet;
+
+  public RowFilter() {}
+
+  /** Keep rows where {@code min <= column <= max}. */
+  public static RowFilter range(String column, double min, double max) {
+    RowFilter f = new RowFilter();
+    f._column = column;
+    f._min = min;
+    f._max = max;
+    return f;
+  }
+
+  /** Keep rows where the column equals one of the given levels. */
+  public static RowFilter in(String column, String... levels) {
+    RowFilter f = new RowFilter();
+    f._column = column;
+    f._levels = levels;
+    return f;
+  }
+
+  public boolean isRange() { return _levels == null; }
+
+  public boolean matches(double d) {
+    return d >= _min && d <= _max; // False for NaN
+  }
+
+  public boolean matches(String s) {
+    if (s == null) return false;
+    if (_levelSet == null) _levelSet = new HashSet<>(Arrays.asList(_levels));
+    return _levelSet.contains(s);
+  }
+
+  /** Whether a row group whose values span [min, max] can hold a passing row. */
+  public boolean mayMatch(double min, double max) {
+    return !(max < _min || min > _max);
+  }
+
+  /**
+   * Whether a row group whose values span [min, max] can hold a passing row.
+   * Storage formats do not agree on how they order non-ASCII strings, so
+   * unless the bounds and the levels are all ASCII this conservatively says yes.
+   */
+  public boolean mayMatch(String min, String max) {
+    if (min == null || max == null || !isAscii(min) || !isAscii(max)) return true;
+    for (String l : _levels)
+      if (!isAscii(l) || (l.compareTo(min) >= 0 && l.compareTo(max) <= 0))
+        return true;
+    return false;
+  }
+
+  private static boolean isAscii(String s) {
+    for (int i = 0; i < s.length(); i++)
+      if (s.charAt(i) > 127) return false;
+    return true;
+  }
+
+  @Override public String toString() {
+    return isRange() ? _column + " in [" + _min + ", " + _max + "]" : _column + " in " + Arrays.toString(_levels);
+  }
+}
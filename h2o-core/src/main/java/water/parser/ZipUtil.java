@@ -190,6 +190,28 @@ abstract class ZipUtil {
   }
 
 
+  /**
+   * Opens a stream over the uncompressed content of a compressed file. For a
+   * zip archive this is its first file entry, the same one a streaming parse reads.
+   *
+   * @return the decompressing stream, or null if the archive has no file entry
+   */
+  static InputStream openDecompressedStream(Key key, ByteVec bv, Compression cmp, Key jobKey) throws IOException {
+    InputStream bvs = bv.openStream(jobKey);
+    if (cmp == Compression.GZIP)
+      return new GZIPInputStream(bvs);
+    assert cmp == Compression.ZIP;
+    ZipInputStream zis = new ZipInputStream(bvs);
+    if (isZipDirectory(key))
+      zis.getNextEntry();        // first ZipEntry describes the directory
+    ZipEntry ze = zis.getNextEntry();
+    if (ze == null || ze.isDirectory()) {
+      zis.close();
+      return null;
+    }
+    return zis;
+  }
+
   static byte[] unzipBytes( byte[] bs, Compression cmp, int chkSize ) {
     if( cmp == Compression.NONE ) return bs; // No compression
     // Wrap the bytes in a stream
@@ -15,10 +15,15 @@ import water.util.Log;
 public final class PersistFS extends Persist {
   final File _root;
   final File _dir;
+  // Append-only spill segments, or null for the classic file-per-Value layout
+  private final SpillSegments _segments;
 
-  PersistFS(File root) {
+  PersistFS(File root) { this(root, false); }
+
+  PersistFS(File root, boolean segmented) {
     _root = root;
     _dir = new File(root, "ice" + H2O.API_PORT);
+    _segments = segmented ? new SpillSegments(new File(_dir, "segments"), SpillSegments.SEGMENT_SIZE) : null;
     //deleteRecursive(_dir);
     // Make the directory as-needed
     root.mkdirs();
@@ -47,6 +52,7 @@ public final class PersistFS extends Persist {
   }
 
   @Override public byte[] load(Value v) throws IOException {
+    if( _segments != null ) return _segments.load(v);
     File f = getFile(v);
     if( f.length() < v._max ) { // Should be fully on disk...
       // or it's a racey delete of a spilled value
@@ -64,6 +70,7 @@ public final class PersistFS extends Persist {
   // Store Value v to disk.
   @Override public void store(Value v) throws IOException {
     assert !v.isPersisted();
+    if( _segments != null ) { storeSegmented(v); return; }
     File dirs = new File(_dir, getIceDirectory(v._key));
     if( !dirs.mkdirs() && !dirs.exists() )
       throw new java.io.IOException("mkdirs failed making "+dirs);
@@ -79,7 +86,19 @@ public final class PersistFS extends Persist {
     }
   }
 
+  private void storeSegmented(Value v) throws IOException {
+    byte[] m = v.memOrLoad(); // we are not single threaded anymore
+    if( m == null )           // Racing delete; the Cleaner skips the Value
+      throw new FileNotFoundException("Value " + v._key + " is gone");
+    if( m.length != v._max ) {
+      Log.warn("Value size mismatch? " + v._key + " byte[].len=" + m.length+" v._max="+v._max);
+      v._max = m.length; // Implies update of underlying POJO, then re-serializing it without K/V storing it
+    }
+    _segments.store(v, m);
+  }
+
   @Override public void delete(Value v) {
+    if( _segments != null ) { _segments.delete(v); return; }
     getFile(v).delete();        // Silently ignore errors
     // Attempt to delete empty containing directory
     new File(_dir, getIceDirectory(v._key)).delete();
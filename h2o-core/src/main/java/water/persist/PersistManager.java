@@ -32,6 +32,11 @@ public class PersistManager {
    * layer forwards the request through HDFS API. */
   final static String PROP_ENABLE_HDFS_FALLBACK = SYSTEM_PROP_PREFIX + "persist.enable.hdfs.fallback";
 
+  /** Property which makes user-mode swapping append spilled Values to large
+   * segment files in ice_root (re-read through memory mapping), instead of
+   * writing one file per Value. */
+  final static String PROP_ICE_SEGMENTED = SYSTEM_PROP_PREFIX + "persist.ice.segmented";
+
   /** Persistence schemes; used as file prefixes eg "hdfs://some_hdfs_path/some_file" */
   public static class Schemes {
     public static final String FILE = "file";
@@ -102,10 +107,10 @@ public class PersistManager {
     boolean windowsPath = iceRoot.toString().matches("^[a-zA-Z]:.*");
 
     if (windowsPath) {
-      ice = new PersistFS(new File(iceRoot.toString()));
+      ice = new PersistFS(new File(iceRoot.toString()), useSegmentedIce());
     }
     else if ((iceRoot.getScheme() == null) || Schemes.FILE.equals(iceRoot.getScheme())) {
-      ice = new PersistFS(new File(iceRoot.getPath()));
+      ice = new PersistFS(new File(iceRoot.getPath()), useSegmentedIce());
     }
     else if( Schemes.HDFS.equals(iceRoot.getScheme()) ) {
       Log.err("HDFS ice_root not yet supported.  Exiting.");
@@ -679,4 +684,8 @@ public class PersistManager {
   static boolean useHdfsAsFallback() {
     return System.getProperty(PROP_ENABLE_HDFS_FALLBACK, "true").equals("true");
   }
+
+  static boolean useSegmentedIce() {
+    return Boolean.getBoolean(PROP_ICE_SEGMENTED);
+  }
 }
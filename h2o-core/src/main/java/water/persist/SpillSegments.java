@@ -0,0 +1,211 @@
+package water.persist;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import water.Key;
+import water.MemoryManager;
+import water.Value;
+import water.util.Log;
+
+/**
+ * Append-only segment files for user-mode swap-to-disk.
+ *
+ * Instead of one file per spilled Value, Values are appended to large
+ * segment files.  Once a segment is full it is sealed and mapped read-only
+ * with a {@link MappedByteBuffer}, so a swap-in is a single bulk copy out of
+ * the OS page cache - no file open/close, no stream, no intermediate buffer.
+ * The active (not yet sealed) segment is read with positional channel reads.
+ *
+ * Space is reclaimed a whole segment at a time: each segment tracks its live
+ * bytes, and a sealed segment with no live bytes left is unmapped and deleted.
+ * A sealed segment whose live bytes drop below {@link #COMPACT_RATIO} of its
+ * size is compacted: the next store moves its live Values to the active
+ * segment, which leaves it dead.  Readers hold a segment's read lock, so a
+ * segment is never closed under a running load.
+ * Writes go through the channel (not the mapping) so that a full disk shows
+ * up as an IOException, which the Cleaner knows how to handle.
+ */
+final class SpillSegments {
+  // Default segment size; a Value larger than this gets a segment of its own.
+  static final long SEGMENT_SIZE = 256L<<20;
+  // Sealed segments with less than this fraction of live bytes are compacted
+  static final double COMPACT_RATIO = 0.25;
+
+  private final File _dir;
+  private final long _segSize;
+  private final ConcurrentHashMap<Key,Slot> _index = new ConcurrentHashMap<>();
+  private Segment _active;      // Segment being appended to; guarded by this
+  private int _nextId;          // guarded by this
+  private final ArrayDeque<Segment> _sparse = new ArrayDeque<>(); // Segments to compact; guarded by this
+
+  SpillSegments(File dir, long segSize) { _dir = dir; _segSize = segSize; }
+
+  // Location of one spilled Value
+  private static final class Slot {
+    final Segment _seg;
+    final long _off;
+    final int _len;
+    Slot(Segment seg, long off, int len) { _seg = seg; _off = off; _len = len; }
+  }
+
+  private static final class Segment {
+    final File _file;
+    final long _cap;
+    final RandomAccessFile _raf;
+    final FileChannel _ch;
+    long _end;                          // Append position; guarded by SpillSegments.this
+    final AtomicLong _live = new AtomicLong(); // Bytes of live Values
+    volatile MappedByteBuffer _map;     // Read-only view, set when sealed
+    volatile boolean _sealed;
+    boolean _queued;                    // Waiting for compaction; guarded by SpillSegments.this
+    final ReentrantReadWriteLock _lock = new ReentrantReadWriteLock(); // Loads vs close
+    boolean _closed;                    // guarded by _lock
+    Segment(File file, long cap) throws IOException {
+      _file = file;
+      _cap = cap;
+      _raf = new RandomAccessFile(file, "rw");
+      _ch = _raf.getChannel();
+    }
+    void seal() throws IOException {
+      if( _end > 0 ) _map = _ch.map(FileChannel.MapMode.READ_ONLY, 0, _end);
+      _sealed = true;
+    }
+    void close() {
+      _lock.writeLock().lock(); // Wait out running loads
+      try {
+        _closed = true;
+        _map = null;            // Unmapped when collected
+        try { _raf.close(); } catch( IOException ignore ) { }
+        _file.delete();
+      } finally {
+        _lock.writeLock().unlock();
+      }
+    }
+    // Copy of the bytes at off, or null if the segment was closed meanwhile
+    byte[] read(long off, int len) throws IOException {
+      _lock.readLock().lock();
+      try {
+        if( _closed ) return null;
+        byte[] b = MemoryManager.malloc1(len);
+        MappedByteBuffer map = _map;
+        if( map != null ) {     // Sealed: bulk copy from the mapping
+          ByteBuffer dup = map.duplicate();
+          dup.position((int)off);
+          dup.get(b);
+        } else {                // Still being appended to: positional read
+          ByteBuffer bb = ByteBuffer.wrap(b);
+          while( bb.hasRemaining() )
+            if( _ch.read(bb, off + bb.position()) < 0 )
+              throw new IOException("Unexpected end of spill segment "+_file);
+        }
+        return b;
+      } finally {
+        _lock.readLock().unlock();
+      }
+    }
+  }
+
+  void store(Value v, byte[] m) throws IOException {
+    Slot old = _index.put(v._key, append(m));
+    if( old != null ) release(old); // Overwrite of the same Key
+    compact();
+  }
+
+  private synchronized Slot append(byte[] m) throws IOException {
+    Segment seg = _active;
+    if( seg == null || seg._end + m.length > seg._cap ) {
+      if( seg != null ) seal(seg);
+      if( !_dir.mkdirs() && !_dir.exists() )
+        throw new IOException("mkdirs failed making "+_dir);
+      seg = _active = new Segment(new File(_dir, "segment_" + (_nextId++)), Math.max(_segSize, m.length));
+    }
+    long off = seg._end;
+    ByteBuffer bb = ByteBuffer.wrap(m);
+    while( bb.hasRemaining() )
+      seg._ch.write(bb, off + bb.position());
+    seg._end += m.length;
+    seg._live.addAndGet(m.length);
+    return new Slot(seg, off, m.length);
+  }
+
+  byte[] load(Value v) throws IOException {
+    while( true ) {
+      Slot slot = _index.get(v._key);
+      if( slot == null || slot._len < v._max ) { // Should be fully on disk...
+        // or it's a racey delete of a spilled value
+        assert !v.isPersisted() : v._key;
+        return null;
+      }
+      byte[] b = slot._seg.read(slot._off, v._max);
+      if( b != null ) return b;
+      // The segment was compacted away under us; the Key has moved
+    }
+  }
+
+  // Moves the live Values of the segments queued by release into the active
+  // segment.  Each move replaces the Key's Slot, so the old segment dies once
+  // its last Value has moved.  Keys deleted or re-stored meanwhile are left
+  // alone, and their new copy is released.
+  private void compact() throws IOException {
+    while( true ) {
+      Segment seg;
+      synchronized(this) {
+        seg = _sparse.poll();
+        if( seg == null ) return;
+        seg._queued = false;
+      }
+      long moved = 0;
+      for( Map.Entry<Key,Slot> e : _index.entrySet() ) {
+        Slot slot = e.getValue();
+        if( slot._seg != seg ) continue;
+        byte[] b = seg.read(slot._off, slot._len);
+        if( b == null ) break;  // Segment died meanwhile
+        Slot dst = append(b);
+        if( _index.replace(e.getKey(), slot, dst) ) release(slot);
+        else release(dst);
+        moved += b.length;
+      }
+      Log.debug("Compacted spill segment "+seg._file+", moved "+moved+" bytes");
+    }
+  }
+
+  void delete(Value v) {
+    Slot slot = _index.remove(v._key);
+    if( slot != null ) release(slot);
+  }
+
+  private synchronized void seal(Segment seg) throws IOException {
+    seg.seal();
+    if( seg._live.get() == 0 ) seg.close();
+    else queueIfSparse(seg);
+  }
+
+  private synchronized void release(Slot slot) {
+    Segment seg = slot._seg;
+    long live = seg._live.addAndGet(-slot._len);
+    if( live == 0 && seg._sealed ) {
+      seg.close();              // Whole segment is dead
+      _sparse.remove(seg);
+      Log.debug("Dropped spill segment "+seg._file);
+    } else if( seg._sealed )
+      queueIfSparse(seg);
+  }
+
+  // guarded by this
+  private void queueIfSparse(Segment seg) {
+    if( !seg._queued && seg._live.get() < COMPACT_RATIO * seg._end ) {
+      seg._queued = true;
+      _sparse.add(seg);
+    }
+  }
+}
@@ -46,6 +46,7 @@ class BinaryMerge extends DTask<BinaryMerge> {
   static class FFSB extends Iced<FFSB> {
     private final Frame _frame;
     private final Vec _vec;
+    private final String _indexId;  // name space of the sorted keys
     // fast lookups to save repeated calls to node.index() which calls
     // binarysearch within it.
     private final int _chunkNode[]; // Chunk homenode index
@@ -55,9 +56,10 @@ class BinaryMerge extends DTask<BinaryMerge> {
     private final int _fieldSizes[]; // the widths of each column in the key
     private final int _keySize; // the total width in bytes of the key, sum of field sizes
 
-    FFSB( Frame frame, int msb, int shift, int fieldSizes[], BigInteger base[]) {
+    FFSB( Frame frame, String indexId, int msb, int shift, int fieldSizes[], BigInteger base[]) {
       assert -1<=msb && msb<=255; // left ranges from 0 to 255, right from -1 to 255
       _frame = frame;
+      _indexId = indexId;
       _msb = msb;
       _shift = shift;
       _fieldSizes = fieldSizes;
@@ -117,14 +119,14 @@ class BinaryMerge extends DTask<BinaryMerge> {
     _timings = new double[20];
     long t0 = System.nanoTime();
 
-    SingleThreadRadixOrder.OXHeader leftSortedOXHeader = DKV.getGet(getSortedOXHeaderKey(/*left=*/true, _leftSB._msb));
+    SingleThreadRadixOrder.OXHeader leftSortedOXHeader = DKV.getGet(getSortedOXHeaderKey(_leftSB._indexId, _leftSB._msb));
     if (leftSortedOXHeader == null) {
       if( !_allRight ) { tryComplete(); return; }
       throw H2O.unimpl();  // TODO pass through _allRight and implement
     }
     _leftKO = new KeyOrder(leftSortedOXHeader);
 
-    SingleThreadRadixOrder.OXHeader rightSortedOXHeader = DKV.getGet(getSortedOXHeaderKey(/*left=*/false, _riteSB._msb));
+    SingleThreadRadixOrder.OXHeader rightSortedOXHeader = DKV.getGet(getSortedOXHeaderKey(_riteSB._indexId, _riteSB._msb));
     //if (_riteSB._msb==-1) assert _allLeft && rightSortedOXHeader == null; // i.e. it's known nothing on right can join
     if (rightSortedOXHeader == null) {
       if( !_allLeft ) { tryComplete(); return; }
@@ -134,12 +136,12 @@ class BinaryMerge extends DTask<BinaryMerge> {
     _riteKO = new KeyOrder(rightSortedOXHeader);
 
     // get left batches
-    _leftKO.initKeyOrder(_leftSB._msb,/*left=*/true);
+    _leftKO.initKeyOrder(_leftSB._indexId, _leftSB._msb);
     final long leftN = leftSortedOXHeader._numRows;
     assert leftN >= 1;
 
     // get right batches
-    _riteKO.initKeyOrder(_riteSB._msb, /*left=*/false);
+    _riteKO.initKeyOrder(_riteSB._indexId, _riteSB._msb);
     final long rightN = rightSortedOXHeader._numRows;
     
     _timings[0] += (System.nanoTime() - t0) / 1e9;
@@ -237,9 +239,9 @@ class BinaryMerge extends DTask<BinaryMerge> {
       _perNodeNumRowsToFetch = new long[H2O.CLOUD.size()];
     }
 
-    void initKeyOrder( int msb, boolean isLeft ) {
+    void initKeyOrder( String indexId, int msb ) {
       for( int b=0; b<_key.length; b++ ) {
-        Value v = DKV.get(SplitByMSBLocal.getSortedOXbatchKey(isLeft, msb, b));
+        Value v = DKV.get(SplitByMSBLocal.getSortedOXbatchKey(indexId, msb, b));
         SplitByMSBLocal.OXbatch ox = v.get(); //mem version (obtained from remote) of the Values gets turned into POJO version
         v.freeMem(); //only keep the POJO version of the Value
         _key  [b] = ox._x;
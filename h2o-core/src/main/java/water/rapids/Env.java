@@ -5,6 +5,7 @@ import water.*;
 import water.fvec.Frame;
 import water.rapids.ast.*;
 import water.rapids.ast.params.AstConst;
+import water.rapids.ast.params.AstId;
 import water.rapids.ast.prims.advmath.*;
 import water.rapids.ast.prims.assign.*;
 import water.rapids.ast.prims.math.*;
@@ -404,6 +405,17 @@ public class Env extends Iced {
     throw new IllegalArgumentException("Name lookup of '" + id + "' failed");
   }
 
+  // The built-in a function position names, as lookup() would find it; null
+  // if it is anything else.  Evaluates nothing.
+  public AstPrimitive lookupPrim(AstRoot fun) {
+    if (fun instanceof AstPrimitive) return (AstPrimitive) fun;
+    if (!(fun instanceof AstId)) return null;
+    String id = fun.str();
+    if (_scope != null && _scope.lookup(id) != null) return null;
+    if (CONSTS.containsKey(id) || DKV.get(Key.make(expand(id))) != null) return null;
+    return PRIMS.get(id);
+  }
+
   public String expand(String id) {
     return id.startsWith("$")? id.substring(1) + "~" + _ses.id() : id;
   }
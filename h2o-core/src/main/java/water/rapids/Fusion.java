@@ -0,0 +1,354 @@
+package water.rapids;
+
+import water.H2O;
+import water.MRTask;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.rapids.ast.AstExec;
+import water.rapids.ast.AstPrimitive;
+import water.rapids.ast.AstRoot;
+import water.rapids.ast.params.AstId;
+import water.rapids.ast.params.AstNum;
+import water.rapids.ast.prims.math.AstUniOp;
+import water.rapids.ast.prims.operators.*;
+import water.rapids.vals.ValFrame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Fused execution of nested element-wise Rapids ops.
+ *
+ * Unary math ops, binary operators and ifelse compute every element of their
+ * result from the same elements of their arguments.  Applied one by one, each
+ * of them makes a pass over its inputs and a temporary Frame for the next op
+ * to read; e.g. <code>(> (* (log (+ x 1)) y) 3)</code> takes 4 passes and 3
+ * temporaries.  Instead, an application of such an op is planned here as a
+ * tree of all the element-wise ops nested in it.  Only the leaves, i.e. the
+ * arguments which are not element-wise ops, are evaluated as usual.  The tree
+ * is then run by a single MRTask, which reads each chunk of the leaves once
+ * and keeps the intermediates in per-chunk buffers.  Whatever is not
+ * element-wise, e.g. a sort, a group-by or a reducer, gets its arguments
+ * materialized as before.
+ *
+ * Fusion happens on all-numeric Frames of matching shape only: widening a
+ * 1-column Frame to many columns and a scalar to a Frame are supported, but
+ * categoricals, strings, times, rows and single-row broadcasting are not.
+ * Other subtrees are computed op by op from the already evaluated leaves, by
+ * the ops themselves.  The results, column names included, are the ones of
+ * the unfused ops.
+ */
+public class Fusion {
+
+  /** Whether nested element-wise ops are fused; on unless the property is set. */
+  public static final boolean ENABLED = !Boolean.getBoolean(H2O.OptArgs.SYSTEM_PROP_PREFIX + "rapids.noFusion");
+
+  // Node kinds of the fused program
+  private static final byte NUM = 0, COL = 1, BINOP = 2, UNIOP = 3, IFELSE = 4;
+
+  /**
+   * The plan of the application 'ast' of 'fun', if 'fun' is element-wise and
+   * nests at least one more element-wise op; null otherwise.
+   */
+  public static Node plan(Env env, AstExec ast, AstPrimitive fun) {
+    if (!isElementwise(env, fun, ast._asts)) return null;
+    Node root = build(env, ast, fun);
+    return root.numOps() >= 2 ? root : null;
+  }
+
+  /** Evaluates the leaves of the plan, then the plan itself. */
+  public static Val exec(Env env, Env.StackHelp stk, Node root) {
+    root.evalLeaves(env, stk);
+    root.shape();
+    return root.eval(env, stk, true);
+  }
+
+  // ifelse only decides on the branches to evaluate when run by itself, so it
+  // is fused only when it may just as well evaluate both of them.
+  private static boolean isElementwise(Env env, AstPrimitive fun, AstRoot[] asts) {
+    if (fun instanceof AstUniOp) return true;
+    if (fun instanceof AstBinOp) return !(fun instanceof AstLAnd || fun instanceof AstLOr); // Short-circuits
+    if (fun instanceof AstIfElse) return isPure(env, asts[2]) && isPure(env, asts[3]);
+    return false;
+  }
+
+  // The element-wise op applied by 'ast', or null
+  private static AstPrimitive elementwise(Env env, AstRoot ast) {
+    if (!(ast instanceof AstExec)) return null;
+    AstRoot[] asts = ((AstExec) ast)._asts;
+    if (asts.length == 0) return null;
+    AstPrimitive fun = env.lookupPrim(asts[0]);
+    if (fun == null || (fun.nargs() != -1 && fun.nargs() != asts.length)) return null;
+    return isElementwise(env, fun, asts) ? fun : null;
+  }
+
+  // Free of side effects and cheap to evaluate
+  private static boolean isPure(Env env, AstRoot ast) {
+    if (ast instanceof AstNum || ast instanceof AstId) return true;
+    if (elementwise(env, ast) == null) return false;
+    AstRoot[] asts = ((AstExec) ast)._asts;
+    for (int i = 1; i < asts.length; i++)
+      if (!isPure(env, asts[i])) return false;
+    return true;
+  }
+
+  private static Node build(Env env, AstExec ast, AstPrimitive fun) {
+    Node[] kids = new Node[ast._asts.length - 1];
+    for (int i = 0; i < kids.length; i++) {
+      AstRoot arg = ast._asts[i + 1];
+      AstPrimitive f = elementwise(env, arg);
+      kids[i] = f == null ? new Node(arg) : build(env, (AstExec) arg, f);
+    }
+    return new Node(fun, kids);
+  }
+
+  // --------------------------------------------------------------------------
+  /** An element-wise op over its argument nodes, or a leaf argument. */
+  public static final class Node {
+    private final AstPrimitive _fun; // Null for a leaf
+    private final Node[] _kids;
+    private final AstRoot _ast;      // Expression of a leaf
+    private Val _val;                // Value of a leaf, once evaluated
+    private int _width;              // 0 for a scalar, else the number of columns; -1 if not fusible
+    private long _nrows;
+    private String[] _names;         // Column names; null for the default ones
+
+    private Node(AstRoot ast) {
+      _fun = null;
+      _kids = null;
+      _ast = ast;
+    }
+
+    private Node(AstPrimitive fun, Node[] kids) {
+      _fun = fun;
+      _kids = kids;
+      _ast = null;
+    }
+
+    private boolean isLeaf() { return _fun == null; }
+
+    private int numOps() {
+      if (isLeaf()) return 0;
+      int n = 1;
+      for (Node kid : _kids) n += kid.numOps();
+      return n;
+    }
+
+    // Leaves go in the order the unfused ops would evaluate them
+    private void evalLeaves(Env env, Env.StackHelp stk) {
+      if (isLeaf()) _val = stk.track(_ast.exec(env));
+      else for (Node kid : _kids) kid.evalLeaves(env, stk);
+    }
+
+    private String name(int i) {
+      return _names == null ? Frame.defaultColName(i) : _names[i];
+    }
+
+    // Width, rows and names of the result, following the rules of the ops
+    private void shape() {
+      _width = -1;
+      if (isLeaf()) {
+        if (_val.isNum()) _width = 0;
+        else if (_val.isFrame()) {
+          Frame fr = _val.getFrame();
+          for (Vec vec : fr.vecs())
+            if (vec.get_type() != Vec.T_NUM) return;
+          if (fr.numCols() == 0) return;
+          _width = fr.numCols();
+          _nrows = fr.numRows();
+          _names = fr.names();
+        }
+        return;
+      }
+      for (Node kid : _kids) kid.shape(); // Parts of an unfusible tree may fuse
+      for (Node kid : _kids) {
+        if (kid._width < 0) return;
+        if (kid._width > 0) {
+          if (_nrows > 0 && kid._nrows != _nrows) return; // No single-row broadcasting
+          _nrows = kid._nrows;
+        }
+      }
+      if (_fun instanceof AstUniOp) {
+        Node arg = _kids[0];
+        _width = arg._width;
+        if (_width > 0) {
+          _names = new String[_width];
+          for (int i = 0; i < _width; i++)
+            _names[i] = _fun.str() + "(" + arg.name(i) + ")";
+        }
+      } else if (_fun instanceof AstBinOp) {
+        Node l = _kids[0], r = _kids[1];
+        if (l._width == 0 || r._width == 0) {
+          Node fr = l._width == 0 ? r : l;
+          _width = fr._width;
+          // EQ and NE name a Frame compared to a scalar by default
+          boolean defaults = fr == l && (_fun instanceof AstEq || _fun instanceof AstNe);
+          _names = defaults ? null : fr._names;
+        } else if (l._width == r._width || r._width == 1) {
+          _width = l._width;
+          _names = l._names;
+        } else if (l._width == 1) {
+          _width = r._width;
+          _names = r._names;
+        }
+      } else {                  // ifelse
+        Node tst = _kids[0];
+        if (tst._width == 0) return;
+        for (int i = 1; i < 3; i++)
+          if (_kids[i]._width != 0 && _kids[i]._width != tst._width) return;
+        _width = tst._width;
+      }
+    }
+
+    // Computes the result, fused where it pays.  Intermediates are tracked,
+    // so they go away with the enclosing op.
+    private Val eval(Env env, Env.StackHelp stk, boolean root) {
+      if (isLeaf()) return _val;
+      Val res;
+      if (_width > 0 && numOps() >= 2) res = new ValFrame(fuse());
+      else {
+        Val[] args = new Val[_kids.length + 1];
+        for (int i = 0; i < _kids.length; i++)
+          args[i + 1] = _kids[i].eval(env, stk, false);
+        if (_fun instanceof AstBinOp) res = ((AstBinOp) _fun).prim_apply(args[1], args[2]);
+        else if (_fun instanceof AstUniOp) res = ((AstUniOp) _fun).exec(args);
+        else {
+          AstRoot[] asts = new AstRoot[args.length];
+          asts[0] = _fun;
+          for (int i = 1; i < args.length; i++) asts[i] = new AstVal(args[i]);
+          res = _fun.apply(env, stk, asts);
+        }
+      }
+      return root ? res : stk.track(env.returning(res));
+    }
+
+    private Frame fuse() {
+      ArrayList<Node> nodes = new ArrayList<>();
+      postOrder(nodes);
+      int n = nodes.size();
+      byte[] kinds = new byte[n];
+      AstPrimitive[] funs = new AstPrimitive[n];
+      int[][] kids = new int[n][];
+      double[] nums = new double[n];
+      int[] cols = new int[n];
+      int[] widths = new int[n];
+      ArrayList<Vec> vecs = new ArrayList<>();
+      for (int i = 0; i < n; i++) {
+        Node node = nodes.get(i);
+        widths[i] = node._width;
+        if (node.isLeaf()) {
+          if (node._width == 0) {
+            kinds[i] = NUM;
+            nums[i] = node._val.getNum();
+          } else {
+            kinds[i] = COL;
+            cols[i] = vecs.size();
+            vecs.addAll(Arrays.asList(node._val.getFrame().vecs()));
+          }
+          continue;
+        }
+        kinds[i] = node._fun instanceof AstBinOp ? BINOP : node._fun instanceof AstUniOp ? UNIOP : IFELSE;
+        funs[i] = node._fun;
+        kids[i] = new int[node._kids.length];
+        for (int k = 0; k < node._kids.length; k++)
+          kids[i][k] = nodes.indexOf(node._kids[k]);
+      }
+      return new FusedTask(kinds, funs, kids, nums, cols, widths)
+          .doAll(_width, Vec.T_NUM, new Frame(vecs.toArray(new Vec[vecs.size()])))
+          .outputFrame(_names, null);
+    }
+
+    private void postOrder(ArrayList<Node> nodes) {
+      if (!isLeaf())
+        for (Node kid : _kids) kid.postOrder(nodes);
+      nodes.add(this);
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Runs the nodes of a plan in post order over buffers of a chunk's rows.
+  // Nodes one column wide, or scalars, are the same for every output column
+  // and are computed once per chunk.
+  private static class FusedTask extends MRTask<FusedTask> {
+    private final byte[] _kinds;
+    private final AstPrimitive[] _funs;
+    private final int[][] _kids;
+    private final double[] _nums;
+    private final int[] _cols;      // First input column of a leaf
+    private final int[] _widths;
+
+    FusedTask(byte[] kinds, AstPrimitive[] funs, int[][] kids, double[] nums, int[] cols, int[] widths) {
+      _kinds = kinds;
+      _funs = funs;
+      _kids = kids;
+      _nums = nums;
+      _cols = cols;
+      _widths = widths;
+    }
+
+    @Override
+    public void map(Chunk[] cs, NewChunk[] ncs) {
+      int len = cs[0]._len;
+      int n = _kinds.length;
+      double[][] bufs = new double[n][];
+      for (int c = 0; c < ncs.length; c++) {
+        for (int i = 0; i < n; i++) {
+          if (c > 0 && _widths[i] <= 1) continue;
+          double[] res = bufs[i] == null ? (bufs[i] = new double[len]) : bufs[i];
+          switch (_kinds[i]) {
+            case NUM:
+              Arrays.fill(res, _nums[i]);
+              break;
+            case COL:
+              cs[_cols[i] + (_widths[i] == 1 ? 0 : c)].getDoubles(res, 0, len);
+              break;
+            case BINOP: {
+              AstBinOp op = (AstBinOp) _funs[i];
+              double[] l = bufs[_kids[i][0]], r = bufs[_kids[i][1]];
+              for (int row = 0; row < len; row++)
+                res[row] = op.op(l[row], r[row]);
+              break;
+            }
+            case UNIOP: {
+              AstUniOp op = (AstUniOp) _funs[i];
+              double[] d = bufs[_kids[i][0]];
+              for (int row = 0; row < len; row++)
+                res[row] = op.op(d[row]);
+              break;
+            }
+            default: {          // ifelse
+              double[] tst = bufs[_kids[i][0]], yes = bufs[_kids[i][1]], no = bufs[_kids[i][2]];
+              for (int row = 0; row < len; row++)
+                res[row] = Double.isNaN(tst[row]) ? Double.NaN : tst[row] == 0 ? no[row] : yes[row];
+            }
+          }
+        }
+        double[] res = bufs[n - 1];
+        for (int row = 0; row < len; row++)
+          ncs[c].addNum(res[row]);
+      }
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // An argument already evaluated, for an op which evaluates its own
+  private static class AstVal extends AstRoot<AstVal> {
+    private final transient Val _val;
+
+    AstVal(Val val) { _val = val; }
+
+    @Override
+    public Val exec(Env env) { return env.returning(_val); }
+
+    @Override
+    public String str() { return _val.toString(); }
+
+    @Override
+    public String example() { return null; }
+
+    @Override
+    public String description() { return null; }
+  }
+}
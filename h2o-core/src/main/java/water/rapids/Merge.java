@@ -9,8 +9,6 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 
-import static water.rapids.SingleThreadRadixOrder.getSortedOXHeaderKey;
-
 public class Merge {
 
   public static Frame sort(final Frame fr, int[] cols) {
@@ -83,11 +81,103 @@ public class Merge {
     // Running 3 consecutive times on an idle cluster showed that running left
     // and right in parallel was a little slower (97s) than one by one (89s).
     // TODO: retest in future
-    RadixOrder leftIndex = createIndex(true ,leftFrame,leftCols,id_maps, ascendingL);
-    RadixOrder riteIndex = createIndex(false,riteFrame,riteCols,id_maps, ascendingR);
+    SortIndex leftIndex = createIndex(true ,leftFrame,leftCols,id_maps, ascendingL);
+    SortIndex riteIndex = null;
+    ArrayList<BinaryMerge> bmList;
+    long t0;
+    try {
+      riteIndex = createIndex(false,riteFrame,riteCols,id_maps, ascendingR);
+
+      // TODO: start merging before all indexes had been created. Use callback?
+      bmList = binaryMerges(leftFrame, riteFrame, leftIndex, riteIndex, allLeft, hasRite);
+    } finally {
+      // The merge is done with its indexes; those not kept for reuse are
+      // removed now, evicted ones once no other merge is reading them
+      System.out.print("Releasing left and right index.  ... ");
+      t0 = System.nanoTime();
+      leftIndex.release();
+      if (riteIndex != null) riteIndex.release();
+      System.out.println("took: " + (System.nanoTime() - t0)/1e9);
+    }
 
-    // TODO: start merging before all indexes had been created. Use callback?
+    System.out.print("Allocating and populating chunk info (e.g. size and batch number) ...");
+    t0 = System.nanoTime();
+    long ansN = 0;
+    int numChunks = 0;
+    for( BinaryMerge thisbm : bmList )
+      if( thisbm._numRowsInResult > 0 ) {
+        numChunks += thisbm._chunkSizes.length;
+        ansN += thisbm._numRowsInResult;
+      }
+    long chunkSizes[] = new long[numChunks];
+    int chunkLeftMSB[] = new int[numChunks];  // using too much space repeating the same value here, but, limited
+    int chunkRightMSB[] = new int[numChunks];
+    int chunkBatch[] = new int[numChunks];
+    int k = 0;
+    for( BinaryMerge thisbm : bmList ) {
+      if (thisbm._numRowsInResult == 0) continue;
+      int thisChunkSizes[] = thisbm._chunkSizes;
+      for (int j=0; j<thisChunkSizes.length; j++) {
+        chunkSizes[k] = thisChunkSizes[j];
+        chunkLeftMSB [k] = thisbm._leftSB._msb;
+        chunkRightMSB[k] = thisbm._riteSB._msb;
+        chunkBatch[k] = j;
+        k++;
+      }
+    }
+    System.out.println("took: " + (System.nanoTime() - t0) / 1e9);
 
+    // Now we can stitch together the final frame from the raw chunks that were
+    // put into the store
+    System.out.print("Allocating and populated espc ...");
+    t0 = System.nanoTime();
+    long espc[] = new long[chunkSizes.length+1];
+    int i=0;
+    long sum=0;
+    for (long s : chunkSizes) {
+      espc[i++] = sum;
+      sum+=s;
+    }
+    espc[espc.length-1] = sum;
+    System.out.println("took: " + (System.nanoTime() - t0) / 1e9);
+    assert(sum==ansN);
+
+    System.out.print("Allocating dummy vecs/chunks of the final frame ...");
+    t0 = System.nanoTime();
+    int numJoinCols = hasRite ? leftIndex._bytesUsed.length : 0;
+    int numLeftCols = leftFrame.numCols();
+    int numColsInResult = numLeftCols + riteFrame.numCols() - numJoinCols ;
+    final byte[] types = new byte[numColsInResult];
+    final String[][] doms = new String[numColsInResult][];
+    final String[] names = new String[numColsInResult];
+    for (int j=0; j<numLeftCols; j++) {
+      types[j] = leftFrame.vec(j).get_type();
+      doms[j] = leftFrame.domains()[j];
+      names[j] = leftFrame.names()[j];
+    }
+    for (int j=0; j<riteFrame.numCols()-numJoinCols; j++) {
+      types[numLeftCols + j] = riteFrame.vec(j+numJoinCols).get_type();
+      doms[numLeftCols + j] = riteFrame.domains()[j+numJoinCols];
+      names[numLeftCols + j] = riteFrame.names()[j+numJoinCols];
+    }
+    Key<Vec> key = Vec.newKey();
+    Vec[] vecs = new Vec(key, Vec.ESPC.rowLayout(key, espc)).makeCons(numColsInResult, 0, doms, types);
+    System.out.println("took: " + (System.nanoTime() - t0) / 1e9);
+
+    System.out.print("Finally stitch together by overwriting dummies ...");
+    t0 = System.nanoTime();
+    Frame fr = new Frame(names, vecs);
+    ChunkStitcher ff = new ChunkStitcher(chunkSizes, chunkLeftMSB, chunkRightMSB, chunkBatch);
+    ff.doAll(fr);
+    System.out.println("took: " + (System.nanoTime() - t0) / 1e9);
+
+    //Merge.cleanUp();
+    return fr;
+  }
+
+  // Send the BinaryMerge RPC calls of all MSB pairs that may join, and wait for them
+  private static ArrayList<BinaryMerge> binaryMerges(Frame leftFrame, Frame riteFrame, SortIndex leftIndex,
+                                                     SortIndex riteIndex, boolean allLeft, boolean hasRite) {
     System.out.print("Making BinaryMerge RPC calls ... ");
     long t0 = System.nanoTime();
     ArrayList<BinaryMerge> bmList = new ArrayList<>();
@@ -112,8 +202,8 @@ public class Merge {
       // The overlapping one with the right base is dealt with inside
       // BinaryMerge (if _allLeft)
       if (allLeft) for (int leftMSB=0; leftMSB<leftMSBfrom; leftMSB++) {
-        BinaryMerge bm = new BinaryMerge(new BinaryMerge.FFSB(leftFrame, leftMSB, leftShift,
-                leftIndex._bytesUsed, leftIndex._base), new BinaryMerge.FFSB(riteFrame,/*rightMSB*/-1, riteShift,
+        BinaryMerge bm = new BinaryMerge(new BinaryMerge.FFSB(leftFrame, leftIndex._id, leftMSB, leftShift,
+                leftIndex._bytesUsed, leftIndex._base), new BinaryMerge.FFSB(riteFrame, riteIndex._id,/*rightMSB*/-1, riteShift,
                 riteIndex._bytesUsed, riteIndex._base),
                 true);
           bmList.add(bm);
@@ -144,9 +234,9 @@ public class Merge {
       }
       // run the merge for the whole lefts that start after the last right
       if (allLeft) for (int leftMSB=(int)leftMSBto+1; leftMSB<=255; leftMSB++) {
-          BinaryMerge bm = new BinaryMerge(new BinaryMerge.FFSB(leftFrame,   leftMSB    ,leftShift,
+          BinaryMerge bm = new BinaryMerge(new BinaryMerge.FFSB(leftFrame,   leftIndex._id, leftMSB    ,leftShift,
                   leftIndex._bytesUsed,leftIndex._base),
-                                           new BinaryMerge.FFSB(riteFrame,/*rightMSB*/-1,riteShift,
+                                           new BinaryMerge.FFSB(riteFrame,   riteIndex._id,/*rightMSB*/-1,riteShift,
                                                    riteIndex._bytesUsed,riteIndex._base),
                                            true);
           bmList.add(bm);
@@ -179,8 +269,8 @@ public class Merge {
       assert rightMSBto >= rightMSBfrom;
 
       for (int rightMSB=rightMSBfrom; rightMSB<=rightMSBto; rightMSB++) {
-        BinaryMerge bm = new BinaryMerge(new BinaryMerge.FFSB(leftFrame, leftMSB,leftShift,leftIndex._bytesUsed,leftIndex._base),
-                                         new BinaryMerge.FFSB(riteFrame,rightMSB,riteShift,riteIndex._bytesUsed,riteIndex._base),
+        BinaryMerge bm = new BinaryMerge(new BinaryMerge.FFSB(leftFrame,leftIndex._id,leftMSB,leftShift,leftIndex._bytesUsed,leftIndex._base),
+                                         new BinaryMerge.FFSB(riteFrame,riteIndex._id,rightMSB,riteShift,riteIndex._bytesUsed,riteIndex._base),
                                          allLeft);
         bmList.add(bm);
         // TODO: choose the bigger side to execute on (where that side of index
@@ -197,110 +287,33 @@ public class Merge {
     System.out.println("Sending BinaryMerge async RPC calls in a queue ... ");
     fs.blockForPending();
     System.out.println("took: " + (System.nanoTime() - t0) / 1e9);
+    return bmList;
+  }
 
-
-    System.out.print("Removing DKV keys of left and right index.  ... ");
-    // TODO: In future we won't delete but rather persist them as index on the table
-    // Explicitly deleting here (rather than Arno's cleanUp) to reveal if we're not removing keys early enough elsewhere
-    t0 = System.nanoTime();
-    for (int msb=0; msb<256; msb++) {
-      for (int isLeft=0; isLeft<2; isLeft++) {
-        Key k = getSortedOXHeaderKey(isLeft!=0, msb);
-        SingleThreadRadixOrder.OXHeader oxheader = DKV.getGet(k);
-        DKV.remove(k);
-        if (oxheader != null) {
-          for (int b=0; b<oxheader._nBatch; ++b) {
-            k = SplitByMSBLocal.getSortedOXbatchKey(isLeft!=0, msb, b);
-            DKV.remove(k);
-          }
-        }
-      }
-    }
-    System.out.println("took: " + (System.nanoTime() - t0)/1e9);
-
-    System.out.print("Allocating and populating chunk info (e.g. size and batch number) ...");
-    t0 = System.nanoTime();
-    long ansN = 0;
-    int numChunks = 0;
-    for( BinaryMerge thisbm : bmList )
-      if( thisbm._numRowsInResult > 0 ) {
-        numChunks += thisbm._chunkSizes.length;
-        ansN += thisbm._numRowsInResult;
+  // Reuse the cached index of these key columns if there is one; else build
+  // the index, and keep it for the next merge or sort on the same keys.
+  // Either way the index comes back pinned, until the merge releases it.
+  private static SortIndex createIndex(boolean isLeft, Frame fr, int[] cols, int[][] id_maps, int[] ascending) {
+    // Only the left keys are mapped to the right levels, see RadixCount
+    int[][] keyMaps = isLeft ? id_maps : new int[cols.length][];
+    boolean cache = cols.length > 0 && SortIndex.MAX_CACHED > 0;
+    if (cache) {
+      SortIndex idx = SortIndex.find(fr, cols, keyMaps, ascending);
+      if (idx != null) {
+        System.out.println("\nReusing sort index " + idx._id + " as " + (isLeft ? "left" : "right") + " index");
+        return idx;
       }
-    long chunkSizes[] = new long[numChunks];
-    int chunkLeftMSB[] = new int[numChunks];  // using too much space repeating the same value here, but, limited
-    int chunkRightMSB[] = new int[numChunks];
-    int chunkBatch[] = new int[numChunks];
-    int k = 0;
-    for( BinaryMerge thisbm : bmList ) {
-      if (thisbm._numRowsInResult == 0) continue;
-      int thisChunkSizes[] = thisbm._chunkSizes;
-      for (int j=0; j<thisChunkSizes.length; j++) {
-        chunkSizes[k] = thisChunkSizes[j];
-        chunkLeftMSB [k] = thisbm._leftSB._msb;
-        chunkRightMSB[k] = thisbm._riteSB._msb;
-        chunkBatch[k] = j;
-        k++;
-      }
-    }
-    System.out.println("took: " + (System.nanoTime() - t0) / 1e9);
-
-    // Now we can stitch together the final frame from the raw chunks that were
-    // put into the store
-    System.out.print("Allocating and populated espc ...");
-    t0 = System.nanoTime();
-    long espc[] = new long[chunkSizes.length+1];
-    int i=0;
-    long sum=0;
-    for (long s : chunkSizes) {
-      espc[i++] = sum;
-      sum+=s;
-    }
-    espc[espc.length-1] = sum;
-    System.out.println("took: " + (System.nanoTime() - t0) / 1e9);
-    assert(sum==ansN);
-
-    System.out.print("Allocating dummy vecs/chunks of the final frame ...");
-    t0 = System.nanoTime();
-    int numJoinCols = hasRite ? leftIndex._bytesUsed.length : 0;
-    int numLeftCols = leftFrame.numCols();
-    int numColsInResult = numLeftCols + riteFrame.numCols() - numJoinCols ;
-    final byte[] types = new byte[numColsInResult];
-    final String[][] doms = new String[numColsInResult][];
-    final String[] names = new String[numColsInResult];
-    for (int j=0; j<numLeftCols; j++) {
-      types[j] = leftFrame.vec(j).get_type();
-      doms[j] = leftFrame.domains()[j];
-      names[j] = leftFrame.names()[j];
     }
-    for (int j=0; j<riteFrame.numCols()-numJoinCols; j++) {
-      types[numLeftCols + j] = riteFrame.vec(j+numJoinCols).get_type();
-      doms[numLeftCols + j] = riteFrame.domains()[j+numJoinCols];
-      names[numLeftCols + j] = riteFrame.names()[j+numJoinCols];
-    }
-    Key<Vec> key = Vec.newKey();
-    Vec[] vecs = new Vec(key, Vec.ESPC.rowLayout(key, espc)).makeCons(numColsInResult, 0, doms, types);
-    System.out.println("took: " + (System.nanoTime() - t0) / 1e9);
-
-    System.out.print("Finally stitch together by overwriting dummies ...");
-    t0 = System.nanoTime();
-    Frame fr = new Frame(names, vecs);
-    ChunkStitcher ff = new ChunkStitcher(chunkSizes, chunkLeftMSB, chunkRightMSB, chunkBatch);
-    ff.doAll(fr);
-    System.out.println("took: " + (System.nanoTime() - t0) / 1e9);
-
-    //Merge.cleanUp();
-    return fr;
-  }
-
-  private static RadixOrder createIndex(boolean isLeft, Frame fr, int[] cols, int[][] id_maps, int[] ascending) {
     System.out.println("\nCreating "+(isLeft ? "left" : "right")+" index ...");
     long t0 = System.nanoTime();
-    RadixOrder idxTask = new RadixOrder(fr, isLeft, cols, id_maps, ascending);
+    long[] versions = cache ? SortIndex.versions(fr, cols) : null; // Before the build, so a concurrent write shows
+    RadixOrder idxTask = new RadixOrder(fr, isLeft, Key.rand(), cols, id_maps, ascending);
     H2O.submitTask(idxTask);    // each of those launches an MRTask
     idxTask.join(); 
     System.out.println("***\n*** Creating "+(isLeft ? "left" : "right")+" index took: " + (System.nanoTime() - t0) / 1e9 + "\n***\n");
-    return idxTask;
+    SortIndex idx = new SortIndex(fr, cols, versions, keyMaps, ascending, idxTask);
+    if (cache) idx.publish();
+    return idx;
   }
 
   static class ChunkStitcher extends MRTask<ChunkStitcher> {
@@ -17,6 +17,7 @@ import java.math.BigInteger;
 class RadixOrder extends H2O.H2OCountedCompleter<RadixOrder> {
   private final Frame _DF;
   private final boolean _isLeft;
+  final String _indexId;  // name space of the sorted keys, see SortIndex
   private final int _whichCols[], _id_maps[][];
   final boolean _isInt[];
   final boolean _isCategorical[];
@@ -25,9 +26,10 @@ class RadixOrder extends H2O.H2OCountedCompleter<RadixOrder> {
   final BigInteger _base[];
   final int[] _ascending;  // 0 to sort ASC, 1 to sort DESC
 
-  RadixOrder(Frame DF, boolean isLeft, int whichCols[], int id_maps[][], int[] ascending) {
+  RadixOrder(Frame DF, boolean isLeft, String indexId, int whichCols[], int id_maps[][], int[] ascending) {
     _DF = DF;
     _isLeft = isLeft;
+    _indexId = indexId;
     _whichCols = whichCols;
     _id_maps = id_maps;
     _shift = new int[_whichCols.length];   // currently only _shift[0] is used
@@ -79,7 +81,7 @@ class RadixOrder extends H2O.H2OCountedCompleter<RadixOrder> {
     RPC[] radixOrders = new RPC[256];
     System.out.print("Sending SingleThreadRadixOrder async RPC calls ... ");
     for (int i = 0; i < 256; i++)
-      radixOrders[i] = new RPC<>(SplitByMSBLocal.ownerOfMSB(i), new SingleThreadRadixOrder(_DF, _isLeft, batchSize, keySize, /*nGroup,*/ i)).call();
+      radixOrders[i] = new RPC<>(SplitByMSBLocal.ownerOfMSB(i), new SingleThreadRadixOrder(_DF, _isLeft, _indexId, batchSize, keySize, /*nGroup,*/ i)).call();
     System.out.println("took : " + ((t1=System.nanoTime()) - t0) / 1e9); t0=t1;
 
     System.out.print("Waiting for RPC SingleThreadRadixOrder to finish ... ");
@@ -0,0 +1,290 @@
+package water.rapids;
+
+import water.*;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.rapids.ast.AstExec;
+import water.rapids.ast.AstPrimitive;
+import water.rapids.ast.AstRoot;
+import water.rapids.ast.params.*;
+import water.rapids.ast.prims.advmath.AstKurtosis;
+import water.rapids.ast.prims.advmath.AstSkewness;
+import water.rapids.ast.prims.advmath.AstUnique;
+import water.rapids.ast.prims.advmath.AstVariance;
+import water.rapids.ast.prims.mungers.*;
+import water.rapids.ast.prims.reducers.*;
+import water.rapids.vals.ValFrame;
+
+import java.util.*;
+
+/**
+ * Results of pure Rapids queries, kept by a {@link Session} for the next
+ * time they are asked.
+ *
+ * Clients tend to ask the same questions of a frame over and over: its
+ * number of rows, the levels of a column, a slice of columns, a mean...  An
+ * application of one of the {@link #PURE} primitives to constants, to frames
+ * by name or to other such applications is looked up here first, by its
+ * expression plus the Vecs and content versions of the frames it names.
+ * The versions come from the rollups, and only when these are at hand: a
+ * query on a frame whose rollups are not computed, or were invalidated by a
+ * write, is not cached.  As any write gives a Vec a new version, in place
+ * ones included, a result is never served for content it was not computed
+ * on.
+ *
+ * Cached frames hold a session ref-count on their Vecs, like temps do.  So
+ * they get copied rather than updated in place, and outlive the frames they
+ * were sliced from.  Entries are dropped least recently used first past
+ * {@link #MAX_ENTRIES}.  While the cache holds frames it listens to the
+ * {@link MemoryManager}: when memory runs short, the frames holding Vecs
+ * that nothing else in the session refers to are dropped, even if the
+ * session sits idle.
+ */
+public class ResultCache {
+  /** Whether sessions cache results; on unless the property is set. */
+  public static final boolean ENABLED = !Boolean.getBoolean(H2O.OptArgs.SYSTEM_PROP_PREFIX + "rapids.noResultCache");
+
+  /** Number of results a session keeps. */
+  static final int MAX_ENTRIES = Integer.getInteger(H2O.OptArgs.SYSTEM_PROP_PREFIX + "rapids.resultCacheSize", 256);
+
+  // Primitives whose result only depends on their arguments
+  private static final Set<Class<?>> PURE = new HashSet<Class<?>>(Arrays.asList(
+      AstNrow.class, AstNcol.class, AstLevels.class, AstNLevels.class, AstColSlice.class, AstColPySlice.class,
+      AstRowSlice.class, AstAnyFactor.class, AstIsFactor.class, AstIsNumeric.class, AstIsCharacter.class,
+      AstUnique.class, AstVariance.class, AstSkewness.class, AstKurtosis.class,
+      AstAll.class, AstAny.class, AstAnyNa.class, AstMad.class, AstMax.class, AstMaxNa.class, AstMean.class,
+      AstMedian.class, AstMin.class, AstMinNa.class, AstNaCnt.class, AstProd.class, AstProdNa.class,
+      AstSdev.class, AstSum.class, AstSumNa.class));
+
+  private final Session _ses;
+  // Results by expression, least recently used first
+  private final LinkedHashMap<String, Entry> _entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  // Registered with the MemoryManager while some entry holds a frame
+  private final MemoryManager.PressureListener _pressure = new MemoryManager.PressureListener() {
+    @Override public void memoryShort() { shed(); }
+  };
+  private boolean _listening;
+
+  ResultCache(Session ses) { _ses = ses; }
+
+  // --------------------------------------------------------------------------
+  /** A cacheable expression, with the versions of the frames it names. */
+  public static final class Query {
+    private final String _expr;       // Normalized expression
+    private final Key[] _vecs;        // Vecs of the named frames
+    private final long[] _versions;   // Their content versions
+    private final Object[] _layouts;  // Names and domains of the named frames
+
+    private Query(String expr, Key[] vecs, long[] versions, Object[] layouts) {
+      _expr = expr;
+      _vecs = vecs;
+      _versions = versions;
+      _layouts = layouts;
+    }
+
+    private boolean sameInputs(Query q) {
+      return Arrays.equals(_vecs, q._vecs) && Arrays.equals(_versions, q._versions) && Arrays.deepEquals(_layouts, q._layouts);
+    }
+  }
+
+  /**
+   * The query of 'ast', an application of 'fun'; null if its result cannot
+   * be cached.  Evaluates nothing.
+   */
+  public static Query query(Env env, AstExec ast, AstPrimitive fun) {
+    if (!ENABLED || env._ses == null || !PURE.contains(fun.getClass())) return null;
+    StringBuilder sb = new StringBuilder();
+    ArrayList<Vec> vecs = new ArrayList<>();
+    ArrayList<Object> layouts = new ArrayList<>();
+    if (!normalize(env, ast, sb, vecs, layouts)) return null;
+    Key[] keys = new Key[vecs.size()];
+    long[] versions = new long[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = vecs.get(i)._key;
+      if ((versions[i] = vecs.get(i).contentVersionIfKnown()) == 0) return null;
+    }
+    return new Query(sb.toString(), keys, versions, layouts.toArray());
+  }
+
+  // Appends the normalized expression, and collects the Vecs, names and
+  // domains of the frames it names; false unless all arguments are constants,
+  // frames or pure applications.
+  private static boolean normalize(Env env, AstExec ast, StringBuilder sb, ArrayList<Vec> vecs, ArrayList<Object> layouts) {
+    sb.append('(').append(ast._asts[0].str());
+    for (int i = 1; i < ast._asts.length; i++) {
+      AstRoot arg = ast._asts[i];
+      sb.append(' ');
+      if (arg instanceof AstStr) sb.append('"').append(arg.str()).append('"');
+      else if (arg instanceof AstNum || arg instanceof AstNumList || arg instanceof AstStrList) sb.append(arg.str());
+      else if (arg instanceof AstId) {
+        String id = arg.str();
+        if (env._scope != null && env._scope.lookup(id) != null) return false;
+        Value value = DKV.get(Key.make(env.expand(id)));
+        if (value != null) {
+          if (!value.isFrame()) return false;
+          Frame fr = value.get();
+          vecs.addAll(Arrays.asList(fr.vecs()));
+          layouts.add(fr.names());
+          layouts.add(fr.domains());
+        }
+        sb.append(id);        // Else a constant, or not defined and not run anyway
+      } else if (arg instanceof AstExec) {
+        AstExec exec = (AstExec) arg;
+        AstPrimitive f = exec._asts.length == 0 ? null : env.lookupPrim(exec._asts[0]);
+        if (f == null || !PURE.contains(f.getClass()) || !normalize(env, exec, sb, vecs, layouts)) return false;
+      } else return false;
+    }
+    sb.append(')');
+    return true;
+  }
+
+  // --------------------------------------------------------------------------
+  private static final class Entry {
+    final Query _query;
+    final Val _val;             // Frames are private copies, ref-counted by the session
+
+    Entry(Query query, Val val) {
+      _query = query;
+      _val = val;
+    }
+
+    Frame frame() { return _val.isFrame() ? _val.getFrame() : null; }
+  }
+
+  /**
+   * The cached result of a query, or null.  A frame comes back with its Vecs
+   * already counted as returning (see {@link Env#returning}), so they cannot
+   * be shed in between.
+   */
+  synchronized Val get(Query q) {
+    if (!MemoryManager.canAlloc()) shed();
+    Entry e = _entries.get(q._expr);
+    if (e == null) return null;
+    if (!e._query.sameInputs(q) || !isAlive(e)) {
+      _entries.remove(q._expr);
+      Futures fs = release(e, null);
+      if (fs != null) fs.blockForPending();
+      return null;
+    }
+    Frame fr = e.frame();
+    return fr == null ? e._val : new ValFrame(_ses.addRefCnt(new Frame(fr._names.clone(), fr.vecs().clone()), 1));
+  }
+
+  /** Keeps the result of a query, a frame already counted as returning. */
+  synchronized void put(Query q, Val val) {
+    if (val.isFrame()) {
+      Frame fr = val.getFrame();
+      if (fr._key != null || !MemoryManager.canAlloc()) return;
+      Frame copy = new Frame(fr._names.clone(), fr.vecs().clone());
+      _ses.addRefCnt(copy, 1);
+      val = new ValFrame(copy);
+    } else if (!(val.isNum() || val.isNums() || val.isStr() || val.isStrs()))
+      return;
+    Futures fs = null;
+    Entry old = _entries.put(q._expr, new Entry(q, val));
+    if (old != null) fs = release(old, fs);
+    fs = evict(fs);
+    if (fs != null) fs.blockForPending();
+    listen();
+  }
+
+  /** Drops the frames only the cache keeps alive; called when memory runs short. */
+  synchronized void shed() {
+    Futures fs = evictUnshared(null);
+    if (fs != null) fs.blockForPending();
+    listen();
+  }
+
+  // Listen to memory pressure exactly while there are frames to drop
+  private void listen() {
+    boolean frames = false;
+    for (Entry e : _entries.values())
+      if (e.frame() != null) { frames = true; break; }
+    if (frames == _listening) return;
+    if (frames) MemoryManager.addPressureListener(_pressure);
+    else MemoryManager.removePressureListener(_pressure);
+    _listening = frames;
+  }
+
+  // The Vecs of a cached frame may have been removed from under the session
+  private static boolean isAlive(Entry e) {
+    Frame fr = e.frame();
+    if (fr != null)
+      for (Key k : fr.keys())
+        if (DKV.get(k) == null) return false;
+    return true;
+  }
+
+  private Futures release(Entry e, Futures fs) {
+    Frame fr = e.frame();
+    return fr == null ? fs : _ses.downRefCnt(fr, fs);
+  }
+
+  private Futures evict(Futures fs) {
+    if (!MemoryManager.canAlloc()) fs = evictUnshared(fs);
+    for (Iterator<Entry> it = _entries.values().iterator(); _entries.size() > MAX_ENTRIES; ) {
+      Entry e = it.next();
+      it.remove();
+      fs = release(e, fs);
+    }
+    return fs;
+  }
+
+  // Short of memory: drop the Vecs only the cache keeps alive
+  private Futures evictUnshared(Futures fs) {
+    for (Iterator<Entry> it = _entries.values().iterator(); it.hasNext(); ) {
+      Entry e = it.next();
+      Frame fr = e.frame();
+      if (fr == null) continue;
+      for (Key<Vec> k : fr.keys())
+        if (_ses.getRefCnt(k) == 1) {
+          it.remove();
+          fs = release(e, fs);
+          break;
+        }
+    }
+    return fs;
+  }
+
+  /** Drops the results on any of the given Vecs, e.g. of a frame being removed. */
+  synchronized Futures removeFor(Key<Vec>[] vecs, Futures fs) {
+    if (_entries.isEmpty()) return fs;
+    List<Key<Vec>> gone = Arrays.asList(vecs);
+    for (Iterator<Entry> it = _entries.values().iterator(); it.hasNext(); ) {
+      Entry e = it.next();
+      for (Key k : e._query._vecs)
+        if (gone.contains(k)) {
+          it.remove();
+          fs = release(e, fs);
+          break;
+        }
+    }
+    listen();
+    return fs;
+  }
+
+  /** Frames held by the cache, for ref-count checks. */
+  synchronized List<Frame> frames() {
+    List<Frame> frs = new ArrayList<>();
+    for (Entry e : _entries.values())
+      if (e.frame() != null) frs.add(e.frame());
+    return frs;
+  }
+
+  /** Drops all results, releasing their Vecs. */
+  synchronized Futures clear(Futures fs) {
+    for (Entry e : _entries.values()) fs = release(e, fs);
+    _entries.clear();
+    listen();
+    return fs;
+  }
+
+  /** Forgets all results; the caller takes care of the Vecs of the returned frames. */
+  synchronized List<Frame> forget() {
+    List<Frame> frs = frames();
+    _entries.clear();
+    listen();
+    return frs;
+  }
+}
@@ -12,7 +12,9 @@ import water.rapids.ast.AstRoot;
 import water.rapids.ast.prims.operators.AstPlus;
 import water.util.Log;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -54,6 +56,10 @@ public class Session {
   // set.
   private NonBlockingHashSet<Key<Vec>> GLOBALS = new NonBlockingHashSet<>();
 
+  // Results of pure queries, for when they are asked again.  Cached Frames
+  // are counted in REFCNTS, like the FRAMES.
+  private final ResultCache CACHE = new ResultCache(this);
+
 
   /**
    * Constructor
@@ -91,6 +97,20 @@ public class Session {
     return val;                 // Can return a frame, which may point to session-shared Vecs
   }
 
+  /**
+   * The cached result of a query, or null.  Frames are fresh copies, already counted as returning.
+   */
+  public Val cached(ResultCache.Query query) {
+    return CACHE.get(query);
+  }
+
+  /**
+   * Keep the result of a query for later calls in this session.  A frame must already be counted as returning.
+   */
+  public void cache(ResultCache.Query query, Val val) {
+    CACHE.put(query, val);
+  }
+
   /**
    * Normal session exit.  Returned Frames are fully deep-copied, and are responsibility of the caller to delete.
    * Returned Frames have their refcnts currently up by 1 (for the returned value itself).
@@ -103,6 +123,7 @@ public class Session {
       fs = downRefCnt(fr, fs);   // Remove internal Vecs one by one
       DKV.remove(fr._key, fs);   // Shallow remove, internal Vecs removed 1-by-1
     }
+    fs = CACHE.clear(fs);       // Cached results go as well
     fs.blockForPending();
     FRAMES.clear();             // No more temp frames
     // Copy (as needed) so the returning Frame is completely independent of the
@@ -129,7 +150,9 @@ public class Session {
     try {
       GLOBALS.clear();
       Futures fs = new Futures();
-      for (Frame fr : FRAMES.values()) {
+      List<Frame> frames = new ArrayList<>(FRAMES.values());
+      frames.addAll(CACHE.forget());
+      for (Frame fr : frames) {
         for (Key<Vec> vec : fr.keys()) {
           Integer I = REFCNTS.get(vec);
           int i = (I == null ? 0 : I) - 1;
@@ -139,7 +162,8 @@ public class Session {
             vec.remove(fs);
           }
         }
-        DKV.remove(fr._key, fs);   // Shallow remove, internal Vecs removed 1-by-1
+        if (fr._key != null)       // Cached results have no key
+          DKV.remove(fr._key, fs); // Shallow remove, internal Vecs removed 1-by-1
       }
       fs.blockForPending();
       FRAMES.clear();
@@ -177,7 +201,7 @@ public class Session {
   /**
    * External refcnt: internal refcnt plus 1 for being global
    */
-  private int getRefCnt(Key<Vec> vec) {
+  int getRefCnt(Key<Vec> vec) {
     return _getRefCnt(vec) + (GLOBALS.contains(vec) ? 1 : 0);
   }
 
@@ -225,7 +249,7 @@ public class Session {
    */
   public void remove(Frame fr) {
     if (fr == null) return;
-    Futures fs = new Futures();
+    Futures fs = CACHE.removeFor(fr.keys(), new Futures()); // Results on this frame will not be asked again
     if (!FRAMES.containsKey(fr._key)) { // In globals and not temps?
       for (Key<Vec> vec : fr.keys()) {
         GLOBALS.remove(vec);         // Not a global anymore
@@ -265,6 +289,7 @@ public class Session {
     // may be deleted.
     Frame fr = DKV.getGet(id);
     if (fr != null) {          // Prior frame exists
+      fs = CACHE.removeFor(fr.keys(), fs);
       for (Key<Vec> vec : fr.keys()) {
         if (GLOBALS.remove(vec) && _getRefCnt(vec) == 0)
           vec.remove(fs);       // Remove unused global vec
@@ -322,6 +347,11 @@ public class Session {
         Integer count = refcnts.get(vec);
         refcnts.put(vec, count == null ? 1 : count + 1);
       }
+    for (Frame fr : CACHE.frames())
+      for (Key<Vec> vec : fr.keys()) {
+        Integer count = refcnts.get(vec);
+        refcnts.put(vec, count == null ? 1 : count + 1);
+      }
     // Now account for the returning frame (if it is a Frame). Note that it is entirely possible that this frame is
     // already in the FRAMES list, however we need to account for it anyways -- this is how Env works...
     if (returning != null && returning.isFrame())
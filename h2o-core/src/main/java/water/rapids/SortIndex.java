@@ -0,0 +1,200 @@
+package water.rapids;
+
+import water.*;
+import water.fvec.Frame;
+import water.fvec.Vec;
+import water.util.Log;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * The radix sort index of some key columns, as built by {@link RadixOrder}:
+ * the layout of the sorted keys plus, in the DKV, the sorted o and x batches
+ * of every MSB.  The batch keys are named after {@link #_id}, so several
+ * indexes can live side by side.
+ *
+ * The node driving a merge or sort keeps the indexes it built, and reuses
+ * them for later merges and sorts on the same key columns, skipping the
+ * radix count and the shuffle.  An index is bound to the key Vecs rather
+ * than to a Frame, since Rapids hands out defensive copies of Frames.  It is
+ * dropped when one of its Vecs is removed, or found to have been written to
+ * (its content version changed) when next looked up.  At most {@link #MAX_CACHED} indexes are kept, least
+ * recently used first out.
+ *
+ * A merge pins the indexes it uses until it is done reading their batches.
+ * Dropping a pinned index only takes it out of the cache; its keys are
+ * removed from the DKV by the last {@link #release}.
+ */
+class SortIndex {
+  /** Number of indexes kept for reuse; 0 disables the cache. */
+  static final int MAX_CACHED = Integer.getInteger(H2O.OptArgs.SYSTEM_PROP_PREFIX + "rapids.merge.maxCachedIndexes", 8);
+
+  // Indexes kept by this node by id, least recently used first.  Also guards _users.
+  private static final LinkedHashMap<String, SortIndex> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+
+  static {
+    Vec.addRemovalListener(new Vec.RemovalListener() {
+      @Override public void removed(Key[] vecs) { removeFor(vecs); } // Of no use anymore
+    });
+  }
+
+  final String _id;                // Name space of the sorted o and x keys
+  private final Key[] _vecs;       // Key columns
+  private final long[] _versions;  // Content versions of the key columns when built
+  private final int[] _ascending;
+  private final int[][] _id_maps;  // Categorical mappings applied to the keys; all null for the right side
+  final boolean _isInt[];
+  final boolean _isCategorical[];
+  final int _shift[];
+  final int _bytesUsed[];
+  final BigInteger _base[];
+  private int _users = 1;          // Merges using this index; the one that built it to start with
+
+  /** @param versions content versions of the key columns, taken before the index was built */
+  SortIndex(Frame fr, int[] cols, long[] versions, int[][] id_maps, int[] ascending, RadixOrder ro) {
+    _id = ro._indexId;
+    _vecs = keyVecs(fr, cols);
+    _versions = versions;
+    _ascending = ascending.clone();
+    _id_maps = new int[id_maps.length][];
+    for (int i = 0; i < id_maps.length; i++)
+      _id_maps[i] = id_maps[i] == null ? null : id_maps[i].clone();
+    _isInt = ro._isInt;
+    _isCategorical = ro._isCategorical;
+    _shift = ro._shift;
+    _bytesUsed = ro._bytesUsed;
+    _base = ro._base;
+  }
+
+  private static Key[] keyVecs(Frame fr, int[] cols) {
+    Key[] keys = new Key[cols.length];
+    for (int i = 0; i < cols.length; i++) keys[i] = fr.vec(cols[i])._key;
+    return keys;
+  }
+
+  static long[] versions(Frame fr, int[] cols) {
+    long[] vs = new long[cols.length];
+    for (int i = 0; i < cols.length; i++) vs[i] = fr.vec(cols[i]).contentVersion();
+    return vs;
+  }
+
+  private boolean isFor(Key[] vecs, int[][] id_maps, int[] ascending) {
+    return Arrays.equals(_vecs, vecs) && Arrays.equals(_ascending, ascending) && Arrays.deepEquals(_id_maps, id_maps);
+  }
+
+  private boolean isAlive() {
+    for (Key k : _vecs)
+      if (DKV.get(k) == null) return false;
+    return true;
+  }
+
+  /**
+   * The kept index of the given key columns, pinned for the caller, or null.
+   * Indexes whose Vecs have gone, or a matching index whose Vecs were written
+   * to since, are dropped on the way.
+   */
+  static SortIndex find(Frame fr, int[] cols, int[][] id_maps, int[] ascending) {
+    Key[] vecs = keyVecs(fr, cols);
+    List<SortIndex> dead = new ArrayList<>();
+    SortIndex found = null;
+    synchronized (CACHE) {
+      for (SortIndex idx : CACHE.values())
+        if (!idx.isAlive()) dead.add(idx);
+        else if (found == null && idx.isFor(vecs, id_maps, ascending)) found = idx;
+    }
+    if (found != null && !Arrays.equals(found._versions, versions(fr, cols))) {
+      Log.info("Sort index " + found._id + " is out of date, dropping it");
+      dead.add(found);
+      found = null;
+    }
+    if (found != null)
+      synchronized (CACHE) {
+        if (CACHE.get(found._id) == found) found._users++; // Also marks it as most recently used
+        else found = null;      // Dropped meanwhile
+      }
+    drop(dead);
+    return found;
+  }
+
+  /** Keeps this index for reuse, dropping the least recently used ones past {@link #MAX_CACHED}. */
+  void publish() {
+    List<SortIndex> evicted = new ArrayList<>();
+    synchronized (CACHE) {
+      CACHE.put(_id, this);
+      Iterator<SortIndex> it = CACHE.values().iterator();
+      while (CACHE.size() - evicted.size() > MAX_CACHED)
+        evicted.add(it.next());
+    }
+    drop(evicted);
+  }
+
+  /**
+   * Unpins this index after a merge is done with it.  An index that is not
+   * (or no longer) kept is removed from the DKV once its last user is done.
+   */
+  void release() {
+    boolean unused;
+    synchronized (CACHE) {
+      assert _users > 0;
+      unused = --_users == 0 && !CACHE.containsKey(_id);
+    }
+    if (unused) remove(new Futures()).blockForPending();
+  }
+
+  /** Drops the indexes built on any of the given Vecs. */
+  static void removeFor(Key[] vecs) {
+    List<SortIndex> gone = new ArrayList<>();
+    synchronized (CACHE) {
+      if (CACHE.isEmpty()) return;
+      List<Key> removed = Arrays.asList(vecs);
+      for (SortIndex idx : CACHE.values())
+        for (Key k : idx._vecs)
+          if (removed.contains(k)) { gone.add(idx); break; }
+    }
+    drop(gone);
+  }
+
+  /** Drops all kept indexes. */
+  static void removeAll() {
+    List<SortIndex> all;
+    synchronized (CACHE) { all = new ArrayList<>(CACHE.values()); }
+    drop(all);
+  }
+
+  /** Ids of the kept indexes, least recently used first. */
+  static String[] cachedIds() {
+    synchronized (CACHE) { return CACHE.keySet().toArray(new String[0]); }
+  }
+
+  // Takes the indexes out of the cache; the unpinned ones are removed from
+  // the DKV now, the others by their last release
+  private static void drop(List<SortIndex> idxs) {
+    if (idxs.isEmpty()) return;
+    List<SortIndex> unused = new ArrayList<>();
+    synchronized (CACHE) {
+      for (SortIndex idx : idxs)
+        if (CACHE.remove(idx._id) != null && idx._users == 0) unused.add(idx);
+    }
+    Futures fs = new Futures();
+    for (SortIndex idx : unused) idx.remove(fs);
+    fs.blockForPending();
+  }
+
+  /** Removes the sorted o and x batches of all MSBs. */
+  Futures remove(Futures fs) {
+    for (int msb = 0; msb < 256; msb++) {
+      Key k = SingleThreadRadixOrder.getSortedOXHeaderKey(_id, msb);
+      SingleThreadRadixOrder.OXHeader oxheader = DKV.getGet(k);
+      if (oxheader == null) continue;
+      DKV.remove(k, fs);
+      for (int b = 0; b < oxheader._nBatch; ++b)
+        DKV.remove(SplitByMSBLocal.getSortedOXbatchKey(_id, msb, b), fs);
+    }
+    return fs;
+  }
+}
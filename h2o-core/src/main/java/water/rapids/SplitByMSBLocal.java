@@ -199,8 +199,8 @@ class SplitByMSBLocal extends MRTask<SplitByMSBLocal> {
             (byte) 1, Key.HIDDEN_USER_KEY, false, SplitByMSBLocal.ownerOfMSB(MSBvalue));
   }
 
-  static Key getSortedOXbatchKey(boolean isLeft, int MSBvalue, int batch) {
-    return Key.make("__radix_order__SortedOXbatch_MSB" + MSBvalue + "_batch" + batch + (isLeft ? "_LEFT" : "_RIGHT"),
+  static Key getSortedOXbatchKey(String indexId, int MSBvalue, int batch) {
+    return Key.make("__radix_order__SortedOXbatch_" + indexId + "_MSB" + MSBvalue + "_batch" + batch,
             (byte) 1, Key.HIDDEN_USER_KEY, false, SplitByMSBLocal.ownerOfMSB(MSBvalue));
   }
 
@@ -1,6 +1,8 @@
 package water.rapids.ast;
 
 import water.rapids.Env;
+import water.rapids.Fusion;
+import water.rapids.ResultCache;
 import water.rapids.Val;
 import water.rapids.vals.ValFun;
 import water.util.SB;
@@ -48,7 +50,9 @@ public class AstExec extends AstRoot {
   // Function application.  Execute the first AstRoot and verify that it is a
   // function.  Then call that function's apply method.  Do not evaluate other
   // arguments; e.g. short-circuit logicals' apply calls may choose to not ever
-  // evalute some arguments.
+  // evalute some arguments.  Nested element-wise ops are run fused, see
+  // Fusion; the results of pure queries are kept by the Session, see
+  // ResultCache.
   @Override
   public Val exec(Env env) {
     Val fun = _asts[0].exec(env);
@@ -59,8 +63,17 @@ public class AstExec extends AstRoot {
     if (nargs != -1 && nargs != _asts.length)
       throw new IllegalArgumentException(
           "Incorrect number of arguments; '" + ast + "' expects " + (nargs - 1) + " but was passed " + (_asts.length - 1));
+    ResultCache.Query query = ResultCache.query(env, this, ast);
+    if (query != null) {
+      Val val = env._ses.cached(query);
+      if (val != null) return val; // Already counted as returning
+    }
     try (Env.StackHelp stk = env.stk()) {
-      return env.returning(ast.apply(env, stk, _asts));
+      Fusion.Node plan = Fusion.ENABLED ? Fusion.plan(env, this, ast) : null;
+      Val val = plan != null ? Fusion.exec(env, stk, plan) : ast.apply(env, stk, _asts);
+      env.returning(val);       // Counted before the cache shares it
+      if (query != null) env._ses.cache(query, val);
+      return val;
     }
   }
 
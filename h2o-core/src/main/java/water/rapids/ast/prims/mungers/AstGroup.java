@@ -36,87 +36,90 @@ public class AstGroup extends AstPrimitive {
   public enum NAHandling {ALL, RM, IGNORE}
   public int _totMedianCols = -1; // count total column numbers that need the median action
 
-  // Functions handled by GroupBy
+  // Functions handled by GroupBy.  The reduction state of a function is a
+  // slice of initVal().length doubles starting at 'off', so the states of many
+  // groups can share one flat array.
   public enum FCN {
     nrow() {
       @Override
-      public void op(double[] d0s, double d1) {
-        d0s[0]++;
+      public void op(double[] d0s, int off, double d1) {
+        d0s[off]++;
       }
 
       @Override
-      public void atomic_op(double[] d0s, double[] d1s) {
-        d0s[0] += d1s[0];
+      public void atomic_op(double[] d0s, int off0, double[] d1s, int off1, int len) {
+        d0s[off0] += d1s[off1];
       }
 
       @Override
-      public double postPass(double ds[], long n) {
-        return ds[0];
+      public double postPass(double ds[], int off, int len, long n) {
+        return ds[off];
       }
     },
     mean() {
       @Override
-      public void op(double[] d0s, double d1) {
-        d0s[0] += d1;
+      public void op(double[] d0s, int off, double d1) {
+        d0s[off] += d1;
       }
 
       @Override
-      public void atomic_op(double[] d0s, double[] d1s) {
-        d0s[0] += d1s[0];
+      public void atomic_op(double[] d0s, int off0, double[] d1s, int off1, int len) {
+        d0s[off0] += d1s[off1];
       }
 
       @Override
-      public double postPass(double ds[], long n) {
-        return ds[0] / n;
+      public double postPass(double ds[], int off, int len, long n) {
+        return ds[off] / n;
       }
     },
     sum() {
       @Override
-      public void op(double[] d0s, double d1) {
-        d0s[0] += d1;
+      public void op(double[] d0s, int off, double d1) {
+        d0s[off] += d1;
       }
 
       @Override
-      public void atomic_op(double[] d0s, double[] d1s) {
-        d0s[0] += d1s[0];
+      public void atomic_op(double[] d0s, int off0, double[] d1s, int off1, int len) {
+        d0s[off0] += d1s[off1];
       }
 
       @Override
-      public double postPass(double ds[], long n) {
-        return ds[0];
+      public double postPass(double ds[], int off, int len, long n) {
+        return ds[off];
       }
     },
     sumSquares() {
       @Override
-      public void op(double[] d0s, double d1) {
-        d0s[0] += d1 * d1;
+      public void op(double[] d0s, int off, double d1) {
+        d0s[off] += d1 * d1;
       }
 
       @Override
-      public void atomic_op(double[] d0s, double[] d1s) {
-        d0s[0] += d1s[0];
+      public void atomic_op(double[] d0s, int off0, double[] d1s, int off1, int len) {
+        d0s[off0] += d1s[off1];
       }
 
       @Override
-      public double postPass(double ds[], long n) {
-        return ds[0];
+      public double postPass(double ds[], int off, int len, long n) {
+        return ds[off];
       }
     },
     var() {
       @Override
-      public void op(double[] d0s, double d1) {
-        d0s[0] += d1 * d1;
-        d0s[1] += d1;
+      public void op(double[] d0s, int off, double d1) {
+        d0s[off] += d1 * d1;
+        d0s[off + 1] += d1;
       }
 
       @Override
-      public void atomic_op(double[] d0s, double[] d1s) {
-        ArrayUtils.add(d0s, d1s);
+      public void atomic_op(double[] d0s, int off0, double[] d1s, int off1, int len) {
+        d0s[off0] += d1s[off1];
+        d0s[off0 + 1] += d1s[off1 + 1];
       }
 
       @Override
-      public double postPass(double ds[], long n) {
-        double numerator = ds[0] - ds[1] * ds[1] / n;
+      public double postPass(double ds[], int off, int len, long n) {
+        double numerator = ds[off] - ds[off + 1] * ds[off + 1] / n;
         if (Math.abs(numerator) < 1e-5) numerator = 0;
         return numerator / (n - 1);
       }
@@ -128,19 +131,20 @@ public class AstGroup extends AstPrimitive {
     },
     sdev() {
       @Override
-      public void op(double[] d0s, double d1) {
-        d0s[0] += d1 * d1;
-        d0s[1] += d1;
+      public void op(double[] d0s, int off, double d1) {
+        d0s[off] += d1 * d1;
+        d0s[off + 1] += d1;
       }
 
       @Override
-      public void atomic_op(double[] d0s, double[] d1s) {
-        ArrayUtils.add(d0s, d1s);
+      public void atomic_op(double[] d0s, int off0, double[] d1s, int off1, int len) {
+        d0s[off0] += d1s[off1];
+        d0s[off0 + 1] += d1s[off1 + 1];
       }
 
       @Override
-      public double postPass(double ds[], long n) {
-        double numerator = ds[0] - ds[1] * ds[1] / n;
+      public double postPass(double ds[], int off, int len, long n) {
+        double numerator = ds[off] - ds[off + 1] * ds[off + 1] / n;
         if (Math.abs(numerator) < 1e-5) numerator = 0;
         return Math.sqrt(numerator / (n - 1));
       }
@@ -152,18 +156,18 @@ public class AstGroup extends AstPrimitive {
     },
     min() {
       @Override
-      public void op(double[] d0s, double d1) {
-        d0s[0] = Math.min(d0s[0], d1);
+      public void op(double[] d0s, int off, double d1) {
+        d0s[off] = Math.min(d0s[off], d1);
       }
 
       @Override
-      public void atomic_op(double[] d0s, double[] d1s) {
-        op(d0s, d1s[0]);
+      public void atomic_op(double[] d0s, int off0, double[] d1s, int off1, int len) {
+        op(d0s, off0, d1s[off1]);
       }
 
       @Override
-      public double postPass(double ds[], long n) {
-        return ds[0];
+      public double postPass(double ds[], int off, int len, long n) {
+        return ds[off];
       }
 
       @Override
@@ -173,18 +177,18 @@ public class AstGroup extends AstPrimitive {
     },
     max() {
       @Override
-      public void op(double[] d0s, double d1) {
-        d0s[0] = Math.max(d0s[0], d1);
+      public void op(double[] d0s, int off, double d1) {
+        d0s[off] = Math.max(d0s[off], d1);
       }
 
       @Override
-      public void atomic_op(double[] d0s, double[] d1s) {
-        op(d0s, d1s[0]);
+      public void atomic_op(double[] d0s, int off0, double[] d1s, int off1, int len) {
+        op(d0s, off0, d1s[off1]);
       }
 
       @Override
-      public double postPass(double ds[], long n) {
-        return ds[0];
+      public double postPass(double ds[], int off, int len, long n) {
+        return ds[off];
       }
 
       @Override
@@ -195,17 +199,17 @@ public class AstGroup extends AstPrimitive {
     median() {  // we will be doing our own thing here for median
 
       @Override
-      public void op(double[] d0s, double d1) {
+      public void op(double[] d0s, int off, double d1) {
         ;
       }
 
       @Override
-      public void atomic_op(double[] d0s, double[] d1s) {
+      public void atomic_op(double[] d0s, int off0, double[] d1s, int off1, int len) {
         ;
       }
 
       @Override
-      public double postPass(double ds[], long n) {
+      public double postPass(double ds[], int off, int len, long n) {
         return 0;
       }
 
@@ -216,18 +220,22 @@ public class AstGroup extends AstPrimitive {
     },
     mode() {
       @Override
-      public void op(double[] d0s, double d1) {
-        d0s[(int) d1]++;
+      public void op(double[] d0s, int off, double d1) {
+        d0s[off + (int) d1]++;
       }
 
       @Override
-      public void atomic_op(double[] d0s, double[] d1s) {
-        ArrayUtils.add(d0s, d1s);
+      public void atomic_op(double[] d0s, int off0, double[] d1s, int off1, int len) {
+        for (int i = 0; i < len; i++)
+          d0s[off0 + i] += d1s[off1 + i];
       }
 
       @Override
-      public double postPass(double ds[], long n) {
-        return ArrayUtils.maxIndex(ds);
+      public double postPass(double ds[], int off, int len, long n) {
+        int idx = 0;
+        for (int i = 1; i < len; i++)
+          if (ds[off + i] > ds[off + idx]) idx = i;
+        return idx;
       }
 
       @Override
@@ -236,11 +244,23 @@ public class AstGroup extends AstPrimitive {
       }
     },;
 
-    public abstract void op(double[] d0, double d1);
+    public abstract void op(double[] d0s, int off, double d1);
 
-    public abstract void atomic_op(double[] d0, double[] d1);
+    public abstract void atomic_op(double[] d0s, int off0, double[] d1s, int off1, int len);
 
-    public abstract double postPass(double ds[], long n);
+    public abstract double postPass(double ds[], int off, int len, long n);
+
+    public final void op(double[] d0, double d1) {
+      op(d0, 0, d1);
+    }
+
+    public final void atomic_op(double[] d0, double[] d1) {
+      atomic_op(d0, 0, d1, 0, d0.length);
+    }
+
+    public final double postPass(double ds[], long n) {
+      return postPass(ds, 0, ds.length, n);
+    }
 
     public double[] initVal(int maxx) {
       return new double[]{0};
@@ -302,6 +322,19 @@ public class AstGroup extends AstPrimitive {
     }
     int naggs = countCols;
 
+    // Build the output!
+    String[] fcnames = new String[aggs.length];
+    for (int i = 0; i < aggs.length; i++) {
+      if (aggs[i]._fcn.toString() != "nrow") {
+        fcnames[i] = aggs[i]._fcn.toString() + "_" + fr.name(aggs[i]._col);
+      } else {
+        fcnames[i] = aggs[i]._fcn.toString();
+      }
+    }
+
+    if (_totMedianCols < 0) // no median, use the hash based engine
+      return new ValFrame(hashGroups(fr, gbCols, aggs, fcnames));
+
     // do the group by work now
     IcedHashMap<G, String> gss = doGroups(fr, gbCols, aggs, _totMedianCols);
     final G[] grps = gss.keySet().toArray(new G[gss.size()]);
@@ -346,16 +379,6 @@ public class AstGroup extends AstPrimitive {
       Vec[] groupChunks = buildMedians.doAll(_totMedianCols, Vec.T_NUM, fr).close();
       buildMedians.calcMedian(groupChunks);
     }
-    // Build the output!
-    String[] fcnames = new String[aggs.length];
-    for (int i = 0; i < aggs.length; i++) {
-      if (aggs[i]._fcn.toString() != "nrow") {
-        fcnames[i] = aggs[i]._fcn.toString() + "_" + fr.name(aggs[i]._col);
-      } else {
-        fcnames[i] = aggs[i]._fcn.toString();
-      }
-    }
-
     MRTask mrfill = new MRTask() {
       @Override
       public void map(Chunk[] c, NewChunk[] ncs) {
@@ -379,6 +402,31 @@ public class AstGroup extends AstPrimitive {
     return new ValFrame(f);
   }
 
+  // Group with HashGroupBy, then order the groups by their keys as above.
+  // The groups stay on the nodes that own them; the distributed radix sort
+  // orders them without gathering them anywhere.
+  private static Frame hashGroups(Frame fr, int[] gbCols, final AGG[] aggs, String[] fcnames) {
+    final int nCols = gbCols.length + aggs.length;
+    String[] names = new String[nCols];
+    String[][] domains = new String[nCols][];
+    for (int i = 0; i < gbCols.length; i++) {
+      names[i] = fr.name(gbCols[i]);
+      domains[i] = fr.domains()[gbCols[i]];
+    }
+    for (int i = 0; i < fcnames.length; i++)
+      names[i + gbCols.length] = fcnames[i];
+    Frame groups = HashGroupBy.doGroups(fr, gbCols, aggs, names, domains);
+    if (gbCols.length == 0 || groups.numRows() <= 1)
+      return groups;
+    int[] keyCols = new int[gbCols.length];
+    for (int i = 0; i < keyCols.length; i++) keyCols[i] = i;
+    try {
+      return Merge.sort(groups, keyCols);
+    } finally {
+      groups.delete();
+    }
+  }
+
   // Argument check helper
   public static AstNumList check(long dstX, AstRoot ast) {
     // Sanity check vs dst.  To simplify logic, jam the 1 col/row case in as a AstNumList
@@ -468,6 +516,12 @@ public class AstGroup extends AstPrimitive {
       }
     }
 
+    // Same as op() above, for a reduction state stored at 'off' in a flat array
+    void op(double[] ds, int off, long[] ns, int n, double d1) {
+      if (!Double.isNaN(d1) || _na == NAHandling.ALL) _fcn.op(ds, off, d1);
+      if (!Double.isNaN(d1) || _na == NAHandling.IGNORE) ns[n]++;
+    }
+
     public double[] initVal() {
       return _fcn.initVal(_maxx);
     }
@@ -14,6 +14,8 @@ import water.rapids.ast.params.AstNum;
 import water.rapids.ast.params.AstNumList;
 import water.rapids.vals.ValFrame;
 import water.util.IcedHashMap;
+import water.util.Log;
+import water.util.PrettyPrint;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -38,9 +40,13 @@ import java.util.Arrays;
  * there is no matching row in the rightFrame, and vice-versa for
  * allRightFlag.  Missing data will appear as NAs.  Both flags can be true.
  * </p>
- * We support merge method hash, radix and auto.  If a user chooses auto, the
- * algorithm will default to method radix which is the better algorithm.  It
- * gives accurate merge results even if there are duplicated rows in the rightFrame.
+ * We support merge method hash, radix, broadcast and auto.  If a user chooses
+ * auto, it will default to method radix which is the better algorithm.  With
+ * broadcast, a small right frame (below {@link BroadcastJoin#MAX_BYTES}) with
+ * no String keys is joined by a {@link BroadcastJoin}, which does not sort
+ * either side, so the rows come in left frame order instead of key order;
+ * a larger one is radix merged all the same.  Both give accurate merge
+ * results even if there are duplicated rows in the rightFrame.
  * In addition, the radix method will allow the presences of string columns in
  * the frames.  The Hash method will not give correct merge results if there
  * are duplicated rows in the rightFrame.  The hash method cannot work with String columns,
@@ -129,7 +135,7 @@ public class AstMerge extends AstPrimitive {
       }
     }.doAllNodes();
 
-    if (method.equals("radix") || method.equals("auto")) {  // default to radix as default merge metho
+    if (method.equals("radix") || method.equals("auto") || method.equals("broadcast")) {  // default to radix as default merge metho
       // Build categorical mappings, to rapidly convert categoricals from the left to the right
       // With the sortingMerge approach there is no variance here: always map left to right
       if (allLeft && allRite)
@@ -147,10 +153,20 @@ public class AstMerge extends AstPrimitive {
         }
       }
 
+      // Pick the strategy: when asked for, a small right frame (the left one
+      // for allRite) is broadcast to a hash join, anything else is radix merged.
+      Frame walked = onlyLeftAllOff ? l : r;
+      Frame hashed = onlyLeftAllOff ? r : l;
+      boolean broadcast = method.equals("broadcast") && BroadcastJoin.fits(hashed, ncols);
+      Log.info("Merge of " + walked.numRows() + " x " + hashed.numRows() + " rows: " +
+              (broadcast ? "broadcast hash join of the " + PrettyPrint.bytes(hashed.byteSize()) + " " +
+                      (onlyLeftAllOff ? "right" : "left") + " frame" : "radix merge"));
       if (onlyLeftAllOff) {
-        return sortingMerge(l, r, allLeft, allRite, ncols, id_maps);
+        return broadcast ? new ValFrame(BroadcastJoin.join(l, r, ncols, allLeft))
+                         : sortingMerge(l, r, allLeft, allRite, ncols, id_maps);
       } else {  // implement allRite here by switching leftframe and riteframe.  However, column order is wrong, re-order before return
-        ValFrame tempFrame = sortingMerge(r, l, allRite, allLeft, ncols, id_maps);
+        ValFrame tempFrame = broadcast ? new ValFrame(BroadcastJoin.join(r, l, ncols, allRite))
+                                       : sortingMerge(r, l, allRite, allLeft, ncols, id_maps);
         Frame mergedFrame = tempFrame.getFrame();  // need to switch order of merged frame
         int allColNum = mergedFrame.numCols();
         int[] colMapping = new int[allColNum];  // index into combined frame but with correct order
@@ -0,0 +1,233 @@
+package water.rapids.ast.prims.mungers;
+
+import water.H2O;
+import water.Iced;
+import water.MRTask;
+import water.fvec.CategoricalWrappedVec;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.util.ArrayUtils;
+
+import java.util.Arrays;
+
+/**
+ * Hash join of a frame against a small right frame, used by {@link AstMerge}.
+ *
+ * The key columns of the right frame are collected into a primitive hash
+ * index, which goes out to every node once along with the probe task.  The
+ * left frame is then streamed through the index chunk by chunk, in place:
+ * unlike the radix merge, neither side is sorted or shuffled.  The remaining
+ * right columns are read from the right frame by row, so its chunks get
+ * cached on each node as they are needed.
+ *
+ * Keys compare as in the radix merge, NA matches NA.  The result has the
+ * columns of the radix merge, the rows come in left frame order.
+ */
+public class BroadcastJoin {
+
+  /** Largest right frame, in bytes, that is broadcast rather than radix merged. */
+  static final long MAX_BYTES = Long.getLong(H2O.OptArgs.SYSTEM_PROP_PREFIX + "rapids.merge.broadcastMaxBytes", 64L << 20);
+
+  /**
+   * Whether a frame can be the broadcast side of a join on its first 'ncols'
+   * columns: it must be small, and its keys numbers, times or categoricals.
+   */
+  static boolean fits(Frame rite, int ncols) {
+    for (int i = 0; i < ncols; i++)
+      if (rite.vec(i).isString() || rite.vec(i).isUUID()) return false;
+    long bytes = rite.byteSize();
+    return bytes >= 0 && bytes <= MAX_BYTES;
+  }
+
+  /**
+   * Joins 'left' and 'rite' on their first 'ncols' columns, keeping unmatched
+   * left rows if 'allLeft'.
+   */
+  static Frame join(Frame left, Frame rite, int ncols, boolean allLeft) {
+    Index idx = new Index(ncols, new CollectKeys(ncols).doAll(rite.vecs(ArrayUtils.seq(0, ncols))));
+    // Categorical left keys are looked up by their level in the right domain
+    int[][] id_maps = new int[ncols][];
+    int[] riteCards = new int[ncols];
+    for (int i = 0; i < ncols; i++) {
+      riteCards[i] = rite.vec(i).cardinality();
+      if (riteCards[i] >= 0)
+        id_maps[i] = CategoricalWrappedVec.computeMap(left.vec(i).domain(), rite.vec(i).domain());
+    }
+
+    // All the left columns, then the right ones but the keys
+    int nleft = left.numCols(), nrite = rite.numCols() - ncols;
+    String[] names = Arrays.copyOf(left.names(), nleft + nrite);
+    String[][] domains = Arrays.copyOf(left.domains(), nleft + nrite);
+    byte[] types = Arrays.copyOf(left.types(), nleft + nrite);
+    System.arraycopy(rite.names(), ncols, names, nleft, nrite);
+    System.arraycopy(rite.domains(), ncols, domains, nleft, nrite);
+    System.arraycopy(rite.types(), ncols, types, nleft, nrite);
+    return new ProbeTask(idx, rite, id_maps, riteCards, allLeft).doAll(types, left).outputFrame(names, domains);
+  }
+
+  // Bits of a key value; -0.0 is 0 and all NaNs are alike
+  private static long keyBits(double d) {
+    return d == 0 ? 0 : Double.doubleToLongBits(d);
+  }
+
+  // --------------------------------------------------------------------------
+  // Key bits of every right row, by chunk
+  private static class CollectKeys extends MRTask<CollectKeys> {
+    private final int _ncols;
+    long[][] _keys;             // Per chunk, _ncols per row
+    long[] _starts;             // Per chunk, its first row
+
+    CollectKeys(int ncols) { _ncols = ncols; }
+
+    @Override
+    public void map(Chunk[] cs) {
+      int nchks = cs[0].vec().nChunks();
+      int cidx = cs[0].cidx();
+      _keys = new long[nchks][];
+      _starts = new long[nchks];
+      long[] keys = _keys[cidx] = new long[cs[0]._len * _ncols];
+      for (int c = 0; c < _ncols; c++)
+        for (int row = 0; row < cs[c]._len; row++)
+          keys[row * _ncols + c] = keyBits(cs[c].atd(row));
+      _starts[cidx] = cs[0].start();
+    }
+
+    @Override
+    public void reduce(CollectKeys ck) {
+      for (int i = 0; i < _keys.length; i++)
+        if (ck._keys[i] != null) {
+          _keys[i] = ck._keys[i];
+          _starts[i] = ck._starts[i];
+        }
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  /** Right rows by key, in an open-addressing hash table of the distinct keys. */
+  static final class Index extends Iced<Index> {
+    final int _ncols;
+    final long[] _keys;         // _ncols per distinct key
+    final int[] _start;         // Per key, its first entry in _rows; last entry is the number of rows
+    final long[] _rows;         // Right rows grouped by key, in row order
+    final int[] _slots;         // Key id + 1 per slot, 0 for an empty slot
+
+    private Index(int ncols, CollectKeys ck) {
+      _ncols = ncols;
+      long n = 0;
+      if (ck._keys != null)
+        for (long[] keys : ck._keys) n += keys == null ? 0 : keys.length / ncols;
+      if (n > Integer.MAX_VALUE) throw new IllegalArgumentException("Too many rows to broadcast: " + n);
+      int cap = 16;
+      while (cap < 2 * n) cap <<= 1;
+      _slots = new int[cap];
+      long[] dkeys = new long[(int) Math.min(n, 16) * ncols];
+      int[] kid = new int[(int) n];
+      long[] rows = new long[(int) n];
+      int nkeys = 0, r = 0;
+      for (int c = 0; ck._keys != null && c < ck._keys.length; c++) {
+        long[] keys = ck._keys[c];
+        if (keys == null) continue;
+        for (int off = 0; off < keys.length; off += ncols, r++) {
+          int slot = slot(keys, off, dkeys);
+          if (_slots[slot] == 0) {
+            if ((nkeys + 1) * ncols > dkeys.length) dkeys = Arrays.copyOf(dkeys, Math.max(dkeys.length * 2, ncols));
+            System.arraycopy(keys, off, dkeys, nkeys * ncols, ncols);
+            _slots[slot] = ++nkeys;
+          }
+          kid[r] = _slots[slot] - 1;
+          rows[r] = ck._starts[c] + off / ncols;
+        }
+      }
+      _keys = Arrays.copyOf(dkeys, nkeys * ncols);
+      // Counting sort of the rows by key id; stable, so row order is kept per key
+      _start = new int[nkeys + 1];
+      for (int i = 0; i < r; i++) _start[kid[i] + 1]++;
+      for (int k = 0; k < nkeys; k++) _start[k + 1] += _start[k];
+      int[] fill = Arrays.copyOf(_start, nkeys);
+      _rows = new long[r];
+      for (int i = 0; i < r; i++) _rows[fill[kid[i]]++] = rows[i];
+    }
+
+    // Slot of a key: the one holding it, or the empty one it would go to
+    private int slot(long[] key, int off, long[] keys) {
+      int mask = _slots.length - 1;
+      int slot = (int) GroupTable.hash(key, off, _ncols) & mask;
+      int k;
+      while ((k = _slots[slot]) != 0 && !equal(keys, (k - 1) * _ncols, key, off))
+        slot = (slot + 1) & mask;
+      return slot;
+    }
+
+    private boolean equal(long[] a, int aoff, long[] b, int boff) {
+      for (int c = 0; c < _ncols; c++)
+        if (a[aoff + c] != b[boff + c]) return false;
+      return true;
+    }
+
+    /** Id of the key, or -1 when no right row has it. */
+    int find(long[] key) {
+      return _slots[slot(key, 0, _keys)] - 1;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  // Streams the left chunks through the index, appending the matching right rows
+  private static class ProbeTask extends MRTask<ProbeTask> {
+    private final Index _idx;
+    private final Frame _rite;
+    private final int[][] _id_maps;
+    private final int[] _riteCards;   // Per key column, the right cardinality; -1 if not categorical
+    private final boolean _allLeft;
+
+    ProbeTask(Index idx, Frame rite, int[][] id_maps, int[] riteCards, boolean allLeft) {
+      _idx = idx;
+      _rite = rite;
+      _id_maps = id_maps;
+      _riteCards = riteCards;
+      _allLeft = allLeft;
+    }
+
+    // Key of a left row, in right levels; false if a level is missing on the right
+    private boolean key(Chunk[] cs, int row, long[] key) {
+      for (int c = 0; c < key.length; c++) {
+        if (_riteCards[c] < 0 || cs[c].isNA(row)) {
+          key[c] = keyBits(cs[c].atd(row));
+          continue;
+        }
+        int level = _id_maps[c][(int) cs[c].at8(row)];
+        if (level < 0 || level >= _riteCards[c]) return false;
+        key[c] = keyBits(level);
+      }
+      return true;
+    }
+
+    @Override
+    public void map(Chunk[] cs, NewChunk[] ncs) {
+      int ncols = _idx._ncols;
+      Vec[] vecs = _rite.vecs();
+      Chunk[] riteChks = new Chunk[ncs.length - cs.length]; // Last right chunk read, per right column
+      long[] key = new long[ncols];
+      for (int row = 0; row < cs[0]._len; row++) {
+        int k = key(cs, row, key) ? _idx.find(key) : -1;
+        if (k < 0) {
+          if (!_allLeft) continue;
+          for (int c = 0; c < cs.length; c++) cs[c].extractRows(ncs[c], row);
+          for (int c = cs.length; c < ncs.length; c++) ncs[c].addNA();
+          continue;
+        }
+        for (int i = _idx._start[k]; i < _idx._start[k + 1]; i++) {
+          long r = _idx._rows[i];
+          for (int c = 0; c < cs.length; c++) cs[c].extractRows(ncs[c], row);
+          for (int c = 0; c < riteChks.length; c++) {
+            Chunk rc = riteChks[c];
+            if (rc == null || r < rc.start() || r >= rc.start() + rc._len)
+              rc = riteChks[c] = vecs[ncols + c].chunkForRow(r);
+            rc.extractRows(ncs[cs.length + c], (int) (r - rc.start()));
+          }
+        }
+      }
+    }
+  }
+}
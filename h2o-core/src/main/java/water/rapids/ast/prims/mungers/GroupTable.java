@@ -0,0 +1,185 @@
+package water.rapids.ast.prims.mungers;
+
+import water.Iced;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table of groups for {@link HashGroupBy}.
+ *
+ * Groups are stored densely by group id: the group key as the raw bits of
+ * its column values, the reduction states of all aggregates back to back, and
+ * the per-aggregate row counts.  Only the open-addressing index mapping a
+ * hash slot to a group id is transient, it is rebuilt on demand after the
+ * table has been shipped to another node.
+ */
+final class GroupTable extends Iced<GroupTable> {
+  final int _ncols;             // Group-by columns
+  final int _naggs;             // Aggregates
+  final int[] _offs;            // Per aggregate, offset of its state in a group's states; last entry is the width
+  final double[] _init;         // States of a new group
+  int _size;                    // Number of groups
+  int _cap;                     // Number of groups the arrays can hold
+  long[] _keys;                 // _ncols per group
+  double[] _vals;               // _offs[_naggs] per group
+  long[] _ns;                   // _naggs per group
+  private transient int[] _index; // Group id + 1 per slot, 0 for an empty slot
+
+  GroupTable(int ncols, AstGroup.AGG[] aggs) {
+    _ncols = ncols;
+    _naggs = aggs.length;
+    _offs = new int[_naggs + 1];
+    double[][] inits = new double[_naggs][];
+    for (int a = 0; a < _naggs; a++) {
+      inits[a] = aggs[a].initVal();
+      _offs[a + 1] = _offs[a] + inits[a].length;
+    }
+    _init = new double[_offs[_naggs]];
+    for (int a = 0; a < _naggs; a++)
+      System.arraycopy(inits[a], 0, _init, _offs[a], inits[a].length);
+    allocate(16);
+  }
+
+  /** An empty table for the same group-by columns and aggregates. */
+  private GroupTable(GroupTable t, int cap) {
+    _ncols = t._ncols;
+    _naggs = t._naggs;
+    _offs = t._offs;
+    _init = t._init;
+    allocate(cap);
+  }
+
+  private void allocate(int cap) {
+    _keys = new long[cap * _ncols];
+    _vals = new double[cap * _init.length];
+    _ns = new long[cap * _naggs];
+    _cap = cap;
+  }
+
+  int width() { return _init.length; }
+
+  // ------------------------------------------------------------------------
+  // Hashing
+
+  static long hash(long[] keys, int off, int ncols) {
+    long h = 0x9E3779B97F4A7C15L;
+    for (int c = 0; c < ncols; c++) {
+      h ^= keys[off + c];
+      h *= 0xFF51AFD7ED558CCDL;
+      h ^= h >>> 32;
+    }
+    h *= 0xC4CEB9FE1A85EC53L;
+    return h ^ (h >>> 29);
+  }
+
+  /** Owner partition of a hash; uses the high bits, the index uses the low ones. */
+  static int partition(long hash, int nparts) {
+    return (int) ((hash >>> 33) % nparts);
+  }
+
+  private void ensureIndex() {
+    if (_index != null && (_size << 1) <= _index.length) return;
+    int cap = 64;
+    while (cap < (_size << 2)) cap <<= 1; // Load factor at most 1/2 until the next rebuild
+    _index = new int[cap];
+    int mask = cap - 1;
+    for (int g = 0; g < _size; g++) {
+      int slot = (int) hash(_keys, g * _ncols, _ncols) & mask;
+      while (_index[slot] != 0) slot = (slot + 1) & mask;
+      _index[slot] = g + 1;
+    }
+  }
+
+  private boolean keyEquals(int g, long[] keys, int off) {
+    int goff = g * _ncols;
+    for (int c = 0; c < _ncols; c++)
+      if (_keys[goff + c] != keys[off + c]) return false;
+    return true;
+  }
+
+  /**
+   * Finds the group with the key stored at 'off' in 'keys', adding a new
+   * group if there is none.
+   * @return the group id
+   */
+  int findOrAdd(long[] keys, int off, long hash) {
+    ensureIndex();
+    int mask = _index.length - 1;
+    int slot = (int) hash & mask;
+    int e;
+    while ((e = _index[slot]) != 0) {
+      if (keyEquals(e - 1, keys, off)) return e - 1;
+      slot = (slot + 1) & mask;
+    }
+    int g = append(keys, off);
+    _index[slot] = g + 1;
+    return g;
+  }
+
+  private int append(long[] keys, int off) {
+    if (_size == _cap) resize(Math.max(16, _size << 1));
+    int g = _size++;
+    System.arraycopy(keys, off, _keys, g * _ncols, _ncols);
+    System.arraycopy(_init, 0, _vals, g * _init.length, _init.length);
+    return g;
+  }
+
+  private void resize(int cap) {
+    _keys = Arrays.copyOf(_keys, cap * _ncols);
+    _vals = Arrays.copyOf(_vals, cap * _init.length);
+    _ns = Arrays.copyOf(_ns, cap * _naggs);
+    _cap = cap;
+  }
+
+  /** Drops the spare capacity, before the table is shipped. */
+  void trim() {
+    if (_size < _cap) resize(_size);
+  }
+
+  // ------------------------------------------------------------------------
+  // Combining tables
+
+  /** Folds the groups of 't' into this table. */
+  void merge(GroupTable t, AstGroup.AGG[] aggs) {
+    int w = width();
+    for (int g = 0; g < t._size; g++) {
+      int koff = g * _ncols;
+      int mine = findOrAdd(t._keys, koff, hash(t._keys, koff, _ncols));
+      for (int a = 0; a < _naggs; a++) {
+        aggs[a]._fcn.atomic_op(_vals, mine * w + _offs[a], t._vals, g * w + _offs[a], _offs[a + 1] - _offs[a]);
+        _ns[mine * _naggs + a] += t._ns[g * _naggs + a];
+      }
+    }
+  }
+
+  /** Splits the groups into 'nparts' tables by the owner partition of their hash. */
+  GroupTable[] split(int nparts) {
+    int[] counts = new int[nparts];
+    int[] parts = new int[_size];
+    for (int g = 0; g < _size; g++)
+      counts[parts[g] = partition(hash(_keys, g * _ncols, _ncols), nparts)]++;
+    GroupTable[] res = new GroupTable[nparts];
+    for (int p = 0; p < nparts; p++)
+      res[p] = new GroupTable(this, counts[p]);
+    int w = width();
+    for (int g = 0; g < _size; g++) {
+      GroupTable t = res[parts[g]];
+      int h = t._size++;
+      System.arraycopy(_keys, g * _ncols, t._keys, h * _ncols, _ncols);
+      System.arraycopy(_vals, g * w, t._vals, h * w, w);
+      System.arraycopy(_ns, g * _naggs, t._ns, h * _naggs, _naggs);
+    }
+    return res;
+  }
+
+  // ------------------------------------------------------------------------
+  // Results
+
+  double key(int g, int c) {
+    return Double.longBitsToDouble(_keys[g * _ncols + c]);
+  }
+
+  double result(AstGroup.AGG[] aggs, int g, int a) {
+    return aggs[a]._fcn.postPass(_vals, g * width() + _offs[a], _offs[a + 1] - _offs[a], _ns[g * _naggs + a]);
+  }
+}
@@ -0,0 +1,265 @@
+package water.rapids.ast.prims.mungers;
+
+import water.*;
+import water.fvec.Chunk;
+import water.fvec.Frame;
+import water.fvec.NewChunk;
+import water.fvec.Vec;
+import water.util.Log;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Hash based group-by used by {@link AstGroup}.
+ *
+ * Rows are aggregated into primitive {@link GroupTable}s in two passes:
+ * <ol>
+ *   <li>{@link PartialAggTask}: every F/J thread aggregates the chunks it maps
+ *   into a table of its own.  A thread's table is handed over to the node
+ *   whenever it grows past {@link #FLUSH_GROUPS} groups, and once more when
+ *   the node is done.  There the groups are split by the hash of their key
+ *   into one partition per node, and each partition is sent to the DKV homed
+ *   on its owner node.</li>
+ *   <li>{@link MergePartitionsTask}: every node merges the partitions it owns
+ *   and keeps the result in its local DKV.  As a group only lives on its
+ *   owner, the merged tables are disjoint; only their sizes travel back.</li>
+ *   <li>{@link FillTask}: every node writes the output chunks of its own
+ *   groups, so no node ever holds more than its share of the groups.</li>
+ * </ol>
+ * Partitions wait in the DKV between the passes, so the memory manager can
+ * swap them to disk under memory pressure.  The output is in no particular
+ * order.
+ */
+public class HashGroupBy {
+
+  /** Groups a per-thread table may hold before it is handed over to the node. */
+  static final int FLUSH_GROUPS = 1 << 16;
+
+  /** Most rows of an output chunk. */
+  static final int OUTPUT_CHUNK_ROWS = 1 << 16;
+
+  /**
+   * Finds the groups in 'fr' by the values of 'gbCols' and computes the
+   * aggregates 'aggs' for each of them.  Does not support the median.
+   * @return one row per group: the group-by columns, then the aggregates;
+   *         in no particular order
+   */
+  static Frame doGroups(Frame fr, int[] gbCols, AstGroup.AGG[] aggs, String[] names, String[][] domains) {
+    long start = System.currentTimeMillis();
+    String tag = Key.rand();
+    try {
+      new PartialAggTask(tag, gbCols, aggs).doAll(fr);
+      long[] sizes = new MergePartitionsTask(tag, gbCols.length, aggs).doAllNodes()._sizes;
+
+      // Each node's groups get whole chunks of their own, in node order
+      int nchunks = 0;
+      int[] firstChunk = new int[sizes.length + 1];
+      for (int n = 0; n < sizes.length; n++) {
+        firstChunk[n] = nchunks;
+        nchunks += Math.max(1, (int) ((sizes[n] + OUTPUT_CHUNK_ROWS - 1) / OUTPUT_CHUNK_ROWS));
+      }
+      firstChunk[sizes.length] = nchunks;
+      long[] espc = new long[nchunks + 1];
+      for (int n = 0; n < sizes.length; n++)
+        for (int c = firstChunk[n]; c < firstChunk[n + 1]; c++)
+          espc[c + 1] = espc[c] + Math.min(OUTPUT_CHUNK_ROWS, sizes[n] - (c - firstChunk[n]) * (long) OUTPUT_CHUNK_ROWS);
+      Key<Vec>[] keys = new Vec.VectorGroup().addVecs(names.length);
+      int rowLayout = Vec.ESPC.rowLayout(keys[0], espc);
+      Vec[] vecs = new Vec[names.length];
+      for (int i = 0; i < vecs.length; i++)
+        vecs[i] = new Vec(keys[i], rowLayout, domains[i], Vec.T_NUM);
+      new FillTask(tag, vecs, firstChunk, aggs).doAllNodes();
+
+      Futures fs = new Futures();
+      for (Vec v : vecs) DKV.put(v, fs);
+      fs.blockForPending();
+      Frame res = new Frame(names, vecs);
+      Log.info("Hash Group By done in " + (System.currentTimeMillis() - start) / 1000. + " (s), " + res.numRows() + " groups");
+      return res;
+    } finally {
+      new CleanupTask(tag).doAllNodes(); // Also after a failure part way
+    }
+  }
+
+  // Partition of node 'from' owned by node 'owner'
+  static Key partitionKey(String tag, int owner, int from) {
+    return Key.make("__groupby_" + tag + "_part" + owner + "_from" + from,
+            (byte) 1, Key.HIDDEN_USER_KEY, false, H2O.CLOUD._memary[owner]);
+  }
+
+  // Merged groups of node 'owner'
+  static Key mergedKey(String tag, int owner) {
+    return Key.make("__groupby_" + tag + "_merged" + owner,
+            (byte) 1, Key.HIDDEN_USER_KEY, false, H2O.CLOUD._memary[owner]);
+  }
+
+  // --------------------------------------------------------------------------
+  static class PartialAggTask extends MRTask<PartialAggTask> {
+    private final String _tag;
+    private final int[] _gbCols;
+    private final AstGroup.AGG[] _aggs;
+    private transient ConcurrentLinkedQueue<GroupTable> _threadTables; // Idle per-thread tables
+    private transient GroupTable[] _parts;                              // Node-local partitions, one per owner
+
+    PartialAggTask(String tag, int[] gbCols, AstGroup.AGG[] aggs) {
+      _tag = tag;
+      _gbCols = gbCols;
+      _aggs = aggs;
+    }
+
+    @Override
+    protected void setupLocal() {
+      _threadTables = new ConcurrentLinkedQueue<>();
+      _parts = new GroupTable[H2O.CLOUD.size()];
+      for (int p = 0; p < _parts.length; p++)
+        _parts[p] = new GroupTable(_gbCols.length, _aggs);
+    }
+
+    @Override
+    public void map(Chunk[] cs) {
+      GroupTable gt = _threadTables.poll();
+      if (gt == null) gt = new GroupTable(_gbCols.length, _aggs);
+      int ncols = _gbCols.length;
+      int len = cs[0]._len;
+      long[] key = new long[ncols];
+      int[] gids = new int[len];
+      for (int row = 0; row < len; row++) {
+        for (int c = 0; c < ncols; c++)
+          key[c] = Double.doubleToLongBits(cs[_gbCols[c]].atd(row));
+        gids[row] = gt.findOrAdd(key, 0, GroupTable.hash(key, 0, ncols));
+      }
+      int w = gt.width();
+      for (int a = 0; a < _aggs.length; a++) {  // Column at a time
+        Chunk c = cs[_aggs[a]._col];
+        int off = gt._offs[a];
+        for (int row = 0; row < len; row++)
+          _aggs[a].op(gt._vals, gids[row] * w + off, gt._ns, gids[row] * _aggs.length + a, c.atd(row));
+      }
+      if (gt._size >= FLUSH_GROUPS) {
+        flush(gt);
+        gt = new GroupTable(_gbCols.length, _aggs);
+      }
+      _threadTables.add(gt);
+    }
+
+    // Merge a thread's groups into the node-local partitions
+    private void flush(GroupTable gt) {
+      GroupTable[] split = gt.split(_parts.length);
+      for (int p = 0; p < _parts.length; p++) {
+        if (split[p]._size == 0) continue;
+        synchronized (_parts[p]) {
+          _parts[p].merge(split[p], _aggs);
+        }
+      }
+    }
+
+    @Override
+    protected void closeLocal() {
+      GroupTable gt;
+      while ((gt = _threadTables.poll()) != null)
+        if (gt._size > 0) flush(gt);
+      Futures fs = new Futures();
+      for (int p = 0; p < _parts.length; p++) {
+        if (_parts[p]._size == 0) continue;
+        _parts[p].trim();
+        // Need dontCache==true, so data does not remain both locally and on remote
+        DKV.put(partitionKey(_tag, p, H2O.SELF.index()), _parts[p], fs, true);
+      }
+      fs.blockForPending();
+      _threadTables = null;
+      _parts = null;
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  static class MergePartitionsTask extends MRTask<MergePartitionsTask> {
+    private final String _tag;
+    private final int _ncols;
+    private final AstGroup.AGG[] _aggs;
+    long[] _sizes;                // Per node, the number of groups it owns
+
+    MergePartitionsTask(String tag, int ncols, AstGroup.AGG[] aggs) {
+      _tag = tag;
+      _ncols = ncols;
+      _aggs = aggs;
+    }
+
+    @Override
+    protected void setupLocal() {
+      GroupTable gt = null;
+      int self = H2O.SELF.index();
+      for (int from = 0; from < H2O.CLOUD.size(); from++) {
+        Key k = partitionKey(_tag, self, from);
+        GroupTable part = DKV.getGet(k);
+        if (part == null) continue;
+        DKV.remove(k);
+        if (gt == null) gt = part;
+        else if (part._size > gt._size) { part.merge(gt, _aggs); gt = part; }
+        else gt.merge(part, _aggs);
+      }
+      _sizes = new long[H2O.CLOUD.size()];
+      if (gt == null) return;
+      gt.trim();
+      DKV.put(mergedKey(_tag, self), gt);
+      _sizes[self] = gt._size;
+    }
+
+    @Override
+    public void reduce(MergePartitionsTask mrt) {
+      if (_sizes == null) _sizes = mrt._sizes;
+      else if (mrt._sizes != null && _sizes != mrt._sizes)
+        for (int n = 0; n < _sizes.length; n++) _sizes[n] += mrt._sizes[n];
+    }
+  }
+
+  // --------------------------------------------------------------------------
+  static class FillTask extends MRTask<FillTask> {
+    private final String _tag;
+    private final Vec[] _vecs;        // Output Vecs, not yet in the DKV
+    private final int[] _firstChunk;  // Per node, the first output chunk of its groups
+    private final AstGroup.AGG[] _aggs;
+
+    FillTask(String tag, Vec[] vecs, int[] firstChunk, AstGroup.AGG[] aggs) {
+      _tag = tag;
+      _vecs = vecs;
+      _firstChunk = firstChunk;
+      _aggs = aggs;
+    }
+
+    @Override
+    protected void setupLocal() {
+      int self = H2O.SELF.index();
+      GroupTable gt = DKV.getGet(mergedKey(_tag, self));
+      int size = gt == null ? 0 : gt._size;
+      Futures fs = new Futures();
+      for (int c = _firstChunk[self], g = 0; c < _firstChunk[self + 1]; c++) {
+        int end = Math.min(size, g + OUTPUT_CHUNK_ROWS);
+        for (int j = 0; j < _vecs.length; j++) {
+          NewChunk nc = new NewChunk(_vecs[j], c);
+          for (int r = g; r < end; r++)
+            nc.addNum(j < gt._ncols ? gt.key(r, j) : gt.result(_aggs, r, j - gt._ncols));
+          nc.close(c, fs);
+        }
+        g = end;
+      }
+      fs.blockForPending();
+    }
+  }
+
+  // Removes whatever a group-by left in the DKV of each node
+  static class CleanupTask extends MRTask<CleanupTask> {
+    private final String _tag;
+
+    CleanupTask(String tag) { _tag = tag; }
+
+    @Override
+    protected void setupLocal() {
+      int self = H2O.SELF.index();
+      Futures fs = new Futures();
+      for (int from = 0; from < H2O.CLOUD.size(); from++)
+        DKV.remove(partitionKey(_tag, self, from), fs);
+      DKV.remove(mergedKey(_tag, self), fs);
+      fs.blockForPending();
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package water.util;
+
+import java.util.Arrays;
+
+/**
+ * Pure-Java codec for the LZ4 block format.
+ *
+ * A single greedy pass with a 4-byte hash table and no entropy coding: it
+ * trades ratio for speed, which is what node-to-node traffic wants.  Output
+ * is a plain LZ4 block (sequences of token, literals, 2-byte offset, match
+ * length) and can be read by any LZ4 block decoder; the raw length is not
+ * stored and must be carried by the caller.
+ *
+ * Compressor instances hold a hash table and are not thread-safe;
+ * {@link #decompress} is static.
+ */
+public final class LZ4Block {
+  private static final int MIN_MATCH = 4;
+  private static final int LAST_LITERALS = 5;  // Block must end with this many literals
+  private static final int MF_LIMIT = 12;      // No match may start this close to the end
+  private static final int MAX_OFFSET = 65535;
+  private static final int HASH_LOG = 14;
+  private static final int SKIP_TRIGGER = 6;   // Speed up over incompressible data
+
+  private final int[] _table = new int[1 << HASH_LOG]; // Position+1 of the last 4 bytes with this hash; 0 if none
+
+  /** @return worst-case compressed size of len bytes */
+  public static int maxCompressedLength(int len) { return len + len / 255 + 16; }
+
+  /** Compress src[soff, soff+len) into dst at doff.  dst must have
+   *  {@link #maxCompressedLength} bytes of room.
+   *  @return compressed length */
+  public int compress(byte[] src, int soff, int len, byte[] dst, int doff) {
+    final int end = soff + len;
+    int op = doff, anchor = soff;
+    if( len >= MF_LIMIT + 1 ) {
+      Arrays.fill(_table, 0);
+      final int mflimit = end - MF_LIMIT, matchLimit = end - LAST_LITERALS;
+      int ip = soff;
+      while( ip < mflimit ) {
+        // Find a 4-byte match
+        int seq = readInt(src, ip);
+        int h = hash(seq);
+        int ref = _table[h] - 1;
+        _table[h] = ip + 1;
+        if( ref < soff || ip - ref > MAX_OFFSET || readInt(src, ref) != seq ) {
+          ip += 1 + ((ip - anchor) >>> SKIP_TRIGGER);
+          continue;
+        }
+        // Extend backwards over literals already pending
+        while( ip > anchor && ref > soff && src[ip - 1] == src[ref - 1] ) { ip--; ref--; }
+        int mstart = ip, off = ip - ref;
+        ip += MIN_MATCH; ref += MIN_MATCH;
+        while( ip < matchLimit && src[ip] == src[ref] ) { ip++; ref++; }
+        op = putSequence(src, anchor, mstart - anchor, off, ip - mstart - MIN_MATCH, dst, op);
+        anchor = ip;
+        if( ip < mflimit ) _table[hash(readInt(src, ip - 2))] = ip - 2 + 1;
+      }
+    }
+    // Trailing literals, no match
+    int lit = end - anchor;
+    int tok = op++;
+    dst[tok] = 0;
+    op = putLength(lit, 4, dst, tok, op);
+    System.arraycopy(src, anchor, dst, op, lit);
+    return op + lit - doff;
+  }
+
+  /** Decompress an LZ4 block src[soff, soff+len) into exactly rawLen bytes at dst[doff].
+   *  @throws IllegalArgumentException on a malformed or mis-sized block */
+  public static void decompress(byte[] src, int soff, int len, byte[] dst, int doff, int rawLen) {
+    final int end = soff + len, oend = doff + rawLen;
+    int ip = soff, op = doff;
+    while( true ) {
+      if( ip >= end ) throw new IllegalArgumentException("Malformed LZ4 block: truncated at " + (ip - soff));
+      int token = src[ip++] & 0xFF;
+      int lit = token >>> 4;
+      if( lit == 15 ) {
+        int b;
+        do { if( ip >= end ) throw new IllegalArgumentException("Malformed LZ4 block: truncated length");
+             lit += (b = src[ip++] & 0xFF); } while( b == 255 );
+      }
+      if( lit > end - ip || lit > oend - op ) throw new IllegalArgumentException("Malformed LZ4 block: literals overrun");
+      System.arraycopy(src, ip, dst, op, lit);
+      ip += lit; op += lit;
+      if( ip == end ) break;    // Last sequence has no match
+      if( end - ip < 2 ) throw new IllegalArgumentException("Malformed LZ4 block: truncated offset");
+      int off = (src[ip] & 0xFF) | ((src[ip + 1] & 0xFF) << 8);
+      ip += 2;
+      int ref = op - off;
+      if( off == 0 || ref < doff ) throw new IllegalArgumentException("Malformed LZ4 block: bad offset " + off);
+      int mlen = token & 15;
+      if( mlen == 15 ) {
+        int b;
+        do { if( ip >= end ) throw new IllegalArgumentException("Malformed LZ4 block: truncated length");
+             mlen += (b = src[ip++] & 0xFF); } while( b == 255 );
+      }
+      mlen += MIN_MATCH;
+      if( mlen > oend - op ) throw new IllegalArgumentException("Malformed LZ4 block: match overrun");
+      if( off >= mlen ) System.arraycopy(dst, ref, dst, op, mlen);
+      else for( int i = 0; i < mlen; i++ ) dst[op + i] = dst[ref + i]; // Overlapping copy repeats the pattern
+      op += mlen;
+    }
+    if( op != oend ) throw new IllegalArgumentException("Malformed LZ4 block: expected " + rawLen + " bytes, got " + (op - doff));
+  }
+
+  // Token, literal-length extension, literals, offset, match-length extension
+  private static int putSequence(byte[] src, int lsrc, int lit, int off, int mlen, byte[] dst, int op) {
+    int tok = op++;
+    dst[tok] = 0;
+    op = putLength(lit, 4, dst, tok, op);
+    System.arraycopy(src, lsrc, dst, op, lit);
+    op += lit;
+    dst[op++] = (byte) off;
+    dst[op++] = (byte) (off >>> 8);
+    return putLength(mlen, 0, dst, tok, op);
+  }
+
+  // Put a 4-bit length into the token at tok (at the given shift), spilling
+  // the excess over 15 into 255-run bytes at op
+  private static int putLength(int n, int shift, byte[] dst, int tok, int op) {
+    if( n < 15 ) { dst[tok] |= (byte) (n << shift); return op; }
+    dst[tok] |= (byte) (15 << shift);
+    for( n -= 15; n >= 255; n -= 255 ) dst[op++] = (byte) 255;
+    dst[op++] = (byte) n;
+    return op;
+  }
+
+  private static int readInt(byte[] b, int i) {
+    return (b[i] & 0xFF) | ((b[i + 1] & 0xFF) << 8) | ((b[i + 2] & 0xFF) << 16) | (b[i + 3] << 24);
+  }
+
+  private static int hash(int seq) { return (seq * -1640531535) >>> (32 - HASH_LOG); }
+}
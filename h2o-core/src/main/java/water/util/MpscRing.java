@@ -0,0 +1,61 @@
+package water.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free multi-producer / single-consumer ring buffer.
+ *
+ * Producers claim a slot by a CAS on the tail and then publish the element
+ * into it; the single consumer takes elements in claim order.  There is no
+ * lock on either side, and no allocation per element.  A slot which has been
+ * claimed but not yet published shows up as {@link #poll} returning null
+ * while {@link #isEmpty} is false; the consumer just tries again.
+ */
+public final class MpscRing<E> {
+  private final AtomicReferenceArray<E> _slots;
+  private final int _mask;
+  private final AtomicLong _tail = new AtomicLong(); // Next slot to claim; producers
+  private final AtomicLong _head = new AtomicLong(); // Next slot to take; written by the consumer only
+
+  /** @param capacity rounded up to a power of 2 */
+  public MpscRing(int capacity) {
+    int cap = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    _slots = new AtomicReferenceArray<>(cap);
+    _mask = cap - 1;
+  }
+
+  public int capacity() { return _mask + 1; }
+
+  /** Add an element; any thread.
+   *  @return false if the ring is full */
+  public boolean offer(E e) {
+    assert e != null;
+    while( true ) {
+      long t = _tail.get();
+      if( t - _head.get() > _mask ) return false; // Full
+      if( _tail.compareAndSet(t, t + 1) ) {
+        _slots.lazySet((int)t & _mask, e);
+        return true;
+      }
+    }
+  }
+
+  /** Take the next element; consumer thread only.
+   *  @return null if the ring is empty, or the next element is not yet published */
+  public E poll() {
+    long h = _head.get();
+    int idx = (int)h & _mask;
+    E e = _slots.get(idx);
+    if( e == null ) return null;
+    _slots.lazySet(idx, null);
+    _head.lazySet(h + 1);
+    return e;
+  }
+
+  /** @return true if no element is claimed or published */
+  public boolean isEmpty() { return _tail.get() == _head.get(); }
+
+  /** @return approximate number of elements */
+  public int size() { return (int)Math.max(0, _tail.get() - _head.get()); }
+}
@@ -0,0 +1,36 @@
+package water;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.util.IcedInt;
+
+import static org.junit.Assert.*;
+
+public class EvictionPolicyTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  private static Value touchedValue(long when, int touches) {
+    Value v = new Value(Key.make(), new IcedInt(0));
+    for( int i=0; i<touches; i++ ) v.get();
+    v.touchAt(when);
+    return v;
+  }
+
+  @Test public void testLRU() {
+    EvictionPolicy lru = new EvictionPolicy.LRU();
+    Value v = touchedValue(1000, 10);
+    assertEquals(1000, lru.rank(v));
+  }
+
+  @Test public void testFrequencyBoostProtectsFrequentValues() {
+    EvictionPolicy freq = new EvictionPolicy.FrequencyBoost();
+    long now = System.currentTimeMillis();
+    Value scanned = touchedValue(now, 1);          // Touched once by a recent scan
+    Value working = touchedValue(now - 20*1000, 8); // Working set, touched a bit earlier
+    assertEquals(now, freq.rank(scanned));
+    assertTrue("working set must be evicted after the scan", freq.rank(working) > freq.rank(scanned));
+    // Protection fades as the Value is aged without further use
+    for( int i=0; i<4; i++ ) freq.age(working);
+    assertEquals(now - 20*1000, freq.rank(working));
+  }
+}
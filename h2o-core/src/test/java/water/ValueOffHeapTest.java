@@ -0,0 +1,76 @@
+package water;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Off-heap tier of the K/V store: a Value's bytes can be parked in direct
+ * memory and re-loaded on demand.
+ */
+public class ValueOffHeapTest extends TestUtil {
+  @BeforeClass() public static void setup() { stall_till_cloudsize(1); }
+
+  private int _oldOffHeapMem;
+  @Before public void enableOffHeap() { _oldOffHeapMem = H2O.ARGS.off_heap_mem; H2O.ARGS.off_heap_mem = 1; }
+  @After public void restoreOffHeap() { H2O.ARGS.off_heap_mem = _oldOffHeapMem; }
+
+  @Test public void testStoreAndReload() {
+    byte[] bits = new byte[1024];
+    new Random(0xCAFE).nextBytes(bits);
+    Key k = Key.make();
+    Value v = new Value(k, bits.clone());
+    DKV.put(k, v);
+    try {
+      long used = MemoryManager.offHeapUsed();
+      assertTrue(v.storeOffHeap());
+      assertTrue(v.isOffHeap());
+      assertEquals(used + bits.length, MemoryManager.offHeapUsed());
+      v.freeMem();
+      assertNull(v.rawMem());
+      assertArrayEquals(bits, v.memOrLoad()); // Reloaded from direct memory
+      assertFalse(v.isOffHeap());             // ... which releases the parked copy
+      assertEquals(used, MemoryManager.offHeapUsed());
+      assertTrue(v.storeOffHeap());
+      DKV.remove(k);
+      assertFalse(v.isOffHeap());
+      assertEquals(used, MemoryManager.offHeapUsed());
+    } finally {
+      DKV.remove(k);
+    }
+  }
+
+  @Test public void testFreeParkedMem() {
+    byte[] bits = new byte[1024];
+    new Random(0xBEEF).nextBytes(bits);
+    Value v = new Value(Key.make(), bits.clone());
+    long used = MemoryManager.offHeapUsed();
+    assertFalse(v.freeParkedMem()); // Not parked: heap copy stays
+    assertNotNull(v.rawMem());
+    assertTrue(v.storeOffHeap());
+    assertTrue(v.freeParkedMem());
+    assertNull(v.rawMem());
+    assertArrayEquals(bits, v.memOrLoad());
+    assertEquals(used, MemoryManager.offHeapUsed());
+  }
+
+  @Test public void testTierFull() {
+    Value v = new Value(Key.make(), new byte[2 << 20]); // 2MB into a 1MB tier
+    long used = MemoryManager.offHeapUsed();
+    assertFalse(v.storeOffHeap());
+    assertFalse(v.isOffHeap());
+    assertEquals(used, MemoryManager.offHeapUsed());
+  }
+
+  @Test public void testTierDisabled() {
+    H2O.ARGS.off_heap_mem = 0;
+    Value v = new Value(Key.make(), new byte[16]);
+    assertFalse(v.storeOffHeap());
+    assertFalse(v.isOffHeap());
+  }
+}
@@ -0,0 +1,216 @@
+package water.fvec;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.*;
+import water.parser.ParseDataset;
+import water.parser.ParseSetup;
+import water.parser.ParserTest;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for RowAppender.java and ParseDataset.append
+ */
+public class RowAppenderTest extends TestUtil {
+  @BeforeClass
+  public static void setup() {
+    stall_till_cloudsize(1);
+  }
+
+  @Test
+  public void testAppendMergesRollupsAndDomains() {
+    try {
+      Scope.enter();
+      Frame dst = Scope.track(new TestFrameBuilder()
+              .withName("dst")
+              .withColNames("x", "c")
+              .withVecTypes(Vec.T_NUM, Vec.T_CAT)
+              .withDataForCol(0, ard(1, 2, Double.NaN, 4, 5))
+              .withDataForCol(1, ar("b", "a", "b", null, "a"))
+              .withChunkLayout(2, 3)
+              .build());
+      Frame src = Scope.track(new TestFrameBuilder()
+              .withName("src")
+              .withColNames("x", "c")
+              .withVecTypes(Vec.T_NUM, Vec.T_CAT)
+              .withDataForCol(0, ard(0.5, -7, 9))
+              .withDataForCol(1, ar("c", "b", "c"))
+              .withChunkLayout(1, 2)
+              .build());
+      // Make sure there are rollups to merge
+      assertEquals(3, dst.vec(0).mean(), 0);
+      String[] odom = dst.vec(1).domain();
+      Vec[] before = dst.vecs().clone();
+
+      RowAppender.append(dst, src);
+      assertEquals(8, dst.numRows());
+      assertEquals(4, dst.anyVec().nChunks());
+      assertEquals(before[0]._key, dst.vec(0)._key);
+      assertArrayEquals(new String[]{odom[0], odom[1], "c"}, dst.vec(1).domain());
+      assertEquals(0.5, dst.vec(0).at(5), 0);
+      assertEquals(9, dst.vec(0).at(7), 0);
+      assertEquals("c", dst.vec(1).domain()[(int) dst.vec(1).at8(5)]);
+      assertEquals("b", dst.vec(1).domain()[(int) dst.vec(1).at8(6)]);
+      assertEquals("b", dst.vec(1).domain()[(int) dst.vec(1).at8(0)]);
+      assertTrue(dst.vec(1).isNA(3));
+
+      // Merged rollups must match a from-scratch computation over the same rows
+      Frame fresh = Scope.track(dst.deepCopy(Key.make().toString()));
+      for (int i = 0; i < dst.numCols(); i++) {
+        Vec m = dst.vec(i), f = fresh.vec(i);
+        assertEquals(f.mean(), m.mean(), 1e-10);
+        assertEquals(f.sigma(), m.sigma(), 1e-10);
+        assertEquals(f.min(), m.min(), 0);
+        assertEquals(f.max(), m.max(), 0);
+        assertEquals(f.naCnt(), m.naCnt());
+        assertEquals(f.nzCnt(), m.nzCnt());
+        assertEquals(f.isInt(), m.isInt());
+        assertArrayEquals(f.mins(), m.mins(), 0);
+        assertArrayEquals(f.maxs(), m.maxs(), 0);
+      }
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testAppendToEmptyFrame() {
+    try {
+      Scope.enter();
+      Frame dst = new Frame(Key.<Frame>make(), new String[]{"x"}, new Vec[]{Vec.makeZero(0)});
+      DKV.put(dst);
+      Scope.track(dst);
+      assertEquals(0, dst.vec(0).naCnt()); // Rollups of the empty Vec are looked up
+      Frame src = Scope.track(new TestFrameBuilder()
+              .withColNames("x")
+              .withVecTypes(Vec.T_NUM)
+              .withDataForCol(0, ard(1, 2, 6))
+              .build());
+
+      RowAppender.append(dst, src);
+      assertEquals(3, dst.numRows());
+      Vec m = dst.vec(0), f = src.vec(0);
+      assertEquals(f.mean(), m.mean(), 1e-10);
+      assertEquals(f.sigma(), m.sigma(), 1e-10);
+      assertEquals(f.min(), m.min(), 0);
+      assertEquals(f.max(), m.max(), 0);
+      assertTrue(m.byteSize() > 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testAppendMixedVectorGroups() {
+    try {
+      Scope.enter();
+      Vec x = Vec.makeVec(ard(1, 2, 3), Vec.newKey());
+      // Other layouts registered first, so the same rows get another layout number in y's group
+      Vec.VectorGroup group = new Vec.VectorGroup();
+      Vec.ESPC.rowLayout(group.addVec(), new long[]{0, 7});
+      Vec.ESPC.rowLayout(group.addVec(), new long[]{0, 2, 9});
+      Vec y = Vec.makeVec(ard(4, 5, 6), group.addVec());
+      assertNotEquals(x._rowLayout, y._rowLayout);
+      Frame dst = new Frame(Key.<Frame>make(), new String[]{"x", "y"}, new Vec[]{x, y});
+      DKV.put(dst);
+      Scope.track(dst);
+      Frame src = Scope.track(new TestFrameBuilder()
+              .withColNames("x", "y")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, ard(7, 8))
+              .withDataForCol(1, ard(9, 10))
+              .build());
+
+      RowAppender.append(dst, src);
+      assertArrayEquals(dst.vec(0).espc(), dst.vec(1).espc());
+      assertEquals(5, dst.vec(1).length());
+      assertEquals(6, dst.vec(1).at(2), 0);
+      assertEquals(10, dst.vec(1).at(4), 0);
+      assertEquals(8, dst.vec(0).at(4), 0);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testAppendCopiesSharedVecs() {
+    Frame other = null;
+    try {
+      Scope.enter();
+      Frame dst = Scope.track(new TestFrameBuilder()
+              .withName("dst")
+              .withColNames("x", "y")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, ard(1, 2, 3))
+              .withDataForCol(1, ard(4, 5, 6))
+              .build());
+      other = new Frame(Key.<Frame>make(), new String[]{"x"}, new Vec[]{dst.vec(0)});
+      DKV.put(other);
+      Vec y = dst.vec(1);
+      Frame src = Scope.track(new TestFrameBuilder()
+              .withColNames("x", "y")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, ard(7))
+              .withDataForCol(1, ard(8))
+              .build());
+
+      RowAppender.append(dst, src);
+      Scope.track(dst);                                    // Also the copy
+      assertEquals(4, dst.numRows());
+      assertEquals(7, dst.vec(0).at(3), 0);
+      assertNotEquals(other.vec(0)._key, dst.vec(0)._key); // The shared column was copied...
+      assertEquals(y._key, dst.vec(1)._key);               // ...the private one grown in place
+      other = DKV.getGet(other._key);
+      assertEquals(3, other.numRows());
+      assertEquals(2, other.vec(0).mean(), 0);
+    } finally {
+      if (other != null) DKV.remove(other._key); // Its Vec is tracked through dst
+      Scope.exit();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAppendRejectsTypeMismatch() {
+    try {
+      Scope.enter();
+      Frame dst = Scope.track(new TestFrameBuilder()
+              .withColNames("x")
+              .withVecTypes(Vec.T_NUM)
+              .withDataForCol(0, ard(1, 2))
+              .build());
+      Frame src = Scope.track(new TestFrameBuilder()
+              .withColNames("x")
+              .withVecTypes(Vec.T_CAT)
+              .withDataForCol(0, ar("a", "b"))
+              .build());
+      RowAppender.append(dst, src);
+    } finally {
+      Scope.exit();
+    }
+  }
+
+  @Test
+  public void testParseAppend() {
+    Frame fr = null;
+    try {
+      Key k1 = ParserTest.makeByteVec("a,1\nb,2\n");
+      Key[] keys = new Key[]{k1};
+      ParseSetup setup = ParseSetup.guessSetup(keys, false, ParseSetup.NO_HEADER);
+      fr = ParseDataset.parse(Key.make(), keys, true, setup);
+      assertEquals(2, fr.vec(1).mean(), 0);
+
+      Key k2 = ParserTest.makeByteVec("c,3\na,4\n");
+      ParseDataset.append(fr, new Key[]{k2}, setup, true);
+      assertEquals(4, fr.numRows());
+      assertArrayEquals(new String[]{"a", "b", "c"}, fr.vec(0).domain());
+      assertEquals(2, fr.vec(0).at8(2));
+      assertEquals(0, fr.vec(0).at8(3));
+      assertEquals(2.5, fr.vec(1).mean(), 1e-10);
+      assertEquals(4, fr.vec(1).max(), 0);
+      assertNull(DKV.get(k2));
+    } finally {
+      if (fr != null) fr.delete();
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package water.network;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for CompressedByteChannel
+ */
+public class CompressedByteChannelTest {
+
+  /** In-memory loopback; reads hand out at most 1000 bytes at a time, like a socket */
+  private static class Loopback implements ByteChannel {
+    final ByteBuffer _bb = ByteBuffer.allocate(1 << 20);
+    int _rd;
+    @Override public int write(ByteBuffer src) { int n = src.remaining(); _bb.put(src); return n; }
+    @Override public int read(ByteBuffer dst) {
+      int n = Math.min(Math.min(dst.remaining(), _bb.position() - _rd), 1000);
+      if (n == 0) return -1;
+      for (int i = 0; i < n; i++) dst.put(_bb.get(_rd++));
+      return n;
+    }
+    @Override public boolean isOpen() { return true; }
+    @Override public void close() { }
+  }
+
+  @Test
+  public void testRoundTrip() throws IOException {
+    Loopback wire = new Loopback();
+    CompressedByteChannel.Stats stats = new CompressedByteChannel.Stats();
+    CompressedByteChannel out = new CompressedByteChannel(wire, 1024, stats);
+    byte[] big = new byte[150000]; // Compressible, spans several frames
+    for (int i = 0; i < big.length; i++) big[i] = (byte) (i % 17);
+    byte[] small = {1, 2, 3};      // Under the threshold: stored
+    byte[] noise = new byte[5000]; // Incompressible: stored
+    new Random(3).nextBytes(noise);
+    ByteBuffer bbig = ByteBuffer.allocateDirect(big.length);
+    bbig.put(big).flip();
+    assertEquals(big.length, out.write(bbig));
+    assertFalse(bbig.hasRemaining());
+    out.write(ByteBuffer.wrap(small));
+    out.write(ByteBuffer.wrap(noise));
+
+    long raw = big.length + small.length + noise.length;
+    assertEquals(raw, stats._rawBytes.get());
+    assertEquals(wire._bb.position(), stats._wireBytes.get());
+    assertTrue(stats.ratio() > 5);
+
+    CompressedByteChannel in = new CompressedByteChannel(wire, Integer.MAX_VALUE, null);
+    ByteBuffer got = ByteBuffer.allocate((int) raw + 10);
+    int n;
+    while ((n = in.read(got)) != -1) assertTrue(n > 0);
+    assertEquals(raw, got.position());
+    byte[] b = got.array();
+    for (int i = 0; i < big.length; i++) assertEquals(big[i], b[i]);
+    for (int i = 0; i < small.length; i++) assertEquals(small[i], b[big.length + i]);
+    for (int i = 0; i < noise.length; i++) assertEquals(noise[i], b[big.length + small.length + i]);
+  }
+}
@@ -0,0 +1,132 @@
+package water.parser;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for Categorical
+ */
+public class CategoricalTest {
+
+  @Test
+  public void testIdsInOrderOfFirstAppearance() {
+    Categorical cat = new Categorical();
+    assertEquals(-1, cat.maxId());
+    String[] keys = {"b", "", "a", "b", "c", "", "a"};
+    int[] ids = {0, 1, 2, 0, 3, 1, 2};
+    BufferedString bs = new BufferedString();
+    for (int i = 0; i < keys.length; i++) {
+      bs.set(keys[i].getBytes());
+      assertEquals(ids[i], cat.addKey(bs));
+    }
+    assertEquals(4, cat.size());
+    assertEquals(3, cat.maxId());
+    assertTrue(cat.containsKey(new BufferedString("c")));
+    assertFalse(cat.containsKey(new BufferedString("d")));
+    assertEquals(3, cat.getTokenId(new BufferedString("c")));
+    assertEquals(-1, cat.getTokenId(new BufferedString("d")));
+    assertArrayEquals(new String[]{"", "a", "b", "c"}, sortedDomain(cat));
+  }
+
+  @Test
+  public void testKeysOutliveTheCallersBuffer() {
+    Categorical cat = new Categorical();
+    byte[] buf = "xxabcxx".getBytes();
+    BufferedString bs = new BufferedString(buf, 2, 3);
+    assertEquals(0, cat.addKey(bs));
+    Arrays.fill(buf, (byte) 'z');
+    assertEquals(0, cat.getTokenId(new BufferedString("abc")));
+    assertEquals(-1, cat.getTokenId(new BufferedString("zzz")));
+  }
+
+  @Test
+  public void testGrowth() {
+    Categorical cat = new Categorical();
+    final int n = 200000;
+    StringBuilder big = new StringBuilder();
+    for (int i = 0; i < 70000; i++) big.append((char) ('a' + i % 26));
+    // Spill over several arena pages, including keys too long for the small ones
+    for (int i = 0; i < n; i++) {
+      String k = i % 1000 == 0 ? big.substring(0, 40000 + i / 10) : "level" + i;
+      assertEquals(i, cat.addKey(new BufferedString(k)));
+    }
+    for (int i = 0; i < n; i++) {
+      String k = i % 1000 == 0 ? big.substring(0, 40000 + i / 10) : "level" + i;
+      assertEquals(i, cat.getTokenId(new BufferedString(k)));
+    }
+    assertEquals(n, cat.size());
+    assertEquals(n, cat.getColumnDomain().length);
+  }
+
+  @Test
+  public void testConcurrentInserts() throws Exception {
+    final Categorical cat = new Categorical();
+    final int nthreads = 8, nkeys = 50000;
+    final AtomicReferenceArray<Integer> ids = new AtomicReferenceArray<>(nkeys);
+    final CountDownLatch start = new CountDownLatch(1);
+    final Throwable[] err = new Throwable[1];
+    Thread[] threads = new Thread[nthreads];
+    for (int t = 0; t < nthreads; t++) {
+      final int ft = t;
+      threads[t] = new Thread() {
+        @Override public void run() {
+          try {
+            start.await();
+            BufferedString bs = new BufferedString();
+            // Each thread walks the keys from a different place, so every key is raced for
+            for (int i = 0; i < nkeys; i++) {
+              int k = (i + ft * (nkeys / nthreads)) % nkeys;
+              bs.set(("k" + k).getBytes());
+              int id = cat.addKey(bs);
+              if (!ids.compareAndSet(k, null, id) && ids.get(k) != id)
+                throw new AssertionError("Key k" + k + " got ids " + ids.get(k) + " and " + id);
+            }
+          } catch (Throwable e) {
+            err[0] = e;
+          }
+        }
+      };
+      threads[t].start();
+    }
+    start.countDown();
+    for (Thread t : threads) t.join();
+    if (err[0] != null) throw new AssertionError(err[0]);
+    assertEquals(nkeys, cat.size());
+    Set<Integer> seen = new HashSet<>();
+    for (int k = 0; k < nkeys; k++) {
+      int id = ids.get(k);
+      assertTrue(seen.add(id));
+      assertTrue(id <= cat.maxId());
+      assertEquals(id, cat.getTokenId(new BufferedString("k" + k)));
+    }
+    assertEquals(nkeys, cat.getColumnDomain().length);
+  }
+
+  @Test
+  public void testConvertToUTF8() {
+    Categorical cat = new Categorical();
+    byte[] bad = {'a', (byte) 0xFF, 'b'};
+    cat.addKey(new BufferedString("x"));
+    cat.addKey(new BufferedString(bad, 0, bad.length));
+    cat.convertToUTF8(1);
+    assertArrayEquals(new String[]{"a<0xFF>b", "x"}, sortedDomain(cat));
+    assertEquals(1, cat.getTokenId(new BufferedString("a<0xFF>b")));
+    assertFalse(cat.containsKey(new BufferedString(bad, 0, bad.length)));
+    assertEquals(0, cat.getTokenId(new BufferedString("x")));
+  }
+
+  private static String[] sortedDomain(Categorical cat) {
+    BufferedString[] dom = cat.getColumnDomain();
+    Arrays.sort(dom);
+    String[] res = new String[dom.length];
+    for (int i = 0; i < dom.length; i++) res[i] = dom[i].toString();
+    return res;
+  }
+}
@@ -257,4 +257,38 @@ public class CsvParserTest {
     assertEquals("Cumings, Mrs. John Bradley (Florence Briggs Thayer)", outWriter._data[2][3]);
   }
 
-}
\ No newline at end of file
+
+  @Test
+  public void testParseNumericLines_mixedWithStateMachineLines() {
+    ParseSetup parseSetup = new ParseSetup();
+    parseSetup._parse_type = DefaultParserProviders.CSV_INFO;
+    parseSetup._check_header = ParseSetup.NO_HEADER;
+    parseSetup._separator = ',';
+    parseSetup._column_names = new String[]{"A", "B", "C"};
+    parseSetup._number_columns = 3;
+    CsvParser csvParser = new CsvParser(parseSetup, null);
+
+    // Plain numeric lines go through the line scanner, the others (spaces, quotes, no final EOL) through the state machine
+    final String parsedString = "1,2.5,-3e2\r\n" +
+            "4, 5,\"6\"\n" +
+            ",7.25,1.\n" +
+            "123456789012345678901,0.000001,1E+2\n" +
+            "8,9,10";
+    final Parser.ByteAryData byteAryData = new Parser.ByteAryData(StringUtils.bytesOf(parsedString), 0);
+    final PreviewParseWriter parseWriter = new PreviewParseWriter(parseSetup._number_columns);
+    final PreviewParseWriter outWriter = (PreviewParseWriter) csvParser.parseChunk(0, byteAryData, parseWriter);
+
+    assertEquals(5, outWriter.lineNum());
+    assertEquals(0, outWriter._invalidLines);
+    assertFalse(outWriter.hasErrors());
+    String[][] expected = {
+            {"1.0", "2.5", "-300.0"},
+            {"4.0", "5.0", "6.0"},
+            {"NA", "7.25", "1.0"},
+            {"1.2345678901234568E20", "1.0E-6", "100.0"},
+            {"8.0", "9.0", "10.0"}
+    };
+    for (int i = 0; i < expected.length; i++)
+      Assert.assertArrayEquals(expected[i], outWriter._data[i + 1]);
+  }
+}
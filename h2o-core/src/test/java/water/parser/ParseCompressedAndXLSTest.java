@@ -4,13 +4,15 @@ import static org.junit.Assert.*;
 import static water.parser.DefaultParserProviders.XLS_INFO;
 
 import org.junit.*;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
 
 import water.*;
-import water.fvec.Vec;
-import water.fvec.Frame;
-import water.fvec.NFSFileVec;
+import water.fvec.*;
 import water.util.FileUtils;
+import water.util.StringUtils;
 
 public class ParseCompressedAndXLSTest extends TestUtil {
   @BeforeClass static public void setup() { stall_till_cloudsize(5); }
@@ -73,4 +75,38 @@ public class ParseCompressedAndXLSTest extends TestUtil {
       if( k1 != null ) k1.delete();
     }
   }
+
+  @Test public void testGzipParsedInParallel() throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 5000; i++)
+      sb.append(i).append(',').append(i * 0.5).append(",lvl").append(i % 7).append('\n');
+    byte[] text = StringUtils.bytesOf(sb);
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    try (GZIPOutputStream gz = new GZIPOutputStream(bos)) { gz.write(text); }
+    Frame plain = null, gzipped = null;
+    try {
+      Key pk = makeByteVec(text), gk = makeByteVec(bos.toByteArray());
+      ParseSetup setup = ParseSetup.guessSetup(new Key[]{gk}, false, ParseSetup.NO_HEADER);
+      setup._chunk_size = 1 << 12; // Inflate into many chunks
+      plain = ParseDataset.parse(Key.make(), new Key[]{pk}, true, setup);
+      gzipped = ParseDataset.parse(Key.make(), new Key[]{gk}, true, setup);
+      assertTrue(gzipped.anyVec().nChunks() > 1);
+      assertEquals(5000, gzipped.numRows());
+      assertTrue(TestUtil.isBitIdentical(plain, gzipped));
+      assertNull(DKV.get(gk));
+    } finally {
+      if (plain != null) plain.delete();
+      if (gzipped != null) gzipped.delete();
+    }
+  }
+
+  private static Key makeByteVec(byte[] bits) {
+    Key k = Vec.newKey();
+    Futures fs = new Futures();
+    DKV.put(k, new ByteVec(k, Vec.ESPC.rowLayout(k, new long[]{0, bits.length})), fs);
+    Key ck = Vec.chunkKey(k, 0);
+    DKV.put(ck, new Value(ck, new C1NChunk(bits)), fs);
+    fs.blockForPending();
+    return k;
+  }
 }
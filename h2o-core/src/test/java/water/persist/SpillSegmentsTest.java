@@ -0,0 +1,122 @@
+package water.persist;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import water.Key;
+import water.TestUtil;
+import water.Value;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SpillSegmentsTest extends TestUtil {
+
+  @Rule
+  public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+  @BeforeClass public static void setup() {
+    stall_till_cloudsize(1);
+  }
+
+  private static Value makeValue(int len, long seed) {
+    byte[] bits = new byte[len];
+    new Random(seed).nextBytes(bits);
+    return new Value(Key.make(), bits);
+  }
+
+  @Test public void testStoreLoadAcrossSegments() throws IOException {
+    File dir = tmpFolder.newFolder("segments");
+    SpillSegments segs = new SpillSegments(dir, 1000);
+    Value[] vals = new Value[10];
+    for (int i = 0; i < vals.length; i++) {
+      vals[i] = makeValue(300 + i, i);
+      segs.store(vals[i], vals[i].memOrLoad());
+    }
+    // 3 Values per 1000-byte segment, so several segments got sealed & mapped
+    assertEquals(4, dir.listFiles().length);
+    for (Value v : vals)
+      assertArrayEquals(v.memOrLoad(), segs.load(v));
+  }
+
+  @Test public void testDeadSegmentsAreDropped() throws IOException {
+    File dir = tmpFolder.newFolder("segments");
+    SpillSegments segs = new SpillSegments(dir, 1000);
+    Value[] vals = new Value[4];
+    for (int i = 0; i < vals.length; i++) {
+      vals[i] = makeValue(400, i);
+      segs.store(vals[i], vals[i].memOrLoad());
+    }
+    assertEquals(2, dir.listFiles().length);
+    // First segment is sealed; deleting both of its Values drops the file
+    segs.delete(vals[0]);
+    assertEquals(2, dir.listFiles().length);
+    segs.delete(vals[1]);
+    assertEquals(1, dir.listFiles().length);
+    assertNull(segs.load(vals[0]));
+    assertArrayEquals(vals[2].memOrLoad(), segs.load(vals[2]));
+  }
+
+  @Test public void testSparseSegmentsAreCompacted() throws IOException {
+    File dir = tmpFolder.newFolder("segments");
+    SpillSegments segs = new SpillSegments(dir, 1000);
+    Value[] vals = new Value[8];
+    for (int i = 0; i < vals.length; i++) {
+      vals[i] = makeValue(200, i);
+      segs.store(vals[i], vals[i].memOrLoad());
+    }
+    // 5 Values in the first (sealed) segment; leave 1 of them live
+    for (int i = 0; i < 4; i++)
+      segs.delete(vals[i]);
+    // The next store moves the survivor out and drops the sparse segment
+    Value last = makeValue(200, 42);
+    segs.store(last, last.memOrLoad());
+    assertEquals(1, dir.listFiles().length);
+    for (int i = 4; i < vals.length; i++)
+      assertArrayEquals(vals[i].memOrLoad(), segs.load(vals[i]));
+    assertArrayEquals(last.memOrLoad(), segs.load(last));
+  }
+
+  @Test public void testLoadRacesCompaction() throws Exception {
+    File dir = tmpFolder.newFolder("segments");
+    final SpillSegments segs = new SpillSegments(dir, 1000);
+    final Value keep = makeValue(100, 7);
+    segs.store(keep, keep.memOrLoad());
+    final boolean[] failed = new boolean[1];
+    Thread reader = new Thread() {
+      @Override public void run() {
+        try {
+          for (int i = 0; i < 20000; i++)
+            if (!java.util.Arrays.equals(keep.memOrLoad(), segs.load(keep))) failed[0] = true;
+        } catch (IOException e) {
+          failed[0] = true;
+        }
+      }
+    };
+    reader.start();
+    // Churn: every sealed segment ends up sparse, so keep gets moved around
+    for (int i = 0; i < 2000; i++) {
+      Value v = makeValue(300, i);
+      segs.store(v, v.memOrLoad());
+      segs.delete(v);
+    }
+    reader.join();
+    assertFalse(failed[0]);
+    assertTrue(dir.listFiles().length <= 2);
+  }
+
+  @Test public void testLargeValueGetsOwnSegment() throws IOException {
+    File dir = tmpFolder.newFolder("segments");
+    SpillSegments segs = new SpillSegments(dir, 1000);
+    Value small = makeValue(100, 1);
+    Value large = makeValue(5000, 2);
+    segs.store(small, small.memOrLoad());
+    segs.store(large, large.memOrLoad());
+    assertArrayEquals(small.memOrLoad(), segs.load(small));
+    assertArrayEquals(large.memOrLoad(), segs.load(large));
+  }
+}
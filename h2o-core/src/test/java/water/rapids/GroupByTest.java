@@ -9,7 +9,14 @@ import water.Key;
 import water.Keyed;
 import water.TestUtil;
 import water.fvec.Frame;
+import water.fvec.TestFrameBuilder;
+import water.fvec.Vec;
+import water.rapids.ast.prims.mungers.AstGroup;
 import water.rapids.vals.ValFrame;
+import water.util.IcedHashMap;
+
+import java.util.HashMap;
+import java.util.Random;
 
 import static org.junit.Assert.assertTrue;
 
@@ -259,6 +266,60 @@ public class GroupByTest extends TestUtil {
   }    
 
 
+  @Test public void testHashGroupByMatchesGBTask() {
+    Frame fr = null, res = null;
+    try {
+      // Thousands of groups, with NAs in the keys and in the aggregated column
+      Random rng = new Random(0xDECAF);
+      int nrows = 20000;
+      double[] a = new double[nrows], b = new double[nrows], x = new double[nrows];
+      for (int i = 0; i < nrows; i++) {
+        a[i] = rng.nextInt(100) == 0 ? Double.NaN : rng.nextInt(50);
+        b[i] = rng.nextInt(80) - 40;
+        x[i] = rng.nextInt(10) == 0 ? Double.NaN : rng.nextGaussian();
+      }
+      fr = new TestFrameBuilder()
+              .withName("hex")
+              .withColNames("a", "b", "x")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, a)
+              .withDataForCol(1, b)
+              .withDataForCol(2, x)
+              .withChunkLayout(5000, 5000, 5000, 5000)
+              .build();
+      res = Rapids.exec("(GB hex [0 1] nrow 0 \"all\" mean 2 \"rm\" var 2 \"all\" min 2 \"rm\" max 2 \"ignore\")").getFrame();
+
+      AstGroup.FCN[] fcns = {AstGroup.FCN.nrow, AstGroup.FCN.mean, AstGroup.FCN.var, AstGroup.FCN.min, AstGroup.FCN.max};
+      AstGroup.AGG[] aggs = new AstGroup.AGG[]{
+              new AstGroup.AGG(fcns[0], 0, AstGroup.NAHandling.ALL, 0),
+              new AstGroup.AGG(fcns[1], 2, AstGroup.NAHandling.RM, 0),
+              new AstGroup.AGG(fcns[2], 2, AstGroup.NAHandling.ALL, 0),
+              new AstGroup.AGG(fcns[3], 2, AstGroup.NAHandling.RM, 0),
+              new AstGroup.AGG(fcns[4], 2, AstGroup.NAHandling.IGNORE, 0)};
+      IcedHashMap<AstGroup.G, String> expected = AstGroup.doGroups(fr, new int[]{0, 1}, aggs);
+      chkDim(res, 7, expected.size());
+      HashMap<String, Integer> rowOf = new HashMap<>();
+      for (int row = 0; row < res.numRows(); row++) {
+        rowOf.put(res.vec(0).at(row) + "," + res.vec(1).at(row), row);
+        if (row > 0) { // ordered by the keys, NAs first
+          double a0 = res.vec(0).at(row - 1), a1 = res.vec(0).at(row);
+          double b0 = res.vec(1).at(row - 1), b1 = res.vec(1).at(row);
+          boolean sameA = Double.isNaN(a0) ? Double.isNaN(a1) : a0 == a1;
+          assertTrue(sameA ? b0 < b1 : Double.isNaN(a0) || a0 < a1);
+        }
+      }
+      for (AstGroup.G exp : expected.keySet()) {
+        Integer row = rowOf.get(exp._gs[0] + "," + exp._gs[1]);
+        Assert.assertNotNull("Missing group " + exp, row);
+        for (int i = 0; i < aggs.length; i++)
+          Assert.assertEquals(fcns[i].postPass(exp._dss[i], exp._ns[i]), res.vec(2 + i).at(row), 1e-10);
+      }
+    } finally {
+      if (fr != null) fr.delete();
+      if (res != null) res.delete();
+    }
+  }
+
   private void chkDim( Frame fr, int col, int row ) {
     Assert.assertEquals(col,fr.numCols());
     Assert.assertEquals(row,fr.numRows());
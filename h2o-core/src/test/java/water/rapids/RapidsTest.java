@@ -6,6 +6,7 @@ import org.junit.Test;
 import water.*;
 import water.fvec.Frame;
 import water.fvec.NFSFileVec;
+import water.fvec.TestFrameBuilder;
 import water.fvec.Vec;
 import water.parser.ParseDataset;
 import water.parser.ParseSetup;
@@ -368,6 +369,150 @@ public class RapidsTest extends TestUtil {
     }
   }
 
+  // The broadcast hash join asked for with "broadcast" must give the rows of the
+  // radix merge, in left frame order; "auto" still radix merges, in key order.
+  @Test public void testMergeBroadcastMatchesRadix() {
+    Frame l = null, r = null;
+    Frame[] res = new Frame[3], sorted = new Frame[2];
+    try {
+      Random rng = new Random(0xB0A7);
+      String[] lk = new String[5000], rk = new String[300];
+      long[] ln = new long[lk.length], rn = new long[rk.length];
+      double[] x = new double[lk.length], y = new double[rk.length];
+      String[] levels = {"a", "b", "c", "d", "e", "z"};
+      for (int i = 0; i < lk.length; i++) { lk[i] = levels[rng.nextInt(5)]; ln[i] = rng.nextInt(50); x[i] = i; }
+      for (int i = 0; i < rk.length; i++) { rk[i] = levels[1 + rng.nextInt(5)]; rn[i] = rng.nextInt(60); y[i] = i; }
+      l = new TestFrameBuilder().withName("left").withColNames("k", "n", "x")
+              .withVecTypes(Vec.T_CAT, Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, lk).withDataForCol(1, ln).withDataForCol(2, x)
+              .withChunkLayout(1000, 1000, 1000, 1000, 1000).build();
+      r = new TestFrameBuilder().withName("rite").withColNames("k", "n", "y")
+              .withVecTypes(Vec.T_CAT, Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, rk).withDataForCol(1, rn).withDataForCol(2, y)
+              .build();
+
+      String[] methods = {"broadcast", "radix", "auto"};
+      for (int m = 0; m < methods.length; m++)
+        res[m] = Rapids.exec(String.format("(merge left rite 1 0 [0 1] [0 1] \"%s\")", methods[m])).getFrame();
+      for (int m = 0; m < sorted.length; m++)
+        sorted[m] = res[m].sort(new int[]{0, 1, 2, 3});
+      for (long i = 1; i < res[0].numRows(); i++)
+        assertTrue(res[0].vec("x").at(i - 1) <= res[0].vec("x").at(i));
+      assertEquals(sorted[1].numRows(), sorted[0].numRows());
+      assertArrayEquals(sorted[1].names(), sorted[0].names());
+      for (int c = 0; c < sorted[0].numCols(); c++)
+        for (long i = 0; i < sorted[0].numRows(); i++)
+          assertEquals(sorted[1].vec(c).at(i), sorted[0].vec(c).at(i), 0);
+      assertTrue(isBitIdentical(res[1], res[2]));
+    } finally {
+      for (Frame f : res) if (f != null) f.delete();
+      for (Frame f : sorted) if (f != null) f.delete();
+      if (r != null) r.delete();
+      if (l != null) l.delete();
+    }
+  }
+
+  @Test public void testFusedElementwise() {
+    Frame f = null;
+    Frame[] res = new Frame[3];
+    try {
+      Random rng = new Random(0xF05E);
+      double[] x = new double[3000], y = new double[3000];
+      String[] k = new String[3000];
+      for (int i = 0; i < x.length; i++) {
+        x[i] = i % 97 == 0 ? Double.NaN : rng.nextDouble() * 10;
+        y[i] = rng.nextInt(5);
+        k[i] = i % 2 == 0 ? "a" : "b";
+      }
+      f = new TestFrameBuilder().withName("fus").withColNames("x", "y", "k")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM, Vec.T_CAT)
+              .withDataForCol(0, x).withDataForCol(1, y).withDataForCol(2, k)
+              .withChunkLayout(1000, 500, 1500).build();
+
+      // Fused in one pass, named as if op by op
+      res[0] = Rapids.exec("(> (* (log (+ (cols fus [0]) 1)) (cols fus [1])) 3)").getFrame();
+      assertArrayEquals(new String[]{"log(x)"}, res[0].names());
+      for (int i = 0; i < x.length; i++)
+        assertEquals(Math.log(x[i] + 1) * y[i] > 3 ? 1 : 0, res[0].vec(0).at(i), 0);
+
+      // Fused ifelse; the 1-column test is widened by the multiplication
+      res[1] = Rapids.exec("(ifelse (* (> (cols fus [0]) 2) (cols fus [0 1])) (* (cols fus [0 1]) 2) -1)").getFrame();
+      assertArrayEquals(new String[]{"C1", "C2"}, res[1].names());
+      for (int i = 0; i < x.length; i++) {
+        double tx = (x[i] > 2 ? 1 : 0) * x[i], ty = (x[i] > 2 ? 1 : 0) * y[i];
+        assertEquals(Double.isNaN(tx) ? Double.NaN : tx != 0 ? x[i] * 2 : -1, res[1].vec(0).at(i), 0);
+        assertEquals(Double.isNaN(ty) ? Double.NaN : ty != 0 ? y[i] * 2 : -1, res[1].vec(1).at(i), 0);
+      }
+
+      // Categoricals are not fused, and still come out as NAs
+      res[2] = Rapids.exec("(+ (* (cols fus [2]) 2) 1)").getFrame();
+      assertArrayEquals(new String[]{"k"}, res[2].names());
+      assertEquals(x.length, res[2].vec(0).naCnt());
+    } finally {
+      for (Frame fr : res) if (fr != null) fr.delete();
+      if (f != null) f.delete();
+    }
+  }
+
+  @Test public void testSessionResultCache() {
+    Session ses = new Session();
+    Frame f = null;
+    try {
+      f = new TestFrameBuilder().withName("rc").withColNames("x", "y")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, ard(1, 2, 2, 3, 3, 3)).withDataForCol(1, ard(6, 5, 4, 3, 2, 1))
+              .build();
+      for (Vec v : f.vecs()) v.mean(); // Rollups, hence content versions, at hand
+
+      assertEquals(6, Rapids.exec("(nrow rc)", ses).getNum(), 0);
+      Frame u1 = Rapids.exec("(tmp= u1 (unique (cols rc [0])))", ses).getFrame();
+      Frame u2 = Rapids.exec("(tmp= u2 (unique (cols rc [0])))", ses).getFrame();
+      assertEquals(3, u2.numRows());
+      assertEquals(u1.vec(0)._key, u2.vec(0)._key); // Not computed again
+
+      // A new version of the frame is a new query
+      Rapids.exec("(assign rc (:= rc 100 [0] [0]))", ses);
+      Frame rc = DKV.getGet("rc");
+      for (Vec v : rc.vecs()) v.mean();
+      Frame u3 = Rapids.exec("(tmp= u3 (unique (cols rc [0])))", ses).getFrame();
+      assertNotEquals(u1.vec(0)._key, u3.vec(0)._key);
+      assertEquals(3, u3.numRows());
+      assertEquals(100, u3.vec(0).max(), 0);
+      ses.end(null);
+    } catch (Throwable ex) {
+      throw ses.endQuietly(ex);
+    } finally {
+      Keyed.remove(Key.make("rc"));
+    }
+  }
+
+  // A write in place, outside of the session, must not be served the result cached before it;
+  // 0/1 chunks get no content checksum, so only the content version tells
+  @Test public void testSessionResultCacheInPlaceWrite() {
+    Session ses = new Session();
+    Frame f = null;
+    try {
+      f = new TestFrameBuilder().withName("rcw").withColNames("x")
+              .withVecTypes(Vec.T_NUM)
+              .withDataForCol(0, ard(0, 1, 0, 1, 1, 0))
+              .build();
+      f.vec(0).mean();
+      assertEquals(3, Rapids.exec("(sum (cols rcw [0]))", ses).getNum(), 0);
+      assertEquals(3, Rapids.exec("(sum (cols rcw [0]))", ses).getNum(), 0);
+
+      Vec.Writer w = f.vec(0).open();
+      w.set(0, 1);
+      w.close();
+      f.vec(0).mean();          // Rollups at hand again
+      assertEquals(4, Rapids.exec("(sum (cols rcw [0]))", ses).getNum(), 0);
+      ses.end(null);
+    } catch (Throwable ex) {
+      throw ses.endQuietly(ex);
+    } finally {
+      Keyed.remove(Key.make("rcw"));
+    }
+  }
+
   // test merge with strings with various settings.  Note, both frames contain String columns.
   // Some columns contains NA entries in the String columns.  There are any cases I considered here.
   // However, due to test timing, I choose one test to run randomly each time.
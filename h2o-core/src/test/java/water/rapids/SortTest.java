@@ -11,7 +11,7 @@ import water.util.ArrayUtils;
 import java.io.IOException;
 import java.util.Random;
 
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 public class SortTest extends TestUtil {
   @BeforeClass public static void setup() { stall_till_cloudsize(1); }
@@ -54,6 +54,159 @@ public class SortTest extends TestUtil {
     }
   }
 
+  @Test public void testPinnedSortIndexOutlivesDrop() {
+    Frame fr = null, res = null;
+    SortIndex.removeAll();
+    try {
+      fr = buildFrame(1000,10);
+      fr.insertVec(0,"row",fr.remove(2));
+      res = Merge.sort(fr,new int[]{1,2});
+      // Pinned as a concurrent merge would have it
+      SortIndex idx = SortIndex.find(fr, new int[]{1,2}, new int[2][], new int[]{1,1});
+      assertNotNull(idx);
+      assertTrue(sortedHeaders(idx) > 0);
+
+      // Dropping it leaves the batches to the merge reading them...
+      SortIndex.removeAll();
+      assertEquals(0, SortIndex.cachedIds().length);
+      assertTrue(sortedHeaders(idx) > 0);
+      // ...until that merge is done
+      idx.release();
+      assertEquals(0, sortedHeaders(idx));
+    } finally {
+      SortIndex.removeAll();
+      if( fr  != null ) fr .delete();
+      if( res != null ) res.delete();
+    }
+  }
+
+  private static int sortedHeaders(SortIndex idx) {
+    int n = 0;
+    for (int msb = 0; msb < 256; msb++)
+      if (DKV.get(SingleThreadRadixOrder.getSortedOXHeaderKey(idx._id, msb)) != null) n++;
+    return n;
+  }
+
+  @Test public void testSortIndexReuse() {
+    Frame fr = null, res1 = null, res2 = null, res3 = null;
+    SortIndex.removeAll();
+    try {
+      fr = buildFrame(1000,10);
+      fr.insertVec(0,"row",fr.remove(2));
+      res1 = Merge.sort(fr,new int[]{1,2});
+      String[] cached = SortIndex.cachedIds();
+      assertEquals(1, cached.length);
+
+      // Sorting again on the same keys reuses the index
+      res2 = Merge.sort(fr,new int[]{1,2});
+      assertArrayEquals(cached, SortIndex.cachedIds());
+      assertTrue(isBitIdentical(res1, res2));
+
+      // Writing into a key column makes the index stale
+      Vec.Writer w = fr.vec(1).open();
+      w.set(0, fr.vec(1).at8(0) + 1);
+      w.close();
+      res3 = Merge.sort(fr,new int[]{1,2});
+      String[] rebuilt = SortIndex.cachedIds();
+      assertEquals(1, rebuilt.length);
+      assertNotEquals(cached[0], rebuilt[0]);
+      res3.add("row",res3.remove(0));
+      new CheckSort().doAll(res3);
+
+      // Removing the Frame drops its index
+      fr.delete();
+      fr = null;
+      assertEquals(0, SortIndex.cachedIds().length);
+    } finally {
+      SortIndex.removeAll();
+      if( fr   != null ) fr  .delete();
+      if( res1 != null ) res1.delete();
+      if( res2 != null ) res2.delete();
+      if( res3 != null ) res3.delete();
+    }
+  }
+
+  @Test public void testSortIndexStaleAfterBinaryKeyEdit() {
+    Frame fr = null, res1 = null, res2 = null;
+    SortIndex.removeAll();
+    try {
+      // 0/1 chunks get no content checksum; the edit must show all the same
+      long[] flags = new long[1000], rows = new long[1000];
+      for (int i = 0; i < rows.length; i++) { flags[i] = i % 2; rows[i] = i; }
+      fr = new TestFrameBuilder()
+              .withName("binaryKeys")
+              .withColNames("flag", "row")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, flags)
+              .withDataForCol(1, rows)
+              .withChunkLayout(500, 500)
+              .build();
+      res1 = Merge.sort(fr, new int[]{0,1});
+      String[] cached = SortIndex.cachedIds();
+      assertEquals(1, cached.length);
+
+      Vec.Writer w = fr.vec(0).open();
+      w.set(0, 1);
+      w.close();
+      res2 = Merge.sort(fr, new int[]{0,1});
+      assertNotEquals(cached[0], SortIndex.cachedIds()[0]);
+      assertEquals(499, res2.vec(0).length() - res2.vec(0).nzCnt());
+      checkSortedBy(fr, res2);
+    } finally {
+      SortIndex.removeAll();
+      if( fr   != null ) fr  .delete();
+      if( res1 != null ) res1.delete();
+      if( res2 != null ) res2.delete();
+    }
+  }
+
+  @Test public void testSortIndexStaleAfterKeySwap() {
+    Frame fr = null, res1 = null, res2 = null;
+    SortIndex.removeAll();
+    try {
+      long[] keys = new long[1000], rows = new long[1000];
+      for (int i = 0; i < rows.length; i++) { keys[i] = (i * 7919) % 1000; rows[i] = i; }
+      fr = new TestFrameBuilder()
+              .withName("swappedKeys")
+              .withColNames("key", "row")
+              .withVecTypes(Vec.T_NUM, Vec.T_NUM)
+              .withDataForCol(0, keys)
+              .withDataForCol(1, rows)
+              .withChunkLayout(500, 500)
+              .build();
+      res1 = Merge.sort(fr, new int[]{0});
+      String[] cached = SortIndex.cachedIds();
+      assertEquals(1, cached.length);
+
+      // Same values, in other rows: the content checksum stays as it was
+      Vec.Writer w = fr.vec(0).open();
+      w.set(3, keys[700]);
+      w.set(700, keys[3]);
+      w.close();
+      res2 = Merge.sort(fr, new int[]{0});
+      assertNotEquals(cached[0], SortIndex.cachedIds()[0]);
+      checkSortedBy(fr, res2);
+    } finally {
+      SortIndex.removeAll();
+      if( fr   != null ) fr  .delete();
+      if( res1 != null ) res1.delete();
+      if( res2 != null ) res2.delete();
+    }
+  }
+
+  // Sorted on column 0 then 1 ("row"), holding the rows of fr as they are now
+  private static void checkSortedBy(Frame fr, Frame res) {
+    assertEquals(fr.numRows(), res.numRows());
+    for (long i = 0; i < res.numRows(); i++) {
+      long row = res.vec(1).at8(i);
+      assertEquals(fr.vec(0).at8(row), res.vec(0).at8(i));
+      if (i > 0) {
+        long k0 = res.vec(0).at8(i-1), k1 = res.vec(0).at8(i);
+        assertTrue(k0 < k1 || (k0 == k1 && res.vec(1).at8(i-1) < row));
+      }
+    }
+  }
+
   @Test public void testBasicSortJava2() {
     Frame fr = null, res = null;
     try {
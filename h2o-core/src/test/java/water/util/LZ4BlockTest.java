@@ -0,0 +1,67 @@
+package water.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for LZ4Block
+ */
+public class LZ4BlockTest {
+
+  private static byte[] roundTrip(LZ4Block lz4, byte[] raw) {
+    byte[] z = new byte[LZ4Block.maxCompressedLength(raw.length) + 3];
+    Arrays.fill(z, (byte) 0x5A); // Scratch is dirty on reuse
+    int zlen = lz4.compress(raw, 0, raw.length, z, 3);
+    byte[] back = new byte[raw.length];
+    LZ4Block.decompress(z, 3, zlen, back, 0, raw.length);
+    assertArrayEquals(raw, back);
+    return Arrays.copyOfRange(z, 3, 3 + zlen);
+  }
+
+  @Test
+  public void testRoundTrip() {
+    LZ4Block lz4 = new LZ4Block();
+    Random r = new Random(42);
+    for (int len : new int[]{0, 1, 12, 13, 100, 4096, 65536, 200000}) {
+      byte[] rnd = new byte[len];
+      r.nextBytes(rnd);
+      assertTrue(roundTrip(lz4, rnd).length <= LZ4Block.maxCompressedLength(len));
+
+      byte[] runs = new byte[len]; // Long runs and short repeats, overlapping copies
+      for (int i = 0; i < len; i++) runs[i] = (byte) ((i / 300) % 3 == 0 ? 7 : i % 5);
+      byte[] z = roundTrip(lz4, runs);
+      if (len >= 4096) assertTrue(z.length < len / 10);
+    }
+  }
+
+  @Test
+  public void testDoubles() {
+    // Typical chunk payload: small-range doubles, little-endian
+    byte[] raw = new byte[8 * 8192];
+    Random r = new Random(1);
+    for (int i = 0; i < 8192; i++) {
+      long bits = Double.doubleToLongBits(r.nextInt(100) / 4.0);
+      for (int b = 0; b < 8; b++) raw[8 * i + b] = (byte) (bits >>> (8 * b));
+    }
+    assertTrue(roundTrip(new LZ4Block(), raw).length < raw.length / 2);
+  }
+
+  @Test
+  public void testMalformed() {
+    byte[] raw = new byte[1000];
+    byte[] z = new byte[LZ4Block.maxCompressedLength(raw.length)];
+    int zlen = new LZ4Block().compress(raw, 0, raw.length, z, 0);
+    try {
+      LZ4Block.decompress(z, 0, zlen, new byte[999], 0, 999);
+      fail("Wrong raw length must be detected");
+    } catch (IllegalArgumentException expected) { }
+    try {
+      LZ4Block.decompress(z, 0, zlen - 1, new byte[1000], 0, 1000);
+      fail("Truncated block must be detected");
+    } catch (IllegalArgumentException expected) { }
+  }
+}
@@ -0,0 +1,62 @@
+package water.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for MpscRing
+ */
+public class MpscRingTest {
+
+  @Test
+  public void testFifoAndCapacity() {
+    MpscRing<Integer> ring = new MpscRing<>(5);
+    assertEquals(8, ring.capacity());
+    assertTrue(ring.isEmpty());
+    assertNull(ring.poll());
+    for (int i = 0; i < 8; i++) assertTrue(ring.offer(i));
+    assertFalse(ring.offer(8)); // Full
+    assertEquals(8, ring.size());
+    for (int i = 0; i < 3; i++) assertEquals(i, (int) ring.poll());
+    for (int i = 8; i < 11; i++) assertTrue(ring.offer(i)); // Wraps around
+    for (int i = 3; i < 11; i++) assertEquals(i, (int) ring.poll());
+    assertNull(ring.poll());
+    assertTrue(ring.isEmpty());
+  }
+
+  @Test
+  public void testManyProducers() throws Exception {
+    final int nproducers = 8, n = 20000;
+    final MpscRing<long[]> ring = new MpscRing<>(64);
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] producers = new Thread[nproducers];
+    for (int p = 0; p < nproducers; p++) {
+      final int fp = p;
+      producers[p] = new Thread() {
+        @Override public void run() {
+          try { start.await(); } catch (InterruptedException ignore) { }
+          for (int i = 0; i < n; i++) {
+            long[] e = new long[]{fp, i};
+            while (!ring.offer(e)) Thread.yield();
+          }
+        }
+      };
+      producers[p].start();
+    }
+    start.countDown();
+    // Every element arrives exactly once, and in order per producer
+    int[] next = new int[nproducers];
+    for (int got = 0; got < nproducers * n; ) {
+      long[] e = ring.poll();
+      if (e == null) { Thread.yield(); continue; }
+      assertEquals(next[(int) e[0]]++, e[1]);
+      got++;
+    }
+    for (Thread t : producers) t.join();
+    assertNull(ring.poll());
+    assertTrue(ring.isEmpty());
+  }
+}
@@ -0,0 +1,244 @@
+package hex.genmodel.algos.tree;
+
+import hex.genmodel.utils.ByteBufferWrapper;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * A compressed tree (see {@link SharedTreeMojoModel#scoreTree}) compiled into flat node arrays.
+ *
+ * Nodes are laid out breadth-first, and the two children of a node are always adjacent, so a
+ * node only stores the index of its left child and a step is {@code n = child[n] + (right ? 1 : 0)}.
+ * The top levels of a tree - which every row visits - share a few cache lines.  Categorical
+ * bitsets are copied out of the byte form into one {@code int[]} per tree and each node keeps a
+ * bit offset into it, so there are no bitset objects to chase.  The checks for NAs, categorical
+ * levels outside of the training domain and bitset ranges are all folded into a single
+ * per-node {@code [lo, hi]} range of valid levels, which is resolved at compile time; scoring
+ * a row does not allocate.
+ *
+ * Decisions are exactly those of {@link SharedTreeMojoModel#scoreTree}.  Only the current tree
+ * format (MOJO version 1.2 and newer) is supported.
+ */
+public final class FlatTree {
+  // Node flags
+  private static final byte LEFTWARD = 1;     // NAs (and out-of-range levels) go left
+  private static final byte BITSET = 2;       // Bitset split
+
+  private final int[] _col;       // Split column; -1 for a leaf
+  private final float[] _val;     // Split value, NaN for a NA-vs-rest split, or prediction for a leaf
+  private final int[] _child;     // Left child; the right child follows it
+  private final byte[] _flags;
+  private final int[] _lo;        // Smallest level not sent the NA way
+  private final int[] _hi;        // Largest level not sent the NA way
+  private final int[] _bitOff;    // Bitset split: position of level _lo in _bits
+  private final int[] _bits;
+
+  private FlatTree(int n, int nbits) {
+    _col = new int[n];
+    _val = new float[n];
+    _child = new int[n];
+    _flags = new byte[n];
+    _lo = new int[n];
+    _hi = new int[n];
+    _bitOff = new int[n];
+    _bits = new int[(nbits + 31) >> 5];
+  }
+
+  /**
+   * Compile a compressed tree.
+   * @param tree tree in the compressed (byte) format
+   * @param nclasses number of classes of the model
+   * @param domains domains of the model
+   */
+  public static FlatTree decode(byte[] tree, int nclasses, String[][] domains) {
+    Decoder dec = new Decoder(tree, nclasses, domains);
+    dec.decodeNode(new ByteBufferWrapper(tree), Integer.MIN_VALUE, Integer.MAX_VALUE);
+    return dec.layout();
+  }
+
+  /** @return number of nodes, including leaves */
+  public int size() { return _col.length; }
+
+  /** Score one row; same as {@link SharedTreeMojoModel#scoreTree} without leaf assignment. */
+  public double score(double[] row) {
+    int n = 0;
+    int colId;
+    while ((colId = _col[n]) >= 0)
+      n = _child[n] + (goRight(n, row[colId]) ? 1 : 0);
+    return _val[n];
+  }
+
+  /**
+   * Score a block of rows given column-wise and add the prediction of row {@code r}
+   * to {@code preds[r][k]}.
+   */
+  public void score(double[][] columns, int nrows, double[][] preds, int k) {
+    for (int r = 0; r < nrows; r++) {
+      int n = 0;
+      int colId;
+      while ((colId = _col[n]) >= 0)
+        n = _child[n] + (goRight(n, columns[colId][r]) ? 1 : 0);
+      preds[r][k] += _val[n];
+    }
+  }
+
+  private boolean goRight(int n, double d) {
+    int x = (int) d;
+    if (Double.isNaN(d) || x < _lo[n] || x > _hi[n])
+      return (_flags[n] & LEFTWARD) == 0;
+    if ((_flags[n] & BITSET) == 0)
+      return d >= _val[n];    // Always false for NaN, ie. a NA-vs-rest split
+    int b = _bitOff[n] + x - _lo[n];
+    return (_bits[b >>> 5] & (1 << (b & 31))) != 0;
+  }
+
+  /**
+   * Decodes the byte form depth-first (the order it is stored in) into temporary node arrays,
+   * then lays them out breadth-first.
+   */
+  private static final class Decoder {
+    final byte[] _tree;
+    final int _nclasses;
+    final String[][] _domains;
+    int _len;
+    int[] _col = new int[16];
+    float[] _val = new float[16];
+    int[] _left = new int[16];
+    int[] _right = new int[16];
+    byte[] _flags = new byte[16];
+    int[] _lo = new int[16];
+    int[] _hi = new int[16];
+    int[] _bitOff = new int[16];
+    int[] _bits = new int[4];
+    int _nbits;
+
+    Decoder(byte[] tree, int nclasses, String[][] domains) {
+      _tree = tree;
+      _nclasses = nclasses;
+      _domains = domains;
+    }
+
+    int newNode() {
+      if (_len == _col.length) {
+        int cap = _len << 1;
+        _col = Arrays.copyOf(_col, cap);
+        _val = Arrays.copyOf(_val, cap);
+        _left = Arrays.copyOf(_left, cap);
+        _right = Arrays.copyOf(_right, cap);
+        _flags = Arrays.copyOf(_flags, cap);
+        _lo = Arrays.copyOf(_lo, cap);
+        _hi = Arrays.copyOf(_hi, cap);
+        _bitOff = Arrays.copyOf(_bitOff, cap);
+      }
+      return _len++;
+    }
+
+    int leaf(float pred) {
+      int n = newNode();
+      _col[n] = -1;
+      _val[n] = pred;
+      return n;
+    }
+
+    // Append nbits bits of the bitset stored at tree[byteoff], 32-bit aligned
+    int copyBits(int byteoff, int nbits) {
+      int off = (_nbits + 31) & ~31;
+      _nbits = off + nbits;
+      int words = (_nbits + 31) >> 5;
+      if (words > _bits.length)
+        _bits = Arrays.copyOf(_bits, Math.max(words, _bits.length << 1));
+      for (int i = 0; i < nbits; i++)
+        if ((_tree[byteoff + (i >> 3)] & (1 << (i & 7))) != 0)
+          _bits[(off + i) >>> 5] |= 1 << ((off + i) & 31);
+      return off;
+    }
+
+    /**
+     * @param bsLo inclusive range of the last bitset on the path from the root,
+     * @param bsHi or MIN_VALUE..MAX_VALUE if none; a NA-vs-rest split of a categorical
+     *             column re-uses it for its range check, just like scoreTree() does
+     */
+    int decodeNode(ByteBufferWrapper ab, int bsLo, int bsHi) {
+      int nodeType = ab.get1U();
+      int colId = ab.get2();
+      if (colId == 65535)
+        return leaf(ab.get4f());
+      int n = newNode();
+      _col[n] = colId;
+      int naSplitDir = ab.get1U();
+      boolean naVsRest = naSplitDir == NaSplitDir.NAvsREST.value();
+      boolean leftward = naSplitDir == NaSplitDir.NALeft.value() || naSplitDir == NaSplitDir.Left.value();
+      int lmask = (nodeType & 51);
+      int equal = (nodeType & 12);
+      byte flags = leftward ? LEFTWARD : 0;
+      int lo = Integer.MIN_VALUE, hi = Integer.MAX_VALUE;
+      if (naVsRest) {
+        _val[n] = Float.NaN;
+        if (equal != 0) { lo = bsLo; hi = bsHi; }
+      } else if (equal == 0) {
+        _val[n] = ab.get4f();
+      } else {
+        int bitoff = 0, nbits = 32;
+        if (equal != 8) {
+          bitoff = ab.get2();
+          nbits = ab.get4();
+        }
+        _bitOff[n] = copyBits(ab.position(), nbits);
+        ab.skip(((nbits - 1) >> 3) + 1);
+        flags |= BITSET;
+        lo = bsLo = bitoff;
+        hi = bsHi = bitoff + nbits - 1;
+      }
+      if (_domains != null && _domains[colId] != null)
+        hi = Math.min(hi, _domains[colId].length - 1);
+      _flags[n] = flags;
+      _lo[n] = lo;
+      _hi[n] = hi;
+      // Left subtree directly follows, unless it is a leaf it is prefixed by its size
+      int skip;
+      switch (lmask) {
+        case 0:  skip = ab.get1U();  break;
+        case 1:  skip = ab.get2();  break;
+        case 2:  skip = ab.get3();  break;
+        case 3:  skip = ab.get4();  break;
+        case 16: skip = _nclasses < 256 ? 1 : 2;  break;  // Small leaf
+        case 48: skip = 4;  break;
+        default:
+          throw new IllegalStateException("illegal lmask value " + lmask + " in tree " + Arrays.toString(_tree));
+      }
+      int rightPos = ab.position() + skip;
+      int left = (lmask & 16) != 0 ? leaf(ab.get4f()) : decodeNode(ab, bsLo, bsHi);
+      ByteBufferWrapper ab2 = new ByteBufferWrapper(_tree);
+      ab2.skip(rightPos);
+      int rmask = (nodeType & 0xC0) >> 2;
+      int right = (rmask & 16) != 0 ? leaf(ab2.get4f()) : decodeNode(ab2, bsLo, bsHi);
+      _left[n] = left;
+      _right[n] = right;
+      return n;
+    }
+
+    FlatTree layout() {
+      FlatTree ft = new FlatTree(_len, _nbits);
+      System.arraycopy(_bits, 0, ft._bits, 0, ft._bits.length);
+      ArrayDeque<Integer> queue = new ArrayDeque<>();
+      queue.add(0);
+      int next = 1;
+      for (int i = 0; i < _len; i++) {
+        int n = queue.poll();
+        ft._col[i] = _col[n];
+        ft._val[i] = _val[n];
+        if (_col[n] < 0) continue;
+        ft._flags[i] = _flags[n];
+        ft._lo[i] = _lo[n];
+        ft._hi[i] = _hi[n];
+        ft._bitOff[i] = _bitOff[n];
+        ft._child[i] = next;
+        queue.add(_left[n]);
+        queue.add(_right[n]);
+        next += 2;
+      }
+      return ft;
+    }
+  }
+}
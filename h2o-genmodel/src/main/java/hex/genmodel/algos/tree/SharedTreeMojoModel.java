@@ -52,6 +52,13 @@ public abstract class SharedTreeMojoModel extends MojoModel {
      */
     protected double[] _calib_glm_beta;
 
+    /**
+     * Trees compiled into flat node arrays, see {@link FlatTree}. Built by {@link SharedTreeMojoReader} when
+     * the model is loaded, unless the model is loaded with compact trees; then they are only built on the first
+     * call to {@link #scoreBatch}, and row-wise scoring interprets {@link #_compressed_trees} directly.
+     */
+    private transient volatile FlatTree[] _flat_trees;
+
 
     protected void postInit() {
       if (_mojo_version == 1.0) {
@@ -663,6 +670,19 @@ public abstract class SharedTreeMojoModel extends MojoModel {
      */
     public final void scoreTreeRange(double[] row, int fromIndex, int toIndex, double[] preds) {
         final int clOffset = _nclasses == 1 ? 0 : 1;
+        final FlatTree[] flatTrees = _flat_trees;
+        if (flatTrees != null) {
+            for (int classIndex = 0; classIndex < _ntrees_per_group; classIndex++) {
+                int k = clOffset + classIndex;
+                int itree = treeIndex(fromIndex, classIndex);
+                for (int groupIndex = fromIndex; groupIndex < toIndex; groupIndex++) {
+                    if (flatTrees[itree] != null) // Skip all empty trees
+                        preds[k] += flatTrees[itree].score(row);
+                    itree++;
+                }
+            }
+            return;
+        }
         for (int classIndex = 0; classIndex < _ntrees_per_group; classIndex++) {
             int k = clOffset + classIndex;
             int itree = treeIndex(fromIndex, classIndex);
@@ -675,6 +695,85 @@ public abstract class SharedTreeMojoModel extends MojoModel {
         }
     }
 
+    /**
+     * Score a block of rows given in columnar form.
+     *
+     * The trees are applied in their compiled form (see {@link FlatTree}), and every tree
+     * is applied to the whole block before moving on to the next one, so a tree's nodes stay
+     * in cache for all the rows of the block.  Blocks of a few hundred to a few thousand rows
+     * work best.
+     *
+     * @param columns input data: {@code columns[c][r]} holds what {@code row[c]} would hold for
+     *                row {@code r} in {@link #score0(double[], double[])}
+     * @param offsets per-row offsets, or null
+     * @param nrows number of rows in the block
+     * @param preds output: {@code preds[r]} receives the same as {@code score0} for row {@code r};
+     *              may be null, and null rows are allocated
+     * @return preds
+     */
+    public final double[][] scoreBatch(double[][] columns, double[] offsets, int nrows, double[][] preds) {
+        if (preds == null) preds = new double[nrows][];
+        final int npreds = getPredsSize();
+        for (int r = 0; r < nrows; r++) {
+            if (preds[r] == null) preds[r] = new double[npreds];
+            else Arrays.fill(preds[r], 0);
+        }
+        scoreTreeRange(columns, nrows, 0, _ntree_groups, preds);
+        double[] row = new double[columns.length];
+        for (int r = 0; r < nrows; r++) {
+            for (int c = 0; c < row.length; c++) row[c] = columns[c][r];
+            unifyPreds(row, offsets == null ? 0 : offsets[r], preds[r]);
+        }
+        return preds;
+    }
+
+    /**
+     * Generates (partial, per-class) predictions for a block of rows in columnar form using only
+     * trees from a given range; the batch equivalent of {@link #scoreTreeRange(double[], int, int, double[])}.
+     * @param columns input data, see {@link #scoreBatch}
+     * @param nrows number of rows in the block
+     * @param fromIndex low endpoint (inclusive) of the tree range
+     * @param toIndex high endpoint (exclusive) of the tree range
+     * @param preds array of partial predictions, one per row
+     */
+    public final void scoreTreeRange(double[][] columns, int nrows, int fromIndex, int toIndex, double[][] preds) {
+        final FlatTree[] flatTrees = flatTrees();
+        final int clOffset = _nclasses == 1 ? 0 : 1;
+        if (flatTrees == null) { // Older tree formats: score row by row
+            double[] row = new double[columns.length];
+            for (int r = 0; r < nrows; r++) {
+                for (int c = 0; c < row.length; c++) row[c] = columns[c][r];
+                scoreTreeRange(row, fromIndex, toIndex, preds[r]);
+            }
+            return;
+        }
+        for (int classIndex = 0; classIndex < _ntrees_per_group; classIndex++) {
+            int k = clOffset + classIndex;
+            int itree = treeIndex(fromIndex, classIndex);
+            for (int groupIndex = fromIndex; groupIndex < toIndex; groupIndex++) {
+                if (flatTrees[itree] != null) // Skip all empty trees
+                    flatTrees[itree].score(columns, nrows, preds, k);
+                itree++;
+            }
+        }
+    }
+
+    /**
+     * @return the compiled trees, compiling them first if needed; null for the older tree formats
+     */
+    final FlatTree[] flatTrees() {
+        if (_mojo_version == 1.0 || _mojo_version == 1.1) return null;
+        FlatTree[] flatTrees = _flat_trees;
+        if (flatTrees == null) {
+            flatTrees = new FlatTree[_compressed_trees.length];
+            for (int i = 0; i < flatTrees.length; i++)
+                if (_compressed_trees[i] != null)
+                    flatTrees[i] = FlatTree.decode(_compressed_trees[i], _nclasses, _domains);
+            _flat_trees = flatTrees; // Racy, but every thread compiles the same trees
+        }
+        return flatTrees;
+    }
+
     // note that _ntree_group = _treekeys.length
     // ntrees_per_group = _treeKeys[0].length
     public String[] getDecisionPathNames() {
@@ -5,8 +5,14 @@ import hex.genmodel.ModelMojoReader;
 import java.io.IOException;
 
 /**
+ * Reads the trees of a GBM/DRF MOJO and compiles them into {@link FlatTree}s for fast scoring.
+ *
+ * The compiled trees take several times the memory of the compressed byte form.  Deployments
+ * which are short on memory can keep just the byte form with
+ * {@code -Dsys.ai.h2o.mojo.compact_trees=true}; the trees are then interpreted for every row.
  */
 public abstract class SharedTreeMojoReader<M extends SharedTreeMojoModel> extends ModelMojoReader<M> {
+  public static final String PROP_COMPACT_TREES = "sys.ai.h2o.mojo.compact_trees";
 
   @Override
   protected void readModelData() throws IOException {
@@ -46,5 +52,7 @@ public abstract class SharedTreeMojoReader<M extends SharedTreeMojoModel> extend
     }
 
     _model.postInit();
+    if (!Boolean.getBoolean(PROP_COMPACT_TREES))
+      _model.flatTrees();
   }
 }
@@ -20,6 +20,7 @@ import java.io.*;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -642,6 +643,236 @@ public class EasyPredictModelWrapper implements Serializable {
     return p;
   }
 
+  //----------------------------------------------------------------------
+  // Allocation-free prediction.
+  //----------------------------------------------------------------------
+
+  /**
+   * Create a new reusable predictor for this model; see {@link Predictor}.
+   *
+   * @return A predictor, which must only be used by one thread at a time.
+   */
+  public Predictor newPredictor() {
+    return new Predictor();
+  }
+
+  /**
+   * A reusable prediction handle for high-throughput scoring.
+   *
+   * The regular predict methods take a {@link RowData}, and allocate a new input row and a new prediction
+   * for every call.  A Predictor instead owns its input row and prediction buffer, and writes its results into
+   * prediction objects supplied by the caller, so that a steady-state prediction does not allocate.  Column names
+   * and categorical levels are best resolved to indices once, up front:
+   *
+   * <pre>
+   *     EasyPredictModelWrapper.Predictor p = model.newPredictor();
+   *     int age = p.columnIndex("AGE");
+   *     int race = p.columnIndex("RACE");
+   *     BinomialModelPrediction pred = new BinomialModelPrediction();
+   *     for (...) {
+   *       p.reset().setNumber(age, 65).setLevel(race, "white");
+   *       p.predictBinomial(0, pred);
+   *       ...
+   *     }
+   * </pre>
+   *
+   * Unknown categorical levels are handled as configured for the wrapper.  Leaf node
+   * assignments are not computed.  A Predictor is not thread-safe; create one per thread.
+   */
+  public final class Predictor {
+    private final double[] row;
+    private final double[] preds;
+    private final EnumSet<ModelCategory> categories;
+    private final String[] responseDomain;
+
+    private Predictor() {
+      row = nanArray(m.nfeatures());
+      categories = m.getModelCategories();
+      preds = new double[m.getPredsSize(m.getModelCategory())];
+      String[] domainValues = m.isSupervised() ? m.getDomainValues(m.getResponseIdx()) : null;
+      if (domainValues == null && m.isSupervised() && m.getNumResponseClasses() == 2)
+        domainValues = new String[]{"0", "1"}; // quasibinomial
+      responseDomain = domainValues;
+    }
+
+    /**
+     * @param columnName Name of an input column.
+     * @return Index of the column, or -1 if the model does not use this column.  Setting a value
+     * at index -1 has no effect, just like unknown columns in a {@link RowData} are ignored.
+     */
+    public int columnIndex(String columnName) {
+      Integer index = modelColumnNameToIndexMap.get(columnName);
+      return index == null || index >= row.length ? -1 : index;
+    }
+
+    /**
+     * @param column Index of a categorical column.
+     * @param levelName Name of a level.
+     * @return Index of the level, or -1 if the level is unknown to the model.
+     */
+    public int levelIndex(int column, String levelName) {
+      HashMap<String, Integer> columnDomainMap = domainMap.get(column);
+      if (columnDomainMap == null)
+        return -1;
+      Integer levelIndex = columnDomainMap.get(levelName);
+      if (levelIndex == null)
+        levelIndex = columnDomainMap.get(m.getNames()[column] + "." + levelName);
+      return levelIndex == null ? -1 : levelIndex;
+    }
+
+    /**
+     * Set all the inputs to NA.
+     * @return this
+     */
+    public Predictor reset() {
+      Arrays.fill(row, Double.NaN);
+      return this;
+    }
+
+    /**
+     * Direct access to the input row, laid out as expected by {@link GenModel#score0(double[], double[])}:
+     * numeric values as is, categorical values as level indices, and NaN for NA.
+     * @return The input row.
+     */
+    public double[] row() {
+      return row;
+    }
+
+    public Predictor setNumber(int column, double value) {
+      if (column >= 0)
+        row[column] = value;
+      return this;
+    }
+
+    public Predictor setNumber(String columnName, double value) {
+      return setNumber(columnIndex(columnName), value);
+    }
+
+    /**
+     * Set a categorical input to a level index obtained from {@link #levelIndex}; -1 means NA.
+     * @return this
+     */
+    public Predictor setLevel(int column, int levelIndex) {
+      if (column >= 0)
+        row[column] = levelIndex < 0 ? Double.NaN : levelIndex;
+      return this;
+    }
+
+    /**
+     * Set a categorical input by the name of its level.
+     * @return this
+     * @throws PredictUnknownCategoricalLevelException if the level is unknown and unknown levels are not
+     * converted to NA
+     */
+    public Predictor setLevel(int column, String levelName) throws PredictException {
+      if (column < 0)
+        return this;
+      int levelIndex = levelIndex(column, levelName);
+      if (levelIndex < 0) {
+        String columnName = m.getNames()[column];
+        if (convertUnknownCategoricalLevelsToNa) {
+          errorConsumer.unseenCategorical(columnName, levelName, "Previously unseen categorical level detected, marking as NaN.");
+        } else {
+          errorConsumer.dataTransformError(columnName, levelName, "Unknown categorical level detected.");
+          throw new PredictUnknownCategoricalLevelException("Unknown categorical level (" + columnName + "," + levelName + ")", columnName, levelName);
+        }
+      }
+      return setLevel(column, levelIndex);
+    }
+
+    public Predictor setLevel(String columnName, String levelName) throws PredictException {
+      return setLevel(columnIndex(columnName), levelName);
+    }
+
+    /**
+     * Score the current inputs.
+     *
+     * @param offset Prediction offset.
+     * @param out Raw model predictions, see {@link GenModel#score0(double[], double[])}; must have
+     *            {@link GenModel#getPredsSize()} elements.
+     * @return out
+     */
+    public double[] predictRaw(double offset, double[] out) {
+      return offset == 0 ? m.score0(row, out) : m.score0(row, offset, out);
+    }
+
+    private double[] score(ModelCategory c, double offset) throws PredictException {
+      if (!categories.contains(c))
+        throw new PredictException(c + " prediction type is not supported for this model.");
+      Arrays.fill(preds, 0);
+      return predictRaw(offset, preds);
+    }
+
+    /**
+     * Score the current inputs using a Binomial model.
+     *
+     * @param offset Prediction offset.
+     * @param p Receives the prediction; its arrays are reused when they have the right size.
+     * @return p
+     */
+    public BinomialModelPrediction predictBinomial(double offset, BinomialModelPrediction p) throws PredictException {
+      double[] preds = score(ModelCategory.Binomial, offset);
+      p.labelIndex = (int) preds[0];
+      p.label = responseDomain[p.labelIndex];
+      p.classProbabilities = copyProbabilities(preds, p.classProbabilities);
+      if (m.calibrateClassProbabilities(preds))
+        p.calibratedClassProbabilities = copyProbabilities(preds, p.calibratedClassProbabilities);
+      else
+        p.calibratedClassProbabilities = null;
+      return p;
+    }
+
+    /**
+     * Score the current inputs using a Multinomial model.
+     *
+     * @param offset Prediction offset.
+     * @param p Receives the prediction; its arrays are reused when they have the right size.
+     * @return p
+     */
+    public MultinomialModelPrediction predictMultinomial(double offset, MultinomialModelPrediction p) throws PredictException {
+      double[] preds = score(ModelCategory.Multinomial, offset);
+      p.labelIndex = (int) preds[0];
+      p.label = responseDomain[p.labelIndex];
+      p.classProbabilities = copyProbabilities(preds, p.classProbabilities);
+      return p;
+    }
+
+    /**
+     * Score the current inputs using an Ordinal model.
+     *
+     * @param offset Prediction offset.
+     * @param p Receives the prediction; its arrays are reused when they have the right size.
+     * @return p
+     */
+    public OrdinalModelPrediction predictOrdinal(double offset, OrdinalModelPrediction p) throws PredictException {
+      double[] preds = score(ModelCategory.Ordinal, offset);
+      p.labelIndex = (int) preds[0];
+      p.label = responseDomain[p.labelIndex];
+      p.classProbabilities = copyProbabilities(preds, p.classProbabilities);
+      return p;
+    }
+
+    /**
+     * Score the current inputs using a Regression model.
+     *
+     * @param offset Prediction offset.
+     * @param p Receives the prediction.
+     * @return p
+     */
+    public RegressionModelPrediction predictRegression(double offset, RegressionModelPrediction p) throws PredictException {
+      p.value = score(ModelCategory.Regression, offset)[0];
+      return p;
+    }
+
+    private double[] copyProbabilities(double[] preds, double[] probs) {
+      int n = m.getNumResponseClasses();
+      if (probs == null || probs.length != n)
+        probs = new double[n];
+      System.arraycopy(preds, 1, probs, 0, n);
+      return probs;
+    }
+  }
+
   //----------------------------------------------------------------------
   // Transparent methods passed through to GenModel.
   //----------------------------------------------------------------------
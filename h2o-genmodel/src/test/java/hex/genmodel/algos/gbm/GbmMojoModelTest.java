@@ -3,6 +3,7 @@ package hex.genmodel.algos.gbm;
 import com.google.common.io.ByteStreams;
 import hex.genmodel.ModelMojoReader;
 import hex.genmodel.MojoReaderBackend;
+import hex.genmodel.algos.tree.SharedTreeMojoReader;
 import hex.genmodel.easy.EasyPredictModelWrapper;
 import hex.genmodel.easy.RowData;
 import hex.genmodel.easy.exception.PredictException;
@@ -14,6 +15,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -67,6 +69,47 @@ public class GbmMojoModelTest {
     assertArrayEquals(expectedPreds, preds, 1e-8);
   }
 
+  @Test
+  public void testScoreBatch() throws Exception {
+    final int N = 1000;
+    Random rnd = new Random(0xBA7C);
+    double[][] rows = new double[N][];
+    double[][] columns = new double[11][N];
+    for (int r = 0; r < N; r++) {
+      double[] row = {18.7, 1.51, 1.003, 132.53, 1.15, 0.2, 1.153, 8.3, 0.34, 0.0, 0.0};
+      for (int c = 0; c < row.length - 1; c++)
+        row[c] = rnd.nextInt(20) == 0 ? Double.NaN : row[c] * 2 * rnd.nextDouble();
+      row[10] = rnd.nextInt(5); // Categorical, including levels outside of the domain
+      rows[r] = row;
+      for (int c = 0; c < row.length; c++)
+        columns[c][r] = row[c];
+    }
+    double[][] preds = mojo12.scoreBatch(columns, null, N, null);
+    for (int r = 0; r < N; r++)
+      assertArrayEquals(mojo12.score0(rows[r], new double[3]), preds[r], 0);
+  }
+
+  @Test
+  public void testCompactTrees() throws Exception {
+    GbmMojoModel compact;
+    System.setProperty(SharedTreeMojoReader.PROP_COMPACT_TREES, "true");
+    try {
+      compact = (GbmMojoModel) ModelMojoReader.readFrom(new ClasspathReaderBackend());
+    } finally {
+      System.clearProperty(SharedTreeMojoReader.PROP_COMPACT_TREES);
+    }
+    double[] special = {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 1e12, -1e12, -1, 7};
+    Random rnd = new Random(0xF1A7);
+    for (int r = 0; r < 10000; r++) {
+      double[] row = {18.7, 1.51, 1.003, 132.53, 1.15, 0.2, 1.153, 8.3, 0.34, 0.0, 0.0};
+      for (int c = 0; c < row.length - 1; c++)
+        row[c] = rnd.nextInt(10) == 0 ? special[rnd.nextInt(special.length)] : row[c] * 2 * rnd.nextDouble();
+      row[10] = rnd.nextInt(10) == 0 ? special[rnd.nextInt(special.length)] : rnd.nextInt(5);
+      // Compiled trees must score exactly like the interpreted byte form
+      assertArrayEquals(compact.score0(row, new double[3]), mojo12.score0(row, new double[3]), 0);
+    }
+  }
+
   @Test
   public void testPredict() throws Exception {
     EasyPredictModelWrapper wrapper = new EasyPredictModelWrapper(mojo12);
@@ -6,6 +6,7 @@ import hex.genmodel.MojoModel;
 import hex.genmodel.algos.word2vec.WordEmbeddingModel;
 import hex.genmodel.easy.error.CountingErrorConsumer;
 import hex.genmodel.easy.error.VoidErrorConsumer;
+import hex.genmodel.easy.exception.PredictException;
 import hex.genmodel.easy.exception.PredictUnknownCategoricalLevelException;
 import hex.genmodel.easy.prediction.*;
 import org.junit.Assert;
@@ -378,6 +379,48 @@ public class EasyPredictModelWrapperTest {
     }
   }
 
+  @Test
+  public void testPredictor() throws Exception {
+    SupervisedModel rawModel = makeSupervisedModel();
+    CountingErrorConsumer errorConsumer = new CountingErrorConsumer(rawModel);
+    EasyPredictModelWrapper m = new EasyPredictModelWrapper(new EasyPredictModelWrapper.Config()
+            .setModel(rawModel)
+            .setErrorConsumer(errorConsumer)
+            .setConvertUnknownCategoricalLevelsToNa(true));
+    EasyPredictModelWrapper.Predictor p = m.newPredictor();
+
+    Assert.assertEquals(0, p.columnIndex("C1"));
+    Assert.assertEquals(1, p.columnIndex("C2"));
+    Assert.assertEquals(-1, p.columnIndex("unknownColumn"));
+    Assert.assertEquals(2, p.levelIndex(1, "c2level3"));
+    Assert.assertEquals(-1, p.levelIndex(1, "unknownLevel"));
+
+    p.setLevel(0, p.levelIndex(0, "c1level2")).setLevel("C2", "unknownLevel").setNumber(-1, 42);
+    Assert.assertEquals(1, p.row()[0], 0);
+    Assert.assertTrue(Double.isNaN(p.row()[1]));
+    Assert.assertEquals(1, errorConsumer.getTotalUnknownCategoricalLevelsSeen());
+
+    BinomialModelPrediction expected = m.predictBinomial(new RowData() {{ put("C1", "c1level2"); }});
+    BinomialModelPrediction pred = new BinomialModelPrediction();
+    double[] probs = null;
+    for (int i = 0; i < 3; i++) {
+      p.reset().setLevel("C1", "c1level2");
+      Assert.assertSame(pred, p.predictBinomial(0, pred));
+      Assert.assertEquals(expected.labelIndex, pred.labelIndex);
+      Assert.assertEquals(expected.label, pred.label);
+      Assert.assertArrayEquals(expected.classProbabilities, pred.classProbabilities, 0);
+      if (probs != null) Assert.assertSame(probs, pred.classProbabilities); // Reused
+      probs = pred.classProbabilities;
+    }
+
+    try {
+      p.predictRegression(0, new RegressionModelPrediction());
+      Assert.fail("Regression is not supported by a binomial model");
+    } catch (PredictException e) {
+      // expected
+    }
+  }
+
   @Test
   public void testSortedClassProbability() throws Exception {
     SupervisedModel rawModel = makeSupervisedModel();
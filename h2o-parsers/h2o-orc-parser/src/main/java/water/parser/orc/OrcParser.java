@@ -2,9 +2,15 @@ package water.parser.orc;
 
 import org.apache.hadoop.hive.common.type.HiveDecimal;
 import org.apache.hadoop.hive.ql.exec.vector.*;
+import org.apache.hadoop.hive.ql.io.orc.BooleanColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.ColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.DoubleColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.IntegerColumnStatistics;
 import org.apache.hadoop.hive.ql.io.orc.Reader;
 import org.apache.hadoop.hive.ql.io.orc.RecordReader;
+import org.apache.hadoop.hive.ql.io.orc.StringColumnStatistics;
 import org.apache.hadoop.hive.ql.io.orc.StripeInformation;
+import org.apache.hadoop.hive.ql.io.orc.StripeStatistics;
 import org.apache.hadoop.hive.serde2.io.HiveDecimalWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.*;
 import org.joda.time.DateTime;
@@ -20,6 +26,7 @@ import water.util.StringUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -62,8 +69,17 @@ public class OrcParser extends Parser {
     epoch.setDate(0);   // used to figure out leap seconds, years
 
     this.orcFileReader = ((OrcParser.OrcParseSetup) setup).orcFileReader;
+    _filterCols = setup.rowFilterColumns();
+    boolean[] toInclude = ((OrcParser.OrcParseSetup) setup).getToInclude();
+    _orcColumnIds = new int[setup.getColumnTypes().length];
+    for (int i = 0, c = 0; i < toInclude.length; i++)
+      if (toInclude[i]) _orcColumnIds[c++] = i;
   }
 
+  private final int[] _filterCols;    // Per row filter, the index of the parsed column it tests
+  private final int[] _orcColumnIds;  // Per parsed column, its ORC column id (batch column id + 1)
+  private transient List<StripeStatistics> _stripeStats;
+
   private transient int _cidx;
 
   private transient HashMap<Integer,HashMap<Number,byte[]>> _toStringMaps = new HashMap<>();
@@ -117,10 +133,18 @@ public class OrcParser extends Parser {
     String [] orcTypes = setup.getColumnTypesString();
     boolean[] toInclude = setup.getToInclude();
     try {
+      RowSelectingParseWriter selector = null;
+      if (_filterCols != null) {
+        if (!mayPassFilters(chunkId))
+          return dout; // no row of this stripe can pass the filters
+        selector = new RowSelectingParseWriter(dout, toInclude.length);
+      }
       RecordReader perStripe = orcFileReader.rows(thisStripe.getOffset(), thisStripe.getDataLength(),
           setup.getToInclude(), null, setup.getColumnNames());
       VectorizedRowBatch batch = null;
+      boolean[] keep = null;
       long rows = 0;
+      long keptRows = 0;
       long rowCount = thisStripe.getNumberOfRows();
       while (rows != rowCount) {
         batch = perStripe.nextBatch(batch);  // read orc file stripes in vectorizedRowBatch
@@ -129,12 +153,21 @@ public class OrcParser extends Parser {
         if(currentBatchRow != nrows)
           throw new IllegalArgumentException("got batch with too many records, does not fit in int");
         ColumnVector[] dataVectors = batch.cols;
+        ParseWriter w = dout;
+        if (selector != null) {
+          keep = selectRows(dataVectors, nrows, keep);
+          selector.select(keep);
+          for (int i = 0; i < nrows; i++)
+            if (keep[i]) keptRows++;
+          w = selector;
+        } else
+          keptRows += nrows;
         int colIndex = 0;
         for (int col = 0; col < batch.numCols; ++col) {  // read one column at a time;
           if (toInclude[col + 1]) { // only write a column if we actually want it
             if(_setup.getColumnTypes()[colIndex] != Vec.T_BAD)
-              write1column(dataVectors[col], orcTypes[colIndex], colIndex, nrows, dout);
-            else dout.addNAs(col,nrows);
+              write1column(dataVectors[col], orcTypes[colIndex], colIndex, nrows, w);
+            else w.addNAs(col,nrows);
             colIndex++;
           }
         }
@@ -143,7 +176,7 @@ public class OrcParser extends Parser {
       byte [] col_types = _setup.getColumnTypes();
       for(int i = 0; i < col_types.length; ++i){
         if(col_types[i] == Vec.T_BAD)
-          dout.addNAs(i,(int)rowCount);
+          dout.addNAs(i,(int)keptRows);
       }
       perStripe.close();
     } catch(IOException ioe) {
@@ -153,6 +186,74 @@ public class OrcParser extends Parser {
   }
 
 
+  /**
+   * Uses the stripe statistics to decide whether any row of a stripe can pass
+   * the row filters.  Columns without usable statistics never rule a stripe out.
+   */
+  boolean mayPassFilters(int stripe) throws IOException {
+    if (_stripeStats == null)
+      _stripeStats = orcFileReader.getMetadata().getStripeStatistics();
+    if (stripe >= _stripeStats.size())
+      return true;
+    ColumnStatistics[] stats = _stripeStats.get(stripe).getColumnStatistics();
+    RowFilter[] filters = _setup._row_filters;
+    for (int i = 0; i < filters.length; i++) {
+      int id = _orcColumnIds[_filterCols[i]];
+      if (id >= stats.length || stats[id] == null) continue;
+      ColumnStatistics cs = stats[id];
+      if (cs.getNumberOfValues() == 0)
+        return false; // only missing values, which never pass
+      RowFilter f = filters[i];
+      boolean mayMatch = true;
+      if (cs instanceof IntegerColumnStatistics) {
+        IntegerColumnStatistics is = (IntegerColumnStatistics) cs;
+        mayMatch = f.mayMatch(is.getMinimum(), is.getMaximum());
+      } else if (cs instanceof DoubleColumnStatistics) {
+        DoubleColumnStatistics ds = (DoubleColumnStatistics) cs;
+        mayMatch = f.mayMatch(ds.getMinimum(), ds.getMaximum());
+      } else if (cs instanceof BooleanColumnStatistics) {
+        BooleanColumnStatistics bs = (BooleanColumnStatistics) cs;
+        mayMatch = f.mayMatch(bs.getFalseCount() > 0 ? 0 : 1, bs.getTrueCount() > 0 ? 1 : 0);
+      } else if (cs instanceof StringColumnStatistics && !f.isRange()) {
+        StringColumnStatistics ss = (StringColumnStatistics) cs;
+        mayMatch = f.mayMatch(ss.getMinimum(), ss.getMaximum());
+      }
+      if (!mayMatch) return false;
+    }
+    return true;
+  }
+
+  /**
+   * Evaluates the row filters on one batch.
+   *
+   * @return per row of the batch, whether it passes all filters
+   */
+  private boolean[] selectRows(ColumnVector[] dataVectors, int nrows, boolean[] keep) {
+    if (keep == null || keep.length < nrows)
+      keep = new boolean[nrows];
+    Arrays.fill(keep, 0, nrows, true);
+    RowFilter[] filters = _setup._row_filters;
+    for (int i = 0; i < filters.length; i++) {
+      RowFilter f = filters[i];
+      ColumnVector cv = dataVectors[_orcColumnIds[_filterCols[i]] - 1];
+      for (int r = 0; r < nrows; r++) {
+        if (!keep[r]) continue;
+        int j = cv.isRepeating ? 0 : r;
+        if (!cv.noNulls && cv.isNull[j])
+          keep[r] = false;
+        else if (cv instanceof LongColumnVector)
+          keep[r] = f.matches((double) ((LongColumnVector) cv).vector[j]);
+        else if (cv instanceof DoubleColumnVector)
+          keep[r] = f.matches(((DoubleColumnVector) cv).vector[j]);
+        else if (cv instanceof BytesColumnVector) {
+          BytesColumnVector bcv = (BytesColumnVector) cv;
+          keep[r] = f.matches(new String(bcv.vector[j], bcv.start[j], bcv.length[j], StandardCharsets.UTF_8));
+        }
+      }
+    }
+    return keep;
+  }
+
   /**
    * This method writes one column of H2O data frame at a time.
    *
@@ -525,6 +626,44 @@ public class OrcParser extends Parser {
       this.allColumnNames = allColumnNames;
     }
 
+    /**
+     * Narrows the setup down to the given (supported) columns; the other
+     * columns are not read from the file at all.
+     */
+    void selectColumns(int[] cols) {
+      boolean[] selected = new boolean[getColumnTypes().length];
+      for (int c : cols) selected[c] = true;
+      for (int i = 0, c = 0; i < toInclude.length; i++)
+        if (toInclude[i] && !selected[c++])
+          toInclude[i] = false;
+      String[] typeStrings = new String[cols.length];
+      for (int i = 0; i < cols.length; i++)
+        typeStrings[i] = columnTypesString[cols[i]];
+      columnTypesString = typeStrings;
+      retainColumns(cols);
+    }
+
+    /**
+     * Checks the row filters only test columns the parser can evaluate them on:
+     * integral, boolean and floating point columns for ranges, string columns for levels.
+     */
+    void checkRowFilters() {
+      int[] filterCols = rowFilterColumns();
+      if (filterCols == null) return;
+      for (int i = 0; i < filterCols.length; i++) {
+        String t = columnTypesString[filterCols[i]].toLowerCase();
+        boolean ok;
+        if (_row_filters[i].isRange())
+          ok = t.equals("bigint") || t.equals("int") || t.equals("smallint") || t.equals("tinyint")
+              || t.equals("boolean") || t.equals("float") || t.equals("double");
+        else
+          ok = t.equals("string") || t.equals("varchar") || t.equals("char");
+        if (!ok)
+          throw new IllegalArgumentException("Orc Parser: cannot filter rows on column '" + _row_filters[i]._column
+              + "' of type " + t);
+      }
+    }
+
     public void setOrcFileReader(Reader orcFileReader) {
       this.orcFileReader = orcFileReader;
       this.stripesInfo = orcFileReader.getStripes();
@@ -75,7 +75,13 @@ public class OrcParserProvider extends ParserProvider {
       f = (FileVec) ((Frame) frameOrVec).vec(0);
     else
       f = (FileVec) frameOrVec;
-    return readSetup(f, requiredSetup.getColumnNames(), requiredSetup.getColumnTypes());
+    return readSetup(f, requiredSetup.getColumnNames(), requiredSetup.getColumnTypes(),
+        requiredSetup._selected_columns, requiredSetup._row_filters);
+  }
+
+  @Override
+  public boolean isPushdownSupported() {
+    return true;
   }
 
   private Reader getReader(FileVec f) throws IOException {
@@ -110,6 +116,11 @@ public class OrcParserProvider extends ParserProvider {
    * @return
    */
   public ParseSetup readSetup(FileVec f, String[] columnNames, byte[] columnTypes) {
+    return readSetup(f, columnNames, columnTypes, null, null);
+  }
+
+  private ParseSetup readSetup(FileVec f, String[] columnNames, byte[] columnTypes,
+                               String[] selectedColumns, RowFilter[] rowFilters) {
     try {
       Reader orcFileReader = getReader(f);
       StructObjectInspector insp = (StructObjectInspector) orcFileReader.getObjectInspector();
@@ -121,6 +132,15 @@ public class OrcParserProvider extends ParserProvider {
         stp.setAllColNames(columnNames);
       }
 
+      stp._selected_columns = selectedColumns;
+      stp._row_filters = rowFilters;
+      int[] selected = stp.selectedColumnIndices();
+      // a setup finalized before already has only the selected columns
+      boolean narrowed = selected != null && columnTypes != null && columnTypes.length == selected.length
+          && columnTypes.length != stp.getColumnTypes().length;
+      if (narrowed)
+        stp.selectColumns(selected);
+
       if (columnTypes != null) { // copy enum type only
 
         byte[] old_columnTypes = stp.getColumnTypes();
@@ -140,6 +160,10 @@ public class OrcParserProvider extends ParserProvider {
         stp.setColumnTypeStrings(old_columnTypeNames);
       }
 
+      if (selected != null && !narrowed)
+        stp.selectColumns(selected);
+      stp.checkRowFilters();
+
       List<StripeInformation> stripesInfo = orcFileReader.getStripes();
       if(stripesInfo.size() == 0) { // empty file
         f.setChunkSize(stp._chunk_size = (int)f.length());
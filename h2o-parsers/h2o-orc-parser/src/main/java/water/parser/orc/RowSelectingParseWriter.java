@@ -0,0 +1,54 @@
+package water.parser.orc;
+
+import water.Iced;
+import water.parser.BufferedString;
+import water.parser.ParseWriter;
+
+import java.util.Arrays;
+
+/**
+ * ParseWriter that passes on only the selected rows of a batch.
+ *
+ * The ORC parser writes a batch one column at a time, so the n-th value
+ * written to a column belongs to the n-th row of the batch; values of rows
+ * not selected are dropped.
+ */
+final class RowSelectingParseWriter extends Iced implements ParseWriter {
+  private final ParseWriter _dout;
+  private final int[] _row;     // Per column, the batch row of the next value
+  private boolean[] _selected;  // Rows of the current batch to keep
+
+  RowSelectingParseWriter(ParseWriter dout, int ncols) {
+    _dout = dout;
+    _row = new int[ncols];
+  }
+
+  /** Starts a new batch. */
+  void select(boolean[] selected) {
+    _selected = selected;
+    Arrays.fill(_row, 0);
+  }
+
+  private boolean next(int colIdx) { return _selected[_row[colIdx]++]; }
+
+  @Override public void addNumCol(int colIdx, long number, int exp) { if (next(colIdx)) _dout.addNumCol(colIdx, number, exp); }
+  @Override public void addNumCol(int colIdx, double d) { if (next(colIdx)) _dout.addNumCol(colIdx, d); }
+  @Override public void addInvalidCol(int colIdx) { if (next(colIdx)) _dout.addInvalidCol(colIdx); }
+  @Override public void addStrCol(int colIdx, BufferedString str) { if (next(colIdx)) _dout.addStrCol(colIdx, str); }
+  @Override public void addNAs(int colIdx, int nrow) {
+    int n = 0;
+    for (int i = 0; i < nrow; i++) if (next(colIdx)) n++;
+    if (n > 0) _dout.addNAs(colIdx, n);
+  }
+
+  @Override public void setColumnNames(String[] names) { _dout.setColumnNames(names); }
+  @Override public void newLine() { _dout.newLine(); }
+  @Override public boolean isString(int colIdx) { return _dout.isString(colIdx); }
+  @Override public void rollbackLine() { _dout.rollbackLine(); }
+  @Override public void invalidLine(ParseErr err) { _dout.invalidLine(err); }
+  @Override public void addError(ParseErr err) { _dout.addError(err); }
+  @Override public void setIsAllASCII(int colIdx, boolean b) { _dout.setIsAllASCII(colIdx, b); }
+  @Override public boolean hasErrors() { return _dout.hasErrors(); }
+  @Override public ParseErr[] removeErrors() { return _dout.removeErrors(); }
+  @Override public long lineNum() { return _dout.lineNum(); }
+}
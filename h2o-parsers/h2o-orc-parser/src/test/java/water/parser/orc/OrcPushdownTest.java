@@ -0,0 +1,125 @@
+package water.parser.orc;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.Writer;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import water.Key;
+import water.TestUtil;
+import water.fvec.Frame;
+import water.fvec.NFSFileVec;
+import water.parser.ParseDataset;
+import water.parser.ParseSetup;
+import water.parser.RowFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the column selection and row filters pushed down into OrcParser:
+ * stripes are skipped by their statistics, and a filtered parse holds
+ * exactly the matching rows of an unfiltered one.
+ */
+public class OrcPushdownTest extends TestUtil {
+
+  private static final int STRIPES = 4;
+  private static final int STRIPE_ROWS = 1000;
+
+  @BeforeClass
+  static public void setup() { TestUtil.stall_till_cloudsize(1); }
+
+  public static class Row {
+    long id;
+    double x;
+    String s;
+    Row(long id, double x, String s) { this.id = id; this.x = x; this.s = s; }
+  }
+
+  // STRIPES stripes of STRIPE_ROWS rows each; id counts the rows, s names the stripe
+  private static File writeStripedFile() throws IOException {
+    File f = new File(Files.createTempDirectory("orc-pushdown").toFile(), "striped.orc");
+    ObjectInspector insp = ObjectInspectorFactory.getReflectionObjectInspector(Row.class,
+        ObjectInspectorFactory.ObjectInspectorOptions.JAVA);
+    Writer w = OrcFile.createWriter(new Path(f.toURI()), OrcFile.writerOptions(new Configuration()).inspector(insp));
+    for (int st = 0; st < STRIPES; st++) {
+      for (int r = 0; r < STRIPE_ROWS; r++) {
+        long id = st * STRIPE_ROWS + r;
+        w.addRow(new Row(id, id * 0.5, "s" + st));
+      }
+      w.writeIntermediateFooter(); // flushes the stripe
+    }
+    w.close();
+    return f;
+  }
+
+  private static ParseSetup setupFor(Key[] keys, String[] columns, RowFilter... filters) {
+    ParseSetup guessed = ParseSetup.guessSetup(keys, false, ParseSetup.GUESS_HEADER);
+    guessed._selected_columns = columns;
+    guessed._row_filters = filters;
+    return guessed;
+  }
+
+  @Test
+  public void testStripesAreSkipped() throws IOException {
+    NFSFileVec nfs = NFSFileVec.make(writeStripedFile());
+    try {
+      Key[] keys = new Key[]{nfs._key};
+      OrcParser.OrcParseSetup stp = (OrcParser.OrcParseSetup) new OrcParserProvider().createParserSetup(keys,
+          setupFor(keys, ar("id", "s"), RowFilter.range("id", 1500, 2499)));
+      assertEquals(STRIPES, stp.getStripes().size());
+      OrcParser p = new OrcParser(stp, null);
+      assertFalse(p.mayPassFilters(0));
+      assertTrue(p.mayPassFilters(1));
+      assertTrue(p.mayPassFilters(2));
+      assertFalse(p.mayPassFilters(3));
+
+      stp = (OrcParser.OrcParseSetup) new OrcParserProvider().createParserSetup(keys,
+          setupFor(keys, ar("id", "s"), RowFilter.in("s", "s3")));
+      p = new OrcParser(stp, null);
+      for (int st = 0; st < STRIPES; st++)
+        assertEquals("stripe " + st, st == 3, p.mayPassFilters(st));
+    } finally {
+      nfs.remove();
+    }
+  }
+
+  @Test
+  public void testFilteredParseMatchesUnfiltered() throws IOException {
+    Frame all = null, filtered = null;
+    File f = writeStripedFile();
+    try {
+      NFSFileVec nfs = NFSFileVec.make(f);
+      all = ParseDataset.parse(Key.make(), new Key[]{nfs._key}, true,
+          ParseSetup.guessSetup(new Key[]{nfs._key}, false, ParseSetup.GUESS_HEADER));
+      assertEquals(STRIPES * STRIPE_ROWS, all.numRows());
+
+      nfs = NFSFileVec.make(f);
+      Key[] keys = new Key[]{nfs._key};
+      filtered = ParseDataset.parse(Key.make(), keys, true,
+          setupFor(keys, ar("x", "id"), RowFilter.range("id", 1500, 2499)));
+
+      // columns come in file order
+      assertArrayEquals(ar("id", "x"), filtered.names());
+      int k = 0;
+      for (long row = 0; row < all.numRows(); row++) {
+        long id = all.vec("id").at8(row);
+        if (id < 1500 || id > 2499) continue;
+        assertEquals(id, filtered.vec("id").at8(k));
+        assertEquals(all.vec("x").at(row), filtered.vec("x").at(k), 0);
+        k++;
+      }
+      assertEquals(1000, k);
+      assertEquals(k, filtered.numRows());
+    } finally {
+      if (all != null) all.delete();
+      if (filtered != null) filtered.delete();
+    }
+  }
+}
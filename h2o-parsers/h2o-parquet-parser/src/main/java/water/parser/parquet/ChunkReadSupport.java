@@ -5,29 +5,48 @@ import org.apache.parquet.hadoop.api.InitContext;
 import org.apache.parquet.hadoop.api.ReadSupport;
 import org.apache.parquet.io.api.RecordMaterializer;
 import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.Type;
 import water.parser.ParseWriter;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public class ChunkReadSupport extends ReadSupport<Long> {
 
   private WriterDelegate _writer;
   private byte[] _chunkSchema;
+  private int[] _selectedColumns;
 
   public ChunkReadSupport(WriterDelegate writer, byte[] chunkSchema) {
+    this(writer, chunkSchema, null);
+  }
+
+  /**
+   * @param selectedColumns indices of the Parquet columns to read, null for all;
+   *                        the other columns are never decoded
+   */
+  public ChunkReadSupport(WriterDelegate writer, byte[] chunkSchema, int[] selectedColumns) {
     _writer = writer;
     _chunkSchema = chunkSchema;
+    _selectedColumns = selectedColumns;
   }
 
   @Override
   public ReadContext init(InitContext context) {
-    return new ReadContext(context.getFileSchema());
+    MessageType fileSchema = context.getFileSchema();
+    if (_selectedColumns == null)
+      return new ReadContext(fileSchema);
+    List<Type> fields = new ArrayList<>(_selectedColumns.length);
+    for (int c : _selectedColumns)
+      fields.add(fileSchema.getType(c));
+    return new ReadContext(new MessageType(fileSchema.getName(), fields));
   }
 
   @Override
   public RecordMaterializer<Long> prepareForRead(Configuration configuration, Map<String, String> keyValueMetaData,
                                                     MessageType fileSchema, ReadContext readContext) {
-    return new ChunkRecordMaterializer(fileSchema, _chunkSchema, _writer);
+    return new ChunkRecordMaterializer(readContext.getRequestedSchema(), _chunkSchema, _writer);
   }
 
 }
@@ -1,10 +1,15 @@
 package water.parser.parquet;
 
+import org.apache.parquet.column.statistics.Statistics;
 import org.apache.parquet.format.converter.ParquetMetadataConverter;
 import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnPath;
 import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.io.api.Binary;
 import org.apache.parquet.schema.MessageType;
 import org.apache.parquet.schema.OriginalType;
+import org.apache.parquet.schema.PrimitiveType;
 import org.apache.parquet.schema.Type;
 import water.Job;
 import water.Key;
@@ -13,10 +18,12 @@ import water.fvec.ByteVec;
 import water.fvec.Chunk;
 import water.fvec.Vec;
 import water.parser.*;
+import water.util.ArrayUtils;
 import water.util.IcedHashMapGeneric;
 import water.util.Log;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -31,15 +38,23 @@ public class ParquetParser extends Parser {
   private static final int MAX_PREVIEW_RECORDS = 1000;
 
   private final byte[] _metadata;
+  private final int[] _selectedColumns; // Parquet columns to read, null for all
+  private final int[] _filterColumns;   // Per row filter, the index of its column in the parsed columns
 
   ParquetParser(ParseSetup setup, Key<Job> jobKey) {
     super(setup, jobKey);
     _metadata = ((ParquetParseSetup) setup).parquetMetadata;
+    _selectedColumns = ((ParquetParseSetup) setup).selectedColumns;
+    _filterColumns = setup.rowFilterColumns();
+  }
+
+  private WriterDelegate makeWriter(ParseWriter dout) {
+    return new WriterDelegate(dout, _setup.getColumnTypes().length, _setup._row_filters, _filterColumns);
   }
 
   @Override
   protected final StreamParseWriter sequentialParse(Vec vec, final StreamParseWriter dout) {
-    final ParquetMetadata metadata = VecParquetReader.readFooter(_metadata);
+    final ParquetMetadata metadata = skipRowGroups(VecParquetReader.readFooter(_metadata));
     final int nChunks = vec.nChunks();
     final long totalRecs = totalRecords(metadata);
     final long nChunkRecs = ((totalRecs / nChunks) + (totalRecs % nChunks > 0 ? 1 : 0));
@@ -47,8 +62,8 @@ public class ParquetParser extends Parser {
       throw new IllegalStateException("Unsupported Parquet file. Too many records (#" + totalRecs + ", nChunks=" + nChunks + ").");
     }
 
-    final WriterDelegate w = new WriterDelegate(dout, _setup.getColumnTypes().length);
-    final VecParquetReader reader = new VecParquetReader(vec, metadata, w, _setup.getColumnTypes());
+    final WriterDelegate w = makeWriter(dout);
+    final VecParquetReader reader = new VecParquetReader(vec, metadata, w, _setup.getColumnTypes(), _selectedColumns);
 
     StreamParseWriter nextChunk = dout;
     try {
@@ -98,8 +113,13 @@ public class ParquetParser extends Parser {
       Log.trace("Chunk #", cidx, " doesn't contain any Parquet block center.");
       return dout;
     }
+    metadata = skipRowGroups(metadata);
+    if (metadata.getBlocks().isEmpty()) {
+      Log.trace("No Parquet block of chunk #", cidx, " can pass the row filters.");
+      return dout;
+    }
     Log.info("Processing ", metadata.getBlocks().size(), " blocks of chunk #", cidx);
-    VecParquetReader reader = new VecParquetReader(vec, metadata, dout, _setup.getColumnTypes());
+    VecParquetReader reader = new VecParquetReader(vec, metadata, makeWriter(dout), _setup.getColumnTypes(), _selectedColumns);
     try {
       Long recordNumber;
       do {
@@ -111,6 +131,53 @@ public class ParquetParser extends Parser {
     return dout;
   }
 
+  /**
+   * Drops the row groups whose column statistics show that none of their rows
+   * can pass the row filters.
+   */
+  private ParquetMetadata skipRowGroups(ParquetMetadata metadata) {
+    if (_filterColumns == null) return metadata;
+    MessageType schema = metadata.getFileMetaData().getSchema();
+    List<BlockMetaData> blocks = new ArrayList<>(metadata.getBlocks().size());
+    for (BlockMetaData block : metadata.getBlocks())
+      if (mayPassFilters(block, schema)) blocks.add(block);
+    if (blocks.size() == metadata.getBlocks().size()) return metadata;
+    Log.debug("Row filters skip ", metadata.getBlocks().size() - blocks.size(), " of ", metadata.getBlocks().size(), " Parquet blocks.");
+    return new ParquetMetadata(metadata.getFileMetaData(), blocks);
+  }
+
+  private boolean mayPassFilters(BlockMetaData block, MessageType schema) {
+    for (int i = 0; i < _filterColumns.length; i++) {
+      int col = _selectedColumns == null ? _filterColumns[i] : _selectedColumns[_filterColumns[i]];
+      PrimitiveType type = schema.getType(col).asPrimitiveType();
+      ColumnPath path = ColumnPath.get(type.getName());
+      Statistics stats = null;
+      for (ColumnChunkMetaData ccmd : block.getColumns())
+        if (path.equals(ccmd.getPath())) stats = ccmd.getStatistics();
+      if (stats == null || stats.isEmpty()) continue; // No statistics, cannot tell
+      if (! stats.hasNonNullValue()) return false;     // Only NAs
+      RowFilter f = _setup._row_filters[i];
+      Object min = stats.genericGetMin(), max = stats.genericGetMax();
+      boolean may = true;
+      switch (type.getPrimitiveTypeName()) {
+        case INT32:
+        case INT64:
+        case FLOAT:
+        case DOUBLE:
+          if (type.getOriginalType() != OriginalType.DECIMAL) // Statistics of decimals are unscaled
+            may = f.isRange() && f.mayMatch(((Number) min).doubleValue(), ((Number) max).doubleValue());
+          break;
+        case BINARY:
+          if (! f.isRange())
+            may = f.mayMatch(((Binary) min).toStringUsingUTF8(), ((Binary) max).toStringUsingUTF8());
+          break;
+        default: // Booleans and INT96 timestamps are not compared
+      }
+      if (! may) return false;
+    }
+    return true;
+  }
+
   public static ParquetParseSetup guessFormatSetup(ByteVec vec, byte[] bits) {
     if (bits.length < MAGIC.length) {
       return null;
@@ -143,12 +210,50 @@ public class ParquetParser extends Parser {
    * @return corrected types
    */
   public static byte[] correctTypeConversions(ByteVec vec, byte[] requestedTypes) {
+    return correctTypeConversions(vec, null, requestedTypes);
+  }
+
+  /**
+   * Overrides unsupported type conversions/mappings specified by the user.
+   * @param vec byte vec holding binary parquet data
+   * @param columns indices of the Parquet columns the requested types are for, null for all columns
+   * @param requestedTypes user-specified target types
+   * @return corrected types
+   */
+  static byte[] correctTypeConversions(ByteVec vec, int[] columns, byte[] requestedTypes) {
     byte[] metadataBytes = VecParquetReader.readFooterAsBytes(vec);
     ParquetMetadata metadata = VecParquetReader.readFooter(metadataBytes, ParquetMetadataConverter.NO_FILTER);
     byte[] roughTypes = roughGuessTypes(metadata.getFileMetaData().getSchema());
+    if (columns != null) {
+      byte[] selected = new byte[columns.length];
+      for (int i = 0; i < columns.length; i++) selected[i] = roughTypes[columns[i]];
+      roughTypes = selected;
+    }
     return correctTypeConversions(roughTypes, requestedTypes);
   }
 
+  /**
+   * Resolves the column selection of a setup to indices of Parquet columns.
+   * The setup either still describes all columns of the file, or it was
+   * already narrowed down to the selection (e.g. when reused to parse more files).
+   * @return the column indices in file order, null if all columns are read
+   */
+  static int[] selectedColumns(ByteVec vec, ParseSetup setup) {
+    if (setup._selected_columns == null) return null;
+    MessageType schema = VecParquetReader.readFooter(VecParquetReader.readFooterAsBytes(vec)).getFileMetaData().getSchema();
+    String[] fileNames = columnNames(schema);
+    if (setup.getColumnNames().length == fileNames.length)
+      return setup.selectedColumnIndices(); // Names may have been changed by the user
+    int[] cols = new int[setup._selected_columns.length];
+    for (int i = 0; i < cols.length; i++) {
+      cols[i] = ArrayUtils.find(fileNames, setup._selected_columns[i]);
+      if (cols[i] < 0)
+        throw new IllegalArgumentException("Selected column '" + setup._selected_columns[i] + "' is not present in the Parquet file.");
+    }
+    Arrays.sort(cols);
+    return cols;
+  }
+
   private static byte[] correctTypeConversions(byte[] roughTypes, byte[] requestedTypes) {
     if (requestedTypes.length != roughTypes.length)
       throw new IllegalArgumentException("Invalid column type specification: number of columns and number of types differ!");
@@ -200,6 +305,7 @@ public class ParquetParser extends Parser {
 
   public static class ParquetParseSetup extends ParseSetup {
     transient byte[] parquetMetadata;
+    int[] selectedColumns; // Parquet columns to read, null for all
 
     public ParquetParseSetup() { super(); }
     public ParquetParseSetup(String[] columnNames, byte[] ctypes, String[][] data, byte[] parquetMetadata) {
@@ -44,15 +44,26 @@ public class ParquetParserProvider extends BinaryParserProvider {
     // override incorrect type mappings (using the MessageFormat of the first file)
     Object frameOrVec = DKV.getGet(inputs[0]);
     ByteVec vec = (ByteVec) (frameOrVec instanceof Frame ? ((Frame) frameOrVec).vec(0) : frameOrVec);
+    int[] selected = ParquetParser.selectedColumns(vec, setup);
     byte[] requestedTypes = setup.getColumnTypes();
-    byte[] types = ParquetParser.correctTypeConversions(vec, requestedTypes);
+    boolean narrow = selected != null && requestedTypes.length != selected.length; // setup still has all columns
+    byte[] types = ParquetParser.correctTypeConversions(vec, narrow ? null : selected, requestedTypes);
     setup.setColumnTypes(types);
     for (int i = 0; i < types.length; i++)
       if (types[i] != requestedTypes[i])
         setup.addErrs(new ParseWriter.UnsupportedTypeOverride(inputs[0].toString(),Vec.TYPE_STR[types[i]], Vec.TYPE_STR[requestedTypes[i]], setup.getColumnNames()[i]));
+    if (narrow)
+      setup.retainColumns(selected);
+    ((ParquetParser.ParquetParseSetup) setup).selectedColumns = selected;
+    setup.rowFilterColumns(); // fail early on invalid filters
     return setup;
   }
 
+  @Override
+  public boolean isPushdownSupported() {
+    return true;
+  }
+
   @Override
   public ParseSetup setupLocal(Vec v, ParseSetup setup) {
     ((ParquetParser.ParquetParseSetup) setup).parquetMetadata = VecParquetReader.readFooterAsBytes(v);
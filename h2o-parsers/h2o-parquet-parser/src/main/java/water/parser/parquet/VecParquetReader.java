@@ -61,18 +61,20 @@ public class VecParquetReader implements Closeable {
   private final ParquetMetadata metadata;
   private final WriterDelegate writer;
   private final byte[] chunkSchema;
+  private final int[] selectedColumns;
 
   private ParquetReader<Long> reader;
 
   public VecParquetReader(Vec vec, ParquetMetadata metadata, ParseWriter writer, byte[] chunkSchema) {
-    this(vec, metadata, new WriterDelegate(writer, chunkSchema.length), chunkSchema);
+    this(vec, metadata, new WriterDelegate(writer, chunkSchema.length), chunkSchema, null);
   }
 
-  VecParquetReader(Vec vec, ParquetMetadata metadata, WriterDelegate writer, byte[] chunkSchema) {
+  VecParquetReader(Vec vec, ParquetMetadata metadata, WriterDelegate writer, byte[] chunkSchema, int[] selectedColumns) {
     this.vec = vec;
     this.metadata = metadata;
     this.writer = writer;
     this.chunkSchema = chunkSchema;
+    this.selectedColumns = selectedColumns;
   }
 
   /**
@@ -91,7 +93,7 @@ public class VecParquetReader implements Closeable {
     assert reader == null;
     Configuration conf = VecFileSystem.makeConfiguration(vec);
     conf.setInt(PARQUET_READ_PARALLELISM, 1); // disable parallelism (just one virtual file!)
-    ChunkReadSupport crSupport = new ChunkReadSupport(writer, chunkSchema);
+    ChunkReadSupport crSupport = new ChunkReadSupport(writer, chunkSchema, selectedColumns);
     ParquetReader.Builder<Long> prBuilder = ParquetReader.builder(crSupport, VecFileSystem.VEC_PATH)
             .withConf(conf)
             .withFilter(new FilterCompat.Filter() {
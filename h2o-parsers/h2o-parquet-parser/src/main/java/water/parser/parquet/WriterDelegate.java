@@ -5,8 +5,10 @@ import water.Iced;
 import water.Key;
 import water.parser.BufferedString;
 import water.parser.ParseWriter;
+import water.parser.RowFilter;
 import water.util.IcedInt;
 import water.util.Log;
+import water.util.PrettyPrint;
 
 import java.util.Arrays;
 
@@ -21,10 +23,37 @@ final class WriterDelegate {
   private ParseWriter _writer;
   private int _col;
 
+  // Row filtering: the values of a row are held back until it is complete
+  // and known to pass the filters
+  private static final byte NA = 0, NUM = 1, DBL = 2, STR = 3;
+  private final RowFilter[] _filters;
+  private final int[] _filterCols;
+  private final byte[] _kind;
+  private final long[] _nums;
+  private final int[] _exps;
+  private final double[] _dbls;
+  private final BufferedString[] _strs;
+
   WriterDelegate(ParseWriter writer, int numCols) {
+    this(writer, numCols, null, null);
+  }
+
+  WriterDelegate(ParseWriter writer, int numCols, RowFilter[] filters, int[] filterCols) {
     _maxStringSize = getMaxStringSize();
     _numCols = numCols;
     _colRawSize = new int[numCols];
+    _filters = filters;
+    _filterCols = filterCols;
+    if (filters != null) {
+      _kind = new byte[numCols];
+      _nums = new long[numCols];
+      _exps = new int[numCols];
+      _dbls = new double[numCols];
+      _strs = new BufferedString[numCols];
+      for (int i = 0; i < numCols; i++) _strs[i] = new BufferedString();
+    } else {
+      _kind = null; _nums = null; _exps = null; _dbls = null; _strs = null;
+    }
     setWriter(writer);
   }
 
@@ -36,13 +65,41 @@ final class WriterDelegate {
 
   void startLine() {
     _col = -1;
+    if (_kind != null) Arrays.fill(_kind, NA);
   }
 
   void endLine() {
+    if (_kind != null) {
+      if (!passes()) return;
+      for (int c = 0; c < _numCols; c++) {
+        switch (_kind[c]) {
+          case NUM: writeNumCol(c, _nums[c], _exps[c]); break;
+          case DBL: writeNumCol(c, _dbls[c]); break;
+          case STR: writeStrCol(c, _strs[c]); break;
+          default: // left for moveToCol to fill in as NA
+        }
+      }
+    }
     moveToCol(_numCols);
     _writer.newLine();
   }
 
+  private boolean passes() {
+    for (int i = 0; i < _filters.length; i++) {
+      RowFilter f = _filters[i];
+      int c = _filterCols[i];
+      boolean ok;
+      switch (_kind[c]) {
+        case NUM: ok = f.isRange() && f.matches(PrettyPrint.pow10(_nums[c], _exps[c])); break;
+        case DBL: ok = f.isRange() && f.matches(_dbls[c]); break;
+        case STR: ok = !f.isRange() && f.matches(_strs[c].toString()); break;
+        default:  ok = false; // NAs never pass
+      }
+      if (!ok) return false;
+    }
+    return true;
+  }
+
   private int moveToCol(int colIdx) {
     for (int c = _col + 1; c < colIdx; c++) _writer.addInvalidCol(c);
     _col = colIdx;
@@ -50,14 +107,32 @@ final class WriterDelegate {
   }
 
   void addNumCol(int colIdx, long number, int exp) {
-    _writer.addNumCol(moveToCol(colIdx), number, exp);
+    if (_kind == null) writeNumCol(colIdx, number, exp);
+    else { _kind[colIdx] = NUM; _nums[colIdx] = number; _exps[colIdx] = exp; }
   }
 
   void addNumCol(int colIdx, double d) {
-    _writer.addNumCol(moveToCol(colIdx), d);
+    if (_kind == null) writeNumCol(colIdx, d);
+    else { _kind[colIdx] = DBL; _dbls[colIdx] = d; }
   }
 
   void addStrCol(int colIdx, BufferedString str) {
+    if (_kind == null) writeStrCol(colIdx, str);
+    else { // the converters hand over a fresh byte array for every value, no need to copy
+      _kind[colIdx] = STR;
+      _strs[colIdx].set(str.getBuffer(), str.getOffset(), str.length());
+    }
+  }
+
+  private void writeNumCol(int colIdx, long number, int exp) {
+    _writer.addNumCol(moveToCol(colIdx), number, exp);
+  }
+
+  private void writeNumCol(int colIdx, double d) {
+    _writer.addNumCol(moveToCol(colIdx), d);
+  }
+
+  private void writeStrCol(int colIdx, BufferedString str) {
     if (_colRawSize[colIdx] == -1)
       return; // already exceeded max length
 
@@ -23,12 +23,14 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import water.*;
+import water.exceptions.H2OIllegalArgumentException;
 import water.fvec.Frame;
 import water.fvec.NFSFileVec;
 import water.fvec.Vec;
 import water.parser.BufferedString;
 import water.parser.ParseDataset;
 import water.parser.ParseSetup;
+import water.parser.RowFilter;
 import water.util.IcedInt;
 import water.util.PrettyPrint;
 
@@ -387,6 +389,48 @@ public class ParseTestParquet extends TestUtil {
     }
   }
 
+  @Test
+  public void testParseWithColumnSelectionAndRowFilter() throws IOException {
+    Frame actual = null;
+    try {
+      // small row groups, most of them can be skipped based on their statistics
+      File f = ParquetFileGenerator.generateParquetFile(Files.createTempDir(), "filtered.parquet", 1000, new Date());
+      NFSFileVec nfs = NFSFileVec.make(f);
+      Key[] keys = new Key[]{nfs._key};
+      ParseSetup guessedSetup = ParseSetup.guessSetup(keys, false, ParseSetup.GUESS_HEADER);
+      guessedSetup._selected_columns = ar("double_field", "int32_field");
+      guessedSetup._row_filters = new RowFilter[]{RowFilter.range("int32_field", 532, 631)};
+      guessedSetup.disableParallelParse = disableParallelParse;
+
+      actual = ParseDataset.parse(Key.make(), keys, true, guessedSetup);
+
+      // columns come in file order
+      assertArrayEquals(ar("int32_field", "double_field"), actual.names());
+      assertEquals(100, actual.numRows());
+      for (int row = 0; row < 100; row++) {
+        assertEquals(532 + row, actual.vec(0).at8(row));
+        assertEquals(502 + row, actual.vec(1).at(row), EPSILON);
+      }
+    } finally {
+      if (actual != null) actual.delete();
+    }
+  }
+
+  @Test(expected = H2OIllegalArgumentException.class)
+  public void testRowFilterOnUnselectedColumn() throws IOException {
+    File f = ParquetFileGenerator.generateParquetFile(Files.createTempDir(), "filtered.parquet", 10, new Date());
+    NFSFileVec nfs = NFSFileVec.make(f);
+    try {
+      Key[] keys = new Key[]{nfs._key};
+      ParseSetup guessedSetup = ParseSetup.guessSetup(keys, false, ParseSetup.GUESS_HEADER);
+      guessedSetup._selected_columns = ar("double_field");
+      guessedSetup._row_filters = new RowFilter[]{RowFilter.range("int32_field", 0, 10)};
+      ParseDataset.parse(Key.make(), keys, true, guessedSetup);
+    } finally {
+      nfs.remove();
+    }
+  }
+
 }
 
 class ParquetFileGenerator {
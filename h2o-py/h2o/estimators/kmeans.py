@@ -27,8 +27,8 @@ class H2OKMeansEstimator(H2OEstimator):
         names_list = {"model_id", "training_frame", "validation_frame", "nfolds", "keep_cross_validation_models",
                       "keep_cross_validation_predictions", "keep_cross_validation_fold_assignment", "fold_assignment",
                       "fold_column", "ignored_columns", "ignore_const_cols", "score_each_iteration", "k", "estimate_k",
-                      "user_points", "max_iterations", "standardize", "seed", "init", "max_runtime_secs",
-                      "categorical_encoding"}
+                      "user_points", "max_iterations", "standardize", "seed", "init", "algorithm", "batch_fraction",
+                      "max_runtime_secs", "categorical_encoding"}
         if "Lambda" in kwargs: kwargs["lambda_"] = kwargs.pop("Lambda")
         for pname, pvalue in kwargs.items():
             if pname == 'model_id':
@@ -314,6 +314,37 @@ class H2OKMeansEstimator(H2OEstimator):
         self._parms["init"] = init
 
 
+    @property
+    def algorithm(self):
+        """
+        Training algorithm: Lloyds; Hamerly, Lloyds skipping the distances that bounds kept per row rule out; or
+        MiniBatch, which moves the centers by a sample of the chunks per iteration
+
+        One of: ``"lloyds"``, ``"hamerly"``, ``"mini_batch"``  (default: ``"lloyds"``).
+        """
+        return self._parms.get("algorithm")
+
+    @algorithm.setter
+    def algorithm(self, algorithm):
+        assert_is_type(algorithm, None, Enum("lloyds", "hamerly", "mini_batch"))
+        self._parms["algorithm"] = algorithm
+
+
+    @property
+    def batch_fraction(self):
+        """
+        Fraction of the chunks sampled per MiniBatch iteration
+
+        Type: ``float``  (default: ``0.1``).
+        """
+        return self._parms.get("batch_fraction")
+
+    @batch_fraction.setter
+    def batch_fraction(self, batch_fraction):
+        assert_is_type(batch_fraction, None, numeric)
+        self._parms["batch_fraction"] = batch_fraction
+
+
     @property
     def max_runtime_secs(self):
         """
@@ -1942,6 +1942,9 @@ class H2OFrame(object):
          in your frames.  If there are duplicated rows in your rite frame, they will not be included if you use
         the hash method.  The hash method cannot perform merge if you have string columns in your left frame.
         Hence, we consider the radix method superior to the hash method and is the default method to use.
+        The broadcast method copies a small right frame (64MB at most, with no string key columns) to every node
+        and joins it there without sorting either frame: the rows come in the order of the left frame rather than
+        sorted by key.  A larger right frame is merged with the radix method.
 
         :param H2OFrame other: The frame to merge to the current one. By default, must have at least one column in common with
             this frame, and all columns in common are used as the merge key.  If you want to use only a subset of the
@@ -1951,7 +1954,7 @@ class H2OFrame(object):
         :param by_x: list of columns in the current frame to use as a merge key.
         :param by_y: list of columns in the ``other`` frame to use as a merge key. Should have the same number of
             columns as in the ``by_x`` list.
-        :param method: string representing the merge method, one of auto(default), radix or hash.
+        :param method: string representing the merge method, one of auto(default), radix, hash or broadcast.
 
         :returns: New H2OFrame with the result of merging the current frame with the ``other`` frame.
         """